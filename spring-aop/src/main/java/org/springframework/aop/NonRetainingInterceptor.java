@@ -0,0 +1,35 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop;
+
+/**
+ * Marker for interceptors that never keep a reference to the
+ * {@link org.aopalliance.intercept.MethodInvocation} after returning from
+ * their {@code invoke} method, neither themselves nor through any advice,
+ * callback or thread that they hand the invocation to.
+ *
+ * <p>AOP proxies that {@link org.springframework.aop.framework.ProxyConfig#setReuseInvocations
+ * reuse invocation objects} only do so for methods whose interceptor chain
+ * consists of interceptors with this marker, and fall back to a new
+ * invocation per call otherwise.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ */
+public interface NonRetainingInterceptor {
+
+}
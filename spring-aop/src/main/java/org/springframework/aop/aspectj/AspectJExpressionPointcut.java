@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,10 +18,15 @@ package org.springframework.aop.aspectj;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -29,6 +34,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.aspectj.weaver.internal.tools.PointcutExpressionImpl;
+import org.aspectj.weaver.patterns.AndPointcut;
+import org.aspectj.weaver.patterns.AnnotationPointcut;
 import org.aspectj.weaver.patterns.NamePattern;
 import org.aspectj.weaver.reflect.ReflectionWorld.ReflectionWorldException;
 import org.aspectj.weaver.reflect.ShadowMatchImpl;
@@ -61,6 +69,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -121,6 +130,15 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 
 	private transient Map<Method, ShadowMatch> shadowMatchCache = new ConcurrentHashMap<>(32);
 
+	/**
+	 * Annotation types that a method needs to declare for this pointcut to match,
+	 * for rejecting classes without such methods before any shadow matching.
+	 */
+	private transient Set<Class<? extends Annotation>> requiredMethodAnnotations = Collections.emptySet();
+
+	/** Whether the expression uses the {@code bean()} designator. */
+	private transient volatile boolean beanDesignatorUsed;
+
 
 	/**
 	 * Create a new default AspectJExpressionPointcut.
@@ -195,7 +213,9 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		}
 		if (this.pointcutExpression == null) {
 			this.pointcutClassLoader = determinePointcutClassLoader();
-			this.pointcutExpression = buildPointcutExpression(this.pointcutClassLoader);
+			PointcutExpression pointcutExpression = buildPointcutExpression(this.pointcutClassLoader);
+			this.requiredMethodAnnotations = determineRequiredMethodAnnotations(pointcutExpression);
+			this.pointcutExpression = pointcutExpression;
 		}
 		return this.pointcutExpression;
 	}
@@ -228,6 +248,48 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 				this.pointcutDeclarationScope, pointcutParameters);
 	}
 
+	/**
+	 * Determine the annotation types that the given expression requires on a
+	 * method through top-level {@code @annotation} conjuncts. Only runtime-retained
+	 * annotation types are considered, since other ones cannot be checked via
+	 * reflection.
+	 */
+	private Set<Class<? extends Annotation>> determineRequiredMethodAnnotations(PointcutExpression expression) {
+		if (!(expression instanceof PointcutExpressionImpl)) {
+			return Collections.emptySet();
+		}
+		Set<Class<? extends Annotation>> annotationTypes = new LinkedHashSet<>();
+		try {
+			collectRequiredMethodAnnotations(
+					((PointcutExpressionImpl) expression).getUnderlyingPointcut(), annotationTypes);
+		}
+		catch (Throwable ex) {
+			logger.debug("Failed to introspect AspectJ pointcut for required method annotations", ex);
+			return Collections.emptySet();
+		}
+		return annotationTypes;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void collectRequiredMethodAnnotations(
+			org.aspectj.weaver.patterns.Pointcut pointcut, Set<Class<? extends Annotation>> annotationTypes) {
+
+		if (pointcut instanceof AndPointcut) {
+			collectRequiredMethodAnnotations(((AndPointcut) pointcut).getLeft(), annotationTypes);
+			collectRequiredMethodAnnotations(((AndPointcut) pointcut).getRight(), annotationTypes);
+		}
+		else if (pointcut instanceof AnnotationPointcut) {
+			String typeName = ((AnnotationPointcut) pointcut).getAnnotationTypePattern().getAnnotationType().getName();
+			if (ClassUtils.isPresent(typeName, this.pointcutClassLoader)) {
+				Class<?> type = ClassUtils.resolveClassName(typeName, this.pointcutClassLoader);
+				Retention retention = type.getAnnotation(Retention.class);
+				if (type.isAnnotation() && retention != null && retention.value() == RetentionPolicy.RUNTIME) {
+					annotationTypes.add((Class<? extends Annotation>) type);
+				}
+			}
+		}
+	}
+
 	private String resolveExpression() {
 		String expression = getExpression();
 		Assert.state(expression != null, "No expression set");
@@ -267,9 +329,25 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		return obtainPointcutExpression();
 	}
 
+	/**
+	 * Return whether the expression uses the Spring-specific {@code bean()}
+	 * designator, i.e. whether matching depends on the name of the currently
+	 * proxied bean and its definition in the containing bean factory.
+	 * @since 5.1.14
+	 * @see ProxyCreationContext#getCurrentProxiedBeanName()
+	 */
+	public boolean usesBeanDesignator() {
+		obtainPointcutExpression();
+		return this.beanDesignatorUsed;
+	}
+
 	@Override
 	public boolean matches(Class<?> targetClass) {
 		PointcutExpression pointcutExpression = obtainPointcutExpression();
+		if (!this.requiredMethodAnnotations.isEmpty() && !declaresRequiredMethodAnnotations(targetClass)) {
+			// No method carries the annotations required by the expression
+			return false;
+		}
 		try {
 			try {
 				return pointcutExpression.couldMatchJoinPointsInType(targetClass);
@@ -289,6 +367,34 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		return false;
 	}
 
+	/**
+	 * Check whether any method of the given class or its interfaces declares all
+	 * of the {@link #requiredMethodAnnotations}, considering the same methods as
+	 * {@link AopUtils#canApply(org.springframework.aop.Pointcut, Class)}.
+	 */
+	private boolean declaresRequiredMethodAnnotations(Class<?> targetClass) {
+		Set<Class<?>> classes = new LinkedHashSet<>();
+		if (!Proxy.isProxyClass(targetClass)) {
+			classes.add(ClassUtils.getUserClass(targetClass));
+		}
+		classes.addAll(ClassUtils.getAllInterfacesForClassAsSet(targetClass));
+		for (Class<?> clazz : classes) {
+			for (Method method : ReflectionUtils.getAllDeclaredMethods(clazz)) {
+				boolean declaresAll = true;
+				for (Class<? extends Annotation> annotationType : this.requiredMethodAnnotations) {
+					if (!method.isAnnotationPresent(annotationType)) {
+						declaresAll = false;
+						break;
+					}
+				}
+				if (declaresAll) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public boolean matches(Method method, Class<?> targetClass, boolean hasIntroductions) {
 		obtainPointcutExpression();
@@ -577,6 +683,7 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		// Initialize transient fields.
 		// pointcutExpression will be initialized lazily by checkReadyToMatch()
 		this.shadowMatchCache = new ConcurrentHashMap<>(32);
+		this.requiredMethodAnnotations = Collections.emptySet();
 	}
 
 
@@ -599,6 +706,7 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 
 		@Override
 		public ContextBasedMatcher parse(String expression) {
+			beanDesignatorUsed = true;
 			return new BeanContextMatcher(expression);
 		}
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,7 +25,10 @@ import org.aspectj.util.PartialOrder;
 import org.aspectj.util.PartialOrder.PartialComparable;
 
 import org.springframework.aop.Advisor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.PointcutAdvisor;
 import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
 import org.springframework.aop.aspectj.AspectJPointcutAdvisor;
 import org.springframework.aop.aspectj.AspectJProxyUtils;
 import org.springframework.aop.framework.autoproxy.AbstractAdvisorAutoProxyCreator;
@@ -95,6 +98,22 @@ public class AspectJAwareAdvisorAutoProxyCreator extends AbstractAdvisorAutoProx
 		AspectJProxyUtils.makeAdvisorChainAspectJCapableIfNecessary(candidateAdvisors);
 	}
 
+	/**
+	 * Accepts Advisors with an {@link AspectJExpressionPointcut} for parallel matching,
+	 * unless the pointcut expression uses the {@code bean()} designator.
+	 * @since 5.1.14
+	 * @see #setParallelAdvisorMatching
+	 */
+	@Override
+	protected boolean isParallelMatchingCandidate(Advisor advisor) {
+		if (advisor instanceof PointcutAdvisor) {
+			Pointcut pointcut = ((PointcutAdvisor) advisor).getPointcut();
+			return (pointcut instanceof AspectJExpressionPointcut &&
+					!((AspectJExpressionPointcut) pointcut).usesBeanDesignator());
+		}
+		return false;
+	}
+
 	@Override
 	protected boolean shouldSkip(Class<?> beanClass, String beanName) {
 		// TODO: Consider optimization by caching the list of the aspect names
@@ -22,6 +22,7 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -83,6 +84,10 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	/** Cache with Method as key and advisor chain List as value. */
 	private transient Map<MethodCacheKey, List<Object>> methodCache;
 
+	/** Table with the advisor chains of all proxied methods, if precomputed. */
+	@Nullable
+	private transient volatile InterceptorChainTable interceptorChainTable;
+
 	/**
 	 * Interfaces to be implemented by the proxy. Held in List to keep the order
 	 * of registration, to create JDK proxy with specified order of interfaces.
@@ -477,6 +482,13 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	 * @return a List of MethodInterceptors (may also include InterceptorAndDynamicMethodMatchers)
 	 */
 	public List<Object> getInterceptorsAndDynamicInterceptionAdvice(Method method, @Nullable Class<?> targetClass) {
+		InterceptorChainTable chainTable = this.interceptorChainTable;
+		if (chainTable != null) {
+			List<Object> chain = chainTable.get(method);
+			if (chain != null) {
+				return chain;
+			}
+		}
 		MethodCacheKey cacheKey = new MethodCacheKey(method);
 		List<Object> cached = this.methodCache.get(cacheKey);
 		if (cached == null) {
@@ -487,11 +499,46 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 		return cached;
 	}
 
+	/**
+	 * Determine the interceptor chains of all methods proxied for this
+	 * configuration upfront, if it is {@link #isFrozen() frozen} and
+	 * {@link #isPrecomputeInterceptorChains() precomputation} is requested.
+	 * <p>Covers the public methods of the given proxy superclass as well as
+	 * the methods of all proxied interfaces. Their chains are subsequently
+	 * looked up from a fixed table; any other method keeps being resolved
+	 * lazily through the method cache.
+	 * @param proxySuperClass the class that a CGLIB proxy extends,
+	 * or {@code null} for a JDK proxy
+	 * @since 5.1.14
+	 */
+	void precomputeInterceptorChains(@Nullable Class<?> proxySuperClass) {
+		if (!isFrozen() || !isPrecomputeInterceptorChains() || this.interceptorChainTable != null) {
+			return;
+		}
+		List<Method> methods = new ArrayList<>();
+		if (proxySuperClass != null) {
+			Collections.addAll(methods, proxySuperClass.getMethods());
+		}
+		for (Class<?> ifc : this.interfaces) {
+			Collections.addAll(methods, ifc.getMethods());
+		}
+		Class<?> targetClass = getTargetClass();
+		InterceptorChainTable chainTable = new InterceptorChainTable(methods.size());
+		for (Method method : methods) {
+			if (chainTable.get(method) == null) {
+				chainTable.put(method, this.advisorChainFactory.getInterceptorsAndDynamicInterceptionAdvice(
+						this, method, targetClass));
+			}
+		}
+		this.interceptorChainTable = chainTable;
+	}
+
 	/**
 	 * Invoked when advice has changed.
 	 */
 	protected void adviceChanged() {
 		this.methodCache.clear();
+		this.interceptorChainTable = null;
 	}
 
 	/**
@@ -617,4 +664,56 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 		}
 	}
 
+
+	/**
+	 * Open-addressing table from Method to advisor chain List, populated once
+	 * before publication and read without any locking or key allocation.
+	 * Lookups accept equal Method instances, since JDK and CGLIB proxies
+	 * pass Method objects of their own.
+	 */
+	private static final class InterceptorChainTable {
+
+		private final Method[] methods;
+
+		private final Object[] chains;
+
+		private final int mask;
+
+		public InterceptorChainTable(int expectedSize) {
+			// Keep the load factor at or below 0.5
+			int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 1)) << 1;
+			this.methods = new Method[capacity];
+			this.chains = new Object[capacity];
+			this.mask = capacity - 1;
+		}
+
+		public void put(Method method, List<Object> chain) {
+			int index = indexFor(method);
+			while (this.methods[index] != null) {
+				index = (index + 1) & this.mask;
+			}
+			this.methods[index] = method;
+			this.chains[index] = chain;
+		}
+
+		@Nullable
+		@SuppressWarnings("unchecked")
+		public List<Object> get(Method method) {
+			int index = indexFor(method);
+			Method candidate;
+			while ((candidate = this.methods[index]) != null) {
+				if (candidate == method || candidate.equals(method)) {
+					return (List<Object>) this.chains[index];
+				}
+				index = (index + 1) & this.mask;
+			}
+			return null;
+		}
+
+		private int indexFor(Method method) {
+			int hash = method.hashCode();
+			return (hash ^ (hash >>> 16)) & this.mask;
+		}
+	}
+
 }
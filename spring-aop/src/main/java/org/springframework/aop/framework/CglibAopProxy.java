@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -191,6 +191,9 @@ class CglibAopProxy implements AopProxy, Serializable {
 			enhancer.setNamingPolicy(SpringNamingPolicy.INSTANCE);
 			enhancer.setStrategy(new ClassLoaderAwareUndeclaredThrowableStrategy(classLoader));
 
+			// Determine all interceptor chains upfront if requested for a frozen configuration.
+			this.advised.precomputeInterceptorChains(rootClass);
+
 			Callback[] callbacks = getCallbacks(rootClass);
 			Class<?>[] types = new Class<?>[callbacks.length];
 			for (int x = 0; x < types.length; x++) {
@@ -330,7 +333,8 @@ class CglibAopProxy implements AopProxy, Serializable {
 				Method method = methods[x];
 				List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, rootClass);
 				fixedCallbacks[x] = new FixedChainStaticTargetInterceptor(
-						chain, this.advised.getTargetSource().getTarget(), this.advised.getTargetClass());
+						chain, this.advised.getTargetSource().getTarget(), this.advised.getTargetClass(),
+						this.advised.isGenerateInvocations(), this.advised.isReuseInvocations());
 				this.fixedInterceptorMap.put(methods.toString(), x);
 			}
 
@@ -395,6 +399,25 @@ class CglibAopProxy implements AopProxy, Serializable {
 		return returnValue;
 	}
 
+	/**
+	 * Proceed through the given interceptor chain with a reusable invocation,
+	 * releasing the invocation afterwards.
+	 */
+	@Nullable
+	private static Object proceedWithReusableInvocation(Object proxy, @Nullable Object target, Method method,
+			Object[] args, @Nullable Class<?> targetClass, List<Object> chain, MethodProxy methodProxy)
+			throws Throwable {
+
+		ReusableMethodInvocation invocation =
+				ReusableMethodInvocation.obtain(proxy, target, method, args, targetClass, chain, methodProxy);
+		try {
+			return invocation.proceed();
+		}
+		finally {
+			invocation.release();
+		}
+	}
+
 
 	/**
 	 * Serializable replacement for CGLIB's NoOp interface.
@@ -623,21 +646,38 @@ class CglibAopProxy implements AopProxy, Serializable {
 		@Nullable
 		private final Class<?> targetClass;
 
-		public FixedChainStaticTargetInterceptor(
-				List<Object> adviceChain, @Nullable Object target, @Nullable Class<?> targetClass) {
+		private final boolean generateInvocations;
+
+		private final boolean reuseInvocations;
+
+		public FixedChainStaticTargetInterceptor(List<Object> adviceChain, @Nullable Object target,
+				@Nullable Class<?> targetClass, boolean generateInvocations, boolean reuseInvocations) {
 
 			this.adviceChain = adviceChain;
 			this.target = target;
 			this.targetClass = targetClass;
+			this.generateInvocations = generateInvocations;
+			this.reuseInvocations = (reuseInvocations && ReusableMethodInvocation.isReusable(adviceChain));
 		}
 
 		@Override
 		@Nullable
 		public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
-			MethodInvocation invocation = new CglibMethodInvocation(
-					proxy, this.target, method, args, this.targetClass, this.adviceChain, methodProxy);
+			MethodInvocation invocation = (this.generateInvocations ? MethodInvocationGenerator.newInvocation(
+					proxy, this.target, method, args, this.targetClass, this.adviceChain) : null);
 			// If we get here, we need to create a MethodInvocation.
-			Object retVal = invocation.proceed();
+			Object retVal;
+			if (invocation != null) {
+				retVal = invocation.proceed();
+			}
+			else if (this.reuseInvocations) {
+				retVal = proceedWithReusableInvocation(
+						proxy, this.target, method, args, this.targetClass, this.adviceChain, methodProxy);
+			}
+			else {
+				retVal = new CglibMethodInvocation(
+						proxy, this.target, method, args, this.targetClass, this.adviceChain, methodProxy).proceed();
+			}
 			retVal = processReturnType(proxy, this.target, method, retVal);
 			return retVal;
 		}
@@ -686,7 +726,18 @@ class CglibAopProxy implements AopProxy, Serializable {
 				}
 				else {
 					// We need to create a method invocation...
-					retVal = new CglibMethodInvocation(proxy, target, method, args, targetClass, chain, methodProxy).proceed();
+					MethodInvocation invocation = (this.advised.isGenerateInvocations() ?
+							MethodInvocationGenerator.newInvocation(proxy, target, method, args, targetClass, chain) : null);
+					if (invocation != null) {
+						retVal = invocation.proceed();
+					}
+					else if (this.advised.isReuseInvocations() && ReusableMethodInvocation.isReusable(chain)) {
+						retVal = proceedWithReusableInvocation(proxy, target, method, args, targetClass, chain, methodProxy);
+					}
+					else {
+						retVal = new CglibMethodInvocation(
+								proxy, target, method, args, targetClass, chain, methodProxy).proceed();
+					}
 				}
 				retVal = processReturnType(proxy, target, method, retVal);
 				return retVal;
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Base class for the {@link ReflectiveMethodInvocation} subclasses that
+ * {@link MethodInvocationGenerator} generates per advised method when
+ * {@link ProxyConfig#setGenerateInvocations "generateInvocations"} is active.
+ *
+ * <p>Generated subclasses invoke the target method directly instead of
+ * through reflection, and dispatch to each position in the interceptor chain
+ * through a call site of its own, allowing the JIT compiler to inline the
+ * interceptors of a given method instead of sharing one megamorphic call
+ * site with all advised methods.
+ *
+ * <p><b>NOTE:</b> This class is considered internal and should not be
+ * directly accessed. It is only public for generated subclasses to be
+ * defined in the ClassLoader of the advised class.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ */
+public abstract class GeneratedMethodInvocation extends ReflectiveMethodInvocation {
+
+	@Nullable
+	private final Class<?> targetClass;
+
+	private int currentInterceptorIndex = -1;
+
+
+	/**
+	 * Construct a new GeneratedMethodInvocation with the given arguments.
+	 * @see ReflectiveMethodInvocation#ReflectiveMethodInvocation
+	 */
+	protected GeneratedMethodInvocation(
+			Object proxy, @Nullable Object target, Method method, @Nullable Object[] arguments,
+			@Nullable Class<?> targetClass, List<Object> interceptorsAndDynamicMethodMatchers) {
+
+		super(proxy, target, method, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+		this.targetClass = targetClass;
+	}
+
+
+	@Override
+	@Nullable
+	public Object proceed() throws Throwable {
+		// We start with an index of -1 and increment early.
+		int index = ++this.currentInterceptorIndex;
+		if (index == this.interceptorsAndDynamicMethodMatchers.size()) {
+			return invokeJoinpoint();
+		}
+		return invokeInterceptor(index);
+	}
+
+	/**
+	 * Invoke the interceptor at the given position in the chain.
+	 * <p>Generated subclasses override this method with a dedicated call site
+	 * per position, delegating to this implementation for positions beyond the
+	 * chain length they have been generated for.
+	 * @param index the position in the interceptor chain
+	 * @return the return value of the interceptor
+	 * @throws Throwable if thrown by the interceptor
+	 */
+	@Nullable
+	protected Object invokeInterceptor(int index) throws Throwable {
+		MethodInterceptor interceptor = getInterceptor(index);
+		return (interceptor != null ? interceptor.invoke(this) : proceed());
+	}
+
+	/**
+	 * Return the interceptor at the given position in the chain, evaluating
+	 * its dynamic method matcher if necessary.
+	 * @param index the position in the interceptor chain
+	 * @return the interceptor, or {@code null} if dynamic matching failed
+	 * and the interceptor is to be skipped
+	 */
+	@Nullable
+	protected final MethodInterceptor getInterceptor(int index) {
+		Object interceptorOrInterceptionAdvice = this.interceptorsAndDynamicMethodMatchers.get(index);
+		if (interceptorOrInterceptionAdvice instanceof InterceptorAndDynamicMethodMatcher) {
+			// Evaluate dynamic method matcher here: static part will already have
+			// been evaluated and found to match.
+			InterceptorAndDynamicMethodMatcher dm =
+					(InterceptorAndDynamicMethodMatcher) interceptorOrInterceptionAdvice;
+			Class<?> targetClass = (this.targetClass != null ? this.targetClass : this.method.getDeclaringClass());
+			return (dm.methodMatcher.matches(this.method, targetClass, this.arguments) ? dm.interceptor : null);
+		}
+		return (MethodInterceptor) interceptorOrInterceptionAdvice;
+	}
+
+
+	/**
+	 * Factory for the generated invocation class of a specific method,
+	 * avoiding reflective instantiation per call.
+	 */
+	public interface Factory {
+
+		/**
+		 * Create a new invocation with the given arguments.
+		 * @see GeneratedMethodInvocation#GeneratedMethodInvocation
+		 */
+		GeneratedMethodInvocation newInvocation(
+				Object proxy, @Nullable Object target, Method method, @Nullable Object[] arguments,
+				@Nullable Class<?> targetClass, List<Object> interceptorsAndDynamicMethodMatchers);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -120,6 +120,7 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 		}
 		Class<?>[] proxiedInterfaces = AopProxyUtils.completeProxiedInterfaces(this.advised, true);
 		findDefinedEqualsAndHashCodeMethods(proxiedInterfaces);
+		this.advised.precomputeInterceptorChains(null);
 		return Proxy.newProxyInstance(classLoader, proxiedInterfaces, this);
 	}
 
@@ -206,10 +207,26 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 			}
 			else {
 				// We need to create a method invocation...
-				MethodInvocation invocation =
-						new ReflectiveMethodInvocation(proxy, target, method, args, targetClass, chain);
-				// Proceed to the joinpoint through the interceptor chain.
-				retVal = invocation.proceed();
+				MethodInvocation invocation = (this.advised.isGenerateInvocations() ?
+						MethodInvocationGenerator.newInvocation(proxy, target, method, args, targetClass, chain) : null);
+				if (invocation != null) {
+					retVal = invocation.proceed();
+				}
+				else if (this.advised.isReuseInvocations() && ReusableMethodInvocation.isReusable(chain)) {
+					ReusableMethodInvocation reusableInvocation =
+							ReusableMethodInvocation.obtain(proxy, target, method, args, targetClass, chain, null);
+					try {
+						retVal = reusableInvocation.proceed();
+					}
+					finally {
+						reusableInvocation.release();
+					}
+				}
+				else {
+					invocation = new ReflectiveMethodInvocation(proxy, target, method, args, targetClass, chain);
+					// Proceed to the joinpoint through the interceptor chain.
+					retVal = invocation.proceed();
+				}
 			}
 
 			// Massage return value if necessary.
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.cglib.core.ReflectUtils;
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.GeneratedClassCache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Generates a {@link GeneratedMethodInvocation} subclass per advised method,
+ * along with a {@link GeneratedMethodInvocation.Factory} for instantiating it.
+ *
+ * <p>Generated classes are defined in the ClassLoader of the method's declaring
+ * class. Methods that cannot be invoked from generated code in that ClassLoader,
+ * e.g. non-public methods or methods with non-public parameter types, are left
+ * to the regular {@link ReflectiveMethodInvocation} variants.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ * @see ProxyConfig#setGenerateInvocations
+ */
+final class MethodInvocationGenerator {
+
+	private static final String INVOCATION_SUFFIX = "$$SpringInvocation$$";
+
+	private static final String FACTORY_SUFFIX = "$$SpringInvocationFactory$$";
+
+	private static final String BASE_CLASS = Type.getInternalName(GeneratedMethodInvocation.class);
+
+	private static final String FACTORY_INTERFACE = Type.getInternalName(GeneratedMethodInvocation.Factory.class);
+
+	private static final String CONSTRUCTOR_DESCRIPTOR = "(Ljava/lang/Object;Ljava/lang/Object;" +
+			"Ljava/lang/reflect/Method;[Ljava/lang/Object;Ljava/lang/Class;Ljava/util/List;)V";
+
+	private static final String INTERCEPTOR_CLASS = "org/aopalliance/intercept/MethodInterceptor";
+
+	private static final Log logger = LogFactory.getLog(MethodInvocationGenerator.class);
+
+	private static final GeneratedClassCache<Method, GeneratedMethodInvocation.Factory> factoryCache =
+			new GeneratedClassCache<>();
+
+	private static final AtomicInteger classCounter = new AtomicInteger();
+
+
+	private MethodInvocationGenerator() {
+	}
+
+
+	/**
+	 * Create a generated invocation for the given method, if possible.
+	 * @return the invocation, or {@code null} if the method cannot be
+	 * invoked from generated code
+	 * @see GeneratedMethodInvocation.Factory#newInvocation
+	 */
+	@Nullable
+	static ReflectiveMethodInvocation newInvocation(
+			Object proxy, @Nullable Object target, Method method, @Nullable Object[] arguments,
+			@Nullable Class<?> targetClass, List<Object> interceptorsAndDynamicMethodMatchers) {
+
+		Class<?> declaringClass = method.getDeclaringClass();
+		GeneratedMethodInvocation.Factory factory = factoryCache.get(declaringClass, method);
+		if (factory == null) {
+			int chainLength = interceptorsAndDynamicMethodMatchers.size();
+			factory = factoryCache.obtain(declaringClass, method, MethodInvocationGenerator::resolveContextClass,
+					(key, contextClass) -> generateFactory(key, contextClass, chainLength));
+			if (factory == null) {
+				return null;
+			}
+		}
+		return factory.newInvocation(proxy, target, method, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+	}
+
+	/**
+	 * Determine the class to define generated classes alongside for methods
+	 * of the given declaring class.
+	 */
+	@Nullable
+	private static Class<?> resolveContextClass(Class<?> declaringClass) {
+		ClassLoader classLoader = declaringClass.getClassLoader();
+		if (classLoader == null || declaringClass.getName().startsWith("java.") ||
+				!ClassUtils.isVisible(GeneratedMethodInvocation.class, classLoader)) {
+			return (ClassUtils.isVisible(declaringClass, GeneratedMethodInvocation.class.getClassLoader()) ?
+					GeneratedMethodInvocation.class : null);
+		}
+		return declaringClass;
+	}
+
+	@Nullable
+	private static GeneratedMethodInvocation.Factory generateFactory(Method method, Class<?> contextClass, int chainLength) {
+		Method targetMethod = BridgeMethodResolver.findBridgedMethod(method);
+		if (!isInvocable(targetMethod)) {
+			return null;
+		}
+		ClassLoader classLoader = contextClass.getClassLoader();
+		int id = classCounter.incrementAndGet();
+		String invocationClassName = contextClass.getName() + INVOCATION_SUFFIX + id;
+		String factoryClassName = contextClass.getName() + FACTORY_SUFFIX + id;
+		try {
+			ReflectUtils.defineClass(invocationClassName,
+					generateInvocationClass(invocationClassName, targetMethod, chainLength),
+					classLoader, contextClass.getProtectionDomain(), contextClass);
+			Class<?> factoryClass = ReflectUtils.defineClass(factoryClassName,
+					generateFactoryClass(factoryClassName, invocationClassName),
+					classLoader, contextClass.getProtectionDomain(), contextClass);
+			return (GeneratedMethodInvocation.Factory) ReflectionUtils.accessibleConstructor(factoryClass).newInstance();
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to generate method invocation for " + method +
+						" - falling back to reflective invocation", ex);
+			}
+			return null;
+		}
+	}
+
+	private static boolean isInvocable(Method method) {
+		if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers()) ||
+				!isPublic(method.getDeclaringClass()) || !isPublic(method.getReturnType())) {
+			return false;
+		}
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			if (!isPublic(parameterType)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPublic(Class<?> type) {
+		Class<?> typeToCheck = type;
+		while (typeToCheck.isArray()) {
+			typeToCheck = typeToCheck.getComponentType();
+		}
+		return (typeToCheck.isPrimitive() || Modifier.isPublic(typeToCheck.getModifiers()));
+	}
+
+
+	private static byte[] generateInvocationClass(String className, Method method, int chainLength) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		String internalName = className.replace('.', '/');
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+				internalName, null, BASE_CLASS, null);
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, null, null);
+		mv.visitCode();
+		for (int i = 0; i <= 6; i++) {
+			mv.visitVarInsn(Opcodes.ALOAD, i);
+		}
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, BASE_CLASS, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// Direct invocation of the target method, unboxing the arguments
+		mv = cw.visitMethod(Opcodes.ACC_PROTECTED, "invokeJoinpoint", "()Ljava/lang/Object;",
+				null, new String[] {"java/lang/Throwable"});
+		mv.visitCode();
+		Class<?> declaringClass = method.getDeclaringClass();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BASE_CLASS, "getThis", "()Ljava/lang/Object;", false);
+		mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(declaringClass));
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BASE_CLASS, "getArguments", "()[Ljava/lang/Object;", false);
+			mv.visitLdcInsn(i);
+			mv.visitInsn(Opcodes.AALOAD);
+			unbox(mv, parameterTypes[i]);
+		}
+		boolean isInterface = declaringClass.isInterface();
+		mv.visitMethodInsn(isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL,
+				Type.getInternalName(declaringClass), method.getName(), Type.getMethodDescriptor(method), isInterface);
+		box(mv, method.getReturnType());
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// One call site per position in the interceptor chain
+		mv = cw.visitMethod(Opcodes.ACC_PROTECTED, "invokeInterceptor", "(I)Ljava/lang/Object;",
+				null, new String[] {"java/lang/Throwable"});
+		mv.visitCode();
+		Label defaultLabel = new Label();
+		Label[] labels = new Label[chainLength];
+		for (int i = 0; i < chainLength; i++) {
+			labels[i] = new Label();
+		}
+		if (chainLength > 0) {
+			mv.visitVarInsn(Opcodes.ILOAD, 1);
+			mv.visitTableSwitchInsn(0, chainLength - 1, defaultLabel, labels);
+		}
+		for (int i = 0; i < chainLength; i++) {
+			Label skipLabel = new Label();
+			mv.visitLabel(labels[i]);
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			mv.visitLdcInsn(i);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BASE_CLASS, "getInterceptor",
+					"(I)L" + INTERCEPTOR_CLASS + ";", false);
+			mv.visitInsn(Opcodes.DUP);
+			mv.visitJumpInsn(Opcodes.IFNULL, skipLabel);
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, INTERCEPTOR_CLASS, "invoke",
+					"(Lorg/aopalliance/intercept/MethodInvocation;)Ljava/lang/Object;", true);
+			mv.visitInsn(Opcodes.ARETURN);
+			// Dynamic matching failed: skip this interceptor and invoke the next in the chain.
+			mv.visitLabel(skipLabel);
+			mv.visitInsn(Opcodes.POP);
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BASE_CLASS, "proceed", "()Ljava/lang/Object;", false);
+			mv.visitInsn(Opcodes.ARETURN);
+		}
+		mv.visitLabel(defaultLabel);
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitVarInsn(Opcodes.ILOAD, 1);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, BASE_CLASS, "invokeInterceptor", "(I)Ljava/lang/Object;", false);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static byte[] generateFactoryClass(String className, String invocationClassName) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		String internalName = className.replace('.', '/');
+		String invocationInternalName = invocationClassName.replace('.', '/');
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+				internalName, null, "java/lang/Object", new String[] {FACTORY_INTERFACE});
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "newInvocation", "(Ljava/lang/Object;Ljava/lang/Object;" +
+				"Ljava/lang/reflect/Method;[Ljava/lang/Object;Ljava/lang/Class;Ljava/util/List;)L" + BASE_CLASS + ";",
+				null, null);
+		mv.visitCode();
+		mv.visitTypeInsn(Opcodes.NEW, invocationInternalName);
+		mv.visitInsn(Opcodes.DUP);
+		for (int i = 1; i <= 6; i++) {
+			mv.visitVarInsn(Opcodes.ALOAD, i);
+		}
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, invocationInternalName, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void unbox(MethodVisitor mv, Class<?> type) {
+		if (type.isPrimitive()) {
+			Type wrapperType = Type.getType(ClassUtils.resolvePrimitiveIfNecessary(type));
+			mv.visitTypeInsn(Opcodes.CHECKCAST, wrapperType.getInternalName());
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapperType.getInternalName(),
+					type.getName() + "Value", "()" + Type.getDescriptor(type), false);
+		}
+		else if (type != Object.class) {
+			mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+		}
+	}
+
+	private static void box(MethodVisitor mv, Class<?> type) {
+		if (type == void.class) {
+			mv.visitInsn(Opcodes.ACONST_NULL);
+		}
+		else if (type.isPrimitive()) {
+			Type wrapperType = Type.getType(ClassUtils.resolvePrimitiveIfNecessary(type));
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, wrapperType.getInternalName(), "valueOf",
+					"(" + Type.getDescriptor(type) + ")" + wrapperType.getDescriptor(), false);
+		}
+	}
+
+}
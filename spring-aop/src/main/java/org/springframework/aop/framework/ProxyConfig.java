@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -44,6 +44,12 @@ public class ProxyConfig implements Serializable {
 
 	private boolean frozen = false;
 
+	private boolean generateInvocations = false;
+
+	private boolean reuseInvocations = false;
+
+	private boolean precomputeInterceptorChains = false;
+
 
 	/**
 	 * Set whether to proxy the target class directly, instead of just proxying
@@ -147,6 +153,87 @@ public class ProxyConfig implements Serializable {
 	}
 
 
+	/**
+	 * Set whether proxies should invoke advised methods through method
+	 * invocation classes generated per method, instead of the reflective
+	 * {@link ReflectiveMethodInvocation}. Default is "false".
+	 * <p>A generated invocation calls the target method directly and gives each
+	 * position in the interceptor chain a call site of its own, which lets the
+	 * JIT compiler inline the interceptors of frequently called methods. This
+	 * comes at the expense of two generated classes per advised method.
+	 * Methods that generated code cannot access, e.g. non-public methods,
+	 * keep using the regular invocation.
+	 * @since 5.1.14
+	 * @see GeneratedMethodInvocation
+	 */
+	public void setGenerateInvocations(boolean generateInvocations) {
+		this.generateInvocations = generateInvocations;
+	}
+
+	/**
+	 * Return whether proxies should invoke advised methods through
+	 * generated method invocation classes.
+	 * @since 5.1.14
+	 */
+	public boolean isGenerateInvocations() {
+		return this.generateInvocations;
+	}
+
+
+	/**
+	 * Set whether proxies should reuse their method invocation objects for
+	 * subsequent calls on the same thread, instead of allocating a new
+	 * invocation per call. Default is "false".
+	 * <p>Only safe if no interceptor keeps a reference to the invocation after
+	 * returning, e.g. for proceeding asynchronously. Invocations are therefore
+	 * only reused for methods whose interceptors all implement the
+	 * {@link org.springframework.aop.NonRetainingInterceptor} marker, as e.g.
+	 * transaction and cache interceptors do. Any other method, as well as methods
+	 * served by {@link #setGenerateInvocations generated invocations}, gets a new
+	 * invocation per call.
+	 * @since 5.1.14
+	 * @see org.springframework.aop.NonRetainingInterceptor
+	 */
+	public void setReuseInvocations(boolean reuseInvocations) {
+		this.reuseInvocations = reuseInvocations;
+	}
+
+	/**
+	 * Return whether proxies should reuse their method invocation objects.
+	 * @since 5.1.14
+	 */
+	public boolean isReuseInvocations() {
+		return this.reuseInvocations;
+	}
+
+
+	/**
+	 * Set whether the interceptor chains of all proxied methods should be
+	 * determined eagerly when creating a proxy for a {@link #setFrozen frozen}
+	 * configuration. Default is "false", determining each method's chain on its
+	 * first invocation.
+	 * <p>Switch this flag to "true" to avoid pointcut matching on the first calls
+	 * after startup, at the expense of matching methods that may never be called.
+	 * The precomputed chains are kept in a fixed table which replaces the lookup
+	 * in the per-method cache. This setting has no effect on configurations that
+	 * are not frozen.
+	 * @since 5.1.14
+	 * @see AdvisedSupport#getInterceptorsAndDynamicInterceptionAdvice
+	 */
+	public void setPrecomputeInterceptorChains(boolean precomputeInterceptorChains) {
+		this.precomputeInterceptorChains = precomputeInterceptorChains;
+	}
+
+	/**
+	 * Return whether the interceptor chains of all proxied methods should be
+	 * determined eagerly for a frozen configuration.
+	 * @since 5.1.14
+	 */
+	public boolean isPrecomputeInterceptorChains() {
+		return this.precomputeInterceptorChains;
+	}
+
+
 	/**
 	 * Copy configuration from the other config object.
 	 * @param other object to copy configuration from
@@ -158,6 +245,9 @@ public class ProxyConfig implements Serializable {
 		this.exposeProxy = other.exposeProxy;
 		this.frozen = other.frozen;
 		this.opaque = other.opaque;
+		this.generateInvocations = other.generateInvocations;
+		this.reuseInvocations = other.reuseInvocations;
+		this.precomputeInterceptorChains = other.precomputeInterceptorChains;
 	}
 
 	@Override
@@ -167,7 +257,10 @@ public class ProxyConfig implements Serializable {
 		sb.append("optimize=").append(this.optimize).append("; ");
 		sb.append("opaque=").append(this.opaque).append("; ");
 		sb.append("exposeProxy=").append(this.exposeProxy).append("; ");
-		sb.append("frozen=").append(this.frozen);
+		sb.append("frozen=").append(this.frozen).append("; ");
+		sb.append("generateInvocations=").append(this.generateInvocations).append("; ");
+		sb.append("reuseInvocations=").append(this.reuseInvocations).append("; ");
+		sb.append("precomputeInterceptorChains=").append(this.precomputeInterceptorChains);
 		return sb.toString();
 	}
 
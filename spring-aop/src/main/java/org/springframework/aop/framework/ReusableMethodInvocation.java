@@ -0,0 +1,359 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import org.springframework.aop.NonRetainingInterceptor;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.cglib.proxy.MethodProxy;
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Counterpart of {@link ReflectiveMethodInvocation} that gets reused for
+ * subsequent calls on the same thread, avoiding an allocation per call
+ * when {@link ProxyConfig#setReuseInvocations "reuseInvocations"} is active.
+ *
+ * <p>Each thread keeps a stack of invocation objects, one per nesting level
+ * of proxy calls. An invocation is {@link #release() released} and reset
+ * once the proxy call returns; clones created through {@link #invocableClone}
+ * are independent copies that never get reused. Only used for interceptor
+ * chains that consist of {@link NonRetainingInterceptor}s.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ * @see NonRetainingInterceptor
+ */
+final class ReusableMethodInvocation implements ProxyMethodInvocation {
+
+	/** Maximum nesting level of reused invocations per thread. */
+	private static final int MAX_DEPTH = 16;
+
+	private static final Object[] EMPTY_ARGUMENTS = new Object[0];
+
+	private static final ThreadLocal<InvocationStack> invocationStacks =
+			new NamedThreadLocal<InvocationStack>("Reusable AOP method invocations") {
+				@Override
+				protected InvocationStack initialValue() {
+					return new InvocationStack();
+				}
+			};
+
+
+	@Nullable
+	private final InvocationStack stack;
+
+	@Nullable
+	private Object proxy;
+
+	@Nullable
+	private Object target;
+
+	@Nullable
+	private Method method;
+
+	private Object[] arguments = EMPTY_ARGUMENTS;
+
+	@Nullable
+	private Class<?> targetClass;
+
+	@Nullable
+	private Map<String, Object> userAttributes;
+
+	private List<?> interceptorsAndDynamicMethodMatchers = Collections.emptyList();
+
+	private int currentInterceptorIndex = -1;
+
+	@Nullable
+	private MethodProxy methodProxy;
+
+	private boolean active;
+
+
+	private ReusableMethodInvocation(@Nullable InvocationStack stack) {
+		this.stack = stack;
+	}
+
+
+	/**
+	 * Determine whether invocations for the given interceptor chain may be reused,
+	 * i.e. whether all of the interceptors are known to not retain the invocation.
+	 * @param interceptorsAndDynamicMethodMatchers the interceptor chain
+	 * @see NonRetainingInterceptor
+	 */
+	static boolean isReusable(List<?> interceptorsAndDynamicMethodMatchers) {
+		for (Object interceptorOrInterceptionAdvice : interceptorsAndDynamicMethodMatchers) {
+			Object interceptor = (interceptorOrInterceptionAdvice instanceof InterceptorAndDynamicMethodMatcher ?
+					((InterceptorAndDynamicMethodMatcher) interceptorOrInterceptionAdvice).interceptor :
+					interceptorOrInterceptionAdvice);
+			if (!(interceptor instanceof NonRetainingInterceptor)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Obtain an invocation for the current thread, initialized with the given arguments.
+	 * The invocation needs to be {@link #release() released} after proceeding.
+	 * @param methodProxy the CGLIB MethodProxy for invoking the target, if any
+	 * @see ReflectiveMethodInvocation#ReflectiveMethodInvocation
+	 */
+	static ReusableMethodInvocation obtain(Object proxy, @Nullable Object target, Method method,
+			@Nullable Object[] arguments, @Nullable Class<?> targetClass,
+			List<Object> interceptorsAndDynamicMethodMatchers, @Nullable MethodProxy methodProxy) {
+
+		ReusableMethodInvocation invocation = invocationStacks.get().push();
+		invocation.proxy = proxy;
+		invocation.target = target;
+		invocation.targetClass = targetClass;
+		invocation.method = BridgeMethodResolver.findBridgedMethod(method);
+		invocation.arguments = AopProxyUtils.adaptArgumentsIfNecessary(method, arguments);
+		invocation.interceptorsAndDynamicMethodMatchers = interceptorsAndDynamicMethodMatchers;
+		// Only use method proxy for public methods not derived from java.lang.Object
+		invocation.methodProxy = (methodProxy != null && Modifier.isPublic(method.getModifiers()) &&
+				method.getDeclaringClass() != Object.class && !AopUtils.isEqualsMethod(method) &&
+				!AopUtils.isHashCodeMethod(method) && !AopUtils.isToStringMethod(method) ?
+				methodProxy : null);
+		invocation.active = true;
+		return invocation;
+	}
+
+	/**
+	 * Release this invocation for reuse by a subsequent call,
+	 * clearing all references to the current call.
+	 */
+	void release() {
+		this.proxy = null;
+		this.target = null;
+		this.targetClass = null;
+		this.method = null;
+		this.arguments = EMPTY_ARGUMENTS;
+		this.interceptorsAndDynamicMethodMatchers = Collections.emptyList();
+		this.userAttributes = null;
+		this.currentInterceptorIndex = -1;
+		this.methodProxy = null;
+		this.active = false;
+		if (this.stack != null) {
+			this.stack.pop(this);
+		}
+	}
+
+
+	@Override
+	public Object getProxy() {
+		Assert.state(this.proxy != null, "MethodInvocation has already completed");
+		return this.proxy;
+	}
+
+	@Override
+	@Nullable
+	public Object getThis() {
+		return this.target;
+	}
+
+	@Override
+	public AccessibleObject getStaticPart() {
+		return getMethod();
+	}
+
+	@Override
+	public Method getMethod() {
+		Assert.state(this.method != null, "MethodInvocation has already completed");
+		return this.method;
+	}
+
+	@Override
+	public Object[] getArguments() {
+		return this.arguments;
+	}
+
+	@Override
+	public void setArguments(Object... arguments) {
+		this.arguments = arguments;
+	}
+
+
+	@Override
+	@Nullable
+	public Object proceed() throws Throwable {
+		Assert.state(this.active, "MethodInvocation has already completed");
+		// We start with an index of -1 and increment early.
+		if (this.currentInterceptorIndex == this.interceptorsAndDynamicMethodMatchers.size() - 1) {
+			return invokeJoinpoint();
+		}
+
+		Object interceptorOrInterceptionAdvice =
+				this.interceptorsAndDynamicMethodMatchers.get(++this.currentInterceptorIndex);
+		if (interceptorOrInterceptionAdvice instanceof InterceptorAndDynamicMethodMatcher) {
+			// Evaluate dynamic method matcher here: static part will already have
+			// been evaluated and found to match.
+			InterceptorAndDynamicMethodMatcher dm =
+					(InterceptorAndDynamicMethodMatcher) interceptorOrInterceptionAdvice;
+			Method method = getMethod();
+			Class<?> targetClass = (this.targetClass != null ? this.targetClass : method.getDeclaringClass());
+			if (dm.methodMatcher.matches(method, targetClass, this.arguments)) {
+				return dm.interceptor.invoke(this);
+			}
+			else {
+				// Dynamic matching failed.
+				// Skip this interceptor and invoke the next in the chain.
+				return proceed();
+			}
+		}
+		else {
+			// It's an interceptor, so we just invoke it: The pointcut will have
+			// been evaluated statically before this object was initialized.
+			return ((MethodInterceptor) interceptorOrInterceptionAdvice).invoke(this);
+		}
+	}
+
+	@Nullable
+	private Object invokeJoinpoint() throws Throwable {
+		if (this.methodProxy != null) {
+			return this.methodProxy.invoke(this.target, this.arguments);
+		}
+		return AopUtils.invokeJoinpointUsingReflection(this.target, getMethod(), this.arguments);
+	}
+
+
+	/**
+	 * This implementation returns a shallow copy of this invocation object,
+	 * including an independent copy of the original arguments array.
+	 * @see ReflectiveMethodInvocation#invocableClone()
+	 */
+	@Override
+	public MethodInvocation invocableClone() {
+		Object[] cloneArguments = this.arguments;
+		if (this.arguments.length > 0) {
+			// Build an independent copy of the arguments array.
+			cloneArguments = new Object[this.arguments.length];
+			System.arraycopy(this.arguments, 0, cloneArguments, 0, this.arguments.length);
+		}
+		return invocableClone(cloneArguments);
+	}
+
+	/**
+	 * This implementation returns a shallow copy of this invocation object,
+	 * using the given arguments array for the clone. The clone does not take
+	 * part in reuse, and stays valid after this invocation has been released.
+	 * @see ReflectiveMethodInvocation#invocableClone(Object...)
+	 */
+	@Override
+	public MethodInvocation invocableClone(Object... arguments) {
+		// Force initialization of the user attributes Map,
+		// for having a shared Map reference in the clone.
+		if (this.userAttributes == null) {
+			this.userAttributes = new HashMap<>();
+		}
+
+		ReusableMethodInvocation clone = new ReusableMethodInvocation(null);
+		clone.proxy = this.proxy;
+		clone.target = this.target;
+		clone.targetClass = this.targetClass;
+		clone.method = this.method;
+		clone.arguments = arguments;
+		clone.interceptorsAndDynamicMethodMatchers = this.interceptorsAndDynamicMethodMatchers;
+		clone.userAttributes = this.userAttributes;
+		clone.currentInterceptorIndex = this.currentInterceptorIndex;
+		clone.methodProxy = this.methodProxy;
+		clone.active = this.active;
+		return clone;
+	}
+
+
+	@Override
+	public void setUserAttribute(String key, @Nullable Object value) {
+		if (value != null) {
+			if (this.userAttributes == null) {
+				this.userAttributes = new HashMap<>();
+			}
+			this.userAttributes.put(key, value);
+		}
+		else {
+			if (this.userAttributes != null) {
+				this.userAttributes.remove(key);
+			}
+		}
+	}
+
+	@Override
+	@Nullable
+	public Object getUserAttribute(String key) {
+		return (this.userAttributes != null ? this.userAttributes.get(key) : null);
+	}
+
+
+	@Override
+	public String toString() {
+		// Don't do toString on target, it may be proxied.
+		StringBuilder sb = new StringBuilder("ReusableMethodInvocation: ");
+		sb.append(this.method).append("; ");
+		if (this.target == null) {
+			sb.append("target is null");
+		}
+		else {
+			sb.append("target is of class [").append(this.target.getClass().getName()).append(']');
+		}
+		return sb.toString();
+	}
+
+
+	/**
+	 * Per-thread stack of reusable invocations, one per nesting level.
+	 */
+	private static final class InvocationStack {
+
+		private final ReusableMethodInvocation[] invocations = new ReusableMethodInvocation[MAX_DEPTH];
+
+		private int depth;
+
+		ReusableMethodInvocation push() {
+			if (this.depth == MAX_DEPTH) {
+				// Deeply nested proxy calls: use a throwaway invocation
+				return new ReusableMethodInvocation(null);
+			}
+			ReusableMethodInvocation invocation = this.invocations[this.depth];
+			if (invocation == null) {
+				invocation = new ReusableMethodInvocation(this);
+				this.invocations[this.depth] = invocation;
+			}
+			this.depth++;
+			return invocation;
+		}
+
+		void pop(ReusableMethodInvocation invocation) {
+			Assert.state(this.depth > 0 && this.invocations[this.depth - 1] == invocation,
+					"Reusable invocations must be released in reverse order");
+			this.depth--;
+		}
+	}
+
+}
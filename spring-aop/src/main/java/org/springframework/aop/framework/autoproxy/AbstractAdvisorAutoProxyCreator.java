@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,12 @@
 
 package org.springframework.aop.framework.autoproxy;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import org.springframework.aop.Advisor;
+import org.springframework.aop.IntroductionAdvisor;
 import org.springframework.aop.TargetSource;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanFactory;
@@ -52,6 +55,34 @@ public abstract class AbstractAdvisorAutoProxyCreator extends AbstractAutoProxyC
 	@Nullable
 	private BeanFactoryAdvisorRetrievalHelper advisorRetrievalHelper;
 
+	private boolean parallelAdvisorMatching = false;
+
+
+	/**
+	 * Set whether the candidate Advisors should be matched against each bean
+	 * in parallel, using the common {@link java.util.concurrent.ForkJoinPool}.
+	 * Default is "false", matching one Advisor after the other.
+	 * <p>Switch this flag to "true" if there are many pointcut-based Advisors
+	 * with expensive matching, e.g. AspectJ expression pointcuts, and proxy
+	 * creation contributes noticeably to startup time. Only Advisors accepted by
+	 * {@link #isParallelMatchingCandidate} are matched in parallel; all others,
+	 * including introduction Advisors, are still matched on the calling thread.
+	 * The resulting order of eligible Advisors is the same as in the sequential case.
+	 * @since 5.1.14
+	 * @see #findAdvisorsThatCanApply
+	 */
+	public void setParallelAdvisorMatching(boolean parallelAdvisorMatching) {
+		this.parallelAdvisorMatching = parallelAdvisorMatching;
+	}
+
+	/**
+	 * Return whether the candidate Advisors are matched in parallel.
+	 * @since 5.1.14
+	 */
+	public boolean isParallelAdvisorMatching() {
+		return this.parallelAdvisorMatching;
+	}
+
 
 	@Override
 	public void setBeanFactory(BeanFactory beanFactory) {
@@ -123,6 +154,9 @@ public abstract class AbstractAdvisorAutoProxyCreator extends AbstractAutoProxyC
 
 		ProxyCreationContext.setCurrentProxiedBeanName(beanName);
 		try {
+			if (this.parallelAdvisorMatching && candidateAdvisors.size() > 1) {
+				return findAdvisorsThatCanApplyInParallel(candidateAdvisors, beanClass, beanName);
+			}
 			return AopUtils.findAdvisorsThatCanApply(candidateAdvisors, beanClass);
 		}
 		finally {
@@ -130,6 +164,73 @@ public abstract class AbstractAdvisorAutoProxyCreator extends AbstractAutoProxyC
 		}
 	}
 
+	/**
+	 * Parallel variant of {@link AopUtils#findAdvisorsThatCanApply}, exposing
+	 * the given bean name to the {@link ProxyCreationContext} of each worker thread.
+	 */
+	private List<Advisor> findAdvisorsThatCanApplyInParallel(
+			List<Advisor> candidateAdvisors, Class<?> beanClass, String beanName) {
+
+		List<Advisor> eligibleAdvisors = new ArrayList<>();
+		for (Advisor candidate : candidateAdvisors) {
+			if (candidate instanceof IntroductionAdvisor && AopUtils.canApply(candidate, beanClass)) {
+				eligibleAdvisors.add(candidate);
+			}
+		}
+		boolean hasIntroductions = !eligibleAdvisors.isEmpty();
+
+		Advisor[] candidates = candidateAdvisors.toArray(new Advisor[0]);
+		boolean[] parallelCandidates = new boolean[candidates.length];
+		boolean[] canApply = new boolean[candidates.length];
+		int parallelCount = 0;
+		for (int i = 0; i < candidates.length; i++) {
+			if (!(candidates[i] instanceof IntroductionAdvisor)) {
+				if (isParallelMatchingCandidate(candidates[i])) {
+					parallelCandidates[i] = true;
+					parallelCount++;
+				}
+				else {
+					canApply[i] = AopUtils.canApply(candidates[i], beanClass, hasIntroductions);
+				}
+			}
+		}
+		if (parallelCount > 0) {
+			IntStream.range(0, candidates.length).parallel().filter(i -> parallelCandidates[i]).forEach(i -> {
+				// The calling thread participates as well: restore its bean name afterwards.
+				String previousBeanName = ProxyCreationContext.getCurrentProxiedBeanName();
+				ProxyCreationContext.setCurrentProxiedBeanName(beanName);
+				try {
+					canApply[i] = AopUtils.canApply(candidates[i], beanClass, hasIntroductions);
+				}
+				finally {
+					ProxyCreationContext.setCurrentProxiedBeanName(previousBeanName);
+				}
+			});
+		}
+		for (int i = 0; i < candidates.length; i++) {
+			if (canApply[i]) {
+				eligibleAdvisors.add(candidates[i]);
+			}
+		}
+		return eligibleAdvisors;
+	}
+
+	/**
+	 * Determine whether the given Advisor may be matched on a worker thread
+	 * when {@link #setParallelAdvisorMatching "parallelAdvisorMatching"} is active.
+	 * <p>Bean creation typically holds the bean factory's singleton lock while
+	 * matching Advisors, so an Advisor whose matching accesses the bean factory
+	 * must not be matched in parallel. The default implementation therefore
+	 * returns {@code false}, leaving it to subclasses to accept specific
+	 * kinds of Advisors.
+	 * @param advisor the candidate Advisor (never an introduction Advisor)
+	 * @return whether the Advisor can be matched on a worker thread
+	 * @since 5.1.14
+	 */
+	protected boolean isParallelMatchingCandidate(Advisor advisor) {
+		return false;
+	}
+
 	/**
 	 * Return whether the Advisor bean with the given name is eligible
 	 * for proxying in the first place.
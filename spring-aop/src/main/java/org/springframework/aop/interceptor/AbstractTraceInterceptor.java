@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.aop.NonRetainingInterceptor;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.lang.Nullable;
 
@@ -45,7 +46,7 @@ import org.springframework.lang.Nullable;
  * @see #invokeUnderTrace(org.aopalliance.intercept.MethodInvocation, org.apache.commons.logging.Log)
  */
 @SuppressWarnings("serial")
-public abstract class AbstractTraceInterceptor implements MethodInterceptor, Serializable {
+public abstract class AbstractTraceInterceptor implements MethodInterceptor, NonRetainingInterceptor, Serializable {
 
 	/**
 	 * The default {@code Log} instance used to write trace messages.
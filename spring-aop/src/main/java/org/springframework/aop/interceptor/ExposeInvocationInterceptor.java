@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
 import org.springframework.aop.Advisor;
+import org.springframework.aop.NonRetainingInterceptor;
 import org.springframework.aop.support.DefaultPointcutAdvisor;
 import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.PriorityOrdered;
@@ -41,7 +42,8 @@ import org.springframework.core.PriorityOrdered;
  * @author Juergen Hoeller
  */
 @SuppressWarnings("serial")
-public final class ExposeInvocationInterceptor implements MethodInterceptor, PriorityOrdered, Serializable {
+public final class ExposeInvocationInterceptor
+		implements MethodInterceptor, NonRetainingInterceptor, PriorityOrdered, Serializable {
 
 	/** Singleton instance of this class. */
 	public static final ExposeInvocationInterceptor INSTANCE = new ExposeInvocationInterceptor();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -179,6 +179,31 @@ public class TigerAspectJExpressionPointcutTests {
 		assertTrue(ajexp.matches(IBeanA.class.getMethod("getAge"), proxy.getClass()));
 	}
 
+	@Test
+	public void testAnnotationOnMethodAsClassFilter() throws Exception {
+		String expression = "execution(* *(..)) && @annotation(test.annotation.transaction.Tx)";
+		AspectJExpressionPointcut ajexp = new AspectJExpressionPointcut();
+		ajexp.setExpression(expression);
+
+		assertTrue(ajexp.matches(BeanA.class));
+		assertFalse(ajexp.matches(TestBean.class));
+		assertFalse(ajexp.matches(HasTransactionalAnnotation.class));
+
+		ProxyFactory factory = new ProxyFactory(new BeanA());
+		IBeanA proxy = (IBeanA) factory.getProxy();
+		assertTrue(ajexp.matches(proxy.getClass()));
+	}
+
+	@Test
+	public void testAnnotationOnMethodInDisjunctionAsClassFilter() throws Exception {
+		String expression = "@annotation(test.annotation.transaction.Tx) || execution(* setName(..))";
+		AspectJExpressionPointcut ajexp = new AspectJExpressionPointcut();
+		ajexp.setExpression(expression);
+
+		assertTrue(ajexp.matches(BeanB.class));
+		assertTrue(ajexp.matches(BeanB.class.getMethod("setName", String.class), BeanB.class));
+	}
+
 	@Test
 	public void testAnnotationOnMethodWithWildcard() throws Exception {
 		String expression = "execution(@(test.annotation..*) * *(..))";
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Test;
+
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.DynamicMethodMatcherPointcut;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for proxies with {@link ProxyConfig#setGenerateInvocations "generateInvocations"}.
+ *
+ * @author Spring Framework Team
+ */
+public class GeneratedMethodInvocationTests {
+
+	@Test
+	public void jdkProxyInvokesThroughGeneratedInvocation() {
+		RecordingInterceptor interceptor = new RecordingInterceptor();
+		Calculator proxy = createProxy(new SimpleCalculator(), false, interceptor);
+		assertEquals(5, proxy.add(2, 3));
+		assertTrue(interceptor.invocations.get(0) instanceof GeneratedMethodInvocation);
+	}
+
+	@Test
+	public void cglibProxyInvokesThroughGeneratedInvocation() {
+		RecordingInterceptor interceptor = new RecordingInterceptor();
+		SimpleCalculator proxy = (SimpleCalculator) createProxy(new SimpleCalculator(), true, interceptor);
+		assertEquals(5, proxy.add(2, 3));
+		assertEquals("a-b", proxy.join(new String[] {"a", "b"}, '-'));
+		assertTrue(interceptor.invocations.get(0) instanceof GeneratedMethodInvocation);
+		assertTrue(interceptor.invocations.get(1) instanceof GeneratedMethodInvocation);
+	}
+
+	@Test
+	public void disabledByDefault() {
+		RecordingInterceptor interceptor = new RecordingInterceptor();
+		ProxyFactory pf = new ProxyFactory(new SimpleCalculator());
+		pf.addAdvice(interceptor);
+		((Calculator) pf.getProxy()).add(1, 1);
+		assertFalse(interceptor.invocations.get(0) instanceof GeneratedMethodInvocation);
+	}
+
+	@Test
+	public void nonPublicMethodFallsBackToReflectiveInvocation() {
+		RecordingInterceptor interceptor = new RecordingInterceptor();
+		SimpleCalculator proxy = (SimpleCalculator) createProxy(new SimpleCalculator(), true, interceptor);
+		assertEquals(3, proxy.negate(-3));
+		assertFalse(interceptor.invocations.get(0) instanceof GeneratedMethodInvocation);
+	}
+
+	@Test
+	public void voidMethodAndCheckedException() {
+		Calculator proxy = createProxy(new SimpleCalculator(), false, new RecordingInterceptor());
+		try {
+			proxy.fail("boom");
+			fail("Should have thrown IOException");
+		}
+		catch (IOException ex) {
+			assertEquals("boom", ex.getMessage());
+		}
+	}
+
+	@Test
+	public void interceptorsInvokedInOrder() {
+		List<String> calls = new ArrayList<>();
+		MethodInterceptor first = invocation -> {
+			calls.add("first");
+			return invocation.proceed();
+		};
+		MethodInterceptor second = invocation -> {
+			calls.add("second");
+			return (Integer) invocation.proceed() * 10;
+		};
+		Calculator proxy = createProxy(new SimpleCalculator(), false, first, second);
+		assertEquals(50, proxy.add(2, 3));
+		assertEquals(50, proxy.add(2, 3));
+		assertEquals(4, calls.size());
+		assertEquals("first", calls.get(2));
+		assertEquals("second", calls.get(3));
+	}
+
+	@Test
+	public void modifiedArguments() {
+		MethodInterceptor interceptor = invocation -> {
+			((ProxyMethodInvocation) invocation).setArguments(10, 20);
+			return invocation.proceed();
+		};
+		Calculator proxy = createProxy(new SimpleCalculator(), false, interceptor);
+		assertEquals(30, proxy.add(1, 2));
+	}
+
+	@Test
+	public void invocableClone() {
+		MethodInterceptor interceptor = invocation -> {
+			MethodInvocation clone = ((ProxyMethodInvocation) invocation).invocableClone(5, 5);
+			return (Integer) clone.proceed() + (Integer) invocation.proceed();
+		};
+		Calculator proxy = createProxy(new SimpleCalculator(), false, interceptor, new RecordingInterceptor());
+		assertEquals(13, proxy.add(1, 2));
+	}
+
+	@Test
+	public void dynamicMethodMatcher() {
+		RecordingInterceptor interceptor = new RecordingInterceptor();
+		DynamicMethodMatcherPointcut pointcut = new DynamicMethodMatcherPointcut() {
+			@Override
+			public boolean matches(Method method, Class<?> targetClass, Object... args) {
+				return ((Integer) args[0]) > 0;
+			}
+		};
+		Calculator proxy = createProxy(new SimpleCalculator(), false, new DefaultPointcutAdvisor(pointcut, interceptor));
+		assertEquals(1, proxy.add(-1, 2));
+		assertTrue(interceptor.invocations.isEmpty());
+		assertEquals(3, proxy.add(1, 2));
+		assertEquals(1, interceptor.invocations.size());
+	}
+
+	@Test
+	public void chainLongerThanGeneratedSwitch() {
+		Calculator target = new SimpleCalculator();
+		assertEquals(3, createProxy(target, false, new RecordingInterceptor()).add(1, 2));
+		RecordingInterceptor last = new RecordingInterceptor();
+		Calculator proxy = createProxy(target, false, new RecordingInterceptor(), new RecordingInterceptor(), last);
+		assertEquals(3, proxy.add(1, 2));
+		assertEquals(1, last.invocations.size());
+	}
+
+
+	private Calculator createProxy(Calculator target, boolean proxyTargetClass, Object... advice) {
+		ProxyFactory pf = new ProxyFactory(target);
+		pf.setProxyTargetClass(proxyTargetClass);
+		pf.setGenerateInvocations(true);
+		for (Object element : advice) {
+			if (element instanceof DefaultPointcutAdvisor) {
+				pf.addAdvisor((DefaultPointcutAdvisor) element);
+			}
+			else {
+				pf.addAdvice((MethodInterceptor) element);
+			}
+		}
+		return (Calculator) pf.getProxy();
+	}
+
+
+	public interface Calculator {
+
+		int add(int a, int b);
+
+		void fail(String message) throws IOException;
+	}
+
+
+	public static class SimpleCalculator implements Calculator {
+
+		@Override
+		public int add(int a, int b) {
+			return a + b;
+		}
+
+		@Override
+		public void fail(String message) throws IOException {
+			throw new IOException(message);
+		}
+
+		public String join(String[] parts, char separator) {
+			return String.join(String.valueOf(separator), parts);
+		}
+
+		int negate(int value) {
+			return -value;
+		}
+	}
+
+
+	private static class RecordingInterceptor implements MethodInterceptor {
+
+		final List<MethodInvocation> invocations = new ArrayList<>();
+
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			this.invocations.add(invocation);
+			return invocation.proceed();
+		}
+	}
+
+}
@@ -16,8 +16,10 @@
 
 package org.springframework.aop.framework;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.accessibility.Accessible;
 import javax.swing.JFrame;
@@ -34,6 +36,7 @@ import org.springframework.aop.support.AopUtils;
 import org.springframework.aop.support.DefaultIntroductionAdvisor;
 import org.springframework.aop.support.DefaultPointcutAdvisor;
 import org.springframework.aop.support.DelegatingIntroductionInterceptor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.core.annotation.Order;
 import org.springframework.tests.TimeStamped;
@@ -380,6 +383,85 @@ public class ProxyFactoryTests {
 		assertEquals("tb", proxy.getName());
 	}
 
+	@Test
+	public void testPrecomputedInterceptorChainsWithJdkProxy() {
+		testPrecomputedInterceptorChains(false);
+	}
+
+	@Test
+	public void testPrecomputedInterceptorChainsWithCglibProxy() {
+		testPrecomputedInterceptorChains(true);
+	}
+
+	private void testPrecomputedInterceptorChains(boolean proxyTargetClass) {
+		AtomicInteger matches = new AtomicInteger();
+		StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+			@Override
+			public boolean matches(Method method, Class<?> targetClass) {
+				matches.incrementAndGet();
+				return method.getName().equals("getName");
+			}
+		};
+		NopInterceptor nop = new NopInterceptor();
+		ProxyFactory pf = new ProxyFactory(new TestBean("tb", 42));
+		pf.setProxyTargetClass(proxyTargetClass);
+		pf.addAdvisor(new DefaultPointcutAdvisor(pointcut, nop));
+		pf.setPrecomputeInterceptorChains(true);
+		pf.setFrozen(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		int matchesOnCreation = matches.get();
+		assertTrue(matchesOnCreation > 0);
+
+		assertEquals("tb", proxy.getName());
+		assertEquals(42, proxy.getAge());
+		assertEquals(1, nop.getCount());
+		assertEquals(matchesOnCreation, matches.get());
+	}
+
+	@Test
+	public void testPrecomputedInterceptorChainsDiscardedOnAdviceChange() {
+		AtomicInteger matches = new AtomicInteger();
+		StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+			@Override
+			public boolean matches(Method method, Class<?> targetClass) {
+				matches.incrementAndGet();
+				return true;
+			}
+		};
+		ProxyFactory pf = new ProxyFactory(new TestBean("tb", 42));
+		pf.addAdvisor(new DefaultPointcutAdvisor(pointcut, new NopInterceptor()));
+		pf.setPrecomputeInterceptorChains(true);
+		pf.setFrozen(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		int matchesOnCreation = matches.get();
+
+		pf.setFrozen(false);
+		NopInterceptor nop = new NopInterceptor();
+		pf.addAdvice(nop);
+		assertEquals("tb", proxy.getName());
+		assertEquals(matchesOnCreation + 1, matches.get());
+		assertEquals(1, nop.getCount());
+	}
+
+	@Test
+	public void testInterceptorChainsNotPrecomputedForNonFrozenConfig() {
+		AtomicInteger matches = new AtomicInteger();
+		StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+			@Override
+			public boolean matches(Method method, Class<?> targetClass) {
+				matches.incrementAndGet();
+				return true;
+			}
+		};
+		ProxyFactory pf = new ProxyFactory(new TestBean("tb", 42));
+		pf.addAdvisor(new DefaultPointcutAdvisor(pointcut, new NopInterceptor()));
+		pf.setPrecomputeInterceptorChains(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		assertEquals(0, matches.get());
+		assertEquals("tb", proxy.getName());
+		assertEquals(1, matches.get());
+	}
+
 
 	@SuppressWarnings("serial")
 	private static class TimestampIntroductionInterceptor extends DelegatingIntroductionInterceptor
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Test;
+
+import org.springframework.aop.NonRetainingInterceptor;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.interceptor.AsyncExecutionInterceptor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.tests.sample.beans.ITestBean;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for proxies with {@link ProxyConfig#setReuseInvocations "reuseInvocations"}.
+ *
+ * @author Spring Framework Team
+ */
+public class ReusableMethodInvocationTests {
+
+	@Test
+	public void jdkProxyReusesInvocation() {
+		RecordingInterceptor interceptor = new RecordingInterceptor();
+		ITestBean proxy = createProxy(new TestBean("tb", 42), false, interceptor);
+		assertEquals(42, proxy.getAge());
+		assertEquals("tb", proxy.getName());
+		assertEquals(2, interceptor.invocations.size());
+		assertSame(interceptor.invocations.get(0), interceptor.invocations.get(1));
+		assertTrue(interceptor.invocations.get(0) instanceof ReusableMethodInvocation);
+	}
+
+	@Test
+	public void cglibProxyReusesInvocation() {
+		RecordingInterceptor interceptor = new RecordingInterceptor();
+		TestBean proxy = (TestBean) createProxy(new TestBean("tb", 42), true, interceptor);
+		assertEquals(42, proxy.getAge());
+		proxy.setAge(43);
+		assertEquals(43, proxy.getAge());
+		assertSame(interceptor.invocations.get(0), interceptor.invocations.get(2));
+	}
+
+	@Test
+	public void releasedInvocationHoldsNoReferences() {
+		RecordingInterceptor interceptor = new RecordingInterceptor();
+		ITestBean proxy = createProxy(new TestBean("tb", 42), false, interceptor);
+		proxy.setName("other");
+		MethodInvocation invocation = interceptor.invocations.get(0);
+		assertNull(invocation.getThis());
+		assertEquals(0, invocation.getArguments().length);
+		try {
+			invocation.proceed();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (Throwable ex) {
+			assertTrue(ex instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void nestedProxyCallsUseSeparateInvocations() {
+		TestBean spouse = new TestBean("spouse", 40);
+		RecordingInterceptor interceptor = new RecordingInterceptor();
+		ITestBean spouseProxy = createProxy(spouse, false, interceptor);
+		MethodInterceptor nestingInterceptor = (NonRetainingMethodInterceptor) invocation -> {
+			Object result = invocation.proceed();
+			return spouseProxy.getName() + "/" + result;
+		};
+		ITestBean proxy = createProxy(new TestBean("tb", 42), false, nestingInterceptor);
+		assertEquals("spouse/tb", proxy.getName());
+		assertEquals("spouse/tb", proxy.getName());
+		assertEquals(2, interceptor.invocations.size());
+		assertSame(interceptor.invocations.get(0), interceptor.invocations.get(1));
+	}
+
+	@Test
+	public void unmarkedInterceptorGetsNewInvocations() {
+		RecordingInterceptor recordingInterceptor = new RecordingInterceptor();
+		MethodInterceptor unmarkedInterceptor = MethodInvocation::proceed;
+		ITestBean proxy = createProxy(new TestBean("tb", 42), false, recordingInterceptor, unmarkedInterceptor);
+		proxy.getAge();
+		proxy.getAge();
+		assertNotSame(recordingInterceptor.invocations.get(0), recordingInterceptor.invocations.get(1));
+		assertTrue(recordingInterceptor.invocations.get(0) instanceof ReflectiveMethodInvocation);
+		assertNotNull(recordingInterceptor.invocations.get(0).getThis());
+	}
+
+	@Test
+	public void asyncInterceptorGetsNewInvocations() {
+		RecordingInterceptor recordingInterceptor = new RecordingInterceptor();
+		ITestBean proxy = createProxy(new TestBean("tb", 42), false,
+				recordingInterceptor, new AsyncExecutionInterceptor(new SyncTaskExecutor()));
+		proxy.setAge(43);
+		proxy.setAge(44);
+		assertNotSame(recordingInterceptor.invocations.get(0), recordingInterceptor.invocations.get(1));
+		assertFalse(recordingInterceptor.invocations.get(0) instanceof ReusableMethodInvocation);
+	}
+
+	@Test
+	public void userAttributesAreResetBetweenCalls() {
+		List<Object> attributes = new ArrayList<>();
+		MethodInterceptor interceptor = (NonRetainingMethodInterceptor) invocation -> {
+			ProxyMethodInvocation pmi = (ProxyMethodInvocation) invocation;
+			attributes.add(pmi.getUserAttribute("key"));
+			pmi.setUserAttribute("key", "value");
+			return invocation.proceed();
+		};
+		ITestBean proxy = createProxy(new TestBean("tb", 42), false, interceptor);
+		proxy.getAge();
+		proxy.getAge();
+		assertNull(attributes.get(0));
+		assertNull(attributes.get(1));
+	}
+
+	@Test
+	public void invocableCloneIsIndependent() {
+		List<MethodInvocation> clones = new ArrayList<>();
+		MethodInterceptor interceptor = (NonRetainingMethodInterceptor) invocation -> {
+			MethodInvocation clone = ((ProxyMethodInvocation) invocation).invocableClone();
+			clones.add(clone);
+			return clone.proceed();
+		};
+		ITestBean proxy = createProxy(new TestBean("tb", 42), false, interceptor, new RecordingInterceptor());
+		assertEquals(42, proxy.getAge());
+		assertEquals(42, proxy.getAge());
+		assertNotSame(clones.get(0), clones.get(1));
+		assertNotNull(clones.get(0).getThis());
+	}
+
+	@Test
+	public void exceptionReleasesInvocation() {
+		RecordingInterceptor interceptor = new RecordingInterceptor();
+		ITestBean proxy = createProxy(new TestBean("tb", 42), false, interceptor);
+		try {
+			proxy.exceptional(new IllegalStateException("boom"));
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (Throwable ex) {
+			assertEquals("boom", ex.getMessage());
+		}
+		assertEquals(42, proxy.getAge());
+		assertSame(interceptor.invocations.get(0), interceptor.invocations.get(1));
+	}
+
+
+	private ITestBean createProxy(TestBean target, boolean proxyTargetClass, MethodInterceptor... interceptors) {
+		ProxyFactory pf = new ProxyFactory(target);
+		pf.setProxyTargetClass(proxyTargetClass);
+		pf.setReuseInvocations(true);
+		for (MethodInterceptor interceptor : interceptors) {
+			pf.addAdvice(interceptor);
+		}
+		return (ITestBean) pf.getProxy();
+	}
+
+
+	private interface NonRetainingMethodInterceptor extends MethodInterceptor, NonRetainingInterceptor {
+	}
+
+
+	private static class RecordingInterceptor implements NonRetainingMethodInterceptor {
+
+		final List<MethodInvocation> invocations = new ArrayList<>();
+
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			this.invocations.add(invocation);
+			return invocation.proceed();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.beans.PropertyChangeEvent;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.security.PrivilegedActionException;
@@ -42,7 +43,9 @@ import org.springframework.core.convert.ConverterNotFoundException;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -76,6 +79,18 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	 */
 	private static final Log logger = LogFactory.getLog(AbstractNestablePropertyAccessor.class);
 
+	/**
+	 * Maximum number of parsed property paths to cache: 1024.
+	 */
+	private static final int PROPERTY_PATH_CACHE_LIMIT = 1024;
+
+	/**
+	 * Cache of parsed property paths, shared across all accessors
+	 * since parsing only depends on the property path itself.
+	 */
+	private static final ConcurrentLruCache<String, ParsedPropertyPath> parsedPropertyPathCache =
+			new ConcurrentLruCache<>(PROPERTY_PATH_CACHE_LIMIT, ParsedPropertyPath::new);
+
 	private int autoGrowCollectionLimit = Integer.MAX_VALUE;
 
 	@Nullable
@@ -90,6 +105,9 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	@Nullable
 	private Map<String, AbstractNestablePropertyAccessor> nestedPropertyAccessors;
 
+	/** Whether property paths may be resolved through the shared parsed path cache. */
+	private final boolean parsedPathCacheable = !overridesPropertyPathHooks();
+
 
 	/**
 	 * Create a new empty accessor. Wrapped instance needs to be set afterwards.
@@ -234,16 +252,17 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 
 	@Override
 	public void setPropertyValue(String propertyName, @Nullable Object value) throws BeansException {
+		ParsedPropertyPath parsedPath = getParsedPropertyPath(propertyName);
 		AbstractNestablePropertyAccessor nestedPa;
 		try {
-			nestedPa = getPropertyAccessorForPropertyPath(propertyName);
+			nestedPa = getPropertyAccessorForPropertyPath(propertyName, parsedPath);
 		}
 		catch (NotReadablePropertyException ex) {
 			throw new NotWritablePropertyException(getRootClass(), this.nestedPath + propertyName,
 					"Nested property in path '" + propertyName + "' does not exist", ex);
 		}
-		PropertyTokenHolder tokens = getPropertyNameTokens(getFinalPath(nestedPa, propertyName));
-		nestedPa.setPropertyValue(tokens, new PropertyValue(propertyName, value));
+		nestedPa.setPropertyValue(getFinalPathTokens(nestedPa, propertyName, parsedPath),
+				new PropertyValue(propertyName, value));
 	}
 
 	@Override
@@ -251,15 +270,16 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 		PropertyTokenHolder tokens = (PropertyTokenHolder) pv.resolvedTokens;
 		if (tokens == null) {
 			String propertyName = pv.getName();
+			ParsedPropertyPath parsedPath = getParsedPropertyPath(propertyName);
 			AbstractNestablePropertyAccessor nestedPa;
 			try {
-				nestedPa = getPropertyAccessorForPropertyPath(propertyName);
+				nestedPa = getPropertyAccessorForPropertyPath(propertyName, parsedPath);
 			}
 			catch (NotReadablePropertyException ex) {
 				throw new NotWritablePropertyException(getRootClass(), this.nestedPath + propertyName,
 						"Nested property in path '" + propertyName + "' does not exist", ex);
 			}
-			tokens = getPropertyNameTokens(getFinalPath(nestedPa, propertyName));
+			tokens = getFinalPathTokens(nestedPa, propertyName, parsedPath);
 			if (nestedPa == this) {
 				pv.getOriginalPropertyValue().resolvedTokens = tokens;
 			}
@@ -514,9 +534,9 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	@Nullable
 	public TypeDescriptor getPropertyTypeDescriptor(String propertyName) throws BeansException {
 		try {
-			AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(propertyName);
-			String finalPath = getFinalPath(nestedPa, propertyName);
-			PropertyTokenHolder tokens = getPropertyNameTokens(finalPath);
+			ParsedPropertyPath parsedPath = getParsedPropertyPath(propertyName);
+			AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(propertyName, parsedPath);
+			PropertyTokenHolder tokens = getFinalPathTokens(nestedPa, propertyName, parsedPath);
 			PropertyHandler ph = nestedPa.getLocalPropertyHandler(tokens.actualName);
 			if (ph != null) {
 				if (tokens.keys != null) {
@@ -607,9 +627,9 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	@Override
 	@Nullable
 	public Object getPropertyValue(String propertyName) throws BeansException {
-		AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(propertyName);
-		PropertyTokenHolder tokens = getPropertyNameTokens(getFinalPath(nestedPa, propertyName));
-		return nestedPa.getPropertyValue(tokens);
+		ParsedPropertyPath parsedPath = getParsedPropertyPath(propertyName);
+		AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(propertyName, parsedPath);
+		return nestedPa.getPropertyValue(getFinalPathTokens(nestedPa, propertyName, parsedPath));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -721,8 +741,10 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	@Nullable
 	protected PropertyHandler getPropertyHandler(String propertyName) throws BeansException {
 		Assert.notNull(propertyName, "Property name must not be null");
-		AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(propertyName);
-		return nestedPa.getLocalPropertyHandler(getFinalPath(nestedPa, propertyName));
+		ParsedPropertyPath parsedPath = getParsedPropertyPath(propertyName);
+		AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(propertyName, parsedPath);
+		return nestedPa.getLocalPropertyHandler(
+				parsedPath != null ? parsedPath.finalPath : getFinalPath(nestedPa, propertyName));
 	}
 
 	/**
@@ -808,17 +830,73 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	 */
 	@SuppressWarnings("unchecked")  // avoid nested generic
 	protected AbstractNestablePropertyAccessor getPropertyAccessorForPropertyPath(String propertyPath) {
-		int pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(propertyPath);
-		// Handle nested properties recursively.
-		if (pos > -1) {
-			String nestedProperty = propertyPath.substring(0, pos);
-			String nestedPath = propertyPath.substring(pos + 1);
-			AbstractNestablePropertyAccessor nestedPa = getNestedPropertyAccessor(nestedProperty);
-			return nestedPa.getPropertyAccessorForPropertyPath(nestedPath);
-		}
-		else {
-			return this;
+		return getPropertyAccessorForPropertyPath(parsedPropertyPathCache.get(propertyPath));
+	}
+
+	/**
+	 * Navigate along the nested properties of the given pre-parsed path,
+	 * reusing cached nested property accessors along the way.
+	 * @param parsedPath the parsed property path, which may be nested
+	 * @return a property accessor for the target bean
+	 */
+	private AbstractNestablePropertyAccessor getPropertyAccessorForPropertyPath(ParsedPropertyPath parsedPath) {
+		AbstractNestablePropertyAccessor pa = this;
+		for (PropertyTokenHolder nestedTokens : parsedPath.nestedTokens) {
+			pa = pa.getNestedPropertyAccessor(nestedTokens);
 		}
+		return pa;
+	}
+
+	/**
+	 * Navigate to the property accessor for the given path, using the pre-parsed
+	 * path if available and the {@link #getPropertyAccessorForPropertyPath(String)}
+	 * hook otherwise.
+	 */
+	private AbstractNestablePropertyAccessor getPropertyAccessorForPropertyPath(
+			String propertyPath, @Nullable ParsedPropertyPath parsedPath) {
+
+		return (parsedPath != null ? getPropertyAccessorForPropertyPath(parsedPath) :
+				getPropertyAccessorForPropertyPath(propertyPath));
+	}
+
+	/**
+	 * Determine the tokens of the last path component, using the pre-parsed
+	 * path if available and the {@link #getFinalPath} hook otherwise.
+	 */
+	private PropertyTokenHolder getFinalPathTokens(
+			AbstractNestablePropertyAccessor pa, String propertyPath, @Nullable ParsedPropertyPath parsedPath) {
+
+		return (parsedPath != null ? parsedPath.finalTokens : getPropertyNameTokens(getFinalPath(pa, propertyPath)));
+	}
+
+	/**
+	 * Return the cached parse of the given property path, or {@code null} if
+	 * this accessor overrides one of the property path hooks and therefore
+	 * needs to resolve each path through them.
+	 * @see #getFinalPath
+	 * @see #getPropertyAccessorForPropertyPath(String)
+	 */
+	@Nullable
+	private ParsedPropertyPath getParsedPropertyPath(String propertyPath) {
+		return (this.parsedPathCacheable ? parsedPropertyPathCache.get(propertyPath) : null);
+	}
+
+	/**
+	 * Determine whether this accessor's class overrides {@link #getFinalPath} or
+	 * {@link #getPropertyAccessorForPropertyPath(String)}, which the parsed path
+	 * cache would otherwise bypass.
+	 */
+	private boolean overridesPropertyPathHooks() {
+		Class<?> clazz = getClass();
+		if (clazz == BeanWrapperImpl.class || clazz == DirectFieldAccessor.class) {
+			return false;
+		}
+		Method finalPath = ReflectionUtils.findMethod(
+				clazz, "getFinalPath", AbstractNestablePropertyAccessor.class, String.class);
+		Method accessorForPath = ReflectionUtils.findMethod(
+				clazz, "getPropertyAccessorForPropertyPath", String.class);
+		return ((finalPath != null && finalPath.getDeclaringClass() != AbstractNestablePropertyAccessor.class) ||
+				(accessorForPath != null && accessorForPath.getDeclaringClass() != AbstractNestablePropertyAccessor.class));
 	}
 
 	/**
@@ -826,15 +904,14 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	 * Create a new one if not found in the cache.
 	 * <p>Note: Caching nested PropertyAccessors is necessary now,
 	 * to keep registered custom editors for nested properties.
-	 * @param nestedProperty property to create the PropertyAccessor for
+	 * @param tokens the parsed tokens of the property to create the PropertyAccessor for
 	 * @return the PropertyAccessor instance, either cached or newly created
 	 */
-	private AbstractNestablePropertyAccessor getNestedPropertyAccessor(String nestedProperty) {
+	private AbstractNestablePropertyAccessor getNestedPropertyAccessor(PropertyTokenHolder tokens) {
 		if (this.nestedPropertyAccessors == null) {
 			this.nestedPropertyAccessors = new HashMap<>();
 		}
 		// Get value of bean property.
-		PropertyTokenHolder tokens = getPropertyNameTokens(nestedProperty);
 		String canonicalName = tokens.canonicalName;
 		Object value = getPropertyValue(tokens);
 		if (value == null || (value instanceof Optional && !((Optional) value).isPresent())) {
@@ -925,7 +1002,7 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	 * @param propertyName the property name to parse
 	 * @return representation of the parsed property tokens
 	 */
-	private PropertyTokenHolder getPropertyNameTokens(String propertyName) {
+	private static PropertyTokenHolder getPropertyNameTokens(String propertyName) {
 		String actualName = null;
 		List<String> keys = new ArrayList<>(2);
 		int searchIndex = 0;
@@ -1030,6 +1107,36 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	}
 
 
+	/**
+	 * Immutable, pre-tokenized representation of a property path: the tokens of
+	 * each nested property to navigate through, followed by the final path
+	 * component and its tokens. Token holders are shared and must not be modified.
+	 */
+	private static final class ParsedPropertyPath {
+
+		private final PropertyTokenHolder[] nestedTokens;
+
+		private final String finalPath;
+
+		private final PropertyTokenHolder finalTokens;
+
+		ParsedPropertyPath(String propertyPath) {
+			List<PropertyTokenHolder> nestedTokens = new ArrayList<>();
+			String path = propertyPath;
+			int pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(path);
+			while (pos > -1) {
+				nestedTokens.add(getPropertyNameTokens(path.substring(0, pos)));
+				path = path.substring(pos + 1);
+				pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(path);
+			}
+			this.nestedTokens = nestedTokens.toArray(new PropertyTokenHolder[0]);
+			this.finalPath = (this.nestedTokens.length > 0 ? propertyPath.substring(
+					PropertyAccessorUtils.getLastNestedPropertySeparatorIndex(propertyPath) + 1) : propertyPath);
+			this.finalTokens = getPropertyNameTokens(this.finalPath);
+		}
+	}
+
+
 	/**
 	 * Holder class used to store property tokens.
 	 */
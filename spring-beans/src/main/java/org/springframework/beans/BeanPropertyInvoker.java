@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Reads and writes the properties of a specific bean class through direct calls
+ * to their getter and setter methods, avoiding reflection.
+ *
+ * <p>Implementations are generated at runtime, one class per bean class, when
+ * {@link BeanWrapperImpl#setUseGeneratedInvokers generated invokers} are enabled.
+ * Properties are addressed by an index assigned on generation. This interface is
+ * not meant to be implemented by application code.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ */
+public interface BeanPropertyInvoker {
+
+	/**
+	 * Call the getter method of the property with the given index.
+	 * @param bean the target bean instance
+	 * @param index the index of the property
+	 * @return the current property value
+	 * @throws InvocationTargetException if the getter method threw an exception
+	 * @throws IllegalArgumentException if there is no readable property for the index
+	 */
+	@Nullable
+	Object getPropertyValue(Object bean, int index) throws InvocationTargetException;
+
+	/**
+	 * Call the setter method of the property with the given index.
+	 * @param bean the target bean instance
+	 * @param index the index of the property
+	 * @param value the new property value (must be assignable to the setter's parameter type)
+	 * @throws InvocationTargetException if the setter method threw an exception
+	 * @throws IllegalArgumentException if there is no writable property for the index
+	 */
+	void setPropertyValue(Object bean, int index, @Nullable Object value) throws InvocationTargetException;
+
+}
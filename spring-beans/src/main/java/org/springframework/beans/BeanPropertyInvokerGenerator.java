@@ -0,0 +1,357 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.cglib.core.ReflectUtils;
+import org.springframework.core.GeneratedClassCache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Generates a {@link BeanPropertyInvoker} class per bean class, calling the
+ * getter and setter methods of all of its properties directly instead of
+ * through reflection.
+ *
+ * <p>Generated classes are defined in the ClassLoader of the bean class.
+ * Properties whose methods cannot be called from generated code in that
+ * ClassLoader, e.g. non-public methods or methods of non-public types,
+ * are left to reflection.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ * @see BeanWrapperImpl#setUseGeneratedInvokers
+ */
+final class BeanPropertyInvokerGenerator {
+
+	private static final String INVOKER_SUFFIX = "$$BeanPropertyInvoker$$";
+
+	private static final String INVOKER_INTERFACE = Type.getInternalName(BeanPropertyInvoker.class);
+
+	private static final String GET_DESCRIPTOR = "(Ljava/lang/Object;I)Ljava/lang/Object;";
+
+	private static final String SET_DESCRIPTOR = "(Ljava/lang/Object;ILjava/lang/Object;)V";
+
+	private static final Log logger = LogFactory.getLog(BeanPropertyInvokerGenerator.class);
+
+	private static final GeneratedClassCache<Class<?>, GeneratedInvoker> invokerCache = new GeneratedClassCache<>();
+
+	private static final AtomicInteger classCounter = new AtomicInteger();
+
+
+	private BeanPropertyInvokerGenerator() {
+	}
+
+
+	/**
+	 * Obtain the generated invoker for the bean class of the given introspection results.
+	 * @return the invoker, or {@code null} if none of the bean's properties can be
+	 * accessed from generated code
+	 */
+	@Nullable
+	static GeneratedInvoker getInvoker(CachedIntrospectionResults results) {
+		Class<?> beanClass = results.getBeanClass();
+		return invokerCache.obtain(beanClass, beanClass, BeanPropertyInvokerGenerator::resolveContextClass,
+				(key, contextClass) -> generateInvoker(key, contextClass, results.getPropertyDescriptors()));
+	}
+
+	/**
+	 * Determine the class to define generated classes alongside for the given bean class.
+	 */
+	@Nullable
+	private static Class<?> resolveContextClass(Class<?> beanClass) {
+		ClassLoader classLoader = beanClass.getClassLoader();
+		if (classLoader == null || beanClass.getName().startsWith("java.") ||
+				!ClassUtils.isVisible(BeanPropertyInvoker.class, classLoader)) {
+			return (ClassUtils.isVisible(beanClass, BeanPropertyInvoker.class.getClassLoader()) ?
+					BeanPropertyInvoker.class : null);
+		}
+		return beanClass;
+	}
+
+	@Nullable
+	private static GeneratedInvoker generateInvoker(Class<?> beanClass, Class<?> contextClass, PropertyDescriptor[] pds) {
+		Method[] readMethods = new Method[pds.length];
+		Method[] writeMethods = new Method[pds.length];
+		boolean generatable = false;
+		for (int i = 0; i < pds.length; i++) {
+			Method readMethod = pds[i].getReadMethod();
+			if (readMethod != null && isAccessible(readMethod)) {
+				readMethods[i] = readMethod;
+				generatable = true;
+			}
+			Method writeMethod = pds[i].getWriteMethod();
+			if (writeMethod != null && isAccessible(writeMethod)) {
+				writeMethods[i] = writeMethod;
+				generatable = true;
+			}
+		}
+		if (!generatable) {
+			return null;
+		}
+
+		ClassLoader classLoader = contextClass.getClassLoader();
+		String className = contextClass.getName() + INVOKER_SUFFIX + classCounter.incrementAndGet();
+		try {
+			Class<?> invokerClass = ReflectUtils.defineClass(className,
+					generateInvokerClass(className, readMethods, writeMethods),
+					classLoader, contextClass.getProtectionDomain(), contextClass);
+			BeanPropertyInvoker invoker =
+					(BeanPropertyInvoker) ReflectionUtils.accessibleConstructor(invokerClass).newInstance();
+			return new GeneratedInvoker(invoker, pds, readMethods, writeMethods);
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to generate property invoker for " + beanClass +
+						" - falling back to reflective access", ex);
+			}
+			return null;
+		}
+	}
+
+	private static boolean isAccessible(Method method) {
+		if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers()) ||
+				!isPublic(method.getDeclaringClass()) || !isPublic(method.getReturnType())) {
+			return false;
+		}
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			if (!isPublic(parameterType)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPublic(Class<?> type) {
+		Class<?> typeToCheck = type;
+		while (typeToCheck.isArray()) {
+			typeToCheck = typeToCheck.getComponentType();
+		}
+		return (typeToCheck.isPrimitive() || Modifier.isPublic(typeToCheck.getModifiers()));
+	}
+
+
+	private static byte[] generateInvokerClass(String className, Method[] readMethods, Method[] writeMethods) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+				className.replace('.', '/'), null, "java/lang/Object", new String[] {INVOKER_INTERFACE});
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		generateDispatchMethod(cw, "getPropertyValue", GET_DESCRIPTOR, readMethods, false);
+		generateDispatchMethod(cw, "setPropertyValue", SET_DESCRIPTOR, writeMethods, true);
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Generate a method switching on the property index (local 2) to a direct
+	 * call of the corresponding getter or setter method, wrapping any exception
+	 * thrown by that method in an {@link InvocationTargetException}.
+	 */
+	private static void generateDispatchMethod(
+			ClassWriter cw, String name, String descriptor, Method[] methods, boolean write) {
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, name, descriptor, null,
+				new String[] {"java/lang/reflect/InvocationTargetException"});
+		mv.visitCode();
+
+		Label start = new Label();
+		Label end = new Label();
+		Label handler = new Label();
+		Label noProperty = new Label();
+		Label[] labels = new Label[methods.length];
+		boolean anyMethod = false;
+		for (int i = 0; i < methods.length; i++) {
+			labels[i] = (methods[i] != null ? new Label() : noProperty);
+			anyMethod |= (methods[i] != null);
+		}
+		if (anyMethod) {
+			mv.visitTryCatchBlock(start, end, handler, "java/lang/Throwable");
+			mv.visitVarInsn(Opcodes.ILOAD, 2);
+			mv.visitTableSwitchInsn(0, methods.length - 1, noProperty, labels);
+			mv.visitLabel(start);
+		}
+		for (int i = 0; i < methods.length; i++) {
+			Method method = methods[i];
+			if (method == null) {
+				continue;
+			}
+			mv.visitLabel(labels[i]);
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(method.getDeclaringClass()));
+			Class<?> returnType = method.getReturnType();
+			if (write) {
+				mv.visitVarInsn(Opcodes.ALOAD, 3);
+				unbox(mv, method.getParameterTypes()[0]);
+				invokeMethod(mv, method);
+				// Ignore the return value of a fluent setter
+				if (returnType != void.class) {
+					mv.visitInsn(returnType == long.class || returnType == double.class ? Opcodes.POP2 : Opcodes.POP);
+				}
+				mv.visitInsn(Opcodes.RETURN);
+			}
+			else {
+				invokeMethod(mv, method);
+				box(mv, returnType);
+				mv.visitInsn(Opcodes.ARETURN);
+			}
+		}
+		if (anyMethod) {
+			mv.visitLabel(end);
+		}
+
+		mv.visitLabel(noProperty);
+		mv.visitTypeInsn(Opcodes.NEW, "java/lang/IllegalArgumentException");
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitLdcInsn("No " + (write ? "writable" : "readable") + " property for index");
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/IllegalArgumentException",
+				"<init>", "(Ljava/lang/String;)V", false);
+		mv.visitInsn(Opcodes.ATHROW);
+
+		if (anyMethod) {
+			mv.visitLabel(handler);
+			mv.visitVarInsn(Opcodes.ASTORE, 4);
+			mv.visitTypeInsn(Opcodes.NEW, "java/lang/reflect/InvocationTargetException");
+			mv.visitInsn(Opcodes.DUP);
+			mv.visitVarInsn(Opcodes.ALOAD, 4);
+			mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/reflect/InvocationTargetException",
+					"<init>", "(Ljava/lang/Throwable;)V", false);
+			mv.visitInsn(Opcodes.ATHROW);
+		}
+
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private static void invokeMethod(MethodVisitor mv, Method method) {
+		Class<?> declaringClass = method.getDeclaringClass();
+		boolean isInterface = declaringClass.isInterface();
+		mv.visitMethodInsn(isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL,
+				Type.getInternalName(declaringClass), method.getName(), Type.getMethodDescriptor(method), isInterface);
+	}
+
+	private static void unbox(MethodVisitor mv, Class<?> type) {
+		if (type.isPrimitive()) {
+			Type wrapperType = Type.getType(ClassUtils.resolvePrimitiveIfNecessary(type));
+			mv.visitTypeInsn(Opcodes.CHECKCAST, wrapperType.getInternalName());
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapperType.getInternalName(),
+					type.getName() + "Value", "()" + Type.getDescriptor(type), false);
+		}
+		else if (type != Object.class) {
+			mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+		}
+	}
+
+	private static void box(MethodVisitor mv, Class<?> type) {
+		if (type == void.class) {
+			mv.visitInsn(Opcodes.ACONST_NULL);
+		}
+		else if (type.isPrimitive()) {
+			Type wrapperType = Type.getType(ClassUtils.resolvePrimitiveIfNecessary(type));
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, wrapperType.getInternalName(), "valueOf",
+					"(" + Type.getDescriptor(type) + ")" + wrapperType.getDescriptor(), false);
+		}
+	}
+
+
+	/**
+	 * A generated {@link BeanPropertyInvoker} along with the indexes of the
+	 * properties that it can read and write.
+	 */
+	static final class GeneratedInvoker {
+
+		private final BeanPropertyInvoker invoker;
+
+		private final Map<String, Integer> readIndexes = new HashMap<>();
+
+		private final Map<String, Integer> writeIndexes = new HashMap<>();
+
+		private final Class<?>[] writeTypes;
+
+		GeneratedInvoker(BeanPropertyInvoker invoker, PropertyDescriptor[] pds,
+				Method[] readMethods, Method[] writeMethods) {
+
+			this.invoker = invoker;
+			this.writeTypes = new Class<?>[pds.length];
+			for (int i = 0; i < pds.length; i++) {
+				if (readMethods[i] != null) {
+					this.readIndexes.put(pds[i].getName(), i);
+				}
+				if (writeMethods[i] != null) {
+					this.writeIndexes.put(pds[i].getName(), i);
+					this.writeTypes[i] = writeMethods[i].getParameterTypes()[0];
+				}
+			}
+		}
+
+		/**
+		 * Return the index of the given property for reading,
+		 * or -1 if it needs to be read through reflection.
+		 */
+		int getReadIndex(String propertyName) {
+			Integer index = this.readIndexes.get(propertyName);
+			return (index != null ? index : -1);
+		}
+
+		/**
+		 * Return the index of the given property for writing the given value,
+		 * or -1 if it needs to be written through reflection (which includes
+		 * values not assignable to the setter's parameter type, in order to
+		 * retain reflection's exception semantics for those).
+		 */
+		int getWriteIndex(String propertyName, @Nullable Object value) {
+			Integer index = this.writeIndexes.get(propertyName);
+			return (index != null && ClassUtils.isAssignableValue(this.writeTypes[index], value) ? index : -1);
+		}
+
+		@Nullable
+		Object getPropertyValue(Object bean, int index) throws InvocationTargetException {
+			return this.invoker.getPropertyValue(bean, index);
+		}
+
+		void setPropertyValue(Object bean, int index, @Nullable Object value)
+				throws InvocationTargetException {
+
+			this.invoker.setPropertyValue(bean, index, value);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -75,6 +75,11 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Nullable
 	private AccessControlContext acc;
 
+	/**
+	 * Whether to call property methods through generated invokers.
+	 */
+	private boolean useGeneratedInvokers = false;
+
 
 	/**
 	 * Create a new empty BeanWrapperImpl. Wrapped instance needs to be set afterwards.
@@ -132,6 +137,7 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	private BeanWrapperImpl(Object object, String nestedPath, BeanWrapperImpl parent) {
 		super(object, nestedPath, parent);
 		setSecurityContext(parent.acc);
+		setUseGeneratedInvokers(parent.useGeneratedInvokers);
 	}
 
 
@@ -193,6 +199,41 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 		return this.acc;
 	}
 
+	/**
+	 * Set whether to call property getter and setter methods through generated
+	 * {@link BeanPropertyInvoker} classes rather than through reflection.
+	 * Default is "false".
+	 * <p>If enabled, a class calling the property methods of a bean class directly
+	 * is generated on first access to that bean class, and shared across wrapper
+	 * instances. Nested wrappers inherit this setting. Property methods that cannot
+	 * be called from generated code, e.g. non-public methods, are still invoked
+	 * through reflection, as are all methods when running with a SecurityManager.
+	 * @since 5.1.14
+	 * @see BeanPropertyInvoker
+	 */
+	public void setUseGeneratedInvokers(boolean useGeneratedInvokers) {
+		this.useGeneratedInvokers = useGeneratedInvokers;
+	}
+
+	/**
+	 * Return whether to call property methods through generated invokers.
+	 * @since 5.1.14
+	 */
+	public boolean isUseGeneratedInvokers() {
+		return this.useGeneratedInvokers;
+	}
+
+	/**
+	 * Obtain the generated invoker for the wrapped object's class, if enabled.
+	 */
+	@Nullable
+	private BeanPropertyInvokerGenerator.GeneratedInvoker getGeneratedInvoker() {
+		if (!this.useGeneratedInvokers || System.getSecurityManager() != null) {
+			return null;
+		}
+		return BeanPropertyInvokerGenerator.getInvoker(getCachedIntrospectionResults());
+	}
+
 
 	/**
 	 * Convert the given value for the specified property to the latter's type.
@@ -289,6 +330,13 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 		@Override
 		@Nullable
 		public Object getValue() throws Exception {
+			BeanPropertyInvokerGenerator.GeneratedInvoker generatedInvoker = getGeneratedInvoker();
+			if (generatedInvoker != null) {
+				int index = generatedInvoker.getReadIndex(this.pd.getName());
+				if (index >= 0) {
+					return generatedInvoker.getPropertyValue(getWrappedInstance(), index);
+				}
+			}
 			final Method readMethod = this.pd.getReadMethod();
 			if (System.getSecurityManager() != null) {
 				AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
@@ -314,6 +362,14 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 			final Method writeMethod = (this.pd instanceof GenericTypeAwarePropertyDescriptor ?
 					((GenericTypeAwarePropertyDescriptor) this.pd).getWriteMethodForActualAccess() :
 					this.pd.getWriteMethod());
+			BeanPropertyInvokerGenerator.GeneratedInvoker generatedInvoker = getGeneratedInvoker();
+			if (generatedInvoker != null) {
+				int index = generatedInvoker.getWriteIndex(this.pd.getName(), value);
+				if (index >= 0) {
+					generatedInvoker.setPropertyValue(getWrappedInstance(), index, value);
+					return;
+				}
+			}
 			if (System.getSecurityManager() != null) {
 				AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
 					ReflectionUtils.makeAccessible(writeMethod);
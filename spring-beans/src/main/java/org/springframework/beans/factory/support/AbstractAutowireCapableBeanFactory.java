@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.beans.factory.support;
 
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -1301,6 +1302,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		// 之所以构建缓存，是为了下次创建prototype可以直接利用缓存
 		boolean resolved = false; // 是否被解析，true该bean表示已经解析过了
 		boolean autowireNecessary = false; // 是否需要自动装配
+		Executable resolvedConstructor = null;
+		BeanInstantiator resolvedInstantiator = null;
 		if (args == null) { // 一定为空，因为是Spring内部自己传入的。
 			synchronized (mbd.constructorArgumentLock) {
 				if (mbd.resolvedConstructorOrFactoryMethod != null) {// 是否已经解析过的构造方法或工厂方法
@@ -1308,10 +1311,17 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					// 构造方法的参数是否被解析过，如果已经解析了，说明构造方法有参数，即存在自动装配，
 					// 必须要通过一个带参构造方法来实例化 bean 。
 					autowireNecessary = mbd.constructorArgumentsResolved; //
+					resolvedConstructor = mbd.resolvedConstructorOrFactoryMethod;
+					resolvedInstantiator = mbd.resolvedInstantiator;
 				}
 			}
 		}
 		if (resolved) { // bean 已经被解析过了，可以确定实例化时使用哪个构造方法，执行这里的代码
+			if (resolvedInstantiator != null) {
+				// 之前通过生成的实例化器创建过，继续使用它以及缓存的构造方法
+				return new ConstructorResolver(this).instantiateUsingInstantiator(
+						beanName, mbd, (Constructor<?>) resolvedConstructor, resolvedInstantiator);
+			}
 			if (autowireNecessary) { // 需要自动装配，使用有参的构造方法
 				// 通过有参的构造方法自动装配的方法实例化 bean 对象
 				return autowireConstructor(beanName, mbd, null, null);
@@ -1337,6 +1347,15 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		 *  2. 当只有一个构造方法，且是构造方法是有参数的，此时会返回这个构造方法，使用它来实例化对象。
  		 */
 		Constructor<?>[] ctors = determineConstructorsFromBeanPostProcessors(beanClass, beanName);
+
+		// Build-time generated instantiator for the constructor that would be chosen?
+		// 如果编译期为该类生成了实例化器，且与推断出的构造方法一致，则不通过反射实例化
+		BeanInstantiator instantiator = getGeneratedInstantiator(beanClass, mbd, ctors, args);
+		if (instantiator != null) {
+			return new ConstructorResolver(this).instantiateUsingInstantiator(
+					beanName, mbd, (ctors != null ? ctors[0] : null), instantiator);
+		}
+
 		// 情况1：如果只有一个有参的构造方法，就执行if里的代码
 		/**
 		 * getResolvedAutowireMode()，获取到Spring中该bean自动装配的模式
@@ -1366,6 +1385,42 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		return instantiateBean(beanName, mbd);
 	}
 
+	/**
+	 * Determine a build-time generated instantiator for the given bean class
+	 * that corresponds to the constructor which would otherwise be chosen.
+	 * <p>Only applies to plain constructor autowiring through a single candidate
+	 * constructor or the default constructor, without explicit arguments, method
+	 * overrides or a custom {@link InstantiationStrategy}.
+	 * @param beanClass the resolved bean class
+	 * @param mbd the merged bean definition for the bean
+	 * @param ctors the candidate constructors as determined by post-processors
+	 * @param args explicit arguments to use for constructor or factory method invocation
+	 * @return the instantiator to use, or {@code null} for regular instantiation
+	 * @since 5.1.14
+	 * @see BeanInstantiators#getInstantiator(Class)
+	 */
+	@Nullable
+	private BeanInstantiator getGeneratedInstantiator(@Nullable Class<?> beanClass, RootBeanDefinition mbd,
+			@Nullable Constructor<?>[] ctors, @Nullable Object[] args) {
+
+		if (beanClass == null || args != null || mbd.hasConstructorArgumentValues() || mbd.hasMethodOverrides() ||
+				mbd.getResolvedAutowireMode() == AUTOWIRE_CONSTRUCTOR ||
+				(ctors != null && ctors.length != 1) || (ctors == null && mbd.getPreferredConstructors() != null)) {
+			return null;
+		}
+		Class<?> strategyClass = this.instantiationStrategy.getClass();
+		if (strategyClass != CglibSubclassingInstantiationStrategy.class &&
+				strategyClass != SimpleInstantiationStrategy.class) {
+			return null;
+		}
+		BeanInstantiator instantiator = BeanInstantiators.getInstantiator(beanClass);
+		if (instantiator == null) {
+			return null;
+		}
+		Class<?>[] parameterTypes = (ctors != null ? ctors[0].getParameterTypes() : new Class<?>[0]);
+		return (Arrays.equals(parameterTypes, instantiator.getParameterTypes()) ? instantiator : null);
+	}
+
 	/**
 	 * Obtain a bean instance from the given supplier.
 	 * @param instanceSupplier the configured supplier
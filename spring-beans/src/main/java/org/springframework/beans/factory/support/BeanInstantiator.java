@@ -0,0 +1,52 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+/**
+ * Instantiates a specific bean class through plain Java code instead of
+ * reflection, typically generated at build time for each component class.
+ *
+ * <p>An instantiator corresponds to exactly one constructor of the bean class:
+ * the one that the bean factory would choose for autowiring. The factory still
+ * resolves the constructor arguments, then hands them to {@link #instantiate}.
+ *
+ * <p>Implementations are registered under the name of their bean class in
+ * {@value BeanInstantiators#INSTANTIATORS_RESOURCE_LOCATION} files and need to
+ * provide a public no-arg constructor.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ * @see BeanInstantiators
+ */
+public interface BeanInstantiator {
+
+	/**
+	 * Return the parameter types of the constructor that this instantiator
+	 * invokes, in declaration order.
+	 */
+	Class<?>[] getParameterTypes();
+
+	/**
+	 * Create a new instance of the bean class.
+	 * @param args the resolved constructor arguments, matching the
+	 * {@link #getParameterTypes() parameter types}
+	 * @return the new bean instance
+	 * @throws Exception if thrown by the constructor
+	 */
+	Object instantiate(Object[] args) throws Exception;
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Loading mechanism for {@link BeanInstantiator BeanInstantiators} generated
+ * at build time, for internal use within the framework.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ */
+public final class BeanInstantiators {
+
+	/**
+	 * The location to look for instantiators, mapping the name of each bean
+	 * class to the name of its instantiator class.
+	 * <p>Can be present in multiple JAR files.
+	 */
+	public static final String INSTANTIATORS_RESOURCE_LOCATION = "META-INF/spring.instantiators";
+
+	/**
+	 * System property that instructs Spring to ignore generated instantiators,
+	 * i.e. to always return {@code null} from {@link #getInstantiator(Class)}.
+	 * <p>The default is "false", using generated instantiators where available.
+	 */
+	public static final String IGNORE_INSTANTIATORS = "spring.instantiators.ignore";
+
+
+	private static final boolean shouldIgnoreInstantiators = SpringProperties.getFlag(IGNORE_INSTANTIATORS);
+
+	private static final Log logger = LogFactory.getLog(BeanInstantiators.class);
+
+	private static final Object NO_INSTANTIATOR = new Object();
+
+	private static final Map<ClassLoader, Properties> mappingsCache = new ConcurrentReferenceHashMap<>();
+
+	private static final Map<Class<?>, Object> instantiatorCache = new ConcurrentReferenceHashMap<>();
+
+
+	private BeanInstantiators() {
+	}
+
+
+	/**
+	 * Return the generated instantiator for the given bean class, if any.
+	 * @param beanClass the bean class to instantiate
+	 * @return the instantiator, or {@code null} if none is registered
+	 */
+	@Nullable
+	public static BeanInstantiator getInstantiator(Class<?> beanClass) {
+		if (shouldIgnoreInstantiators) {
+			return null;
+		}
+		Object instantiator = instantiatorCache.get(beanClass);
+		if (instantiator == null) {
+			instantiator = loadInstantiator(beanClass);
+			instantiatorCache.put(beanClass, (instantiator != null ? instantiator : NO_INSTANTIATOR));
+		}
+		return (instantiator != NO_INSTANTIATOR ? (BeanInstantiator) instantiator : null);
+	}
+
+	@Nullable
+	private static BeanInstantiator loadInstantiator(Class<?> beanClass) {
+		ClassLoader classLoader = beanClass.getClassLoader();
+		if (classLoader == null) {
+			return null;
+		}
+		String instantiatorClassName = getMappings(classLoader).getProperty(beanClass.getName());
+		if (instantiatorClassName == null) {
+			return null;
+		}
+		try {
+			Class<?> instantiatorClass = ClassUtils.forName(instantiatorClassName, classLoader);
+			if (!BeanInstantiator.class.isAssignableFrom(instantiatorClass)) {
+				throw new IllegalArgumentException("Class [" + instantiatorClassName +
+						"] does not implement [" + BeanInstantiator.class.getName() + "]");
+			}
+			return (BeanInstantiator) ReflectionUtils.accessibleConstructor(instantiatorClass).newInstance();
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not load generated instantiator for " + beanClass +
+						" - falling back to reflective instantiation", ex);
+			}
+			return null;
+		}
+	}
+
+	private static Properties getMappings(ClassLoader classLoader) {
+		return mappingsCache.computeIfAbsent(classLoader, key -> {
+			try {
+				return PropertiesLoaderUtils.loadAllProperties(INSTANTIATORS_RESOURCE_LOCATION, key);
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Unable to load instantiators from location [" +
+						INSTANTIATORS_RESOURCE_LOCATION + "]", ex);
+			}
+		});
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,6 +35,7 @@ import java.util.Set;
 
 import org.apache.commons.logging.Log;
 
+import org.springframework.beans.BeanInstantiationException;
 import org.springframework.beans.BeanMetadataElement;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
@@ -441,6 +442,76 @@ class ConstructorResolver {
 		}
 	}
 
+	/**
+	 * Instantiate the bean through the given generated instantiator, autowiring
+	 * the arguments of the corresponding constructor the same way as
+	 * {@link #autowireConstructor} does for a single candidate constructor.
+	 * <p>The constructor and the instantiator get cached in the bean definition,
+	 * for subsequent creation of prototype instances to skip their determination.
+	 * @param beanName the name of the bean
+	 * @param mbd the merged bean definition for the bean
+	 * @param constructor the constructor that the instantiator corresponds to,
+	 * or {@code null} for the default constructor
+	 * @param instantiator the generated instantiator for the bean class
+	 * @return a BeanWrapper for the new instance
+	 * @since 5.1.14
+	 */
+	public BeanWrapper instantiateUsingInstantiator(String beanName, RootBeanDefinition mbd,
+			@Nullable Constructor<?> constructor, BeanInstantiator instantiator) {
+
+		BeanWrapperImpl bw = new BeanWrapperImpl();
+		this.beanFactory.initBeanWrapper(bw);
+
+		Constructor<?> constructorToUse = constructor;
+		if (constructorToUse == null) {
+			try {
+				constructorToUse = mbd.getBeanClass().getDeclaredConstructor();
+			}
+			catch (NoSuchMethodException ex) {
+				throw new BeanCreationException(mbd.getResourceDescription(), beanName,
+						"Generated instantiator does not match any constructor", ex);
+			}
+		}
+		synchronized (mbd.constructorArgumentLock) {
+			mbd.resolvedConstructorOrFactoryMethod = constructorToUse;
+			mbd.resolvedInstantiator = instantiator;
+		}
+
+		Object[] args = new Object[constructorToUse.getParameterCount()];
+		if (args.length > 0) {
+			TypeConverter customConverter = this.beanFactory.getCustomTypeConverter();
+			TypeConverter converter = (customConverter != null ? customConverter : bw);
+			Set<String> autowiredBeanNames = new LinkedHashSet<>(4);
+			for (int paramIndex = 0; paramIndex < args.length; paramIndex++) {
+				MethodParameter methodParam = MethodParameter.forExecutable(constructorToUse, paramIndex);
+				try {
+					args[paramIndex] = resolveAutowiredArgument(methodParam, beanName, autowiredBeanNames, converter, true);
+				}
+				catch (BeansException ex) {
+					throw new UnsatisfiedDependencyException(
+							mbd.getResourceDescription(), beanName, new InjectionPoint(methodParam), ex);
+				}
+			}
+			for (String autowiredBeanName : autowiredBeanNames) {
+				this.beanFactory.registerDependentBean(autowiredBeanName, beanName);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Autowiring by type from bean name '" + beanName +
+							"' via generated instantiator to bean named '" + autowiredBeanName + "'");
+				}
+			}
+		}
+
+		try {
+			bw.setBeanInstance(instantiator.instantiate(args));
+		}
+		catch (Throwable ex) {
+			throw new BeanCreationException(mbd.getResourceDescription(), beanName,
+					"Bean instantiation via constructor failed",
+					new BeanInstantiationException(constructorToUse, "Constructor threw exception", ex));
+		}
+		return bw;
+	}
+
 	/**
 	 * Resolve the factory method in the specified bean definition, if possible.
 	 * {@link RootBeanDefinition#getResolvedFactoryMethod()} can be checked for the result.
@@ -1083,6 +1154,7 @@ class ConstructorResolver {
 			synchronized (mbd.constructorArgumentLock) {
 				mbd.resolvedConstructorOrFactoryMethod = constructorOrFactoryMethod;
 				mbd.constructorArgumentsResolved = true;
+				mbd.resolvedInstantiator = null;
 				if (this.resolveNecessary) {
 					mbd.preparedConstructorArguments = this.preparedArguments;
 				}
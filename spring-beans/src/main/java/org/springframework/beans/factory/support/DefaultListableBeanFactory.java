@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,7 +30,9 @@ import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -40,6 +42,10 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -48,6 +54,7 @@ import javax.inject.Provider;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -69,8 +76,10 @@ import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.BeanReference;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
 import org.springframework.core.OrderComparator;
@@ -149,6 +158,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether to allow eager class loading even for lazy-init beans. */
 	private boolean allowEagerClassLoading = true;
 
+	/** Number of threads to pre-instantiate singletons with. */
+	private int preInstantiationParallelism = 1;
+
 	/** Optional OrderComparator for dependency Lists and arrays. */
 	@Nullable
 	private Comparator<Object> dependencyComparator; // 类实例化时的顺序
@@ -265,6 +277,42 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.allowEagerClassLoading;
 	}
 
+	/**
+	 * Set the number of threads to pre-instantiate non-lazy singletons with.
+	 * <p>Default is 1, creating all singletons one after another in the thread
+	 * that calls {@link #preInstantiateSingletons()}. A higher value creates
+	 * groups of singletons that do not declare dependencies on each other in
+	 * parallel, which can speed up startup if many singletons perform blocking
+	 * I/O in their initialization, e.g. setting up connection pools.
+	 * <p>Singletons within a group are still created in registration order.
+	 * Singletons that turn out to depend on each other across groups, e.g.
+	 * through autowiring, wait for each other; circular references between them
+	 * are resolved through early singleton references as usual. Each singleton
+	 * is only ever created once, by a single thread: a circular reference across
+	 * threads that cannot be resolved through early references, e.g. between
+	 * constructor-injected singletons, fails pre-instantiation. Declare such
+	 * dependencies, e.g. via depends-on, to create the singletons involved in
+	 * the same group. Note that the
+	 * singleton beans involved need to be safe to create from any thread, not
+	 * relying on thread-bound state or holding locks while obtaining other beans.
+	 * {@link SmartInitializingSingleton} callbacks are always invoked sequentially
+	 * once all singletons have been created.
+	 * @since 5.1.14
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		Assert.isTrue(preInstantiationParallelism > 0, "Pre-instantiation parallelism must be greater than 0");
+		this.preInstantiationParallelism = preInstantiationParallelism;
+	}
+
+	/**
+	 * Return the number of threads to pre-instantiate non-lazy singletons with.
+	 * @since 5.1.14
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
 	/**
 	 * Set a {@link java.util.Comparator} for dependency Lists and arrays.
 	 * @since 4.0
@@ -320,6 +368,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			DefaultListableBeanFactory otherListableFactory = (DefaultListableBeanFactory) otherFactory;
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
+			this.preInstantiationParallelism = otherListableFactory.preInstantiationParallelism;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(
@@ -838,39 +887,13 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		/**
 		 * 触发所有非延迟加载单例bean的初始化，主要步骤为调用getBean()方法
 		 */
+		if (this.preInstantiationParallelism > 1) {
+			// Create independent groups of singletons in parallel first,
+			// with the loop below picking up any remaining singletons.
+			preInstantiateSingletonsInParallel(beanNames);
+		}
 		for (String beanName : beanNames) {
-			/**
-			 * getMergedLocalBeanDefinition()：合并父类的beanDefinition，如果没有父类就是自己的。
-			 *
-			 * 在XML中使用<bean>标签时，可以用parent属性为当前bean引用一个类，而不是使用class属性去
-			 * 指定一个类。可以理解为new了一个对象并赋值为另一个同类型的对象。
-			 */
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) { // 不是抽象类，是单例的，不是懒加载
-				if (isFactoryBean(beanName)) {
-					// 如果是FactoryBean，则在beanName前加上&符号，表示获取对象的FactoryBean
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else { // 如果是普通bean，直接传入beanName
-					getBean(beanName);
-				}
-			}
+			preInstantiateSingleton(beanName);
 		}
 
 		// Trigger post-initialization callback for all applicable beans...
@@ -892,6 +915,203 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * Trigger initialization of the given bean if it is a non-lazy singleton,
+	 * including the object exposed by an eager-init {@link SmartFactoryBean}.
+	 * @param beanName the name of the bean
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		/**
+		 * getMergedLocalBeanDefinition()：合并父类的beanDefinition，如果没有父类就是自己的。
+		 *
+		 * 在XML中使用<bean>标签时，可以用parent属性为当前bean引用一个类，而不是使用class属性去
+		 * 指定一个类。可以理解为new了一个对象并赋值为另一个同类型的对象。
+		 */
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) { // 不是抽象类，是单例的，不是懒加载
+			if (isFactoryBean(beanName)) {
+				// 如果是FactoryBean，则在beanName前加上&符号，表示获取对象的FactoryBean
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				if (bean instanceof FactoryBean) {
+					final FactoryBean<?> factory = (FactoryBean<?>) bean;
+					boolean isEagerInit;
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+										((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+					}
+					else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					if (isEagerInit) {
+						getBean(beanName);
+					}
+				}
+			}
+			else { // 如果是普通bean，直接传入beanName
+				getBean(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Initialize the non-lazy singletons among the given bean names in parallel,
+	 * creating each group of singletons that are related through declared
+	 * dependencies in one task on a {@link ForkJoinPool}, in registration order.
+	 * <p>The first failure stops all groups and is rethrown; failed singletons
+	 * are not created again.
+	 * @param beanNames the names of all bean definitions, in registration order
+	 * @see #setPreInstantiationParallelism
+	 */
+	private void preInstantiateSingletonsInParallel(List<String> beanNames) {
+		List<List<String>> groups = determineIndependentSingletonGroups(beanNames);
+		if (groups.size() < 2) {
+			return;
+		}
+		int parallelism = Math.min(this.preInstantiationParallelism, groups.size());
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pre-instantiating " + groups.size() + " independent groups of singletons with " +
+					"parallelism " + parallelism + " in " + this);
+		}
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		ForkJoinPool pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+			thread.setContextClassLoader(contextClassLoader);
+			return thread;
+		}, null, false);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		setConcurrentSingletonCreation(true);
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>(groups.size());
+			for (List<String> group : groups) {
+				tasks.add(pool.submit(() -> preInstantiateSingletonGroup(group, failure)));
+			}
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		}
+		finally {
+			setConcurrentSingletonCreation(false);
+			pool.shutdown();
+		}
+		Throwable ex = failure.get();
+		if (ex instanceof RuntimeException) {
+			throw (RuntimeException) ex;
+		}
+		if (ex instanceof Error) {
+			throw (Error) ex;
+		}
+	}
+
+	private void preInstantiateSingletonGroup(List<String> group, AtomicReference<Throwable> failure) {
+		for (String beanName : group) {
+			if (failure.get() != null) {
+				return;
+			}
+			try {
+				preInstantiateSingleton(beanName);
+			}
+			catch (RuntimeException | Error ex) {
+				failure.compareAndSet(null, ex);
+			}
+		}
+	}
+
+	/**
+	 * Partition the non-lazy singletons among the given bean names into groups
+	 * that do not declare any dependencies on each other, based on depends-on
+	 * declarations, factory bean references and bean references in property
+	 * values and constructor arguments of all merged bean definitions.
+	 * <p>Autowired dependencies are not known upfront: singletons that turn out
+	 * to depend on each other at runtime wait for each other across groups.
+	 * @param beanNames the names of all bean definitions, in registration order
+	 * @return the groups of singleton bean names, each in registration order
+	 */
+	private List<List<String>> determineIndependentSingletonGroups(List<String> beanNames) {
+		Map<String, String> parents = new HashMap<>(beanNames.size());
+		List<String> singletonNames = new ArrayList<>(beanNames.size());
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (bd.isAbstract()) {
+				continue;
+			}
+			if (bd.isSingleton() && !bd.isLazyInit()) {
+				singletonNames.add(beanName);
+			}
+			Set<String> dependencies = new LinkedHashSet<>();
+			collectDeclaredDependencies(bd, dependencies);
+			String root = findGroupRoot(parents, beanName);
+			for (String dependency : dependencies) {
+				String dependencyRoot = findGroupRoot(parents, transformedBeanName(dependency));
+				if (!dependencyRoot.equals(root)) {
+					parents.put(dependencyRoot, root);
+				}
+			}
+		}
+		Map<String, List<String>> groups = new LinkedHashMap<>();
+		for (String beanName : singletonNames) {
+			groups.computeIfAbsent(findGroupRoot(parents, beanName), key -> new ArrayList<>()).add(beanName);
+		}
+		return new ArrayList<>(groups.values());
+	}
+
+	private static String findGroupRoot(Map<String, String> parents, String beanName) {
+		String root = beanName;
+		String parent;
+		while ((parent = parents.get(root)) != null) {
+			root = parent;
+		}
+		if (!root.equals(beanName)) {
+			parents.put(beanName, root);
+		}
+		return root;
+	}
+
+	private void collectDeclaredDependencies(BeanDefinition bd, Set<String> dependencies) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			Collections.addAll(dependencies, dependsOn);
+		}
+		if (bd.getFactoryBeanName() != null) {
+			dependencies.add(bd.getFactoryBeanName());
+		}
+		for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+			collectReferencedBeanNames(pv.getValue(), dependencies);
+		}
+		ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getIndexedArgumentValues().values()) {
+			collectReferencedBeanNames(valueHolder.getValue(), dependencies);
+		}
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+			collectReferencedBeanNames(valueHolder.getValue(), dependencies);
+		}
+	}
+
+	private void collectReferencedBeanNames(@Nullable Object value, Set<String> dependencies) {
+		if (value instanceof BeanReference) {
+			dependencies.add(((BeanReference) value).getBeanName());
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectDeclaredDependencies(((BeanDefinitionHolder) value).getBeanDefinition(), dependencies);
+		}
+		else if (value instanceof BeanDefinition) {
+			collectDeclaredDependencies((BeanDefinition) value, dependencies);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectReferencedBeanNames(element, dependencies);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectReferencedBeanNames(entry.getKey(), dependencies);
+				collectReferencedBeanNames(entry.getValue(), dependencies);
+			}
+		}
+	}
+
+
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
 	//---------------------------------------------------------------------
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -100,6 +101,22 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** Flag that indicates whether we're currently within destroySingletons. */
 	private boolean singletonsCurrentlyInDestruction = false;
 
+	/** Flag that indicates whether singletons may currently be created by several threads. */
+	private volatile boolean concurrentSingletonCreation = false;
+
+	/** Threads creating singletons outside of the singleton lock: bean name to creating thread. */
+	private final Map<String, Thread> singletonCreationThreads = new HashMap<>(16);
+
+	/** Threads waiting for a singleton created by another thread: waiting thread to bean name. */
+	private final Map<Thread, String> singletonCreationWaits = new HashMap<>(16);
+
+	/** Waiting threads that may proceed with an early reference to the awaited singleton. */
+	private final Set<Thread> earlyReferenceWaits = new HashSet<>(16);
+
+	/** Suppressed Exceptions of the singleton creation in the current thread, if concurrent. */
+	private final ThreadLocal<Set<Exception>> concurrentSuppressedExceptions =
+			new NamedThreadLocal<>("Suppressed exceptions of concurrent singleton creation");
+
 	/** Disposable bean instances: bean name to disposable instance. */
 	private final Map<String, Object> disposableBeans = new LinkedHashMap<>();
 
@@ -189,6 +206,14 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		 */
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
 			synchronized (this.singletonObjects) {
+				if (allowEarlyReference && !this.singletonCreationThreads.isEmpty()) {
+					// Only expose early references to the creating thread itself,
+					// or to a thread that the creating thread is in turn waiting for.
+					singletonObject = awaitSingletonCreation(beanName, true);
+					if (singletonObject != null || !isSingletonCurrentlyInCreation(beanName)) {
+						return singletonObject;
+					}
+				}
 				// 用来验证被依赖的bean，在被解析出来后，和在目标bean中对应的属性类型是否匹配，在后面
 				// 调用AutowiredAnnotationBeanPostProcessor的内部类AutowiredFieldElement创建出
 				// 被依赖的bean后，调用isTypeMatch()方法去进行验证时，会执行到这里，才会使用到earlySingletonObjects这个集合。
@@ -218,8 +243,14 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		if (this.concurrentSingletonCreation) {
+			return getSingletonConcurrently(beanName, singletonFactory);
+		}
 		synchronized (this.singletonObjects) {
 			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null && !this.singletonCreationThreads.isEmpty()) {
+				singletonObject = awaitSingletonCreation(beanName, false);
+			}
 			if (singletonObject == null) {
 				if (this.singletonsCurrentlyInDestruction) {
 					throw new BeanCreationNotAllowedException(beanName,
@@ -282,12 +313,224 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		}
 	}
 
+	/**
+	 * Variant of {@link #getSingleton(String, ObjectFactory)} for concurrent
+	 * singleton creation: invokes the given factory outside of the singleton lock,
+	 * with other threads requesting the same singleton waiting for its completion.
+	 * @param beanName the name of the bean
+	 * @param singletonFactory the ObjectFactory to lazily create the singleton
+	 * with, if necessary
+	 * @return the registered singleton object
+	 * @see #setConcurrentSingletonCreation
+	 */
+	private Object getSingletonConcurrently(String beanName, ObjectFactory<?> singletonFactory) {
+		synchronized (this.singletonObjects) {
+			Object singletonObject = awaitSingletonCreation(beanName, false);
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+						"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+			}
+			beforeSingletonCreation(beanName);
+			this.singletonCreationThreads.put(beanName, Thread.currentThread());
+		}
+		// Suppressed exceptions are recorded per thread, for its outermost singleton creation
+		boolean recordSuppressedExceptions = (this.concurrentSuppressedExceptions.get() == null);
+		if (recordSuppressedExceptions) {
+			this.concurrentSuppressedExceptions.set(new LinkedHashSet<>());
+		}
+		Object singletonObject = null;
+		boolean newSingleton = false;
+		try {
+			singletonObject = singletonFactory.getObject();
+			newSingleton = true;
+		}
+		catch (IllegalStateException ex) {
+			// Has the singleton object implicitly appeared in the meantime ->
+			// if yes, proceed with it since the exception indicates that state.
+			singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				throw ex;
+			}
+		}
+		catch (BeanCreationException ex) {
+			if (recordSuppressedExceptions) {
+				for (Exception suppressedException : this.concurrentSuppressedExceptions.get()) {
+					ex.addRelatedCause(suppressedException);
+				}
+			}
+			throw ex;
+		}
+		finally {
+			if (recordSuppressedExceptions) {
+				this.concurrentSuppressedExceptions.remove();
+			}
+			synchronized (this.singletonObjects) {
+				afterSingletonCreation(beanName);
+				this.singletonCreationThreads.remove(beanName);
+				if (newSingleton) {
+					addSingleton(beanName, singletonObject);
+				}
+				this.singletonObjects.notifyAll();
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Wait for the specified singleton if it is currently created by another thread.
+	 * <p>Returns right away if the singleton is in creation by the current thread.
+	 * In case of a circular reference across threads, i.e. if the creating thread
+	 * is in turn waiting for a singleton that the current thread creates, returns
+	 * once an early reference to the singleton is available, to be resolved just
+	 * like within a single thread, or lets another thread in the cycle proceed with
+	 * an early reference. Each singleton is only ever created by a single thread:
+	 * if none of the threads involved can proceed, or if the creating thread failed,
+	 * an exception is thrown instead of creating the singleton again.
+	 * To be called with the singleton lock held.
+	 * @param beanName the name of the bean
+	 * @param allowEarlyReference whether the caller may proceed with an early
+	 * reference to the singleton
+	 * @return the singleton object, or {@code null} if none available yet
+	 */
+	@Nullable
+	private Object awaitSingletonCreation(String beanName, boolean allowEarlyReference) {
+		Thread currentThread = Thread.currentThread();
+		Thread creationThread = this.singletonCreationThreads.get(beanName);
+		if (creationThread == null || creationThread == currentThread) {
+			return this.singletonObjects.get(beanName);
+		}
+		Thread awaitedThread = creationThread;
+		this.singletonCreationWaits.put(currentThread, beanName);
+		if (allowEarlyReference) {
+			this.earlyReferenceWaits.add(currentThread);
+		}
+		// Let waiting threads check whether they are part of a circular reference now
+		this.singletonObjects.notifyAll();
+		try {
+			while (creationThread != null) {
+				if (isAwaitingSingletonOf(creationThread, currentThread)) {
+					if (allowEarlyReference && hasEarlySingletonReference(beanName)) {
+						return null;
+					}
+					if (!canResolveCircularWait(currentThread)) {
+						throw new BeanCurrentlyInCreationException(beanName,
+								"Requested bean is currently in creation in thread '" + creationThread.getName() +
+								"' which in turn waits for a bean in creation in this thread: " +
+								"Is there an unresolvable circular reference across singletons created in parallel?");
+					}
+				}
+				try {
+					this.singletonObjects.wait();
+				}
+				catch (InterruptedException ex) {
+					currentThread.interrupt();
+					throw new BeanCreationException(beanName,
+							"Interrupted while waiting for singleton creation in thread '" + creationThread.getName() + "'");
+				}
+				creationThread = this.singletonCreationThreads.get(beanName);
+			}
+		}
+		finally {
+			this.singletonCreationWaits.remove(currentThread);
+			this.earlyReferenceWaits.remove(currentThread);
+		}
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject == null) {
+			throw new BeanCreationException(beanName,
+					"Singleton creation failed in thread '" + awaitedThread.getName() + "'");
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Determine whether any thread in the circular wait of the given thread
+	 * may proceed with an early reference to the singleton that it awaits.
+	 * To be called with the singleton lock held.
+	 */
+	private boolean canResolveCircularWait(Thread thread) {
+		Set<Thread> seenThreads = new HashSet<>();
+		Thread currentThread = thread;
+		while (currentThread != null && seenThreads.add(currentThread)) {
+			String awaitedBeanName = this.singletonCreationWaits.get(currentThread);
+			if (awaitedBeanName == null) {
+				return true;
+			}
+			if (this.earlyReferenceWaits.contains(currentThread) && hasEarlySingletonReference(awaitedBeanName)) {
+				return true;
+			}
+			currentThread = this.singletonCreationThreads.get(awaitedBeanName);
+		}
+		return (currentThread == null);
+	}
+
+	private boolean hasEarlySingletonReference(String beanName) {
+		return (this.earlySingletonObjects.containsKey(beanName) || this.singletonFactories.containsKey(beanName));
+	}
+
+	/**
+	 * Determine whether the given thread is, directly or through a chain of
+	 * other threads, waiting for a singleton created by the target thread.
+	 * To be called with the singleton lock held.
+	 */
+	private boolean isAwaitingSingletonOf(Thread thread, Thread targetThread) {
+		Set<Thread> seenThreads = new HashSet<>();
+		Thread currentThread = thread;
+		while (currentThread != null && seenThreads.add(currentThread)) {
+			String awaitedBeanName = this.singletonCreationWaits.get(currentThread);
+			if (awaitedBeanName == null) {
+				return false;
+			}
+			currentThread = this.singletonCreationThreads.get(awaitedBeanName);
+			if (currentThread == targetThread) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Specify whether singletons may be created by several threads in parallel,
+	 * e.g. during parallel pre-instantiation of singletons.
+	 * <p>If {@code true}, a singleton factory gets invoked outside of the
+	 * singleton lock, allowing other threads to create independent singletons
+	 * in the meantime. A thread requesting a singleton that is currently in
+	 * creation in another thread waits for its completion, unless this would
+	 * result in a deadlock due to a circular reference across threads, in which
+	 * case an early singleton reference is exposed as within a single thread.
+	 * <p>Default is "false", creating all singletons within the singleton lock.
+	 * @since 5.1.14
+	 * @see #getSingleton(String, ObjectFactory)
+	 */
+	protected void setConcurrentSingletonCreation(boolean concurrentSingletonCreation) {
+		this.concurrentSingletonCreation = concurrentSingletonCreation;
+	}
+
+	/**
+	 * Return whether singletons may currently be created by several threads in parallel.
+	 * @since 5.1.14
+	 */
+	protected boolean isConcurrentSingletonCreation() {
+		return this.concurrentSingletonCreation;
+	}
+
 	/**
 	 * Register an Exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
 	 * @param ex the Exception to register
 	 */
 	protected void onSuppressedException(Exception ex) {
+		Set<Exception> concurrentSuppressedExceptions = this.concurrentSuppressedExceptions.get();
+		if (concurrentSuppressedExceptions != null) {
+			concurrentSuppressedExceptions.add(ex);
+			return;
+		}
 		synchronized (this.singletonObjects) {
 			if (this.suppressedExceptions != null) {
 				this.suppressedExceptions.add(ex);
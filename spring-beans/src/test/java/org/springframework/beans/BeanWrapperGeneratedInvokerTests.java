@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.junit.Test;
+
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the {@link BeanWrapperImpl} tests with generated property invokers enabled.
+ *
+ * @author Spring Framework Team
+ */
+public class BeanWrapperGeneratedInvokerTests extends BeanWrapperTests {
+
+	@Override
+	protected BeanWrapperImpl createAccessor(Object target) {
+		BeanWrapperImpl accessor = new BeanWrapperImpl(target);
+		accessor.setUseGeneratedInvokers(true);
+		return accessor;
+	}
+
+
+	@Test
+	public void generatedInvokerForPublicBeanClass() throws Exception {
+		BeanPropertyInvokerGenerator.GeneratedInvoker generatedInvoker =
+				BeanPropertyInvokerGenerator.getInvoker(CachedIntrospectionResults.forClass(TestBean.class));
+		assertNotNull(generatedInvoker);
+		assertSame(generatedInvoker,
+				BeanPropertyInvokerGenerator.getInvoker(CachedIntrospectionResults.forClass(TestBean.class)));
+
+		TestBean target = new TestBean("tom", 42);
+		int nameIndex = generatedInvoker.getReadIndex("name");
+		int ageIndex = generatedInvoker.getWriteIndex("age", 43);
+		assertTrue(nameIndex >= 0);
+		assertTrue(ageIndex >= 0);
+		assertEquals("tom", generatedInvoker.getPropertyValue(target, nameIndex));
+		generatedInvoker.setPropertyValue(target, ageIndex, 43);
+		assertEquals(43, target.getAge());
+
+		assertEquals(-1, generatedInvoker.getReadIndex("nonExistent"));
+		assertEquals(-1, generatedInvoker.getWriteIndex("age", null));
+		assertEquals(-1, generatedInvoker.getWriteIndex("age", "43"));
+	}
+
+	@Test
+	public void nestedWrapperInheritsGeneratedInvokers() {
+		TestBean target = new TestBean("tom", 42);
+		target.setSpouse(new TestBean("kerry", 34));
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setPropertyValue("spouse.age", "35");
+		assertEquals(35, target.getSpouse().getAge());
+		assertEquals("kerry", accessor.getPropertyValue("spouse.name"));
+		assertTrue(((BeanWrapperImpl) accessor.getPropertyAccessorForPropertyPath("spouse.name"))
+				.isUseGeneratedInvokers());
+	}
+
+	@Test
+	public void getterExceptionThroughGeneratedInvoker() {
+		BeanWrapperImpl accessor = createAccessor(new ThrowingBean());
+		try {
+			accessor.getPropertyValue("value");
+			fail("Should have thrown InvalidPropertyException");
+		}
+		catch (InvalidPropertyException ex) {
+			assertTrue(ex.getCause() instanceof InvocationTargetException);
+			assertTrue(ex.getRootCause() instanceof IllegalStateException);
+		}
+		try {
+			accessor.setPropertyValue("value", "x");
+			fail("Should have thrown MethodInvocationException");
+		}
+		catch (MethodInvocationException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+	}
+
+
+	public static class ThrowingBean {
+
+		public String getValue() {
+			throw new IllegalStateException("getter");
+		}
+
+		public void setValue(String value) {
+			throw new IllegalStateException("setter");
+		}
+	}
+
+}
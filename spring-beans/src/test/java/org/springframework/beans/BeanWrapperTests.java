@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,10 @@
 
 package org.springframework.beans;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -218,6 +221,52 @@ public class BeanWrapperTests extends AbstractPropertyAccessorTests {
 		}
 	}
 
+	@Test
+	public void samePropertyPathAcrossAccessors() {
+		TestBean target1 = new TestBean("tom");
+		target1.setSpouse(new TestBean("kerry"));
+		target1.setSomeMap(Collections.singletonMap("key.with.dots", new TestBean("rod")));
+		TestBean target2 = new TestBean("juergen");
+		target2.setSpouse(new TestBean("sam"));
+		target2.setSomeMap(Collections.singletonMap("key.with.dots", new TestBean("phil")));
+		BeanWrapper accessor1 = createAccessor(target1);
+		BeanWrapper accessor2 = createAccessor(target2);
+
+		for (int i = 0; i < 2; i++) {
+			assertEquals("kerry", accessor1.getPropertyValue("spouse.name"));
+			assertEquals("sam", accessor2.getPropertyValue("spouse.name"));
+			assertEquals("rod", accessor1.getPropertyValue("someMap[key.with.dots].name"));
+			assertEquals("phil", accessor2.getPropertyValue("someMap['key.with.dots'].name"));
+		}
+		accessor2.setPropertyValue("spouse.name", "sebastien");
+		assertEquals("sebastien", target2.getSpouse().getName());
+		assertEquals("kerry", target1.getSpouse().getName());
+	}
+
+	@Test
+	public void overriddenPropertyPathHooks() {
+		TestBean target = new TestBean("tom");
+		target.setSpouse(new TestBean("kerry"));
+		List<String> navigatedPaths = new ArrayList<>();
+		BeanWrapperImpl accessor = new BeanWrapperImpl(target) {
+			@Override
+			protected AbstractNestablePropertyAccessor getPropertyAccessorForPropertyPath(String propertyPath) {
+				navigatedPaths.add(propertyPath);
+				return super.getPropertyAccessorForPropertyPath(propertyPath);
+			}
+			@Override
+			protected String getFinalPath(AbstractNestablePropertyAccessor pa, String nestedPath) {
+				return super.getFinalPath(pa, nestedPath).replace("alias", "name");
+			}
+		};
+
+		assertEquals("kerry", accessor.getPropertyValue("spouse.alias"));
+		accessor.setPropertyValue("spouse.alias", "sam");
+		assertEquals("sam", target.getSpouse().getName());
+		assertEquals(String.class, accessor.getPropertyTypeDescriptor("spouse.alias").getType());
+		assertEquals(Arrays.asList("spouse.alias", "spouse.alias", "spouse.alias"), navigatedPaths);
+	}
+
 
 	private interface BaseProperty {
 
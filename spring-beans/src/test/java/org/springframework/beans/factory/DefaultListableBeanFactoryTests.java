@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,6 +37,9 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -2312,6 +2315,168 @@ public class DefaultListableBeanFactoryTests {
 		assertTrue(factory.initialized);
 	}
 
+	@Test
+	public void testParallelPreInstantiation() {
+		CountDownLatch latch = new CountDownLatch(3);
+		for (int i = 0; i < 3; i++) {
+			lbf.registerBeanDefinition("bean" + i, new RootBeanDefinition(TestBean.class,
+					() -> new TestBean(Thread.currentThread().getName(), awaitLatch(latch) ? 1 : 0)));
+		}
+		lbf.setPreInstantiationParallelism(3);
+		lbf.preInstantiateSingletons();
+		Set<String> threadNames = new HashSet<>();
+		for (int i = 0; i < 3; i++) {
+			TestBean bean = (TestBean) lbf.getBean("bean" + i);
+			assertEquals(1, bean.getAge());
+			threadNames.add(bean.getName());
+		}
+		assertEquals(3, threadNames.size());
+		assertFalse(threadNames.contains(Thread.currentThread().getName()));
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithDeclaredCircularReference() {
+		for (int i = 0; i < 10; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			bd.getPropertyValues().add("spouse", new RuntimeBeanReference("bean" + (i % 2 == 0 ? i + 1 : i - 1)));
+			lbf.registerBeanDefinition("bean" + i, bd);
+		}
+		lbf.setPreInstantiationParallelism(4);
+		lbf.preInstantiateSingletons();
+		for (int i = 0; i < 10; i++) {
+			TestBean bean = (TestBean) lbf.getBean("bean" + i);
+			assertSame(bean, bean.getSpouse().getSpouse());
+		}
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithAutowiredCircularReference() {
+		CountDownLatch latch = new CountDownLatch(2);
+		RootBeanDefinition bd1 = new RootBeanDefinition(CircularBeanA.class,
+				() -> new CircularBeanA(awaitLatch(latch)));
+		bd1.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_NAME);
+		lbf.registerBeanDefinition("beanA", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(CircularBeanB.class,
+				() -> new CircularBeanB(awaitLatch(latch)));
+		bd2.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_NAME);
+		lbf.registerBeanDefinition("beanB", bd2);
+		lbf.setPreInstantiationParallelism(2);
+		lbf.preInstantiateSingletons();
+		CircularBeanA beanA = lbf.getBean(CircularBeanA.class);
+		CircularBeanB beanB = lbf.getBean(CircularBeanB.class);
+		assertTrue(beanA.parallel);
+		assertTrue(beanB.parallel);
+		assertSame(beanB, beanA.beanB);
+		assertSame(beanA, beanB.beanA);
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithFailure() {
+		lbf.registerBeanDefinition("bean1", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("bean2", new RootBeanDefinition(TestBean.class, () -> {
+			throw new IllegalStateException("Failure");
+		}));
+		lbf.setPreInstantiationParallelism(2);
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertEquals("bean2", ex.getBeanName());
+		}
+		assertFalse(lbf.containsSingleton("bean2"));
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithCircularReferenceFromConstructor() {
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicInteger beanACount = new AtomicInteger();
+		AtomicInteger beanBCount = new AtomicInteger();
+		RootBeanDefinition bd1 = new RootBeanDefinition(CircularBeanA.class, () -> {
+			beanACount.incrementAndGet();
+			awaitQuietly(latch);
+			CircularBeanA beanA = new CircularBeanA(true);
+			beanA.setBeanB(lbf.getBean(CircularBeanB.class));
+			return beanA;
+		});
+		lbf.registerBeanDefinition("beanA", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(CircularBeanB.class, () -> {
+			beanBCount.incrementAndGet();
+			latch.countDown();
+			sleepQuietly(100);
+			return new CircularBeanB(true);
+		});
+		bd2.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_NAME);
+		lbf.registerBeanDefinition("beanB", bd2);
+		lbf.setPreInstantiationParallelism(2);
+		lbf.preInstantiateSingletons();
+		CircularBeanA beanA = lbf.getBean(CircularBeanA.class);
+		CircularBeanB beanB = lbf.getBean(CircularBeanB.class);
+		assertSame(beanB, beanA.beanB);
+		assertSame(beanA, beanB.beanA);
+		assertEquals(1, beanACount.get());
+		assertEquals(1, beanBCount.get());
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithUnresolvableCircularReference() {
+		CountDownLatch latch = new CountDownLatch(2);
+		AtomicInteger beanACount = new AtomicInteger();
+		AtomicInteger beanBCount = new AtomicInteger();
+		lbf.registerBeanDefinition("beanA", new RootBeanDefinition(CircularBeanA.class, () -> {
+			beanACount.incrementAndGet();
+			awaitLatch(latch);
+			lbf.getBean(CircularBeanB.class);
+			return new CircularBeanA(true);
+		}));
+		lbf.registerBeanDefinition("beanB", new RootBeanDefinition(CircularBeanB.class, () -> {
+			beanBCount.incrementAndGet();
+			awaitLatch(latch);
+			lbf.getBean(CircularBeanA.class);
+			return new CircularBeanB(true);
+		}));
+		lbf.setPreInstantiationParallelism(2);
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			// expected
+		}
+		assertEquals(1, beanACount.get());
+		assertEquals(1, beanBCount.get());
+		assertFalse(lbf.containsSingleton("beanA"));
+		assertFalse(lbf.containsSingleton("beanB"));
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static void sleepQuietly(long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static boolean awaitLatch(CountDownLatch latch) {
+		latch.countDown();
+		try {
+			return latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
 	@Test
 	public void testPrototypeFactoryBeanNotEagerlyCalledInCaseOfBeanClassName() {
 		lbf.registerBeanDefinition("test",
@@ -3160,6 +3325,38 @@ public class DefaultListableBeanFactoryTests {
 	}
 
 
+	public static class CircularBeanA {
+
+		private final boolean parallel;
+
+		private CircularBeanB beanB;
+
+		public CircularBeanA(boolean parallel) {
+			this.parallel = parallel;
+		}
+
+		public void setBeanB(CircularBeanB beanB) {
+			this.beanB = beanB;
+		}
+	}
+
+
+	public static class CircularBeanB {
+
+		private final boolean parallel;
+
+		private CircularBeanA beanA;
+
+		public CircularBeanB(boolean parallel) {
+			this.parallel = parallel;
+		}
+
+		public void setBeanA(CircularBeanA beanA) {
+			this.beanA = beanA;
+		}
+	}
+
+
 	public static class EagerInitFactory implements SmartFactoryBean<Object> {
 
 		public boolean initialized = false;
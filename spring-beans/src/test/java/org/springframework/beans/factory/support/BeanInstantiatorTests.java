@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.UnsatisfiedDependencyException;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for instantiation through {@link BeanInstantiator BeanInstantiators}
+ * registered in {@code META-INF/spring.instantiators}.
+ *
+ * @author Spring Framework Team
+ */
+public class BeanInstantiatorTests {
+
+	private static final AtomicInteger instantiations = new AtomicInteger();
+
+	private DefaultListableBeanFactory beanFactory;
+
+
+	@Before
+	public void setup() {
+		this.beanFactory = new DefaultListableBeanFactory();
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(this.beanFactory);
+		this.beanFactory.addBeanPostProcessor(bpp);
+		instantiations.set(0);
+	}
+
+
+	@Test
+	public void defaultConstructor() {
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(DefaultConstructorBean.class));
+		assertTrue(this.beanFactory.getBean("bean") instanceof DefaultConstructorBean);
+		assertEquals(1, instantiations.get());
+	}
+
+	@Test
+	public void constructorInjection() {
+		this.beanFactory.registerBeanDefinition("testBean", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(ConstructorInjectedBean.class));
+		ConstructorInjectedBean bean = this.beanFactory.getBean("bean", ConstructorInjectedBean.class);
+		assertSame(this.beanFactory.getBean("testBean"), bean.testBean);
+		assertEquals(1, instantiations.get());
+		assertArrayEquals(new String[] {"bean"}, this.beanFactory.getDependentBeans("testBean"));
+	}
+
+	@Test
+	public void prototypeReusesResolvedConstructor() throws Exception {
+		AtomicInteger determinations = new AtomicInteger();
+		this.beanFactory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessorAdapter() {
+			@Override
+			public Constructor<?>[] determineCandidateConstructors(Class<?> beanClass, String beanName) {
+				determinations.incrementAndGet();
+				return null;
+			}
+		});
+		RootBeanDefinition bd = new RootBeanDefinition(ConstructorInjectedBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition("testBean", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.registerBeanDefinition("bean", bd);
+		ConstructorInjectedBean bean1 = this.beanFactory.getBean("bean", ConstructorInjectedBean.class);
+		ConstructorInjectedBean bean2 = this.beanFactory.getBean("bean", ConstructorInjectedBean.class);
+		assertNotSame(bean1, bean2);
+		assertSame(this.beanFactory.getBean("testBean"), bean2.testBean);
+		assertEquals(2, instantiations.get());
+		assertEquals(1, determinations.get());
+		RootBeanDefinition mbd = (RootBeanDefinition) this.beanFactory.getMergedBeanDefinition("bean");
+		assertEquals(ConstructorInjectedBean.class.getConstructor(TestBean.class), mbd.resolvedConstructorOrFactoryMethod);
+		assertTrue(mbd.resolvedInstantiator instanceof ConstructorInjectedBeanInstantiator);
+	}
+
+	@Test
+	public void prototypeWithDefaultConstructor() throws Exception {
+		RootBeanDefinition bd = new RootBeanDefinition(DefaultConstructorBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition("bean", bd);
+		assertNotSame(this.beanFactory.getBean("bean"), this.beanFactory.getBean("bean"));
+		assertEquals(2, instantiations.get());
+		RootBeanDefinition mbd = (RootBeanDefinition) this.beanFactory.getMergedBeanDefinition("bean");
+		assertEquals(DefaultConstructorBean.class.getConstructor(), mbd.resolvedConstructorOrFactoryMethod);
+	}
+
+	@Test
+	public void constructorInjectionWithUnsatisfiedDependency() {
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(ConstructorInjectedBean.class));
+		try {
+			this.beanFactory.getBean("bean");
+			fail("Should have thrown UnsatisfiedDependencyException");
+		}
+		catch (UnsatisfiedDependencyException ex) {
+			assertEquals("bean", ex.getBeanName());
+		}
+		assertEquals(0, instantiations.get());
+	}
+
+	@Test
+	public void constructorFailure() {
+		this.beanFactory.registerSingleton("testBean", new TestBean("fail"));
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(ConstructorInjectedBean.class));
+		try {
+			this.beanFactory.getBean("bean");
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertTrue(ex.getMessage().contains("Bean instantiation via constructor failed"));
+			assertTrue(ex.getMostSpecificCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void explicitConstructorArgumentsBypassInstantiator() {
+		RootBeanDefinition bd = new RootBeanDefinition(ConstructorInjectedBean.class);
+		TestBean testBean = new TestBean();
+		bd.getConstructorArgumentValues().addGenericArgumentValue(testBean);
+		this.beanFactory.registerBeanDefinition("bean", bd);
+		assertSame(testBean, this.beanFactory.getBean("bean", ConstructorInjectedBean.class).testBean);
+		assertEquals(0, instantiations.get());
+	}
+
+	@Test
+	public void methodOverridesBypassInstantiator() {
+		RootBeanDefinition bd = new RootBeanDefinition(DefaultConstructorBean.class);
+		bd.getMethodOverrides().addOverride(new LookupOverride("getTestBean", "testBean"));
+		this.beanFactory.registerBeanDefinition("testBean", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.registerBeanDefinition("bean", bd);
+		DefaultConstructorBean bean = this.beanFactory.getBean("bean", DefaultConstructorBean.class);
+		assertNotSame(DefaultConstructorBean.class, bean.getClass());
+		assertNotNull(bean.getTestBean());
+		assertEquals(0, instantiations.get());
+	}
+
+
+	public static class DefaultConstructorBean {
+
+		public TestBean getTestBean() {
+			return null;
+		}
+	}
+
+
+	public static class ConstructorInjectedBean {
+
+		private final TestBean testBean;
+
+		public ConstructorInjectedBean(TestBean testBean) {
+			if ("fail".equals(testBean.getName())) {
+				throw new IllegalStateException("Construction failure");
+			}
+			this.testBean = testBean;
+		}
+	}
+
+
+	public static class DefaultConstructorBeanInstantiator implements BeanInstantiator {
+
+		@Override
+		public Class<?>[] getParameterTypes() {
+			return new Class<?>[0];
+		}
+
+		@Override
+		public Object instantiate(Object[] args) {
+			instantiations.incrementAndGet();
+			return new DefaultConstructorBean();
+		}
+	}
+
+
+	public static class ConstructorInjectedBeanInstantiator implements BeanInstantiator {
+
+		@Override
+		public Class<?>[] getParameterTypes() {
+			return new Class<?>[] {TestBean.class};
+		}
+
+		@Override
+		public Object instantiate(Object[] args) {
+			instantiations.incrementAndGet();
+			return new ConstructorInjectedBean((TestBean) args[0]);
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.beans;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@link BeanWrapperImpl} simple, nested and indexed
+ * property access, with and without type conversion.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+public class BeanWrapperBenchmark {
+
+	@Benchmark
+	public Object getSimpleProperty(BenchmarkState state) {
+		return state.beanWrapper.getPropertyValue("name");
+	}
+
+	@Benchmark
+	public Object getNestedProperty(BenchmarkState state) {
+		return state.beanWrapper.getPropertyValue("spouse.name");
+	}
+
+	@Benchmark
+	public Object getIndexedProperty(BenchmarkState state) {
+		return state.beanWrapper.getPropertyValue("friends[1].name");
+	}
+
+	@Benchmark
+	public Object setSimpleProperty(BenchmarkState state) {
+		state.beanWrapper.setPropertyValue("name", "Juergen");
+		return state.bean;
+	}
+
+	@Benchmark
+	public Object setPropertyWithConversion(BenchmarkState state) {
+		state.beanWrapper.setPropertyValue("age", "42");
+		return state.bean;
+	}
+
+	@Benchmark
+	public Object setNestedProperty(BenchmarkState state) {
+		state.beanWrapper.setPropertyValue("spouse.age", 41);
+		return state.bean;
+	}
+
+	@Benchmark
+	public Object newBeanWrapper(BenchmarkState state) {
+		BeanWrapper beanWrapper = new BeanWrapperImpl(state.bean);
+		return beanWrapper.getPropertyValue("name");
+	}
+
+
+	@State(Scope.Thread)
+	public static class BenchmarkState {
+
+		public Person bean;
+
+		public BeanWrapper beanWrapper;
+
+		@Setup
+		public void setup() {
+			this.bean = new Person();
+			this.bean.setName("Rod");
+			Person spouse = new Person();
+			spouse.setName("Kerry");
+			this.bean.setSpouse(spouse);
+			Person friend = new Person();
+			friend.setName("Colin");
+			this.bean.setFriends(new Person[] {spouse, friend});
+			this.beanWrapper = new BeanWrapperImpl(this.bean);
+		}
+	}
+
+
+	public static class Person {
+
+		private String name;
+
+		private int age;
+
+		private Person spouse;
+
+		private Person[] friends;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public Person getSpouse() {
+			return this.spouse;
+		}
+
+		public void setSpouse(Person spouse) {
+			this.spouse = spouse;
+		}
+
+		public Person[] getFriends() {
+			return this.friends;
+		}
+
+		public void setFriends(Person[] friends) {
+			this.friends = friends;
+		}
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.beans.factory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.RequestScope;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Benchmarks for {@link DefaultListableBeanFactory#getBean} with singleton,
+ * prototype and request-scoped bean definitions.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+public class BeanFactoryBenchmark {
+
+	@Benchmark
+	public Object singleton(BeanFactoryState state) {
+		return state.beanFactory.getBean("singleton");
+	}
+
+	@Benchmark
+	public Object singletonByType(BeanFactoryState state) {
+		return state.beanFactory.getBean(SimpleBean.class);
+	}
+
+	@Benchmark
+	public Object prototype(BeanFactoryState state) {
+		return state.beanFactory.getBean("prototype");
+	}
+
+	@Benchmark
+	public Object prototypeWithDependency(BeanFactoryState state) {
+		return state.beanFactory.getBean("prototypeWithDependency");
+	}
+
+	@Benchmark
+	public Object requestScoped(RequestScopeState state) {
+		return state.beanFactory.getBean("request");
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BeanFactoryState {
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			this.beanFactory.registerBeanDefinition("singleton", new RootBeanDefinition(SimpleBean.class));
+			RootBeanDefinition prototype = new RootBeanDefinition(OtherBean.class);
+			prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			this.beanFactory.registerBeanDefinition("prototype", prototype);
+			RootBeanDefinition prototypeWithDependency = new RootBeanDefinition(DependentBean.class);
+			prototypeWithDependency.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			prototypeWithDependency.getConstructorArgumentValues().addGenericArgumentValue(
+					new RuntimeBeanReference("singleton"));
+			this.beanFactory.registerBeanDefinition("prototypeWithDependency", prototypeWithDependency);
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+
+	@State(Scope.Thread)
+	public static class RequestScopeState {
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			this.beanFactory.registerScope("request", new RequestScope());
+			RootBeanDefinition request = new RootBeanDefinition(SimpleBean.class);
+			request.setScope("request");
+			this.beanFactory.registerBeanDefinition("request", request);
+			RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			RequestContextHolder.resetRequestAttributes();
+		}
+	}
+
+
+	public static class SimpleBean {
+	}
+
+
+	public static class OtherBean {
+	}
+
+
+	public static class DependentBean {
+
+		private final SimpleBean simpleBean;
+
+		public DependentBean(SimpleBean simpleBean) {
+			this.simpleBean = simpleBean;
+		}
+
+		public SimpleBean getSimpleBean() {
+			return this.simpleBean;
+		}
+	}
+
+}
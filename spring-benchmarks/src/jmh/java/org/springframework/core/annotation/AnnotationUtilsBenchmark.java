@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@link AnnotationUtils} and {@link AnnotatedElementUtils}
+ * lookups on classes and methods, including meta-annotations, attribute
+ * overrides and interface hierarchies.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AnnotationUtilsBenchmark {
+
+	@Benchmark
+	public Object findAnnotationOnClass(BenchmarkState state) {
+		return AnnotationUtils.findAnnotation(state.annotatedClass, Component.class);
+	}
+
+	@Benchmark
+	public Object findAnnotationOnClassMissing(BenchmarkState state) {
+		return AnnotationUtils.findAnnotation(state.annotatedClass, Retention.class);
+	}
+
+	@Benchmark
+	public Object findAnnotationOnInterfaceMethod(BenchmarkState state) {
+		return AnnotationUtils.findAnnotation(state.annotatedMethod, Mapping.class);
+	}
+
+	@Benchmark
+	public Object getMergedAnnotationOnClass(BenchmarkState state) {
+		return AnnotatedElementUtils.getMergedAnnotation(state.annotatedClass, Component.class);
+	}
+
+	@Benchmark
+	public Object findMergedAnnotationOnMethod(BenchmarkState state) {
+		return AnnotatedElementUtils.findMergedAnnotation(state.annotatedMethod, Mapping.class);
+	}
+
+	@Benchmark
+	public boolean hasAnnotationOnClass(BenchmarkState state) {
+		return AnnotatedElementUtils.hasAnnotation(state.annotatedClass, Component.class);
+	}
+
+	@Benchmark
+	public boolean hasAnnotationOnPlainClass(BenchmarkState state) {
+		return AnnotatedElementUtils.hasAnnotation(state.plainClass, Component.class);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public Class<?> annotatedClass;
+
+		public Class<?> plainClass;
+
+		public Method annotatedMethod;
+
+		@Setup
+		public void setup() throws Exception {
+			this.annotatedClass = AnnotatedService.class;
+			this.plainClass = PlainService.class;
+			this.annotatedMethod = AnnotatedService.class.getMethod("handle", String.class);
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+	public @interface Component {
+
+		String value() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@Component
+	public @interface Service {
+
+		@AliasFor(annotation = Component.class)
+		String value() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	public @interface Mapping {
+
+		String[] path() default {};
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.METHOD)
+	@Mapping
+	public @interface GetMapping {
+
+		@AliasFor(annotation = Mapping.class)
+		String[] path() default {};
+	}
+
+
+	public interface ServiceContract {
+
+		@GetMapping(path = "/handle")
+		String handle(String input);
+	}
+
+
+	@Service("annotatedService")
+	public static class AnnotatedService implements ServiceContract {
+
+		@Override
+		public String handle(String input) {
+			return input;
+		}
+	}
+
+
+	public static class PlainService {
+	}
+
+}
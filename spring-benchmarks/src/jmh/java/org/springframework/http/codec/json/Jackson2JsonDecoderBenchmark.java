@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.codec.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * Benchmarks for {@link Jackson2JsonDecoder}, covering the tokenizing of a
+ * JSON array split across several {@link DataBuffer} chunks into a stream
+ * of elements as well as decoding into a single value.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+public class Jackson2JsonDecoderBenchmark {
+
+	@Benchmark
+	public List<Object> decodeToFlux(BenchmarkState state) {
+		return state.decoder.decode(state.chunks(), ResolvableType.forClass(Pojo.class),
+				MediaType.APPLICATION_JSON, null).collectList().block();
+	}
+
+	@Benchmark
+	public Object decodeToMono(BenchmarkState state) {
+		return state.decoder.decodeToMono(state.chunks(), ResolvableType.forClass(Pojo[].class),
+				MediaType.APPLICATION_JSON, null).block();
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"10", "1000"})
+		public int elementCount;
+
+		@Param({"1024"})
+		public int chunkSize;
+
+		public Jackson2JsonDecoder decoder;
+
+		public DefaultDataBufferFactory bufferFactory;
+
+		public List<byte[]> chunks;
+
+		@Setup
+		public void setup() {
+			this.decoder = new Jackson2JsonDecoder();
+			this.bufferFactory = new DefaultDataBufferFactory();
+			StringBuilder json = new StringBuilder("[");
+			for (int i = 0; i < this.elementCount; i++) {
+				if (i > 0) {
+					json.append(',');
+				}
+				json.append("{\"foo\":\"foo").append(i).append("\",\"bar\":\"bar").append(i).append("\"}");
+			}
+			json.append(']');
+			byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+			this.chunks = new ArrayList<>();
+			for (int offset = 0; offset < bytes.length; offset += this.chunkSize) {
+				int length = Math.min(this.chunkSize, bytes.length - offset);
+				byte[] chunk = new byte[length];
+				System.arraycopy(bytes, offset, chunk, 0, length);
+				this.chunks.add(chunk);
+			}
+		}
+
+		public Flux<DataBuffer> chunks() {
+			return Flux.fromIterable(this.chunks).map(this.bufferFactory::wrap);
+		}
+	}
+
+
+	public static class Pojo {
+
+		private String foo;
+
+		private String bar;
+
+		public String getFoo() {
+			return this.foo;
+		}
+
+		public void setFoo(String foo) {
+			this.foo = foo;
+		}
+
+		public String getBar() {
+			return this.bar;
+		}
+
+		public void setBar(String bar) {
+			this.bar = bar;
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link AntPathMatcher#match} and
+ * {@link AntPathMatcher#extractUriTemplateVariables} against typical
+ * request mapping patterns, with the default and with a bounded pattern cache.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AntPathMatcherBenchmark {
+
+	@Benchmark
+	public void matchLiteral(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.matcher.match("/api/orders/list", "/api/orders/list"));
+	}
+
+	@Benchmark
+	public void matchUriVariables(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.matcher.match("/api/orders/{id}/items/{itemId}", "/api/orders/42/items/7"));
+	}
+
+	@Benchmark
+	public void matchWildcards(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.matcher.match("/static/**/*.js", "/static/js/vendor/app.min.js"));
+	}
+
+	@Benchmark
+	public void matchAllPatterns(BenchmarkState state, Blackhole bh) {
+		for (String path : state.paths) {
+			for (String pattern : state.patterns) {
+				bh.consume(state.matcher.match(pattern, path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void extractUriTemplateVariables(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.matcher.extractUriTemplateVariables(
+				"/api/orders/{id}/items/{itemId}", "/api/orders/42/items/7"));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"false", "true"})
+		public boolean boundedPatternCache;
+
+		public AntPathMatcher matcher;
+
+		public String[] patterns;
+
+		public String[] paths;
+
+		@Setup
+		public void setup() {
+			this.matcher = new AntPathMatcher();
+			if (this.boundedPatternCache) {
+				this.matcher.setPatternCacheLimit(1024);
+			}
+			this.patterns = new String[] {
+					"/api/orders", "/api/orders/{id}", "/api/orders/{id}/items", "/api/orders/{id}/items/{itemId}",
+					"/api/customers/{id}", "/api/customers/{id}/addresses/*", "/static/**/*.css", "/static/**/*.js",
+					"/admin/**", "/login", "/logout", "/api/search?q=*", "/{lang:[a-z]{2}}/docs/**"};
+			this.paths = new String[] {
+					"/api/orders", "/api/orders/42", "/api/orders/42/items/7", "/api/customers/7/addresses/home",
+					"/static/css/site.css", "/static/js/vendor/app.min.js", "/en/docs/reference/index.html",
+					"/unknown/path/that/does/not/match"};
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.web.servlet.mvc.method.annotation;
+
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+/**
+ * Benchmarks for {@link RequestMappingHandlerMapping#getHandler} with a
+ * configurable number of registered mappings, half of them literal paths
+ * and half of them URI template patterns, with and without the path
+ * segment index.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+public class RequestMappingHandlerMappingBenchmark {
+
+	@Benchmark
+	public HandlerExecutionChain literalPath(BenchmarkState state) throws Exception {
+		return state.handlerMapping.getHandler(state.literalRequest);
+	}
+
+	@Benchmark
+	public HandlerExecutionChain patternPath(BenchmarkState state) throws Exception {
+		return state.handlerMapping.getHandler(state.patternRequest);
+	}
+
+	@Benchmark
+	public HandlerExecutionChain noMatch(BenchmarkState state) throws Exception {
+		return state.handlerMapping.getHandler(state.noMatchRequest);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"10", "100", "1000"})
+		public int mappingCount;
+
+		@Param({"false", "true"})
+		public boolean usePathSegmentIndex;
+
+		public RequestMappingHandlerMapping handlerMapping;
+
+		public MockHttpServletRequest literalRequest;
+
+		public MockHttpServletRequest patternRequest;
+
+		public MockHttpServletRequest noMatchRequest;
+
+		@Setup
+		public void setup() throws Exception {
+			StaticWebApplicationContext context = new StaticWebApplicationContext();
+			context.refresh();
+			this.handlerMapping = new RequestMappingHandlerMapping();
+			this.handlerMapping.setUsePathSegmentIndex(this.usePathSegmentIndex);
+			this.handlerMapping.setApplicationContext(context);
+			this.handlerMapping.afterPropertiesSet();
+
+			RequestMappingInfo.BuilderConfiguration config = new RequestMappingInfo.BuilderConfiguration();
+			config.setUrlPathHelper(this.handlerMapping.getUrlPathHelper());
+			config.setPathMatcher(this.handlerMapping.getPathMatcher());
+			config.setContentNegotiationManager(this.handlerMapping.getContentNegotiationManager());
+
+			TestController controller = new TestController();
+			Method method = TestController.class.getMethod("handle");
+			for (int i = 0; i < this.mappingCount; i++) {
+				String path = (i % 2 == 0 ? "/api/resource" + i + "/list" : "/api/resource" + i + "/{id}/items");
+				RequestMappingInfo info = RequestMappingInfo.paths(path)
+						.methods(RequestMethod.GET).options(config).build();
+				this.handlerMapping.registerMapping(info, controller, method);
+			}
+
+			this.literalRequest = new MockHttpServletRequest("GET", "/api/resource0/list");
+			int lastPattern = (this.mappingCount % 2 == 0 ? this.mappingCount - 1 : this.mappingCount - 2);
+			this.patternRequest = new MockHttpServletRequest("GET", "/api/resource" + lastPattern + "/42/items");
+			this.noMatchRequest = new MockHttpServletRequest("GET", "/api/unknown/42/items");
+		}
+	}
+
+
+	public static class TestController {
+
+		public String handle() {
+			return "handle";
+		}
+	}
+
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation {@link Processor} that generates a
+ * {@code org.springframework.beans.factory.support.BeanInstantiator} for each
+ * component class, invoking the component's autowiring constructor through
+ * plain Java code, and registers it in a {@value #INSTANTIATORS_PATH} file.
+ *
+ * <p>Only active if the {@value #GENERATE_OPTION} processor option is set to
+ * {@code true}. Components are classes annotated or meta-annotated with
+ * {@code @Component}, except for {@code @Configuration} classes which need
+ * to be enhanced at runtime. Classes for which the constructor choice cannot
+ * be determined at build time are skipped, leaving them to reflective
+ * instantiation at runtime.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ */
+public class BeanInstantiatorGenerator implements Processor {
+
+	/**
+	 * Processor option that enables the generation of instantiators.
+	 */
+	static final String GENERATE_OPTION = "spring.instantiators.generate";
+
+	static final String INSTANTIATORS_PATH = "META-INF/spring.instantiators";
+
+	static final String INSTANTIATOR_SUFFIX = "__BeanInstantiator";
+
+	private static final String COMPONENT_ANNOTATION = "org.springframework.stereotype.Component";
+
+	private static final String CONFIGURATION_ANNOTATION = "org.springframework.context.annotation.Configuration";
+
+	private static final Set<String> AUTOWIRED_ANNOTATIONS = new HashSet<>(Arrays.asList(
+			"org.springframework.beans.factory.annotation.Autowired", "javax.inject.Inject"));
+
+	private static final String INSTANTIATOR_INTERFACE = "org.springframework.beans.factory.support.BeanInstantiator";
+
+
+	private ProcessingEnvironment environment;
+
+	private TypeHelper typeHelper;
+
+	private boolean enabled;
+
+	private final TreeMap<String, String> instantiators = new TreeMap<>();
+
+
+	@Override
+	public Set<String> getSupportedOptions() {
+		return Collections.singleton(GENERATE_OPTION);
+	}
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton("*");
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latest();
+	}
+
+	@Override
+	public synchronized void init(ProcessingEnvironment env) {
+		this.environment = env;
+		this.typeHelper = new TypeHelper(env);
+		this.enabled = Boolean.parseBoolean(env.getOptions().get(GENERATE_OPTION));
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (!this.enabled) {
+			return false;
+		}
+		for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+			processType(type);
+		}
+		if (roundEnv.processingOver() && !this.instantiators.isEmpty()) {
+			writeInstantiators();
+		}
+		return false;
+	}
+
+	@Override
+	public Iterable<? extends Completion> getCompletions(
+			Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+
+		return Collections.emptyList();
+	}
+
+
+	private void processType(TypeElement type) {
+		if (type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.ABSTRACT) &&
+				hasAnnotation(type, COMPONENT_ANNOTATION) && !hasAnnotation(type, CONFIGURATION_ANNOTATION)) {
+			ExecutableElement constructor = determineConstructor(type);
+			if (constructor != null) {
+				generateInstantiator(type, constructor);
+			}
+		}
+		for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+			if (nested.getModifiers().contains(Modifier.STATIC) && !nested.getModifiers().contains(Modifier.PRIVATE)) {
+				processType(nested);
+			}
+		}
+	}
+
+	private boolean hasAnnotation(Element element, String annotationType) {
+		return hasAnnotation(element, annotationType, new HashSet<>());
+	}
+
+	private boolean hasAnnotation(Element element, String annotationType, Set<Element> seen) {
+		for (AnnotationMirror annotation : this.typeHelper.getAllAnnotationMirrors(element)) {
+			Element annotationElement = annotation.getAnnotationType().asElement();
+			if (annotationType.equals(annotationElement.toString())) {
+				return true;
+			}
+			if (!annotationElement.toString().startsWith("java.lang") && seen.add(annotationElement) &&
+					hasAnnotation(annotationElement, annotationType, seen)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determine the constructor that the bean factory would use for the given
+	 * component, following the rules of {@code AutowiredAnnotationBeanPostProcessor}:
+	 * a single autowired constructor, a single constructor, or else the default one.
+	 * @return the constructor, or {@code null} if it cannot be invoked or determined
+	 */
+	private ExecutableElement determineConstructor(TypeElement type) {
+		List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+		List<ExecutableElement> autowired = new ArrayList<>();
+		for (ExecutableElement constructor : constructors) {
+			for (AnnotationMirror annotation : constructor.getAnnotationMirrors()) {
+				if (AUTOWIRED_ANNOTATIONS.contains(annotation.getAnnotationType().toString())) {
+					if (!isRequired(annotation)) {
+						// Optional autowiring with fallback constructors: decided at runtime
+						return null;
+					}
+					autowired.add(constructor);
+				}
+			}
+		}
+		ExecutableElement result = null;
+		if (autowired.size() == 1) {
+			result = autowired.get(0);
+		}
+		else if (autowired.isEmpty() && constructors.size() == 1) {
+			result = constructors.get(0);
+		}
+		else if (autowired.isEmpty()) {
+			for (ExecutableElement constructor : constructors) {
+				if (constructor.getParameters().isEmpty()) {
+					result = constructor;
+				}
+			}
+		}
+		return (result != null && !result.getModifiers().contains(Modifier.PRIVATE) ? result : null);
+	}
+
+	private boolean isRequired(AnnotationMirror annotation) {
+		for (ExecutableElement attribute : annotation.getElementValues().keySet()) {
+			if (attribute.getSimpleName().contentEquals("required")) {
+				AnnotationValue value = annotation.getElementValues().get(attribute);
+				return !Boolean.FALSE.equals(value.getValue());
+			}
+		}
+		return true;
+	}
+
+	private void generateInstantiator(TypeElement type, ExecutableElement constructor) {
+		Elements elements = this.environment.getElementUtils();
+		Types types = this.environment.getTypeUtils();
+		PackageElement packageElement = elements.getPackageOf(type);
+		String packageName = (packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString());
+		String binaryName = elements.getBinaryName(type).toString();
+		String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1));
+		String instantiatorName = simpleName.replace('$', '_') + INSTANTIATOR_SUFFIX;
+		String qualifiedInstantiatorName = (packageName.isEmpty() ? "" : packageName + ".") + instantiatorName;
+
+		List<String> parameterTypes = new ArrayList<>();
+		List<String> arguments = new ArrayList<>();
+		List<? extends VariableElement> parameters = constructor.getParameters();
+		for (int i = 0; i < parameters.size(); i++) {
+			TypeMirror parameterType = types.erasure(parameters.get(i).asType());
+			parameterTypes.add(parameterType + ".class");
+			String castType = (parameterType.getKind().isPrimitive() ?
+					types.boxedClass((PrimitiveType) parameterType).getQualifiedName().toString() :
+					parameterType.toString());
+			arguments.add("(" + castType + ") args[" + i + "]");
+		}
+
+		StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty()) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("/**\n * Generated instantiator for {@link ")
+				.append(type.getQualifiedName()).append("}.\n */\n");
+		source.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+		source.append("public final class ").append(instantiatorName)
+				.append(" implements ").append(INSTANTIATOR_INTERFACE).append(" {\n\n");
+		source.append("\t@Override\n\tpublic Class<?>[] getParameterTypes() {\n")
+				.append("\t\treturn new Class<?>[] {").append(String.join(", ", parameterTypes)).append("};\n\t}\n\n");
+		String instantiation = "new " + type.getQualifiedName() + "(" + String.join(", ", arguments) + ")";
+		source.append("\t@Override\n\tpublic Object instantiate(Object[] args) throws Exception {\n");
+		if (throwsUndeclaredThrowable(constructor)) {
+			// Throwable types that cannot propagate through 'throws Exception'
+			source.append("\t\ttry {\n\t\t\treturn ").append(instantiation).append(";\n\t\t}\n")
+					.append("\t\tcatch (Exception | Error ex) {\n\t\t\tthrow ex;\n\t\t}\n")
+					.append("\t\tcatch (Throwable ex) {\n")
+					.append("\t\t\tthrow new java.lang.reflect.UndeclaredThrowableException(ex);\n\t\t}\n");
+		}
+		else {
+			source.append("\t\treturn ").append(instantiation).append(";\n");
+		}
+		source.append("\t}\n\n}\n");
+
+		try (Writer writer = this.environment.getFiler().createSourceFile(qualifiedInstantiatorName, type).openWriter()) {
+			writer.write(source.toString());
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to write instantiator for " + binaryName, ex);
+		}
+		this.instantiators.put(binaryName, qualifiedInstantiatorName);
+	}
+
+	/**
+	 * Determine whether the given constructor declares a checked throwable that
+	 * is not an {@link Exception}, e.g. {@code throws Throwable}.
+	 */
+	private boolean throwsUndeclaredThrowable(ExecutableElement constructor) {
+		Elements elements = this.environment.getElementUtils();
+		Types types = this.environment.getTypeUtils();
+		TypeMirror exceptionType = elements.getTypeElement(Exception.class.getName()).asType();
+		TypeMirror errorType = elements.getTypeElement(Error.class.getName()).asType();
+		for (TypeMirror thrownType : constructor.getThrownTypes()) {
+			if (!types.isAssignable(thrownType, exceptionType) && !types.isAssignable(thrownType, errorType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void writeInstantiators() {
+		Properties properties = readInstantiators();
+		properties.putAll(this.instantiators);
+		try {
+			FileObject resource = this.environment.getFiler().createResource(
+					StandardLocation.CLASS_OUTPUT, "", INSTANTIATORS_PATH);
+			try (OutputStream out = resource.openOutputStream()) {
+				properties.store(out, null);
+			}
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to write instantiators", ex);
+		}
+	}
+
+	/**
+	 * Read the instantiators registered by a previous, possibly incremental,
+	 * compilation into the same output location.
+	 */
+	private Properties readInstantiators() {
+		Properties properties = new Properties();
+		try {
+			FileObject resource = this.environment.getFiler().getResource(
+					StandardLocation.CLASS_OUTPUT, "", INSTANTIATORS_PATH);
+			try (InputStream in = resource.openInputStream()) {
+				properties.load(in);
+			}
+		}
+		catch (IOException ex) {
+			// No previous instantiators -> ignore.
+		}
+		return properties;
+	}
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.beans.factory.support.BeanInstantiator;
+import org.springframework.context.index.sample.SampleComponent;
+import org.springframework.context.index.sample.SampleNone;
+import org.springframework.context.index.sample.instantiator.SampleAutowiredConstructorComponent;
+import org.springframework.context.index.sample.instantiator.SampleConfiguration;
+import org.springframework.context.index.sample.instantiator.SampleConstructorComponent;
+import org.springframework.context.index.sample.instantiator.SampleDefaultConstructorComponent;
+import org.springframework.context.index.sample.instantiator.SampleEmbeddedComponents;
+import org.springframework.context.index.sample.instantiator.SampleOptionalConstructorComponent;
+import org.springframework.context.index.sample.instantiator.SampleThrowingConstructorComponent;
+import org.springframework.context.index.test.TestCompiler;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BeanInstantiatorGenerator}.
+ *
+ * @author Spring Framework Team
+ */
+public class BeanInstantiatorGeneratorTests {
+
+	private static final List<String> GENERATE_OPTIONS =
+			Collections.singletonList("-A" + BeanInstantiatorGenerator.GENERATE_OPTION + "=true");
+
+	private TestCompiler compiler;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+	@Before
+	public void createCompiler() throws IOException {
+		this.compiler = new TestCompiler(this.temporaryFolder);
+	}
+
+	@Test
+	public void disabledByDefault() {
+		this.compiler.getTask(SampleComponent.class).call(new BeanInstantiatorGenerator());
+		assertFalse(new File(this.compiler.getOutputLocation(),
+				BeanInstantiatorGenerator.INSTANTIATORS_PATH).exists());
+	}
+
+	@Test
+	public void noCandidate() {
+		Properties instantiators = compile(SampleNone.class);
+		assertThat(instantiators.size(), is(0));
+	}
+
+	@Test
+	public void defaultConstructor() throws Exception {
+		Properties instantiators = compile(SampleDefaultConstructorComponent.class);
+		assertThat(instantiators.size(), is(1));
+		BeanInstantiator instantiator = loadInstantiator(instantiators, SampleDefaultConstructorComponent.class);
+		assertThat(instantiator.getParameterTypes().length, is(0));
+		assertThat(instantiator.instantiate(new Object[0]), instanceOf(SampleDefaultConstructorComponent.class));
+	}
+
+	@Test
+	public void singleConstructor() throws Exception {
+		Properties instantiators = compile(SampleConstructorComponent.class);
+		BeanInstantiator instantiator = loadInstantiator(instantiators, SampleConstructorComponent.class);
+		assertArrayEquals(new Class<?>[] {List.class, int.class}, instantiator.getParameterTypes());
+		List<String> names = Arrays.asList("a", "b");
+		SampleConstructorComponent component =
+				(SampleConstructorComponent) instantiator.instantiate(new Object[] {names, 42});
+		assertThat(component.getNames(), sameInstance(names));
+		assertThat(component.getCount(), is(42));
+	}
+
+	@Test
+	public void autowiredConstructor() throws Exception {
+		Properties instantiators = compile(SampleAutowiredConstructorComponent.class);
+		BeanInstantiator instantiator = loadInstantiator(instantiators, SampleAutowiredConstructorComponent.class);
+		assertArrayEquals(new Class<?>[] {String.class}, instantiator.getParameterTypes());
+		SampleAutowiredConstructorComponent component =
+				(SampleAutowiredConstructorComponent) instantiator.instantiate(new Object[] {"test"});
+		assertThat(component.getName(), is("test"));
+	}
+
+	@Test
+	public void constructorThrowingThrowable() throws Exception {
+		Properties instantiators = compile(SampleThrowingConstructorComponent.class);
+		BeanInstantiator instantiator = loadInstantiator(instantiators, SampleThrowingConstructorComponent.class);
+		assertThat(instantiator.instantiate(new Object[] {null}), instanceOf(SampleThrowingConstructorComponent.class));
+		IOException checkedException = new IOException("test");
+		try {
+			instantiator.instantiate(new Object[] {checkedException});
+			fail("Should have thrown IOException");
+		}
+		catch (IOException ex) {
+			assertThat(ex, sameInstance(checkedException));
+		}
+		Throwable throwable = new Throwable("test");
+		try {
+			instantiator.instantiate(new Object[] {throwable});
+			fail("Should have thrown UndeclaredThrowableException");
+		}
+		catch (UndeclaredThrowableException ex) {
+			assertThat(ex.getUndeclaredThrowable(), sameInstance(throwable));
+		}
+	}
+
+	@Test
+	public void optionalAutowiredConstructorIsSkipped() {
+		Properties instantiators = compile(SampleOptionalConstructorComponent.class);
+		assertThat(instantiators.size(), is(0));
+	}
+
+	@Test
+	public void configurationIsSkipped() {
+		Properties instantiators = compile(SampleConfiguration.class);
+		assertThat(instantiators.size(), is(0));
+	}
+
+	@Test
+	public void embeddedComponents() throws Exception {
+		Properties instantiators = compile(SampleEmbeddedComponents.class);
+		assertThat(instantiators.size(), is(1));
+		BeanInstantiator instantiator = loadInstantiator(instantiators, SampleEmbeddedComponents.PublicComponent.class);
+		assertThat(instantiator.instantiate(new Object[0]), instanceOf(SampleEmbeddedComponents.PublicComponent.class));
+	}
+
+
+	private Properties compile(Class<?>... types) {
+		this.compiler.getTask(GENERATE_OPTIONS, types).call(new BeanInstantiatorGenerator());
+		return readGeneratedInstantiators(this.compiler.getOutputLocation());
+	}
+
+	private Properties readGeneratedInstantiators(File outputLocation) {
+		Properties properties = new Properties();
+		File instantiatorsFile = new File(outputLocation, BeanInstantiatorGenerator.INSTANTIATORS_PATH);
+		if (instantiatorsFile.isFile()) {
+			try (InputStream in = new FileInputStream(instantiatorsFile)) {
+				properties.load(in);
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to read instantiators from disk", ex);
+			}
+		}
+		return properties;
+	}
+
+	private BeanInstantiator loadInstantiator(Properties instantiators, Class<?> beanClass) throws Exception {
+		String instantiatorClassName = instantiators.getProperty(beanClass.getName());
+		assertNotNull("No instantiator generated for " + beanClass, instantiatorClassName);
+		URL[] urls = new URL[] {this.compiler.getOutputLocation().toURI().toURL()};
+		try (URLClassLoader classLoader = new URLClassLoader(urls, getClass().getClassLoader())) {
+			Class<?> instantiatorClass = classLoader.loadClass(instantiatorClassName);
+			return (BeanInstantiator) instantiatorClass.getDeclaredConstructor().newInstance();
+		}
+	}
+
+}
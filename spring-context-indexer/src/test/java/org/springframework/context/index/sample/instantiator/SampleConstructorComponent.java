@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.sample.instantiator;
+
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Test candidate with a single constructor taking generic and primitive types.
+ *
+ * @author Spring Framework Team
+ */
+@Service
+public class SampleConstructorComponent {
+
+	private final List<String> names;
+
+	private final int count;
+
+
+	public SampleConstructorComponent(List<String> names, int count) {
+		this.names = names;
+		this.count = count;
+	}
+
+
+	public List<String> getNames() {
+		return this.names;
+	}
+
+	public int getCount() {
+		return this.count;
+	}
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.sample.instantiator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Test candidate with an optional autowired constructor, whose constructor
+ * choice can only be made at runtime.
+ *
+ * @author Spring Framework Team
+ */
+@Component
+public class SampleOptionalConstructorComponent {
+
+	public SampleOptionalConstructorComponent() {
+	}
+
+	@Autowired(required = false)
+	public SampleOptionalConstructorComponent(String name) {
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -68,13 +68,19 @@ public class TestCompiler {
 	}
 
 	public TestCompilationTask getTask(String... types) {
-		Iterable<? extends JavaFileObject> javaFileObjects = getJavaFileObjects(types);
-		return getTask(javaFileObjects);
+		return getTask(null, getJavaFileObjects(types));
 	}
 
-	private TestCompilationTask getTask(Iterable<? extends JavaFileObject> javaFileObjects) {
+	public TestCompilationTask getTask(Iterable<String> options, Class<?>... types) {
+		String[] names = Arrays.stream(types).map(Class::getName).toArray(String[]::new);
+		return getTask(options, getJavaFileObjects(names));
+	}
+
+	private TestCompilationTask getTask(
+			Iterable<String> options, Iterable<? extends JavaFileObject> javaFileObjects) {
+
 		return new TestCompilationTask(
-				this.compiler.getTask(null, this.fileManager, null, null, null, javaFileObjects));
+				this.compiler.getTask(null, this.fileManager, null, options, null, javaFileObjects));
 	}
 
 	public File getOutputLocation() {
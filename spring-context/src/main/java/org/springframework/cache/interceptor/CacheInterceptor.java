@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.lang.reflect.Method;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
+import org.springframework.aop.NonRetainingInterceptor;
 import org.springframework.lang.Nullable;
 
 /**
@@ -41,7 +42,8 @@ import org.springframework.lang.Nullable;
  * @since 3.1
  */
 @SuppressWarnings("serial")
-public class CacheInterceptor extends CacheAspectSupport implements MethodInterceptor, Serializable {
+public class CacheInterceptor extends CacheAspectSupport
+		implements MethodInterceptor, NonRetainingInterceptor, Serializable {
 
 	@Override
 	@Nullable
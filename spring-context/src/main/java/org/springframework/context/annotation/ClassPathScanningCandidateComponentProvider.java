@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.context.annotation;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.util.HashSet;
@@ -36,10 +37,13 @@ import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.index.CandidateComponentsIndex;
 import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
 import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
@@ -49,6 +53,7 @@ import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentMetadataReaderCache;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.TypeFilter;
@@ -89,6 +94,14 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	static final String DEFAULT_RESOURCE_PATTERN = "**/*.class";
 
+	/**
+	 * System property that points to a file for persisting the metadata of
+	 * scanned classes across restarts, used as the default for
+	 * {@link #setScanCacheFile}.
+	 * @since 5.1.14
+	 */
+	public static final String SCAN_CACHE_FILE_PROPERTY_NAME = "spring.scan.cache.file";
+
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -113,6 +126,12 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Nullable
 	private CandidateComponentsIndex componentsIndex;
 
+	@Nullable
+	private File scanCacheFile = getDefaultScanCacheFile();
+
+	@Nullable
+	private PersistentMetadataReaderCache scanCache;
+
 
 	/**
 	 * Protected constructor for flexible subclass initialization.
@@ -302,6 +321,28 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return this.metadataReaderFactory;
 	}
 
+	/**
+	 * Set a file for persisting the metadata of scanned classes across restarts,
+	 * allowing classpath scanning to skip reading and parsing class files that
+	 * have not changed since the previous scan.
+	 * <p>Default is the file specified through the {@value #SCAN_CACHE_FILE_PROPERTY_NAME}
+	 * system property, if any.
+	 * <p>The cache is used through the {@link #getMetadataReaderFactory()
+	 * MetadataReaderFactory}, provided that it is a {@link CachingMetadataReaderFactory}
+	 * without a {@linkplain CachingMetadataReaderFactory#setPersistentCache persistent
+	 * cache} of its own. Within an application context, the cache is shared by all
+	 * component providers for the same file and gets stored and released once per
+	 * refresh; otherwise, it gets stored after a scan if any class files had to be
+	 * read from scratch.
+	 * @param scanCacheFile the cache file, or {@code null} for no scan cache
+	 * @since 5.1.14
+	 * @see PersistentMetadataReaderCache
+	 */
+	public void setScanCacheFile(@Nullable File scanCacheFile) {
+		this.scanCacheFile = scanCacheFile;
+		this.scanCache = null;
+	}
+
 
 	/**
 	 * 利用asm技术，将普通类转换成beanDefinition
@@ -417,6 +458,7 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	private Set<BeanDefinition> scanCandidateComponents(String basePackage) {
 		Set<BeanDefinition> candidates = new LinkedHashSet<>();
+		PersistentMetadataReaderCache localScanCache = obtainLocalScanCache();
 		try {
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
 					resolveBasePackage(basePackage) + '/' + this.resourcePattern;
@@ -478,6 +520,14 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		catch (IOException ex) {
 			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
 		}
+		if (localScanCache != null) {
+			try {
+				localScanCache.store();
+			}
+			catch (IOException ex) {
+				logger.warn("Failed to store scan cache file [" + localScanCache.getFile() + "]", ex);
+			}
+		}
 		/**
 		 * 返回的BeanDefinition的实现类是ScannedGenericBeanDefinition，
 		 * ScannedGenericBeanDefinition继承了AbstractBeanDefinition接口，同时也实现了AnnotatedBeanDefinition接口
@@ -485,6 +535,42 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return candidates;
 	}
 
+	/**
+	 * Apply the scan cache, if any, to the MetadataReaderFactory.
+	 * @return the scan cache to store after scanning, or {@code null} if none
+	 * or if stored by the application context once per refresh
+	 */
+	@Nullable
+	private PersistentMetadataReaderCache obtainLocalScanCache() {
+		File scanCacheFile = this.scanCacheFile;
+		MetadataReaderFactory metadataReaderFactory = getMetadataReaderFactory();
+		if (scanCacheFile == null || !(metadataReaderFactory instanceof CachingMetadataReaderFactory)) {
+			return null;
+		}
+		CachingMetadataReaderFactory cachingFactory = (CachingMetadataReaderFactory) metadataReaderFactory;
+		PersistentMetadataReaderCache scanCache = this.scanCache;
+		boolean contextScoped = (getResourceLoader() instanceof AbstractApplicationContext);
+		if (scanCache == null) {
+			if (contextScoped) {
+				scanCache = ((AbstractApplicationContext) getResourceLoader())
+						.getResourceCache(PersistentMetadataReaderCache.class).computeIfAbsent(
+								new FileSystemResource(scanCacheFile), resource -> new PersistentMetadataReaderCache(scanCacheFile));
+			}
+			else {
+				scanCache = new PersistentMetadataReaderCache(scanCacheFile);
+				this.scanCache = scanCache;
+			}
+		}
+		PersistentMetadataReaderCache existingCache = cachingFactory.getPersistentCache();
+		if (existingCache == null) {
+			cachingFactory.setPersistentCache(scanCache);
+		}
+		else if (existingCache != scanCache) {
+			// Externally configured persistent cache: leave it up to its owner
+			return null;
+		}
+		return (contextScoped ? null : scanCache);
+	}
 
 	/**
 	 * Resolve the specified base package into a pattern specification for
@@ -547,6 +633,13 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	}
 
 
+	@Nullable
+	private static File getDefaultScanCacheFile() {
+		String scanCacheFile = SpringProperties.getProperty(SCAN_CACHE_FILE_PROPERTY_NAME);
+		return (scanCacheFile != null ? new File(scanCacheFile) : null);
+	}
+
+
 	/**
 	 * Clear the local metadata cache, if any, removing all cached class metadata.
 	 */
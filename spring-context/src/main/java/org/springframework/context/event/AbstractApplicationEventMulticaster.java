@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.context.event;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +54,12 @@ import org.springframework.util.ObjectUtils;
  * all events to all registered listeners, invoking them in the calling thread.
  * Alternative implementations could be more sophisticated in those respects.
  *
+ * <p>The listeners matching a given event type and source type are cached once
+ * retrieved. As of 5.1.14, adding or removing a listener instance updates the
+ * affected cache entries only, rather than discarding the entire cache, so that
+ * listeners registered at runtime do not force every event type to be resolved
+ * against all listeners again.
+ *
  * @author Juergen Hoeller
  * @author Stephane Nicoll
  * @since 1.2.3
@@ -107,11 +114,13 @@ public abstract class AbstractApplicationEventMulticaster
 			// Explicitly remove target for a proxy, if registered already,
 			// in order to avoid double invocations of the same listener.
 			Object singletonTarget = AopProxyUtils.getSingletonTarget(listener);
-			if (singletonTarget instanceof ApplicationListener) {
-				this.defaultRetriever.applicationListeners.remove(singletonTarget);
+			if (singletonTarget instanceof ApplicationListener &&
+					this.defaultRetriever.applicationListeners.remove(singletonTarget)) {
+				evictRetrievers((ApplicationListener<?>) singletonTarget);
+			}
+			if (this.defaultRetriever.applicationListeners.add(listener)) {
+				addToRetrievers(listener);
 			}
-			this.defaultRetriever.applicationListeners.add(listener);
-			this.retrieverCache.clear();
 		}
 	}
 
@@ -126,8 +135,9 @@ public abstract class AbstractApplicationEventMulticaster
 	@Override
 	public void removeApplicationListener(ApplicationListener<?> listener) {
 		synchronized (this.retrievalMutex) {
-			this.defaultRetriever.applicationListeners.remove(listener);
-			this.retrieverCache.clear();
+			if (this.defaultRetriever.applicationListeners.remove(listener)) {
+				evictRetrievers(listener);
+			}
 		}
 	}
 
@@ -149,6 +159,45 @@ public abstract class AbstractApplicationEventMulticaster
 	}
 
 
+	/**
+	 * Add the given newly registered listener to each cached retriever for an
+	 * event type and source type that it supports. Must be called while holding
+	 * the retrieval mutex.
+	 * <p>Retrievers that involve listener beans get evicted instead, since their
+	 * bean-derived listeners need to be resolved against the bean factory again.
+	 */
+	private void addToRetrievers(ApplicationListener<?> listener) {
+		for (Map.Entry<ListenerCacheKey, ListenerRetriever> entry : this.retrieverCache.entrySet()) {
+			ListenerCacheKey cacheKey = entry.getKey();
+			if (supportsEvent(listener, cacheKey.eventType, cacheKey.sourceType)) {
+				ListenerRetriever retriever = entry.getValue();
+				if (retriever.includesListenerBeans) {
+					this.retrieverCache.remove(cacheKey);
+				}
+				else {
+					// Same order as a full retrieval: the new listener comes last
+					// among the listeners with the same order value.
+					List<ApplicationListener<?>> listeners = new ArrayList<>(retriever.applicationListeners);
+					listeners.add(listener);
+					AnnotationAwareOrderComparator.sort(listeners);
+					ListenerRetriever updated = new ListenerRetriever(true);
+					updated.applicationListeners.addAll(listeners);
+					this.retrieverCache.put(cacheKey, updated);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Evict each cached retriever that contains the given removed listener.
+	 * Must be called while holding the retrieval mutex.
+	 * <p>Other retrievers remain valid. Affected ones are not simply updated,
+	 * since the listener may still be contributed by a listener bean.
+	 */
+	private void evictRetrievers(ApplicationListener<?> listener) {
+		this.retrieverCache.values().removeIf(retriever -> retriever.applicationListeners.contains(listener));
+	}
+
 	/**
 	 * Return a Collection containing all ApplicationListeners.
 	 * @return a Collection of ApplicationListeners
@@ -246,6 +295,7 @@ public abstract class AbstractApplicationEventMulticaster
 								beanFactory.getBean(listenerBeanName, ApplicationListener.class);
 						if (!allListeners.contains(listener) && supportsEvent(listener, eventType, sourceType)) {
 							if (retriever != null) {
+								retriever.includesListenerBeans = true;
 								if (beanFactory.isSingleton(listenerBeanName)) {
 									retriever.applicationListeners.add(listener);
 								}
@@ -387,11 +437,28 @@ public abstract class AbstractApplicationEventMulticaster
 
 		private final boolean preFiltered;
 
+		/**
+		 * Whether any of the listeners got retrieved through a listener bean.
+		 */
+		public boolean includesListenerBeans;
+
+		@Nullable
+		private volatile List<ApplicationListener<?>> preFilteredListeners;
+
 		public ListenerRetriever(boolean preFiltered) {
 			this.preFiltered = preFiltered;
 		}
 
 		public Collection<ApplicationListener<?>> getApplicationListeners() {
+			if (this.preFiltered && this.applicationListenerBeans.isEmpty()) {
+				// Fully resolved and sorted already: no need to copy on every event...
+				List<ApplicationListener<?>> listeners = this.preFilteredListeners;
+				if (listeners == null) {
+					listeners = Collections.unmodifiableList(new ArrayList<>(this.applicationListeners));
+					this.preFilteredListeners = listeners;
+				}
+				return listeners;
+			}
 			List<ApplicationListener<?>> allListeners = new ArrayList<>(
 					this.applicationListeners.size() + this.applicationListenerBeans.size());
 			allListeners.addAll(this.applicationListeners);
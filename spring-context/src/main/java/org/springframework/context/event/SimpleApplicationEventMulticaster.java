@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,15 @@
 
 package org.springframework.context.event;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -26,6 +34,7 @@ import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.core.ResolvableType;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 import org.springframework.util.ErrorHandler;
 
 /**
@@ -41,6 +50,12 @@ import org.springframework.util.ErrorHandler;
  * but adds minimal overhead. Specify an alternative task executor to have
  * listeners executed in different threads, for example from a thread pool.
  *
+ * <p>With a task executor, each listener invocation is submitted as a separate
+ * task by default, without any ordering guarantee between the events delivered
+ * to the same listener. Specify a {@linkplain #setListenerQueueCapacity listener
+ * queue capacity} to have events queued per listener instead, each listener
+ * consuming its queue in FIFO order through batches executed by the task executor.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @author Stephane Nicoll
@@ -54,6 +69,16 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	@Nullable
 	private ErrorHandler errorHandler;
 
+	private int listenerQueueCapacity = 0;
+
+	private int listenerBatchSize = 64;
+
+	private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+	private final Map<ApplicationListener<?>, ListenerQueue> listenerQueues = new ConcurrentHashMap<>(16);
+
+	private final LongAdder rejectedEventCount = new LongAdder();
+
 
 	/**
 	 * Create a new SimpleApplicationEventMulticaster.
@@ -121,6 +146,116 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		return this.errorHandler;
 	}
 
+	/**
+	 * Set the capacity of the queue to hold pending events per listener,
+	 * switching to queued delivery if a {@linkplain #setTaskExecutor task
+	 * executor} is specified as well.
+	 * <p>Default is 0, submitting a separate task per listener and event. With
+	 * a positive capacity, events are instead added to a bounded FIFO queue per
+	 * listener, which gets drained by a single task at a time: each listener
+	 * receives its events in publication order, one batch of events per task.
+	 * Once a queue is full, the {@linkplain #setOverflowPolicy overflow policy}
+	 * applies to further events for the same listener.
+	 * <p>Note that a queue is discarded once drained, and recreated for the next
+	 * event, so that listener instances which are not registered as singletons
+	 * do not accumulate queues.
+	 * @since 5.1.14
+	 * @see #setListenerBatchSize
+	 * @see #getListenerQueueDepths()
+	 */
+	public void setListenerQueueCapacity(int listenerQueueCapacity) {
+		Assert.isTrue(listenerQueueCapacity >= 0, "Listener queue capacity must not be negative");
+		this.listenerQueueCapacity = listenerQueueCapacity;
+	}
+
+	/**
+	 * Return the capacity of the queue to hold pending events per listener.
+	 * @since 5.1.14
+	 */
+	public int getListenerQueueCapacity() {
+		return this.listenerQueueCapacity;
+	}
+
+	/**
+	 * Set the maximum number of queued events to deliver to a listener within
+	 * a single task, before handing the executor thread back. Default is 64.
+	 * <p>Only applies in case of a {@linkplain #setListenerQueueCapacity
+	 * listener queue capacity} having been specified.
+	 * @since 5.1.14
+	 */
+	public void setListenerBatchSize(int listenerBatchSize) {
+		Assert.isTrue(listenerBatchSize > 0, "Listener batch size must be greater than 0");
+		this.listenerBatchSize = listenerBatchSize;
+	}
+
+	/**
+	 * Return the maximum number of queued events to deliver to a listener
+	 * within a single task.
+	 * @since 5.1.14
+	 */
+	public int getListenerBatchSize() {
+		return this.listenerBatchSize;
+	}
+
+	/**
+	 * Specify what to do with an event for a listener whose queue is full.
+	 * Default is {@link OverflowPolicy#BLOCK}, blocking the publisher until
+	 * the listener has caught up.
+	 * <p>Only applies in case of a {@linkplain #setListenerQueueCapacity
+	 * listener queue capacity} having been specified.
+	 * @since 5.1.14
+	 * @see #getRejectedEventCount()
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		Assert.notNull(overflowPolicy, "OverflowPolicy must not be null");
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Return the policy for events exceeding a listener's queue capacity.
+	 * @since 5.1.14
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return this.overflowPolicy;
+	}
+
+	/**
+	 * Return the number of events currently pending per listener, in case of
+	 * queued delivery.
+	 * @return a snapshot of the queue depths, keyed by listener, not containing
+	 * listeners without a queue since their last event has been delivered
+	 * @since 5.1.14
+	 * @see #setListenerQueueCapacity
+	 */
+	public Map<ApplicationListener<?>, Integer> getListenerQueueDepths() {
+		Map<ApplicationListener<?>, Integer> depths = new LinkedHashMap<>(this.listenerQueues.size());
+		this.listenerQueues.forEach((listener, queue) -> depths.put(listener, queue.events.size()));
+		return depths;
+	}
+
+	/**
+	 * Return the number of events that were not delivered to a listener
+	 * because its queue was full.
+	 * @since 5.1.14
+	 * @see #setOverflowPolicy
+	 */
+	public long getRejectedEventCount() {
+		return this.rejectedEventCount.sum();
+	}
+
+
+	@Override
+	public void removeApplicationListener(ApplicationListener<?> listener) {
+		super.removeApplicationListener(listener);
+		this.listenerQueues.remove(listener);
+	}
+
+	@Override
+	public void removeAllListeners() {
+		super.removeAllListeners();
+		this.listenerQueues.clear();
+	}
+
 
 	@Override
 	public void multicastEvent(ApplicationEvent event) {
@@ -136,7 +271,14 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		 * 循环订阅了当前事件的监听器，执行onApplicationEvent()方法，对事件的发生做出处理。
 		 */
 		for (ApplicationListener<?> listener : getApplicationListeners(event, type)) {
-			if (executor != null) {
+			if (executor != null && this.listenerQueueCapacity > 0) {
+				ListenerQueue queue;
+				do {
+					queue = this.listenerQueues.computeIfAbsent(listener, ListenerQueue::new);
+				}
+				while (!queue.add(event, executor));
+			}
+			else if (executor != null) {
 				executor.execute(() -> invokeListener(listener, event));
 			}
 			else {
@@ -209,4 +351,147 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		return false;
 	}
 
+
+	/**
+	 * Policy for events published to a listener whose queue is full.
+	 * @since 5.1.14
+	 * @see #setOverflowPolicy
+	 */
+	public enum OverflowPolicy {
+
+		/**
+		 * Block the publishing thread until the listener's queue has room again.
+		 * <p>Note that a listener must not synchronously publish events to itself
+		 * in this mode, since it would wait for its own queue to be drained.
+		 */
+		BLOCK,
+
+		/**
+		 * Silently drop the event for the listener in question.
+		 */
+		DISCARD,
+
+		/**
+		 * Drop the event for the listener in question and throw a
+		 * {@link RejectedExecutionException} to the publisher.
+		 */
+		ABORT
+	}
+
+
+	/**
+	 * Bounded queue of pending events for a specific listener, drained by
+	 * at most one task at a time in order to preserve the publication order.
+	 * Retires itself from the multicaster once drained.
+	 */
+	private class ListenerQueue {
+
+		private final ApplicationListener<?> listener;
+
+		private final BlockingQueue<ApplicationEvent> events;
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		/** Number of publishers currently adding an event; guarded by this queue. */
+		private int publisherCount;
+
+		/** Whether this queue has been removed; guarded by this queue. */
+		private boolean retired;
+
+		public ListenerQueue(ApplicationListener<?> listener) {
+			this.listener = listener;
+			this.events = new LinkedBlockingQueue<>(getListenerQueueCapacity());
+		}
+
+		/**
+		 * Add the given event to this queue, scheduling a task to drain it.
+		 * @return {@code false} if this queue has been retired already,
+		 * in which case the event needs to be added to a new queue
+		 */
+		public boolean add(ApplicationEvent event, Executor executor) {
+			synchronized (this) {
+				if (this.retired) {
+					return false;
+				}
+				this.publisherCount++;
+			}
+			try {
+				if (!this.events.offer(event)) {
+					OverflowPolicy overflowPolicy = getOverflowPolicy();
+					if (overflowPolicy == OverflowPolicy.BLOCK) {
+						try {
+							this.events.put(event);
+						}
+						catch (InterruptedException ex) {
+							Thread.currentThread().interrupt();
+							SimpleApplicationEventMulticaster.this.rejectedEventCount.increment();
+							return true;
+						}
+					}
+					else {
+						SimpleApplicationEventMulticaster.this.rejectedEventCount.increment();
+						if (overflowPolicy == OverflowPolicy.ABORT) {
+							throw new RejectedExecutionException("Queue for listener [" + this.listener +
+									"] is full: rejected event " + event);
+						}
+						return true;
+					}
+				}
+			}
+			finally {
+				synchronized (this) {
+					this.publisherCount--;
+				}
+			}
+			schedule(executor);
+			return true;
+		}
+
+		private void schedule(Executor executor) {
+			if (this.scheduled.compareAndSet(false, true)) {
+				try {
+					executor.execute(() -> drain(executor));
+				}
+				catch (RuntimeException ex) {
+					this.scheduled.set(false);
+					throw ex;
+				}
+			}
+		}
+
+		private void drain(Executor executor) {
+			try {
+				int batchSize = getListenerBatchSize();
+				for (int i = 0; i < batchSize; i++) {
+					ApplicationEvent event = this.events.poll();
+					if (event == null) {
+						break;
+					}
+					invokeListener(this.listener, event);
+				}
+			}
+			finally {
+				this.scheduled.set(false);
+				// Events may have been added after our last poll, or left over
+				// in case of a full batch or a listener exception...
+				if (!this.events.isEmpty()) {
+					schedule(executor);
+				}
+				else {
+					retireIfIdle();
+				}
+			}
+		}
+
+		private void retireIfIdle() {
+			synchronized (this) {
+				if (this.publisherCount > 0 || !this.events.isEmpty() || this.scheduled.get()) {
+					return;
+				}
+				this.retired = true;
+			}
+			SimpleApplicationEventMulticaster.this.listenerQueues.remove(this.listener, this);
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -77,6 +77,8 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentMetadataReaderCache;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
@@ -951,7 +953,8 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	 * {@link org.springframework.context.event.ContextRefreshedEvent}.
 	 */
 	protected void finishRefresh() {
-		// Clear context-level resource caches (such as ASM metadata from scanning).
+		// Store and clear context-level resource caches (such as ASM metadata from scanning).
+		storeScanCaches();
 		clearResourceCaches();
 
 		// Initialize lifecycle processor for this context.
@@ -967,6 +970,22 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		LiveBeansView.registerApplicationContext(this);
 	}
 
+	/**
+	 * Store the scan caches that component scanning has populated during
+	 * this refresh, before they get released along with other resource caches.
+	 * @see org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider#setScanCacheFile
+	 */
+	private void storeScanCaches() {
+		for (PersistentMetadataReaderCache scanCache : getResourceCache(PersistentMetadataReaderCache.class).values()) {
+			try {
+				scanCache.store();
+			}
+			catch (IOException ex) {
+				logger.warn("Failed to store scan cache file [" + scanCache.getFile() + "]", ex);
+			}
+		}
+	}
+
 	/**
 	 * Cancel this context's refresh attempt, resetting the {@code active} flag
 	 * after an exception got thrown.
@@ -978,19 +997,21 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 
 	/**
 	 * Reset Spring's common reflection metadata caches, in particular the
-	 * {@link ReflectionUtils}, {@link AnnotationUtils}, {@link ResolvableType}
-	 * and {@link CachedIntrospectionResults} caches.
+	 * {@link ReflectionUtils}, {@link AnnotationUtils}, {@link ResolvableType},
+	 * {@link CachedIntrospectionResults} and shared MetadataReader caches.
 	 * @since 4.2
 	 * @see ReflectionUtils#clearCache()
 	 * @see AnnotationUtils#clearCache()
 	 * @see ResolvableType#clearCache()
 	 * @see CachedIntrospectionResults#clearClassLoader(ClassLoader)
+	 * @see CachingMetadataReaderFactory#clearSharedCache(ClassLoader)
 	 */
 	protected void resetCommonCaches() {
 		ReflectionUtils.clearCache();
 		AnnotationUtils.clearCache();
 		ResolvableType.clearCache();
 		CachedIntrospectionResults.clearClassLoader(getClassLoader());
+		CachingMetadataReaderFactory.clearSharedCache(getClassLoader());
 	}
 
 
@@ -1090,6 +1111,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 				}
 			}
 
+			// Release context-level resource caches left over from a failed refresh, if any.
+			clearResourceCaches();
+
 			// Destroy all cached singletons in the context's BeanFactory.
 			destroyBeans();
 
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+/**
+ * Runs the CglibProxyTests suite against CGLIB proxies that invoke
+ * advised methods through generated method invocations.
+ *
+ * @author Spring Framework Team
+ */
+@SuppressWarnings("serial")
+public class GeneratedInvocationCglibProxyTests extends CglibProxyTests {
+
+	@Override
+	protected Object createProxy(ProxyCreatorSupport as) {
+		as.setGenerateInvocations(true);
+		return super.createProxy(as);
+	}
+
+	@Override
+	protected AopProxy createAopProxy(AdvisedSupport as) {
+		as.setGenerateInvocations(true);
+		return super.createAopProxy(as);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,9 @@ import org.aopalliance.intercept.MethodInvocation;
 import org.junit.Test;
 
 import org.springframework.aop.TargetSource;
+import org.springframework.aop.aspectj.AspectJExpressionPointcutAdvisor;
+import org.springframework.aop.aspectj.autoproxy.AspectJAwareAdvisorAutoProxyCreator;
+import org.springframework.aop.framework.Advised;
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.aop.target.SingletonTargetSource;
@@ -178,6 +181,37 @@ public class AutoProxyCreatorTests {
 		assertEquals(2, tapc.testInterceptor.nrOfInvocations);
 	}
 
+	@Test
+	public void testAdvisorAutoProxyCreatorWithParallelAdvisorMatching() {
+		StaticApplicationContext sac = new StaticApplicationContext();
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.add("parallelAdvisorMatching", true);
+		sac.registerSingleton("autoProxyCreator", AspectJAwareAdvisorAutoProxyCreator.class, pvs);
+		TestInterceptor interceptor = new TestInterceptor();
+		for (int i = 0; i < 8; i++) {
+			pvs = new MutablePropertyValues();
+			pvs.add("expression", (i % 4 == 0 ? "bean(singletonToBeProxied) && " : "") + "execution(* getAge())");
+			pvs.add("advice", interceptor);
+			sac.registerSingleton("advisor" + i, AspectJExpressionPointcutAdvisor.class, pvs);
+		}
+		sac.registerSingleton("singletonNoInterceptor", TestBean.class);
+		sac.registerSingleton("singletonToBeProxied", TestBean.class);
+		sac.refresh();
+
+		ITestBean singletonNoInterceptor = (ITestBean) sac.getBean("singletonNoInterceptor");
+		ITestBean singletonToBeProxied = (ITestBean) sac.getBean("singletonToBeProxied");
+		// Including the ExposeInvocationInterceptor for AspectJ expression pointcuts
+		assertEquals(7, ((Advised) singletonNoInterceptor).getAdvisors().length);
+		assertEquals(9, ((Advised) singletonToBeProxied).getAdvisors().length);
+
+		singletonNoInterceptor.getAge();
+		assertEquals(6, interceptor.nrOfInvocations);
+		singletonToBeProxied.getAge();
+		assertEquals(14, interceptor.nrOfInvocations);
+		singletonToBeProxied.getName();
+		assertEquals(14, interceptor.nrOfInvocations);
+	}
+
 	@Test
 	public void testAutoProxyCreatorWithFallbackToTargetClass() {
 		StaticApplicationContext sac = new StaticApplicationContext();
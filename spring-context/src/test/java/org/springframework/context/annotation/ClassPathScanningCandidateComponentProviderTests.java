@@ -16,6 +16,7 @@
 
 package org.springframework.context.annotation;
 
+import java.io.File;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.Set;
@@ -38,16 +39,21 @@ import example.scannable.ServiceInvocationCounter;
 import example.scannable.StubFooDao;
 import example.scannable.sub.BarComponent;
 import org.aspectj.lang.annotation.Aspect;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.componentscan.gh24375.MyComponent;
 import org.springframework.context.index.CandidateComponentsTestClassLoader;
+import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentMetadataReaderCache;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.RegexPatternTypeFilter;
@@ -75,6 +81,9 @@ public class ClassPathScanningCandidateComponentProviderTests {
 			ClassPathScanningCandidateComponentProviderTests.class.getClassLoader(),
 			new ClassPathResource("spring.components", NamedComponent.class));
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 
 	@Test
 	public void defaultsWithScan() {
@@ -105,6 +114,46 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		assertBeanDefinitionType(candidates, expectedBeanDefinitionType);
 	}
 
+	@Test
+	public void defaultsWithScanCache() throws Exception {
+		File scanCacheFile = this.temporaryFolder.newFile();
+		for (int i = 0; i < 2; i++) {
+			ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+			provider.setResourceLoader(new DefaultResourceLoader(
+					CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader())));
+			provider.setScanCacheFile(scanCacheFile);
+			testDefault(provider, ScannedGenericBeanDefinition.class);
+			PersistentMetadataReaderCache scanCache =
+					((CachingMetadataReaderFactory) provider.getMetadataReaderFactory()).getPersistentCache();
+			assertNotNull(scanCache);
+			assertEquals((i == 0), scanCache.getHitCount() == 0);
+			assertEquals((i == 0), scanCache.getMissCount() > 0);
+			assertTrue(scanCacheFile.length() > 0);
+		}
+	}
+
+	@Test
+	public void defaultsWithScanCacheStoredOnRefresh() throws Exception {
+		File scanCacheFile = this.temporaryFolder.newFile();
+		for (int i = 0; i < 2; i++) {
+			GenericApplicationContext context = new GenericApplicationContext();
+			context.setClassLoader(CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader()));
+			ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+			provider.setResourceLoader(context);
+			provider.setScanCacheFile(scanCacheFile);
+			testDefault(provider, ScannedGenericBeanDefinition.class);
+			PersistentMetadataReaderCache scanCache =
+					((CachingMetadataReaderFactory) provider.getMetadataReaderFactory()).getPersistentCache();
+			assertNotNull(scanCache);
+			assertEquals((i == 0), scanCache.getHitCount() == 0);
+			assertEquals((i == 0), scanCacheFile.length() == 0);
+			context.refresh();
+			assertTrue(scanCacheFile.length() > 0);
+			assertTrue(context.getResourceCache(PersistentMetadataReaderCache.class).isEmpty());
+			context.close();
+		}
+	}
+
 	@Test
 	public void antStylePackageWithScan() {
 		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
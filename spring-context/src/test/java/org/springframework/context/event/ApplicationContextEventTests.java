@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,18 @@
 
 package org.springframework.context.event;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.junit.Test;
@@ -178,6 +185,76 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		smc.multicastEvent(evt);
 	}
 
+	@Test
+	public void simpleApplicationEventMulticasterWithListenerQueue() throws Exception {
+		MyOrderedListener1 listener = new MyOrderedListener1();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setTaskExecutor(executor);
+		smc.setListenerQueueCapacity(16);
+		smc.setListenerBatchSize(4);
+		smc.addApplicationListener(listener);
+
+		List<ApplicationEvent> events = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			MyEvent event = new MyEvent(this);
+			events.add(event);
+			smc.multicastEvent(event);
+		}
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!smc.getListenerQueueDepths().isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(events, listener.seenEvents);
+		assertTrue(smc.getListenerQueueDepths().isEmpty());
+		assertEquals(0, smc.getRejectedEventCount());
+	}
+
+	@Test
+	public void simpleApplicationEventMulticasterWithFullListenerQueue() {
+		MyOrderedListener1 listener = new MyOrderedListener1();
+		List<Runnable> tasks = new ArrayList<>();
+		MyEvent event1 = new MyEvent(this);
+		MyEvent event2 = new MyEvent(this);
+
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setTaskExecutor(tasks::add);
+		smc.setListenerQueueCapacity(2);
+		smc.setOverflowPolicy(SimpleApplicationEventMulticaster.OverflowPolicy.DISCARD);
+		smc.addApplicationListener(listener);
+
+		smc.multicastEvent(event1);
+		smc.multicastEvent(event2);
+		smc.multicastEvent(new MyEvent(this));
+		assertEquals(1, tasks.size());
+		assertEquals(Integer.valueOf(2), smc.getListenerQueueDepths().get(listener));
+		assertEquals(1, smc.getRejectedEventCount());
+
+		smc.setOverflowPolicy(SimpleApplicationEventMulticaster.OverflowPolicy.ABORT);
+		try {
+			smc.multicastEvent(new MyEvent(this));
+			fail("Should have thrown RejectedExecutionException");
+		}
+		catch (RejectedExecutionException ex) {
+			assertEquals(2, smc.getRejectedEventCount());
+		}
+
+		tasks.remove(0).run();
+		assertEquals(Arrays.asList(event1, event2), listener.seenEvents);
+		assertTrue(tasks.isEmpty());
+		assertTrue(smc.getListenerQueueDepths().isEmpty());
+
+		MyEvent event3 = new MyEvent(this);
+		smc.multicastEvent(event3);
+		assertEquals(Collections.singletonMap(listener, 1), smc.getListenerQueueDepths());
+		tasks.remove(0).run();
+		assertEquals(Arrays.asList(event1, event2, event3), listener.seenEvents);
+		assertTrue(smc.getListenerQueueDepths().isEmpty());
+	}
+
 	@Test
 	public void orderedListeners() {
 		MyOrderedListener1 listener1 = new MyOrderedListener1();
@@ -206,6 +283,34 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		assertEquals(2, listener1.seenEvents.size());
 	}
 
+	@Test
+	public void listenersAddedAndRemovedAtRuntime() {
+		MyOrderedListener3 listener3 = new MyOrderedListener3();
+		MyOrderedListener4 listener4 = new MyOrderedListener4(listener3);
+		MyOrderedListener1 listener1 = new MyOrderedListener1();
+		MyEvent event = new MyEvent(this);
+		ResolvableType eventType = ResolvableType.forClass(MyEvent.class);
+
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(listener3);
+		smc.multicastEvent(event);
+		smc.multicastEvent(new MyOtherEvent(this));
+		assertEquals(2, smc.retrieverCache.size());
+
+		smc.addApplicationListener(listener4);
+		smc.addApplicationListener(listener1);
+		assertEquals(2, smc.retrieverCache.size());
+		assertEquals(Arrays.asList(listener1, listener3, listener4),
+				new ArrayList<>(smc.getApplicationListeners(event, eventType)));
+		smc.multicastEvent(event);
+		assertEquals(1, listener1.seenEvents.size());
+
+		smc.removeApplicationListener(listener4);
+		assertEquals(1, smc.retrieverCache.size());
+		assertEquals(Arrays.asList(listener1, listener3),
+				new ArrayList<>(smc.getApplicationListeners(event, eventType)));
+	}
+
 	@Test
 	@SuppressWarnings("unchecked")
 	public void proxiedListeners() {
@@ -295,8 +400,9 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		assertTrue(listener1.seenEvents.contains(event3));
 		assertTrue(listener1.seenEvents.contains(event4));
 
+		// ContextRefreshedEvent entry retained despite lazy listener2 having been added since
 		AbstractApplicationEventMulticaster multicaster = context.getBean(AbstractApplicationEventMulticaster.class);
-		assertEquals(2, multicaster.retrieverCache.size());
+		assertEquals(3, multicaster.retrieverCache.size());
 
 		context.close();
 	}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Cache for instances of classes generated at runtime for members of a given
+ * owner class, e.g. for its methods, ensuring that a class is generated at most
+ * once per key, even with concurrent access.
+ *
+ * <p>Values are held strongly, scoped to the class alongside which the generated
+ * class is defined: either the owner class itself, or a framework class if the
+ * owner's ClassLoader cannot see the framework. Values are therefore released
+ * along with the ClassLoader that they have been defined in, without pinning
+ * that ClassLoader through classes of a longer-lived ClassLoader.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ * @param <K> the key type, e.g. {@link java.lang.reflect.Method}
+ * @param <V> the value type, e.g. an invoker interface
+ */
+public final class GeneratedClassCache<K, V> {
+
+	/** Marker for keys that no class can be generated for. */
+	private static final Object NOT_GENERATABLE = new Object();
+
+
+	private final ClassValue<ConcurrentMap<Object, Object>> scopes = new ClassValue<ConcurrentMap<Object, Object>>() {
+		@Override
+		protected ConcurrentMap<Object, Object> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+
+	/**
+	 * Return the value for the given key, if already generated.
+	 * @param ownerClass the class that the key belongs to
+	 * @param key the key, e.g. a method of the owner class
+	 * @return the value, or {@code null} if not generated yet or if no
+	 * class can be generated for the given key
+	 */
+	@Nullable
+	public V get(Class<?> ownerClass, K key) {
+		Object value = this.scopes.get(ownerClass).get(key);
+		if (value instanceof WeakReference) {
+			Class<?> definingClass = (Class<?>) ((WeakReference<?>) value).get();
+			value = (definingClass != null ? this.scopes.get(definingClass).get(key) : null);
+		}
+		return castValue(value);
+	}
+
+	/**
+	 * Return the value for the given key, generating it if necessary.
+	 * @param ownerClass the class that the key belongs to
+	 * @param key the key, e.g. a method of the owner class
+	 * @param definingClassResolver resolves the class to define generated classes
+	 * alongside for the given owner class: the owner class itself, a framework
+	 * class, or {@code null} if no class can be generated for the owner class
+	 * @param generator generates the value for the given key and defining class,
+	 * returning {@code null} if no class can be generated for the key
+	 * @return the value, or {@code null} if no class can be generated
+	 */
+	@Nullable
+	public V obtain(Class<?> ownerClass, K key, Function<Class<?>, Class<?>> definingClassResolver,
+			BiFunction<? super K, Class<?>, ? extends V> generator) {
+
+		Assert.notNull(ownerClass, "Owner class must not be null");
+		Assert.notNull(key, "Key must not be null");
+		ConcurrentMap<Object, Object> ownerScope = this.scopes.get(ownerClass);
+		Object value = ownerScope.get(key);
+		if (value == null) {
+			Class<?> definingClass = definingClassResolver.apply(ownerClass);
+			if (definingClass == null) {
+				value = NOT_GENERATABLE;
+				ownerScope.putIfAbsent(key, value);
+			}
+			else if (definingClass == ownerClass) {
+				value = ownerScope.computeIfAbsent(key, k -> generate(key, definingClass, generator));
+			}
+			else {
+				// Only refer to the scope of the defining class weakly,
+				// in order to not pin its ClassLoader through the owner class.
+				value = this.scopes.get(definingClass).computeIfAbsent(key, k -> generate(key, definingClass, generator));
+				ownerScope.putIfAbsent(key, new WeakReference<>(definingClass));
+			}
+		}
+		else if (value instanceof WeakReference) {
+			Class<?> definingClass = (Class<?>) ((WeakReference<?>) value).get();
+			Assert.state(definingClass != null, "Defining class has been released");
+			value = this.scopes.get(definingClass).computeIfAbsent(key, k -> generate(key, definingClass, generator));
+		}
+		return castValue(value);
+	}
+
+	private Object generate(K key, Class<?> definingClass, BiFunction<? super K, Class<?>, ? extends V> generator) {
+		V value = generator.apply(key, definingClass);
+		return (value != null ? value : NOT_GENERATABLE);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Nullable
+	private V castValue(@Nullable Object value) {
+		return (value != null && value != NOT_GENERATABLE ? (V) value : null);
+	}
+
+}
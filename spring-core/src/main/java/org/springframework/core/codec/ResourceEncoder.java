@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,6 +46,8 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 
 	private final int bufferSize;
 
+	private int mappedRegionSize;
+
 
 	public ResourceEncoder() {
 		this(DEFAULT_BUFFER_SIZE);
@@ -58,6 +60,29 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 	}
 
 
+	/**
+	 * Set the maximum size of memory-mapped file regions. If set, the content
+	 * of file-based resources is mapped into memory region by region via
+	 * {@link DataBufferUtils#readMapped}, rather than copied into buffers of
+	 * the configured buffer size.
+	 * <p>By default, this is 0, i.e. file content is not mapped. Mapping is
+	 * worthwhile for large files, with regions of e.g. 1 MB or more.
+	 * @since 5.1.14
+	 */
+	public void setMappedRegionSize(int mappedRegionSize) {
+		Assert.isTrue(mappedRegionSize >= 0, "'mappedRegionSize' must not be negative");
+		this.mappedRegionSize = mappedRegionSize;
+	}
+
+	/**
+	 * Return the maximum size of memory-mapped file regions, if any.
+	 * @since 5.1.14
+	 */
+	public int getMappedRegionSize() {
+		return this.mappedRegionSize;
+	}
+
+
 	@Override
 	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
 		Class<?> clazz = elementType.toClass();
@@ -72,6 +97,9 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 			String logPrefix = Hints.getLogPrefix(hints);
 			logger.debug(logPrefix + "Writing [" + resource + "]");
 		}
+		if (this.mappedRegionSize > 0) {
+			return DataBufferUtils.readMapped(resource, 0, bufferFactory, this.bufferSize, this.mappedRegionSize);
+		}
 		return DataBufferUtils.read(resource, bufferFactory, this.bufferSize);
 	}
 
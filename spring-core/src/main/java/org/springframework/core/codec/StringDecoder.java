@@ -16,6 +16,7 @@
 
 package org.springframework.core.codec;
 
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -31,6 +32,7 @@ import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 
 import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.CompositeDataBuffer;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.core.io.buffer.DataBufferUtils;
@@ -73,7 +75,7 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 
 	private final boolean stripDelimiter;
 
-	private final ConcurrentMap<Charset, List<byte[]>> delimitersCache = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Charset, DelimiterScanner> delimitersCache = new ConcurrentHashMap<>();
 
 
 	private StringDecoder(List<String> delimiters, boolean stripDelimiter, MimeType... mimeTypes) {
@@ -93,7 +95,7 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 	public Flux<String> decode(Publisher<DataBuffer> input, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
-		List<byte[]> delimiterBytes = getDelimiterBytes(mimeType);
+		DelimiterScanner scanner = getDelimiterScanner(mimeType);
 
 		Flux<DataBuffer> inputFlux = Flux.defer(() -> {
 			if (getMaxInMemorySize() != -1) {
@@ -109,7 +111,7 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 				LimitedDataBufferList limiter = new LimitedDataBufferList(getMaxInMemorySize());
 
 				return Flux.from(input)
-						.concatMapIterable(buffer -> splitOnDelimiter(buffer, delimiterBytes, limiter))
+						.concatMapIterable(buffer -> splitOnDelimiter(buffer, scanner, limiter))
 						.bufferUntil(buffer -> buffer == END_FRAME)
 						.map(StringDecoder::joinUntilEndFrame)
 						.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
@@ -125,7 +127,7 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 				ConcatMapIterableDiscardWorkaroundCache cache = new ConcatMapIterableDiscardWorkaroundCache();
 
 				return Flux.from(input)
-						.concatMapIterable(buffer -> cache.addAll(splitOnDelimiter(buffer, delimiterBytes, null)))
+						.concatMapIterable(buffer -> cache.addAll(splitOnDelimiter(buffer, scanner, null)))
 						.doOnNext(cache)
 						.doOnCancel(cache)
 						.bufferUntil(buffer -> buffer == END_FRAME)
@@ -137,38 +139,35 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 		return super.decode(inputFlux, elementType, mimeType, hints);
 	}
 
-	private List<byte[]> getDelimiterBytes(@Nullable MimeType mimeType) {
+	private DelimiterScanner getDelimiterScanner(@Nullable MimeType mimeType) {
 		return this.delimitersCache.computeIfAbsent(getCharset(mimeType), charset -> {
 			List<byte[]> list = new ArrayList<>();
 			for (String delimiter : this.delimiters) {
 				byte[] bytes = delimiter.getBytes(charset);
 				list.add(bytes);
 			}
-			return list;
+			return new DelimiterScanner(list);
 		});
 	}
 
 	/**
 	 * Split the given data buffer on delimiter boundaries.
 	 * The returned Flux contains an {@link #END_FRAME} buffer after each delimiter.
+	 * Frames are slices of the given buffer, i.e. the content is not copied.
 	 */
 	private List<DataBuffer> splitOnDelimiter(
-			DataBuffer buffer, List<byte[]> delimiterBytes, @Nullable LimitedDataBufferList limiter) {
+			DataBuffer buffer, DelimiterScanner scanner, @Nullable LimitedDataBufferList limiter) {
 
 		List<DataBuffer> frames = new ArrayList<>();
 		try {
+			ByteBuffer byteBuffer = buffer.asByteBuffer();
+			int offset = buffer.readPosition() - byteBuffer.position();
 			do {
-				int length = Integer.MAX_VALUE;
-				byte[] matchingDelimiter = null;
-				for (byte[] delimiter : delimiterBytes) {
-					int index = indexOf(buffer, delimiter);
-					if (index >= 0 && index < length) {
-						length = index;
-						matchingDelimiter = delimiter;
-					}
-				}
-				DataBuffer frame;
 				int readPosition = buffer.readPosition();
+				int index = scanner.indexOf(byteBuffer, readPosition - offset);
+				byte[] matchingDelimiter = (index != -1 ? scanner.delimiterAt(byteBuffer, index) : null);
+				int length = index - (readPosition - offset);
+				DataBuffer frame;
 				if (matchingDelimiter != null) {
 					frame = this.stripDelimiter ?
 							buffer.slice(readPosition, length) :
@@ -210,37 +209,9 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 		return frames;
 	}
 
-	/**
-	 * Find the given delimiter in the given data buffer.
-	 * @return the index of the delimiter, or -1 if not found.
-	 */
-	private static int indexOf(DataBuffer buffer, byte[] delimiter) {
-		for (int i = buffer.readPosition(); i < buffer.writePosition(); i++) {
-			int bufferPos = i;
-			int delimiterPos = 0;
-			while (delimiterPos < delimiter.length) {
-				if (buffer.getByte(bufferPos) != delimiter[delimiterPos]) {
-					break;
-				}
-				else {
-					bufferPos++;
-					boolean endOfBuffer = bufferPos == buffer.writePosition();
-					boolean endOfDelimiter = delimiterPos == delimiter.length - 1;
-					if (endOfBuffer && !endOfDelimiter) {
-						return -1;
-					}
-				}
-				delimiterPos++;
-			}
-			if (delimiterPos == delimiter.length) {
-				return i - buffer.readPosition();
-			}
-		}
-		return -1;
-	}
-
 	/**
 	 * Join the given list of buffers into a single buffer.
+	 * A single buffer, i.e. a line within one incoming buffer, is returned as is.
 	 */
 	private static DataBuffer joinUntilEndFrame(List<DataBuffer> dataBuffers) {
 		if (!dataBuffers.isEmpty()) {
@@ -249,6 +220,9 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 				dataBuffers.remove(lastIdx);
 			}
 		}
+		if (dataBuffers.size() == 1) {
+			return dataBuffers.get(0);
+		}
 		return dataBuffers.get(0).factory().join(dataBuffers);
 	}
 
@@ -257,7 +231,8 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
 		Charset charset = getCharset(mimeType);
-		CharBuffer charBuffer = charset.decode(dataBuffer.asByteBuffer());
+		CharBuffer charBuffer = (dataBuffer instanceof CompositeDataBuffer ?
+				((CompositeDataBuffer) dataBuffer).decode(charset) : charset.decode(dataBuffer.asByteBuffer()));
 		DataBufferUtils.release(dataBuffer);
 		String value = charBuffer.toString();
 		LogFormatUtils.traceDebug(logger, traceOn -> {
@@ -335,6 +310,111 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 	}
 
 
+	/**
+	 * Scans a byte buffer for the earliest occurrence of any of the delimiters,
+	 * in a single pass. For up to {@link #MAX_SWAR_FIRST_BYTES} distinct first
+	 * bytes, e.g. {@code \r} and {@code \n} for the default delimiters, words
+	 * of 8 bytes that contain none of these bytes are skipped at once.
+	 */
+	private static final class DelimiterScanner {
+
+		private static final int MAX_SWAR_FIRST_BYTES = 4;
+
+		private static final long LOW_BITS = 0x0101010101010101L;
+
+		private static final long HIGH_BITS = 0x8080808080808080L;
+
+
+		private final byte[][] delimiters;
+
+		private final boolean[] firstBytes = new boolean[256];
+
+		@Nullable
+		private final long[] firstBytePatterns;
+
+
+		DelimiterScanner(List<byte[]> delimiters) {
+			List<byte[]> nonEmpty = new ArrayList<>(delimiters.size());
+			List<Byte> distinctFirstBytes = new ArrayList<>();
+			for (byte[] delimiter : delimiters) {
+				if (delimiter.length > 0) {
+					nonEmpty.add(delimiter);
+					if (!this.firstBytes[delimiter[0] & 0xFF]) {
+						this.firstBytes[delimiter[0] & 0xFF] = true;
+						distinctFirstBytes.add(delimiter[0]);
+					}
+				}
+			}
+			this.delimiters = nonEmpty.toArray(new byte[0][]);
+			if (distinctFirstBytes.size() <= MAX_SWAR_FIRST_BYTES) {
+				this.firstBytePatterns = new long[distinctFirstBytes.size()];
+				for (int i = 0; i < this.firstBytePatterns.length; i++) {
+					this.firstBytePatterns[i] = (distinctFirstBytes.get(i) & 0xFFL) * LOW_BITS;
+				}
+			}
+			else {
+				this.firstBytePatterns = null;
+			}
+		}
+
+		/**
+		 * Find the earliest delimiter in the given buffer, from the given index on.
+		 * @return the index of the delimiter, or -1 if not found.
+		 */
+		int indexOf(ByteBuffer buffer, int fromIndex) {
+			long[] patterns = this.firstBytePatterns;
+			int limit = buffer.limit();
+			int index = fromIndex;
+			while (index < limit) {
+				if (patterns != null && limit - index >= 8 && !containsAny(buffer.getLong(index), patterns)) {
+					index += 8;
+					continue;
+				}
+				int end = Math.min(index + 8, limit);
+				for (; index < end; index++) {
+					if (this.firstBytes[buffer.get(index) & 0xFF] && delimiterAt(buffer, index) != null) {
+						return index;
+					}
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Return the first delimiter that matches at the given index, if any.
+		 */
+		@Nullable
+		byte[] delimiterAt(ByteBuffer buffer, int index) {
+			int limit = buffer.limit();
+			for (byte[] delimiter : this.delimiters) {
+				if (limit - index >= delimiter.length && matches(buffer, index, delimiter)) {
+					return delimiter;
+				}
+			}
+			return null;
+		}
+
+		private static boolean matches(ByteBuffer buffer, int index, byte[] delimiter) {
+			for (int i = 0; i < delimiter.length; i++) {
+				if (buffer.get(index + i) != delimiter[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static boolean containsAny(long word, long[] patterns) {
+			for (long pattern : patterns) {
+				long value = word ^ pattern;
+				if (((value - LOW_BITS) & ~value & HIGH_BITS) != 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+
 	private class ConcatMapIterableDiscardWorkaroundCache implements Consumer<DataBuffer>, Runnable {
 
 		private final List<DataBuffer> buffers = new ArrayList<>();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.core.convert.support;
 
 import java.lang.reflect.Array;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -46,6 +47,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -78,6 +80,21 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
 
+	private final Map<Class<?>, Map<Class<?>, DirectConversion>> directConversionCache =
+			new ConcurrentReferenceHashMap<>(64);
+
+	/** Whether converters may be looked up once per class pair, i.e. without a custom getConverter. */
+	private final boolean directLookup =
+			!overridesTypeDescriptorVariant("getConverter", TypeDescriptor.class, TypeDescriptor.class);
+
+	/** Whether {@link #canConvert(Class, Class)} may bypass a custom TypeDescriptor variant. */
+	private final boolean directCanConvert = (this.directLookup &&
+			!overridesTypeDescriptorVariant("canConvert", TypeDescriptor.class, TypeDescriptor.class));
+
+	/** Whether {@link #convert(Object, Class)} may bypass a custom TypeDescriptor variant. */
+	private final boolean directConvert = (this.directLookup &&
+			!overridesTypeDescriptorVariant("convert", Object.class, TypeDescriptor.class, TypeDescriptor.class));
+
 
 	// ConverterRegistry implementation
 
@@ -132,8 +149,14 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Override
 	public boolean canConvert(@Nullable Class<?> sourceType, Class<?> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
-		return canConvert((sourceType != null ? TypeDescriptor.valueOf(sourceType) : null),
-				TypeDescriptor.valueOf(targetType));
+		if (!this.directCanConvert) {
+			return canConvert((sourceType != null ? TypeDescriptor.valueOf(sourceType) : null),
+					TypeDescriptor.valueOf(targetType));
+		}
+		if (sourceType == null) {
+			return true;
+		}
+		return (getDirectConversion(sourceType, targetType).converter != null);
 	}
 
 	@Override
@@ -171,7 +194,10 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Nullable
 	public <T> T convert(@Nullable Object source, Class<T> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
-		return (T) convert(source, TypeDescriptor.forObject(source), TypeDescriptor.valueOf(targetType));
+		if (source == null || !this.directConvert) {
+			return (T) convert(source, TypeDescriptor.forObject(source), TypeDescriptor.valueOf(targetType));
+		}
+		return (T) convert(source, getDirectConversion(source.getClass(), targetType));
 	}
 
 	@Override
@@ -186,7 +212,13 @@ public class GenericConversionService implements ConfigurableConversionService {
 			throw new IllegalArgumentException("Source to convert from must be an instance of [" +
 					sourceType + "]; instead it was a [" + source.getClass().getName() + "]");
 		}
-		GenericConverter converter = getConverter(sourceType, targetType);
+		GenericConverter converter;
+		if (this.directLookup && isPlainType(sourceType) && isPlainType(targetType)) {
+			converter = getDirectConversion(sourceType.getType(), targetType.getType()).converter;
+		}
+		else {
+			converter = getConverter(sourceType, targetType);
+		}
 		if (converter != null) {
 			Object result = ConversionUtils.invokeConverter(converter, source, sourceType, targetType);
 			return handleResult(sourceType, targetType, result);
@@ -304,6 +336,74 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private void invalidateCache() {
 		this.converterCache.clear();
+		this.directConversionCache.clear();
+	}
+
+	/**
+	 * Determine whether this service's class overrides the given method that
+	 * the corresponding Class-based variant delegates to by default, or that
+	 * the direct dispatch table caches the result of. In that case, the method
+	 * keeps being called instead of using the direct dispatch table.
+	 */
+	private boolean overridesTypeDescriptorVariant(String methodName, Class<?>... paramTypes) {
+		Class<?> clazz = getClass();
+		if (clazz == GenericConversionService.class || clazz == DefaultConversionService.class) {
+			return false;
+		}
+		Method method = ReflectionUtils.findMethod(clazz, methodName, paramTypes);
+		return (method != null && method.getDeclaringClass() != GenericConversionService.class);
+	}
+
+	/**
+	 * Determine whether the given type descriptor is equivalent to a
+	 * {@link TypeDescriptor#valueOf(Class) plain class descriptor}, i.e. whether
+	 * it neither declares generics nor carries annotations.
+	 */
+	private static boolean isPlainType(TypeDescriptor typeDescriptor) {
+		return (typeDescriptor.getResolvableType().getType() == typeDescriptor.getType() &&
+				typeDescriptor.getAnnotations().length == 0);
+	}
+
+	/**
+	 * Obtain the conversion between the given plain classes from the direct
+	 * dispatch table, resolving the converter through
+	 * {@link #getConverter(TypeDescriptor, TypeDescriptor)} on first access.
+	 * <p>In contrast to the general converter cache, the table is keyed by the
+	 * source and target class in two nested lookups, so that it neither requires
+	 * a cache key nor type descriptors to be built on every conversion.
+	 */
+	private DirectConversion getDirectConversion(Class<?> sourceType, Class<?> targetType) {
+		Map<Class<?>, DirectConversion> conversions = this.directConversionCache.get(sourceType);
+		if (conversions == null) {
+			conversions = new ConcurrentReferenceHashMap<>(16);
+			Map<Class<?>, DirectConversion> existing = this.directConversionCache.putIfAbsent(sourceType, conversions);
+			if (existing != null) {
+				conversions = existing;
+			}
+		}
+		DirectConversion conversion = conversions.get(targetType);
+		if (conversion == null) {
+			TypeDescriptor sourceDescriptor = TypeDescriptor.valueOf(sourceType);
+			TypeDescriptor targetDescriptor = TypeDescriptor.valueOf(targetType);
+			conversion = new DirectConversion(sourceDescriptor, targetDescriptor,
+					getConverter(sourceDescriptor, targetDescriptor));
+			conversions.put(targetType, conversion);
+		}
+		return conversion;
+	}
+
+	@Nullable
+	private Object convert(Object source, DirectConversion conversion) {
+		GenericConverter converter = conversion.converter;
+		if (converter == NO_OP_CONVERTER) {
+			return source;
+		}
+		if (converter != null) {
+			Object result = ConversionUtils.invokeConverter(
+					converter, source, conversion.sourceType, conversion.targetType);
+			return handleResult(conversion.sourceType, conversion.targetType, result);
+		}
+		return handleConverterNotFound(source, conversion.sourceType, conversion.targetType);
 	}
 
 	@Nullable
@@ -494,6 +594,29 @@ public class GenericConversionService implements ConfigurableConversionService {
 	}
 
 
+	/**
+	 * Entry in the direct dispatch table: the converter resolved for a pair of
+	 * plain classes, along with the corresponding type descriptors.
+	 */
+	private static final class DirectConversion {
+
+		private final TypeDescriptor sourceType;
+
+		private final TypeDescriptor targetType;
+
+		@Nullable
+		private final GenericConverter converter;
+
+		public DirectConversion(TypeDescriptor sourceType, TypeDescriptor targetType,
+				@Nullable GenericConverter converter) {
+
+			this.sourceType = sourceType;
+			this.targetType = targetType;
+			this.converter = converter;
+		}
+	}
+
+
 	/**
 	 * Manages all converters registered with the service.
 	 */
@@ -0,0 +1,570 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.IntPredicate;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DataBuffer} that exposes the readable bytes of several component
+ * buffers as a single buffer, without copying them. Similar to Netty's
+ * {@code CompositeByteBuf}, for use with the {@link DefaultDataBufferFactory}.
+ *
+ * <p>Reading into byte arrays, {@linkplain #asInputStream() streaming},
+ * {@linkplain #decode(Charset) decoding} into characters, and obtaining a
+ * {@linkplain #asByteBuffer(int, int) byte buffer} within a single component
+ * work on the components directly. Any other operation, i.e. writing, changing
+ * the capacity, slicing, or obtaining a byte buffer across components, first
+ * consolidates the components into a single buffer allocated from the factory,
+ * to which this buffer delegates from then on. Consumers that need the content
+ * as a single {@link ByteBuffer} should therefore check for a composite buffer
+ * and use one of the former operations instead, as e.g.
+ * {@code StringDecoder} does.
+ *
+ * <p>A composite buffer owns its components: they are released once the
+ * composite buffer is {@linkplain #release() released}, or once consolidated.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ * @see DataBufferUtils#join
+ */
+public class CompositeDataBuffer implements PooledDataBuffer {
+
+	private static final AtomicIntegerFieldUpdater<CompositeDataBuffer> refCountUpdater =
+			AtomicIntegerFieldUpdater.newUpdater(CompositeDataBuffer.class, "refCount");
+
+
+	private final DataBufferFactory dataBufferFactory;
+
+	private final DataBuffer[] components;
+
+	/** Offset of each component within this buffer, plus the total length at the end. */
+	private final int[] offsets;
+
+	/** Read position of each component at construction. */
+	private final int[] bases;
+
+	private final int capacity;
+
+	private int readPosition;
+
+	private int writePosition;
+
+	@Nullable
+	private DataBuffer consolidated;
+
+	private volatile int refCount = 1;
+
+
+	/**
+	 * Create a new {@code CompositeDataBuffer} for the readable bytes of the
+	 * given buffers, taking ownership of them.
+	 * @param dataBufferFactory the factory to consolidate the components with
+	 * @param dataBuffers the component buffers
+	 */
+	public CompositeDataBuffer(DataBufferFactory dataBufferFactory, List<? extends DataBuffer> dataBuffers) {
+		Assert.notNull(dataBufferFactory, "DataBufferFactory must not be null");
+		Assert.notNull(dataBuffers, "DataBuffer List must not be null");
+		this.dataBufferFactory = dataBufferFactory;
+		this.components = dataBuffers.toArray(new DataBuffer[0]);
+		this.offsets = new int[this.components.length + 1];
+		this.bases = new int[this.components.length];
+		int offset = 0;
+		for (int i = 0; i < this.components.length; i++) {
+			this.offsets[i] = offset;
+			this.bases[i] = this.components[i].readPosition();
+			offset += this.components[i].readableByteCount();
+		}
+		this.offsets[this.components.length] = offset;
+		this.capacity = offset;
+		this.writePosition = offset;
+	}
+
+
+	/**
+	 * Return the number of component buffers, or 1 if consolidated.
+	 */
+	public int getComponentCount() {
+		return (this.consolidated != null ? 1 : this.components.length);
+	}
+
+	@Override
+	public DataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		if (this.consolidated != null) {
+			return this.consolidated.indexOf(predicate, fromIndex);
+		}
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= this.writePosition) {
+			return -1;
+		}
+		for (int i = componentIndex(fromIndex); i < this.components.length; i++) {
+			int start = Math.max(fromIndex, this.offsets[i]);
+			int end = Math.min(this.writePosition, this.offsets[i + 1]);
+			for (int index = start; index < end; index++) {
+				if (predicate.test(this.components[i].getByte(this.bases[i] + index - this.offsets[i]))) {
+					return index;
+				}
+			}
+			if (end == this.writePosition) {
+				break;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		if (this.consolidated != null) {
+			return this.consolidated.lastIndexOf(predicate, fromIndex);
+		}
+		fromIndex = Math.min(fromIndex, this.writePosition - 1);
+		if (fromIndex < 0) {
+			return -1;
+		}
+		for (int i = componentIndex(fromIndex); i >= 0; i--) {
+			for (int index = Math.min(fromIndex, this.offsets[i + 1] - 1); index >= this.offsets[i]; index--) {
+				if (predicate.test(this.components[i].getByte(this.bases[i] + index - this.offsets[i]))) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int readableByteCount() {
+		return (this.consolidated != null ? this.consolidated.readableByteCount() :
+				this.writePosition - this.readPosition);
+	}
+
+	@Override
+	public int writableByteCount() {
+		return (this.consolidated != null ? this.consolidated.writableByteCount() :
+				this.capacity - this.writePosition);
+	}
+
+	@Override
+	public int capacity() {
+		return (this.consolidated != null ? this.consolidated.capacity() : this.capacity);
+	}
+
+	@Override
+	public DataBuffer capacity(int capacity) {
+		consolidate().capacity(capacity);
+		return this;
+	}
+
+	@Override
+	public DataBuffer ensureCapacity(int capacity) {
+		if (capacity > writableByteCount()) {
+			consolidate().ensureCapacity(capacity);
+		}
+		return this;
+	}
+
+	@Override
+	public int readPosition() {
+		return (this.consolidated != null ? this.consolidated.readPosition() : this.readPosition);
+	}
+
+	@Override
+	public DataBuffer readPosition(int readPosition) {
+		if (this.consolidated != null) {
+			this.consolidated.readPosition(readPosition);
+			return this;
+		}
+		assertIndex(readPosition >= 0, "'readPosition' %d must be >= 0", readPosition);
+		assertIndex(readPosition <= this.writePosition, "'readPosition' %d must be <= %d",
+				readPosition, this.writePosition);
+		this.readPosition = readPosition;
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return (this.consolidated != null ? this.consolidated.writePosition() : this.writePosition);
+	}
+
+	@Override
+	public DataBuffer writePosition(int writePosition) {
+		if (this.consolidated != null) {
+			this.consolidated.writePosition(writePosition);
+			return this;
+		}
+		assertIndex(writePosition >= this.readPosition, "'writePosition' %d must be >= %d",
+				writePosition, this.readPosition);
+		assertIndex(writePosition <= this.capacity, "'writePosition' %d must be <= %d",
+				writePosition, this.capacity);
+		this.writePosition = writePosition;
+		return this;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		if (this.consolidated != null) {
+			return this.consolidated.getByte(index);
+		}
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(index <= this.writePosition - 1, "index %d must be <= %d", index, this.writePosition - 1);
+		int i = componentIndex(index);
+		return this.components[i].getByte(this.bases[i] + index - this.offsets[i]);
+	}
+
+	@Override
+	public byte read() {
+		if (this.consolidated != null) {
+			return this.consolidated.read();
+		}
+		assertIndex(this.readPosition <= this.writePosition - 1, "readPosition %d must be <= %d",
+				this.readPosition, this.writePosition - 1);
+		byte b = getByte(this.readPosition);
+		this.readPosition++;
+		return b;
+	}
+
+	@Override
+	public DataBuffer read(byte[] destination) {
+		Assert.notNull(destination, "Byte array must not be null");
+		return read(destination, 0, destination.length);
+	}
+
+	@Override
+	public DataBuffer read(byte[] destination, int offset, int length) {
+		Assert.notNull(destination, "Byte array must not be null");
+		if (this.consolidated != null) {
+			this.consolidated.read(destination, offset, length);
+			return this;
+		}
+		assertIndex(this.readPosition <= this.writePosition - length,
+				"readPosition %d and length %d should be smaller than writePosition %d",
+				this.readPosition, length, this.writePosition);
+		int index = this.readPosition;
+		int end = index + length;
+		while (index < end) {
+			int i = componentIndex(index);
+			int count = Math.min(end, this.offsets[i + 1]) - index;
+			this.components[i].asByteBuffer(this.bases[i] + index - this.offsets[i], count)
+					.get(destination, offset, count);
+			offset += count;
+			index += count;
+		}
+		this.readPosition = end;
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(byte b) {
+		consolidate().write(b);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(byte[] source) {
+		consolidate().write(source);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(byte[] source, int offset, int length) {
+		consolidate().write(source, offset, length);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(DataBuffer... buffers) {
+		consolidate().write(buffers);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(ByteBuffer... buffers) {
+		consolidate().write(buffers);
+		return this;
+	}
+
+	@Override
+	public DataBuffer slice(int index, int length) {
+		return consolidate().slice(index, length);
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+		return asByteBuffer(readPosition(), readableByteCount());
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		if (this.consolidated == null && length == 0 && index >= 0 && index <= this.capacity) {
+			// Nothing to expose: no need to merge the components
+			return ByteBuffer.allocate(0);
+		}
+		if (this.consolidated == null && length > 0 && index >= 0 && index + length <= this.capacity) {
+			int i = componentIndex(index);
+			if (index + length <= this.offsets[i + 1]) {
+				return this.components[i].asByteBuffer(this.bases[i] + index - this.offsets[i], length);
+			}
+		}
+		return consolidate().asByteBuffer(index, length);
+	}
+
+	/**
+	 * Decode the readable bytes of this buffer into characters, component by
+	 * component rather than {@linkplain #asByteBuffer() consolidating} them first.
+	 * Equivalent to {@code charset.decode(asByteBuffer())}: malformed input and
+	 * unmappable characters are replaced, and the read position is not changed.
+	 * @param charset the charset to decode with
+	 * @return the decoded characters, ready for reading
+	 */
+	public CharBuffer decode(Charset charset) {
+		Assert.notNull(charset, "Charset must not be null");
+		if (this.consolidated != null) {
+			return charset.decode(this.consolidated.asByteBuffer());
+		}
+		CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		CharBuffer out = CharBuffer.allocate((int) (readableByteCount() * (double) decoder.averageCharsPerByte()) + 1);
+		// Bytes of a character that spans components
+		ByteBuffer carry = ByteBuffer.allocate(16);
+		int index = this.readPosition;
+		while (index < this.writePosition) {
+			int i = componentIndex(index);
+			int count = Math.min(this.writePosition, this.offsets[i + 1]) - index;
+			ByteBuffer in = this.components[i].asByteBuffer(this.bases[i] + index - this.offsets[i], count);
+			while (carry.position() > 0 && in.hasRemaining()) {
+				carry.put(in.get());
+				carry.flip();
+				out = decode(decoder, carry, out, false);
+				carry.compact();
+			}
+			out = decode(decoder, in, out, false);
+			if (in.hasRemaining()) {
+				if (carry.remaining() < in.remaining()) {
+					ByteBuffer larger = ByteBuffer.allocate(carry.position() + in.remaining());
+					carry.flip();
+					carry = larger.put(carry);
+				}
+				carry.put(in);
+			}
+			index += count;
+		}
+		carry.flip();
+		out = decode(decoder, carry, out, true);
+		while (decoder.flush(out).isOverflow()) {
+			out = grow(out);
+		}
+		out.flip();
+		return out;
+	}
+
+	private static CharBuffer decode(CharsetDecoder decoder, ByteBuffer in, CharBuffer out, boolean endOfInput) {
+		while (decoder.decode(in, out, endOfInput).isOverflow()) {
+			out = grow(out);
+		}
+		return out;
+	}
+
+	private static CharBuffer grow(CharBuffer out) {
+		CharBuffer larger = CharBuffer.allocate(out.capacity() * 2 + 16);
+		out.flip();
+		return larger.put(out);
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return asInputStream(false);
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		return new CompositeDataBufferInputStream(releaseOnClose);
+	}
+
+	@Override
+	public OutputStream asOutputStream() {
+		return consolidate().asOutputStream();
+	}
+
+	@Override
+	public boolean isAllocated() {
+		return (this.refCount > 0);
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		refCountUpdater.getAndUpdate(this, refCount -> {
+			if (refCount <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released");
+			}
+			return refCount + 1;
+		});
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		int refCount = refCountUpdater.getAndUpdate(this, count -> {
+			if (count <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released");
+			}
+			return count - 1;
+		});
+		if (refCount > 1) {
+			return false;
+		}
+		if (this.consolidated != null) {
+			DataBufferUtils.release(this.consolidated);
+		}
+		else {
+			releaseComponents();
+		}
+		return true;
+	}
+
+	/**
+	 * Copy the content of all components into a single buffer, if not done yet.
+	 */
+	private DataBuffer consolidate() {
+		DataBuffer consolidated = this.consolidated;
+		if (consolidated == null) {
+			if (!isAllocated()) {
+				throw new IllegalStateException("DataBuffer has already been released");
+			}
+			consolidated = this.dataBufferFactory.allocateBuffer(Math.max(this.capacity, 1));
+			for (int i = 0; i < this.components.length; i++) {
+				int length = this.offsets[i + 1] - this.offsets[i];
+				if (length > 0) {
+					consolidated.write(this.components[i].asByteBuffer(this.bases[i], length));
+				}
+			}
+			consolidated.writePosition(this.writePosition);
+			consolidated.readPosition(this.readPosition);
+			releaseComponents();
+			this.consolidated = consolidated;
+		}
+		return consolidated;
+	}
+
+	private void releaseComponents() {
+		for (DataBuffer component : this.components) {
+			DataBufferUtils.release(component);
+		}
+	}
+
+	/**
+	 * Return the index of the component containing the given index.
+	 */
+	private int componentIndex(int index) {
+		int low = 0;
+		int high = this.components.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.offsets[mid] <= index) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		// Skip empty components
+		while (low < this.components.length - 1 && this.offsets[low + 1] <= index) {
+			low++;
+		}
+		return low;
+	}
+
+	private void assertIndex(boolean expression, String format, Object... args) {
+		if (!expression) {
+			String message = String.format(format, args);
+			throw new IndexOutOfBoundsException(message);
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		if (this.consolidated != null) {
+			return "CompositeDataBuffer (consolidated: " + this.consolidated + ")";
+		}
+		return String.format("CompositeDataBuffer (r: %d, w: %d, c: %d, components: %d)",
+				this.readPosition, this.writePosition, this.capacity, this.components.length);
+	}
+
+
+	private class CompositeDataBufferInputStream extends InputStream {
+
+		private final boolean releaseOnClose;
+
+		private boolean closed;
+
+		CompositeDataBufferInputStream(boolean releaseOnClose) {
+			this.releaseOnClose = releaseOnClose;
+		}
+
+		@Override
+		public int available() {
+			return readableByteCount();
+		}
+
+		@Override
+		public int read() {
+			return available() > 0 ? CompositeDataBuffer.this.read() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) {
+			int available = available();
+			if (available > 0) {
+				len = Math.min(len, available);
+				CompositeDataBuffer.this.read(bytes, off, len);
+				return len;
+			}
+			else {
+				return -1;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (this.releaseOnClose && !this.closed) {
+				this.closed = true;
+				release();
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,13 +21,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
 import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.StandardOpenOption;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -198,6 +201,75 @@ public abstract class DataBufferUtils {
 		return position == 0 ? result : skipUntilByteCount(result, position);
 	}
 
+	/**
+	 * Obtain a {@code FileChannel} from the given supplier, and map its content,
+	 * starting at the given position, into a {@code Flux} of {@code DataBuffer}s
+	 * that wrap read-only {@link MappedByteBuffer}s, one per region. As opposed to
+	 * {@link #readAsynchronousFileChannel}, the file content is not copied into
+	 * allocated buffers. Closes the channel when the Flux is terminated.
+	 * <p>Regions are mapped on demand, and stay valid after the channel is closed.
+	 * Each region is unmapped once its data buffer, including any slices, has been
+	 * {@linkplain #release(DataBuffer) released}, or else once garbage-collected.
+	 * Hence {@code ByteBuffer}s obtained from a data buffer must not be used after
+	 * releasing it, and the file must not be truncated while its regions are mapped.
+	 * @param channelSupplier the supplier for the channel to read from
+	 * @param position the position to start reading from
+	 * @param bufferFactory the factory that the data buffers refer to, if a
+	 * {@link DefaultDataBufferFactory}; the data buffers are always reference-counted
+	 * {@link DefaultDataBuffer}s, since other buffer types cannot unmap on release
+	 * @param regionSize the maximum size of the mapped regions
+	 * @return a Flux of data buffers wrapping mapped regions of the given channel
+	 * @since 5.1.14
+	 */
+	public static Flux<DataBuffer> readMappedFileChannel(
+			Callable<FileChannel> channelSupplier, long position,
+			DataBufferFactory bufferFactory, int regionSize) {
+
+		Assert.notNull(channelSupplier, "'channelSupplier' must not be null");
+		Assert.notNull(bufferFactory, "'dataBufferFactory' must not be null");
+		Assert.isTrue(position >= 0, "'position' must be >= 0");
+		Assert.isTrue(regionSize > 0, "'regionSize' must be > 0");
+
+		return Flux.using(channelSupplier,
+				channel -> Flux.generate(new MappedFileChannelGenerator(channel, position, bufferFactory, regionSize)),
+				DataBufferUtils::closeChannel);
+
+		// No doOnDiscard as operators used do not cache
+	}
+
+	/**
+	 * Read the given {@code Resource} into a {@code Flux} of {@code DataBuffer}s
+	 * starting at the given position, mapping the file content into memory if
+	 * possible.
+	 * <p>If the resource is a file, its regions are mapped via
+	 * {@link #readMappedFileChannel(Callable, long, DataBufferFactory, int)} or
+	 * else it is read via {@link #read(Resource, long, DataBufferFactory, int)}.
+	 * Closes the channel when the flux is terminated.
+	 * @param resource the resource to read from
+	 * @param position the position to start reading from
+	 * @param bufferFactory the factory to create data buffers with
+	 * @param bufferSize the maximum size of the data buffers, if not mapped
+	 * @param regionSize the maximum size of the mapped regions
+	 * @return a Flux of data buffers read from the given resource
+	 * @since 5.1.14
+	 */
+	public static Flux<DataBuffer> readMapped(
+			Resource resource, long position, DataBufferFactory bufferFactory, int bufferSize, int regionSize) {
+
+		try {
+			if (resource.isFile()) {
+				File file = resource.getFile();
+				return readMappedFileChannel(
+						() -> FileChannel.open(file.toPath(), StandardOpenOption.READ),
+						position, bufferFactory, regionSize);
+			}
+		}
+		catch (IOException ignore) {
+			// fallback to read(Resource, ...), below
+		}
+		return read(resource, position, bufferFactory, bufferSize);
+	}
+
 
 	//---------------------------------------------------------------------
 	// Writing
@@ -464,11 +536,24 @@ public abstract class DataBufferUtils {
 		return Flux.from(buffers)
 				.collect(() -> new LimitedDataBufferList(maxByteCount), LimitedDataBufferList::add)
 				.filter(list -> !list.isEmpty())
-				.map(list -> list.get(0).factory().join(list))
+				.map(DataBufferUtils::joinList)
 				.doOnDiscard(LimitedDataBufferList.class, LimitedDataBufferList::releaseAndClear)
 				.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 	}
 
+	/**
+	 * Join the given buffers, exposing the buffers of a
+	 * {@link DefaultDataBufferFactory} as a {@link CompositeDataBuffer} rather
+	 * than copying them into a single buffer.
+	 */
+	private static DataBuffer joinList(List<? extends DataBuffer> buffers) {
+		DataBufferFactory factory = buffers.get(0).factory();
+		if (buffers.size() > 1 && factory instanceof DefaultDataBufferFactory) {
+			return new CompositeDataBuffer(factory, buffers);
+		}
+		return factory.join(buffers);
+	}
+
 
 	private static class ReadableByteChannelGenerator implements Consumer<SynchronousSink<DataBuffer>> {
 
@@ -514,6 +599,47 @@ public abstract class DataBufferUtils {
 	}
 
 
+	private static class MappedFileChannelGenerator implements Consumer<SynchronousSink<DataBuffer>> {
+
+		private final FileChannel channel;
+
+		private final DefaultDataBufferFactory dataBufferFactory;
+
+		private final int regionSize;
+
+		private long position;
+
+		public MappedFileChannelGenerator(
+				FileChannel channel, long position, DataBufferFactory dataBufferFactory, int regionSize) {
+
+			this.channel = channel;
+			this.position = position;
+			this.dataBufferFactory = (dataBufferFactory instanceof DefaultDataBufferFactory ?
+					(DefaultDataBufferFactory) dataBufferFactory : new DefaultDataBufferFactory(true));
+			this.regionSize = regionSize;
+		}
+
+		@Override
+		public void accept(SynchronousSink<DataBuffer> sink) {
+			try {
+				long remaining = this.channel.size() - this.position;
+				if (remaining > 0) {
+					long size = Math.min(this.regionSize, remaining);
+					MappedByteBuffer region = this.channel.map(FileChannel.MapMode.READ_ONLY, this.position, size);
+					this.position += size;
+					sink.next(new MappedDataBuffer(this.dataBufferFactory, region));
+				}
+				else {
+					sink.complete();
+				}
+			}
+			catch (IOException ex) {
+				sink.error(ex);
+			}
+		}
+	}
+
+
 	private static class ReadCompletionHandler implements CompletionHandler<Integer, DataBuffer> {
 
 		private final AsynchronousFileChannel channel;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -59,7 +59,7 @@ public class DefaultDataBuffer implements DataBuffer {
 	private int writePosition;
 
 
-	private DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
+	DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
 		Assert.notNull(dataBufferFactory, "DefaultDataBufferFactory must not be null");
 		Assert.notNull(byteBuffer, "ByteBuffer must not be null");
 		this.dataBufferFactory = dataBufferFactory;
@@ -87,7 +87,7 @@ public class DefaultDataBuffer implements DataBuffer {
 		return this.byteBuffer;
 	}
 
-	private void setNativeBuffer(ByteBuffer byteBuffer) {
+	void setNativeBuffer(ByteBuffer byteBuffer) {
 		this.byteBuffer = byteBuffer;
 		this.capacity = byteBuffer.remaining();
 	}
@@ -184,16 +184,17 @@ public class DefaultDataBuffer implements DataBuffer {
 
 		if (newCapacity > oldCapacity) {
 			ByteBuffer oldBuffer = this.byteBuffer;
-			ByteBuffer newBuffer = allocate(newCapacity, oldBuffer.isDirect());
+			ByteBuffer newBuffer = allocateNativeBuffer(newCapacity, oldBuffer.isDirect());
 			((Buffer) oldBuffer).position(0).limit(oldBuffer.capacity());
 			((Buffer) newBuffer).position(0).limit(oldBuffer.capacity());
 			newBuffer.put(oldBuffer);
 			newBuffer.clear();
 			setNativeBuffer(newBuffer);
+			nativeBufferReplaced(oldBuffer);
 		}
 		else if (newCapacity < oldCapacity) {
 			ByteBuffer oldBuffer = this.byteBuffer;
-			ByteBuffer newBuffer = allocate(newCapacity, oldBuffer.isDirect());
+			ByteBuffer newBuffer = allocateNativeBuffer(newCapacity, oldBuffer.isDirect());
 			if (readPosition < newCapacity) {
 				if (writePosition > newCapacity) {
 					writePosition = newCapacity;
@@ -209,10 +210,33 @@ public class DefaultDataBuffer implements DataBuffer {
 				writePosition(newCapacity);
 			}
 			setNativeBuffer(newBuffer);
+			nativeBufferReplaced(oldBuffer);
 		}
 		return this;
 	}
 
+	/**
+	 * Allocate a new native buffer for a change of capacity.
+	 * <p>The default implementation allocates a heap or direct {@code ByteBuffer}.
+	 * @param capacity the capacity of the new native buffer
+	 * @param direct whether to allocate a direct buffer
+	 * @return the new native buffer, with position 0 and limit set to its capacity
+	 * @since 5.1.14
+	 */
+	ByteBuffer allocateNativeBuffer(int capacity, boolean direct) {
+		return allocate(capacity, direct);
+	}
+
+	/**
+	 * Callback after the native buffer has been replaced for a change of capacity,
+	 * with its content copied to the new native buffer.
+	 * <p>The default implementation is empty.
+	 * @param oldBuffer the previous native buffer
+	 * @since 5.1.14
+	 */
+	void nativeBufferReplaced(ByteBuffer oldBuffer) {
+	}
+
 	@Override
 	public DataBuffer ensureCapacity(int length) {
 		if (length > writableByteCount()) {
@@ -335,13 +359,23 @@ public class DefaultDataBuffer implements DataBuffer {
 			ByteBuffer slice = this.byteBuffer.slice();
 			// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
 			((Buffer) slice).limit(length);
-			return new SlicedDefaultDataBuffer(slice, this.dataBufferFactory, length);
+			return createSlice(slice, length);
 		}
 		finally {
 			buffer.position(oldPosition);
 		}
 	}
 
+	/**
+	 * Create a sliced buffer for the given native slice of this buffer.
+	 * @param slice the native slice, sharing content with this buffer
+	 * @param length the length of the slice
+	 * @since 5.1.14
+	 */
+	DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+		return new SlicedDefaultDataBuffer(slice, this.dataBufferFactory, length);
+	}
+
 	@Override
 	public ByteBuffer asByteBuffer() {
 		return asByteBuffer(this.readPosition, readableByteCount());
@@ -488,7 +522,7 @@ public class DefaultDataBuffer implements DataBuffer {
 	}
 
 
-	private static class SlicedDefaultDataBuffer extends DefaultDataBuffer {
+	static class SlicedDefaultDataBuffer extends DefaultDataBuffer {
 
 		SlicedDefaultDataBuffer(ByteBuffer byteBuffer, DefaultDataBufferFactory dataBufferFactory, int length) {
 			super(dataBufferFactory, byteBuffer);
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Reference-counted {@link DefaultDataBuffer} for a memory-mapped file region,
+ * unmapping the region once the buffer and all of its slices are released
+ * rather than leaving that to garbage collection.
+ *
+ * <p>Unmapping relies on the JDK-internal cleaner of the mapped buffer, accessed
+ * reflectively. If not accessible, the region is unmapped once garbage-collected.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ * @see DataBufferUtils#readMappedFileChannel
+ */
+final class MappedDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+	private static final AtomicIntegerFieldUpdater<MappedDataBuffer> refCountUpdater =
+			AtomicIntegerFieldUpdater.newUpdater(MappedDataBuffer.class, "refCount");
+
+	@Nullable
+	private static final Consumer<ByteBuffer> unmapper = createUnmapper();
+
+
+	@Nullable
+	private MappedByteBuffer region;
+
+	private volatile int refCount = 1;
+
+
+	MappedDataBuffer(DefaultDataBufferFactory dataBufferFactory, MappedByteBuffer region) {
+		super(dataBufferFactory, region);
+		this.region = region;
+		writePosition(region.remaining());
+	}
+
+
+	@Override
+	public boolean isAllocated() {
+		return (this.refCount > 0);
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		int refCount;
+		do {
+			refCount = this.refCount;
+			if (refCount <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released");
+			}
+		}
+		while (!refCountUpdater.compareAndSet(this, refCount, refCount + 1));
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		int refCount;
+		do {
+			refCount = this.refCount;
+			if (refCount <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released");
+			}
+		}
+		while (!refCountUpdater.compareAndSet(this, refCount, refCount - 1));
+		if (refCount > 1) {
+			return false;
+		}
+		unmap();
+		return true;
+	}
+
+	private void unmap() {
+		MappedByteBuffer region = this.region;
+		this.region = null;
+		// Let further access fail on an empty buffer rather than on unmapped memory
+		readPosition(0);
+		writePosition(0);
+		setNativeBuffer(EMPTY_BUFFER);
+		if (region != null && unmapper != null) {
+			try {
+				unmapper.accept(region);
+			}
+			catch (Throwable ex) {
+				// Leave it to garbage collection
+			}
+		}
+	}
+
+	@Override
+	DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+		return new MappedSlicedDataBuffer(slice, this, length);
+	}
+
+
+	/**
+	 * Determine a function that unmaps a {@link MappedByteBuffer} through its
+	 * cleaner: via {@code sun.misc.Unsafe#invokeCleaner} on JDK 9+, or via
+	 * {@code sun.nio.ch.DirectBuffer#cleaner} on JDK 8.
+	 */
+	@Nullable
+	private static Consumer<ByteBuffer> createUnmapper() {
+		ClassLoader classLoader = MappedDataBuffer.class.getClassLoader();
+		try {
+			Class<?> unsafeClass = ClassUtils.forName("sun.misc.Unsafe", classLoader);
+			Method invokeCleanerMethod = ReflectionUtils.findMethod(unsafeClass, "invokeCleaner", ByteBuffer.class);
+			if (invokeCleanerMethod != null) {
+				Field unsafeField = ReflectionUtils.findField(unsafeClass, "theUnsafe", unsafeClass);
+				if (unsafeField == null) {
+					return null;
+				}
+				ReflectionUtils.makeAccessible(unsafeField);
+				Object unsafe = ReflectionUtils.getField(unsafeField, null);
+				return buffer -> ReflectionUtils.invokeMethod(invokeCleanerMethod, unsafe, buffer);
+			}
+			Class<?> directBufferClass = ClassUtils.forName("sun.nio.ch.DirectBuffer", classLoader);
+			Method cleanerMethod = directBufferClass.getMethod("cleaner");
+			Method cleanMethod = cleanerMethod.getReturnType().getMethod("clean");
+			return buffer -> {
+				Object cleaner = ReflectionUtils.invokeMethod(cleanerMethod, buffer);
+				if (cleaner != null) {
+					ReflectionUtils.invokeMethod(cleanMethod, cleaner);
+				}
+			};
+		}
+		catch (Throwable ex) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link MappedDataBuffer}, sharing its reference count.
+	 */
+	private static final class MappedSlicedDataBuffer extends DefaultDataBuffer.SlicedDefaultDataBuffer
+			implements PooledDataBuffer {
+
+		private final MappedDataBuffer parent;
+
+		MappedSlicedDataBuffer(ByteBuffer byteBuffer, MappedDataBuffer parent, int length) {
+			super(byteBuffer, parent.factory(), length);
+			this.parent = parent;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+
+		@Override
+		DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+			return new MappedSlicedDataBuffer(slice, this.parent, length);
+		}
+	}
+
+}
@@ -0,0 +1,544 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Pooling variant of the {@link DefaultDataBufferFactory}, recycling the memory
+ * of released buffers for subsequent allocations. Meant for non-Netty runtimes
+ * (i.e. Servlet and Undertow) where buffers are otherwise garbage-collected after
+ * every read and write, and pluggable through the {@code setDataBufferFactory}
+ * method of the corresponding {@code HttpHandler} adapters.
+ *
+ * <p>Buffers allocated by this factory implement {@link PooledDataBuffer} and
+ * must be released through {@link DataBufferUtils#release(DataBuffer)}, after
+ * which their memory is returned to the pool:
+ * <ul>
+ * <li>Requested capacities are rounded up to power-of-two size classes, from
+ * {@value #MIN_SIZE_CLASS_CAPACITY} bytes up to the maximum pooled capacity.
+ * Larger buffers are allocated and garbage-collected as usual.
+ * <li>Released memory is kept in a small per-thread cache first, and in a shared
+ * arena per size class once that cache is full. Both are bounded, with excess
+ * memory left to the garbage collector.
+ * <li>A sample of allocated buffers, one out of every
+ * {@link #setLeakDetectionInterval leak detection interval} on average, is tracked
+ * for leaks: a tracked buffer that is garbage-collected without having been
+ * released is logged as a warning, along with the stack trace of its allocation.
+ * </ul>
+ *
+ * <p>Buffers {@linkplain #wrap(ByteBuffer) wrapping} existing memory are not pooled.
+ *
+ * <p>Per-thread caches are only referenced weakly from the threads that use them,
+ * and strongly from this factory, so that long-lived container threads do not
+ * keep them, and with them this class and its ClassLoader, once the factory is
+ * no longer in use. Call {@link #dispose()} when shutting down the runtime that
+ * uses the factory (e.g. as the destroy method of a corresponding bean), in order
+ * to release pooled memory right away rather than along with the factory.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ */
+public class PooledDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The capacity of the smallest size class.
+	 */
+	public static final int MIN_SIZE_CLASS_CAPACITY = 256;
+
+	/**
+	 * The default maximum capacity of pooled buffers.
+	 * @see #PooledDataBufferFactory(boolean, int, int)
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	/**
+	 * The default interval for sampling buffers for leak detection.
+	 * @see #setLeakDetectionInterval
+	 */
+	public static final int DEFAULT_LEAK_DETECTION_INTERVAL = 128;
+
+	private static final int MIN_SIZE_CLASS_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE_CLASS_CAPACITY);
+
+	private static final int THREAD_CACHE_BYTES_PER_SIZE_CLASS = 16 * 1024;
+
+	private static final int ARENA_BYTES_PER_SIZE_CLASS = 1024 * 1024;
+
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+	private static final Log logger = LogFactory.getLog(PooledDataBufferFactory.class);
+
+
+	private final boolean preferDirect;
+
+	private final int maxPooledCapacity;
+
+	private final ArrayBlockingQueue<ByteBuffer>[] arenas;
+
+	private final ThreadLocal<WeakReference<ThreadCache>> threadCache = new ThreadLocal<>();
+
+	private final Set<ThreadCache> threadCaches = ConcurrentHashMap.newKeySet();
+
+	private final Set<LeakTracker> leakTrackers = ConcurrentHashMap.newKeySet();
+
+	private final ReferenceQueue<PooledBuffer> leakQueue = new ReferenceQueue<>();
+
+	private int leakDetectionInterval = DEFAULT_LEAK_DETECTION_INTERVAL;
+
+	private volatile boolean disposed;
+
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory} with default settings.
+	 */
+	public PooledDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be created by {@link #allocateBuffer()} and
+	 * {@link #allocateBuffer(int)}.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_POOLED_CAPACITY);
+	}
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be created by {@link #allocateBuffer()} and
+	 * {@link #allocateBuffer(int)}, what the capacity is to be used for
+	 * {@link #allocateBuffer()}, and up to which capacity buffers are pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param defaultInitialCapacity the capacity for {@link #allocateBuffer()}
+	 * @param maxPooledCapacity the maximum capacity of pooled buffers, rounded up
+	 * to the next power of two
+	 */
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	public PooledDataBufferFactory(boolean preferDirect, int defaultInitialCapacity, int maxPooledCapacity) {
+		super(preferDirect, defaultInitialCapacity);
+		Assert.isTrue(maxPooledCapacity >= MIN_SIZE_CLASS_CAPACITY,
+				"'maxPooledCapacity' should be at least " + MIN_SIZE_CLASS_CAPACITY);
+		Assert.isTrue(maxPooledCapacity <= (1 << 30), "'maxPooledCapacity' should be at most 2^30");
+		this.preferDirect = preferDirect;
+		int sizeClassCount = sizeClassIndex(maxPooledCapacity) + 1;
+		this.maxPooledCapacity = sizeClassCapacity(sizeClassCount - 1);
+		this.arenas = new ArrayBlockingQueue[sizeClassCount];
+		for (int i = 0; i < sizeClassCount; i++) {
+			this.arenas[i] = new ArrayBlockingQueue<>(
+					Math.max(ARENA_BYTES_PER_SIZE_CLASS / sizeClassCapacity(i), 1));
+		}
+	}
+
+
+	/**
+	 * Set the interval for sampling allocated buffers for leak detection: on
+	 * average, one out of every {@code interval} buffers is tracked.
+	 * <p>Default is {@value #DEFAULT_LEAK_DETECTION_INTERVAL}. Set this to 1 for
+	 * tracking every buffer (e.g. in tests), or to 0 for no leak detection at all.
+	 */
+	public void setLeakDetectionInterval(int leakDetectionInterval) {
+		Assert.isTrue(leakDetectionInterval >= 0, "'leakDetectionInterval' must not be negative");
+		this.leakDetectionInterval = leakDetectionInterval;
+	}
+
+	/**
+	 * Return the interval for sampling allocated buffers for leak detection.
+	 */
+	public int getLeakDetectionInterval() {
+		return this.leakDetectionInterval;
+	}
+
+	/**
+	 * Return the maximum capacity of pooled buffers.
+	 */
+	public int getMaxPooledCapacity() {
+		return this.maxPooledCapacity;
+	}
+
+	/**
+	 * Release the memory pooled by this factory, including the per-thread caches,
+	 * and stop pooling memory of buffers released from then on.
+	 * <p>The factory remains usable afterwards, allocating unpooled buffers.
+	 */
+	public void dispose() {
+		this.disposed = true;
+		this.threadCaches.clear();
+		this.threadCache.remove();
+		for (ArrayBlockingQueue<ByteBuffer> arena : this.arenas) {
+			arena.clear();
+		}
+	}
+
+	/**
+	 * Return whether this factory has been {@linkplain #dispose() disposed}.
+	 */
+	public boolean isDisposed() {
+		return this.disposed;
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' must not be negative");
+		PooledBuffer dataBuffer = new PooledBuffer(this, acquire(initialCapacity));
+		int interval = this.leakDetectionInterval;
+		if (interval > 0) {
+			reportLeaks();
+			if (interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0) {
+				LeakTracker tracker = new LeakTracker(dataBuffer, this.leakQueue);
+				this.leakTrackers.add(tracker);
+				dataBuffer.leakTracker = tracker;
+			}
+		}
+		return dataBuffer;
+	}
+
+	/**
+	 * Obtain memory of at least the given capacity, from the pool if possible.
+	 * @return a buffer with position 0 and limit set to the given capacity
+	 */
+	ByteBuffer acquire(int capacity) {
+		ByteBuffer byteBuffer = null;
+		if (capacity <= this.maxPooledCapacity) {
+			int index = sizeClassIndex(capacity);
+			ThreadCache threadCache = getThreadCache();
+			if (threadCache != null) {
+				byteBuffer = threadCache.poll(index);
+			}
+			if (byteBuffer == null) {
+				byteBuffer = this.arenas[index].poll();
+			}
+			if (byteBuffer == null) {
+				byteBuffer = allocate(sizeClassCapacity(index));
+			}
+		}
+		else {
+			byteBuffer = allocate(capacity);
+		}
+		// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
+		((Buffer) byteBuffer).clear().limit(capacity);
+		return byteBuffer;
+	}
+
+	/**
+	 * Return the given memory, previously obtained through {@link #acquire},
+	 * to the pool.
+	 */
+	void recycle(ByteBuffer byteBuffer) {
+		int capacity = byteBuffer.capacity();
+		if (capacity > this.maxPooledCapacity || this.disposed) {
+			return;
+		}
+		int index = sizeClassIndex(capacity);
+		ThreadCache threadCache = getThreadCache();
+		if (threadCache == null || !threadCache.offer(index, byteBuffer)) {
+			this.arenas[index].offer(byteBuffer);
+		}
+	}
+
+	/**
+	 * Return the cache for the current thread, creating it if necessary.
+	 * @return the cache, or {@code null} if this factory has been disposed
+	 */
+	@Nullable
+	private ThreadCache getThreadCache() {
+		if (this.disposed) {
+			return null;
+		}
+		WeakReference<ThreadCache> ref = this.threadCache.get();
+		ThreadCache threadCache = (ref != null ? ref.get() : null);
+		if (threadCache == null) {
+			this.threadCaches.removeIf(ThreadCache::isOrphaned);
+			threadCache = new ThreadCache(this.arenas.length);
+			this.threadCaches.add(threadCache);
+			this.threadCache.set(new WeakReference<>(threadCache));
+			if (this.disposed) {
+				// Disposed concurrently: do not hold on to the new cache
+				this.threadCaches.remove(threadCache);
+				this.threadCache.remove();
+				return null;
+			}
+		}
+		return threadCache;
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return (this.preferDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	private void reportLeaks() {
+		LeakTracker tracker;
+		while ((tracker = (LeakTracker) this.leakQueue.poll()) != null) {
+			if (this.leakTrackers.remove(tracker) && logger.isWarnEnabled()) {
+				logger.warn("DataBuffer was garbage-collected without having been released - " +
+						"make sure to release it through DataBufferUtils.release(DataBuffer)",
+						tracker.allocationSite);
+			}
+		}
+	}
+
+	private void stopTracking(LeakTracker tracker) {
+		this.leakTrackers.remove(tracker);
+		tracker.clear();
+	}
+
+
+	@Override
+	public String toString() {
+		return "PooledDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + this.maxPooledCapacity + ")";
+	}
+
+
+	private static int sizeClassIndex(int capacity) {
+		if (capacity <= MIN_SIZE_CLASS_CAPACITY) {
+			return 0;
+		}
+		return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SIZE_CLASS_SHIFT;
+	}
+
+	private static int sizeClassCapacity(int index) {
+		return MIN_SIZE_CLASS_CAPACITY << index;
+	}
+
+
+	/**
+	 * Reference-counted {@link DefaultDataBuffer} backed by pooled memory.
+	 */
+	private static final class PooledBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private static final AtomicIntegerFieldUpdater<PooledBuffer> refCountUpdater =
+				AtomicIntegerFieldUpdater.newUpdater(PooledBuffer.class, "refCount");
+
+		private final PooledDataBufferFactory factory;
+
+		@Nullable
+		private ByteBuffer memory;
+
+		@Nullable
+		private ByteBuffer replacementMemory;
+
+		@Nullable
+		private LeakTracker leakTracker;
+
+		private volatile int refCount = 1;
+
+		PooledBuffer(PooledDataBufferFactory factory, ByteBuffer memory) {
+			super(factory, memory);
+			this.factory = factory;
+			this.memory = memory;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return (this.refCount > 0);
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			int refCount;
+			do {
+				refCount = this.refCount;
+				if (refCount <= 0) {
+					throw new IllegalStateException("DataBuffer has already been released");
+				}
+			}
+			while (!refCountUpdater.compareAndSet(this, refCount, refCount + 1));
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			int refCount;
+			do {
+				refCount = this.refCount;
+				if (refCount <= 0) {
+					throw new IllegalStateException("DataBuffer has already been released");
+				}
+			}
+			while (!refCountUpdater.compareAndSet(this, refCount, refCount - 1));
+			if (refCount > 1) {
+				return false;
+			}
+			deallocate();
+			return true;
+		}
+
+		private void deallocate() {
+			ByteBuffer memory = this.memory;
+			this.memory = null;
+			readPosition(0);
+			writePosition(0);
+			setNativeBuffer(EMPTY_BUFFER);
+			if (memory != null) {
+				this.factory.recycle(memory);
+			}
+			if (this.leakTracker != null) {
+				this.factory.stopTracking(this.leakTracker);
+				this.leakTracker = null;
+			}
+		}
+
+		@Override
+		ByteBuffer allocateNativeBuffer(int capacity, boolean direct) {
+			if (!isAllocated()) {
+				throw new IllegalStateException("DataBuffer has already been released");
+			}
+			ByteBuffer memory = this.factory.acquire(capacity);
+			this.replacementMemory = memory;
+			// Slice for an exact capacity, with the pooled memory possibly being larger
+			return memory.slice();
+		}
+
+		@Override
+		void nativeBufferReplaced(ByteBuffer oldBuffer) {
+			ByteBuffer oldMemory = this.memory;
+			this.memory = this.replacementMemory;
+			this.replacementMemory = null;
+			if (oldMemory != null) {
+				this.factory.recycle(oldMemory);
+			}
+		}
+
+		@Override
+		DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+			return new PooledSlicedBuffer(slice, this, length);
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link PooledBuffer}, sharing its reference count.
+	 */
+	private static final class PooledSlicedBuffer extends DefaultDataBuffer.SlicedDefaultDataBuffer
+			implements PooledDataBuffer {
+
+		private final PooledBuffer parent;
+
+		PooledSlicedBuffer(ByteBuffer byteBuffer, PooledBuffer parent, int length) {
+			super(byteBuffer, parent.factory, length);
+			this.parent = parent;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+
+		@Override
+		DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+			return new PooledSlicedBuffer(slice, this.parent, length);
+		}
+	}
+
+
+	/**
+	 * Per-thread cache of recently released memory, as a bounded stack per size class.
+	 */
+	private static final class ThreadCache {
+
+		private final WeakReference<Thread> thread = new WeakReference<>(Thread.currentThread());
+
+		private final ByteBuffer[][] stacks;
+
+		private final int[] sizes;
+
+		ThreadCache(int sizeClassCount) {
+			this.stacks = new ByteBuffer[sizeClassCount][];
+			this.sizes = new int[sizeClassCount];
+			for (int i = 0; i < sizeClassCount; i++) {
+				this.stacks[i] = new ByteBuffer[Math.max(THREAD_CACHE_BYTES_PER_SIZE_CLASS / sizeClassCapacity(i), 1)];
+			}
+		}
+
+		@Nullable
+		ByteBuffer poll(int index) {
+			int size = this.sizes[index];
+			if (size == 0) {
+				return null;
+			}
+			ByteBuffer[] stack = this.stacks[index];
+			ByteBuffer byteBuffer = stack[--size];
+			stack[size] = null;
+			this.sizes[index] = size;
+			return byteBuffer;
+		}
+
+		boolean offer(int index, ByteBuffer byteBuffer) {
+			int size = this.sizes[index];
+			ByteBuffer[] stack = this.stacks[index];
+			if (size == stack.length) {
+				return false;
+			}
+			stack[size] = byteBuffer;
+			this.sizes[index] = size + 1;
+			return true;
+		}
+
+		/**
+		 * Whether the thread that this cache belongs to has terminated.
+		 */
+		boolean isOrphaned() {
+			Thread thread = this.thread.get();
+			return (thread == null || !thread.isAlive());
+		}
+	}
+
+
+	/**
+	 * Weak reference to a buffer sampled for leak detection.
+	 */
+	private static final class LeakTracker extends WeakReference<PooledBuffer> {
+
+		private final Throwable allocationSite;
+
+		LeakTracker(PooledBuffer dataBuffer, ReferenceQueue<PooledBuffer> queue) {
+			super(dataBuffer, queue);
+			this.allocationSite = new Throwable("DataBuffer allocated at");
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,20 +17,32 @@
 package org.springframework.core.type.classreading;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentLruCache;
 
 /**
  * Caching implementation of the {@link MetadataReaderFactory} interface,
  * caching a {@link MetadataReader} instance per Spring {@link Resource} handle
  * (i.e. per ".class" file).
  *
+ * <p>As of 5.1.14, cache misses are served from a size-bounded cache which is
+ * shared by all instances of this factory for the same ClassLoader, so that
+ * class files read by several components (e.g. for configuration class parsing
+ * and component scanning) are only parsed once. A shared cache is only held
+ * weakly, and released along with the last factory using it, in order to not
+ * pin its ClassLoader. Application contexts clear it after refresh.
+ *
  * @author Juergen Hoeller
  * @author Costin Leau
  * @since 2.5
@@ -40,10 +52,37 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 	/** Default maximum number of entries for a local MetadataReader cache: 256. */
 	public static final int DEFAULT_CACHE_LIMIT = 256;
 
+	/**
+	 * System property that specifies the maximum number of entries for the
+	 * MetadataReader cache shared per ClassLoader, with 0 turning it off.
+	 * @since 5.1.14
+	 * @see #DEFAULT_SHARED_CACHE_LIMIT
+	 */
+	public static final String SHARED_CACHE_LIMIT_PROPERTY_NAME = "spring.metadatareader.cache.limit";
+
+	/**
+	 * Default maximum number of entries for the MetadataReader cache shared per ClassLoader: 1024.
+	 * @since 5.1.14
+	 */
+	public static final int DEFAULT_SHARED_CACHE_LIMIT = 1024;
+
+	private static final int sharedCacheLimit = determineSharedCacheLimit();
+
+	/** MetadataReader caches shared per ClassLoader, only referenced weakly. */
+	private static final Map<ClassLoader, WeakReference<ConcurrentLruCache<Resource, MetadataReader>>> sharedCaches =
+			new WeakHashMap<>();
+
 	/** MetadataReader cache: either local or shared at the ResourceLoader level. */
 	@Nullable
 	private Map<Resource, MetadataReader> metadataReaderCache;
 
+	/** MetadataReader cache shared with other factories for the same ClassLoader. */
+	@Nullable
+	private volatile ConcurrentLruCache<Resource, MetadataReader> sharedCache;
+
+	@Nullable
+	private volatile PersistentMetadataReaderCache persistentCache;
+
 
 	/**
 	 * Create a new CachingMetadataReaderFactory for the default class loader,
@@ -114,13 +153,35 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 	}
 
 
+	/**
+	 * Specify a cache that persists class metadata across restarts, serving
+	 * misses of the MetadataReader cache from unchanged class files recorded
+	 * in the cache file instead of reading them with ASM.
+	 * <p>Default is none. The caller is responsible for {@linkplain
+	 * PersistentMetadataReaderCache#store() storing} the given cache.
+	 * @since 5.1.14
+	 */
+	public void setPersistentCache(@Nullable PersistentMetadataReaderCache persistentCache) {
+		this.persistentCache = persistentCache;
+	}
+
+	/**
+	 * Return the cache that persists class metadata across restarts, if any.
+	 * @since 5.1.14
+	 */
+	@Nullable
+	public PersistentMetadataReaderCache getPersistentCache() {
+		return this.persistentCache;
+	}
+
+
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
 		if (this.metadataReaderCache instanceof ConcurrentMap) {
 			// No synchronization necessary...
 			MetadataReader metadataReader = this.metadataReaderCache.get(resource);
 			if (metadataReader == null) {
-				metadataReader = super.getMetadataReader(resource);
+				metadataReader = getSharedMetadataReader(resource);
 				this.metadataReaderCache.put(resource, metadataReader);
 			}
 			return metadataReader;
@@ -129,7 +190,7 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 			synchronized (this.metadataReaderCache) {
 				MetadataReader metadataReader = this.metadataReaderCache.get(resource);
 				if (metadataReader == null) {
-					metadataReader = super.getMetadataReader(resource);
+					metadataReader = getSharedMetadataReader(resource);
 					this.metadataReaderCache.put(resource, metadataReader);
 				}
 				return metadataReader;
@@ -140,21 +201,129 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 		}
 	}
 
+	private MetadataReader getSharedMetadataReader(Resource resource) throws IOException {
+		PersistentMetadataReaderCache persistentCache = this.persistentCache;
+		if (persistentCache != null) {
+			return persistentCache.getMetadataReader(resource, getResourceLoader().getClassLoader());
+		}
+		ConcurrentLruCache<Resource, MetadataReader> sharedCache = getSharedCache();
+		if (sharedCache == null) {
+			return super.getMetadataReader(resource);
+		}
+		try {
+			return sharedCache.get(resource);
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
 	/**
-	 * Clear the local MetadataReader cache, if any, removing all cached class metadata.
+	 * Clear the local MetadataReader cache, if any, removing all cached class metadata,
+	 * and evict the entries of the local cache from the cache shared per ClassLoader.
 	 */
 	public void clearCache() {
+		ConcurrentLruCache<Resource, MetadataReader> sharedCache = this.sharedCache;
 		if (this.metadataReaderCache instanceof LocalResourceCache) {
 			synchronized (this.metadataReaderCache) {
+				if (sharedCache != null) {
+					this.metadataReaderCache.keySet().forEach(sharedCache::remove);
+				}
 				this.metadataReaderCache.clear();
 			}
 		}
 		else if (this.metadataReaderCache != null) {
+			if (sharedCache != null) {
+				this.metadataReaderCache.keySet().forEach(sharedCache::remove);
+			}
 			// Shared resource cache -> reset to local cache.
 			setCacheLimit(DEFAULT_CACHE_LIMIT);
 		}
 	}
 
+	/**
+	 * Return the MetadataReader cache that this factory shares with all other
+	 * instances of this factory for the same ClassLoader, e.g. for monitoring
+	 * its hit, miss and eviction counts.
+	 * @return the shared cache, or {@code null} if turned off
+	 * @since 5.1.14
+	 * @see #SHARED_CACHE_LIMIT_PROPERTY_NAME
+	 */
+	@Nullable
+	public ConcurrentLruCache<Resource, MetadataReader> getSharedCache() {
+		if (sharedCacheLimit == 0) {
+			return null;
+		}
+		ConcurrentLruCache<Resource, MetadataReader> sharedCache = this.sharedCache;
+		if (sharedCache == null) {
+			ClassLoader classLoader = getResourceLoader().getClassLoader();
+			synchronized (sharedCaches) {
+				WeakReference<ConcurrentLruCache<Resource, MetadataReader>> ref = sharedCaches.get(classLoader);
+				sharedCache = (ref != null ? ref.get() : null);
+				if (sharedCache == null) {
+					sharedCache = new ConcurrentLruCache<>(sharedCacheLimit,
+							resource -> createMetadataReader(resource, classLoader));
+					sharedCaches.put(classLoader, new WeakReference<>(sharedCache));
+				}
+			}
+			this.sharedCache = sharedCache;
+		}
+		return sharedCache;
+	}
+
+
+	/**
+	 * Clear the MetadataReader caches shared per ClassLoader, releasing all
+	 * cached class metadata along with the resources that it refers to.
+	 * @since 5.1.14
+	 */
+	public static void clearSharedCache() {
+		synchronized (sharedCaches) {
+			sharedCaches.values().forEach(CachingMetadataReaderFactory::clearSharedCache);
+		}
+	}
+
+	/**
+	 * Clear the MetadataReader cache shared for the given ClassLoader, if any,
+	 * releasing all cached class metadata along with the resources that it refers to.
+	 * @param classLoader the ClassLoader to clear the shared cache for
+	 * @since 5.1.14
+	 */
+	public static void clearSharedCache(@Nullable ClassLoader classLoader) {
+		synchronized (sharedCaches) {
+			clearSharedCache(sharedCaches.get(classLoader));
+		}
+	}
+
+	private static void clearSharedCache(@Nullable WeakReference<ConcurrentLruCache<Resource, MetadataReader>> ref) {
+		ConcurrentLruCache<Resource, MetadataReader> sharedCache = (ref != null ? ref.get() : null);
+		if (sharedCache != null) {
+			sharedCache.clear();
+		}
+	}
+
+	private static int determineSharedCacheLimit() {
+		String limit = SpringProperties.getProperty(SHARED_CACHE_LIMIT_PROPERTY_NAME);
+		if (limit != null) {
+			try {
+				return Math.max(Integer.parseInt(limit.trim()), 0);
+			}
+			catch (NumberFormatException ex) {
+				// Invalid setting -> fall back to default.
+			}
+		}
+		return DEFAULT_SHARED_CACHE_LIMIT;
+	}
+
+	private static MetadataReader createMetadataReader(Resource resource, @Nullable ClassLoader classLoader) {
+		try {
+			return new SimpleMetadataReader(resource, classLoader);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
 
 	@SuppressWarnings("serial")
 	private static class LocalResourceCache extends LinkedHashMap<Resource, MetadataReader> {
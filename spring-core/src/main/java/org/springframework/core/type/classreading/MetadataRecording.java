@@ -0,0 +1,614 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+
+/**
+ * Compact binary recording of the ASM visitor events that metadata reading
+ * visitors react to: the class header, outer and inner classes, and class
+ * and method annotations including their attribute values.
+ *
+ * <p>Replaying a recording into a fresh visitor yields the same metadata as
+ * visiting the original class file, without reading and parsing it again.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ * @see PersistentMetadataReaderCache
+ */
+abstract class MetadataRecording {
+
+	private static final byte END = 0;
+
+	private static final byte CLASS = 1;
+
+	private static final byte OUTER_CLASS = 2;
+
+	private static final byte INNER_CLASS = 3;
+
+	private static final byte ANNOTATION = 4;
+
+	private static final byte METHOD = 5;
+
+	private static final byte VALUE = 6;
+
+	private static final byte ENUM = 7;
+
+	private static final byte ARRAY = 8;
+
+
+	/**
+	 * Let the given {@link ClassReader} drive the given visitor, recording the
+	 * visitor events relevant for metadata reading along the way.
+	 * @param classReader the reader for the class file
+	 * @param visitor the visitor to delegate to
+	 * @return the recorded events
+	 * @throws IOException if the events cannot be recorded
+	 */
+	static byte[] record(ClassReader classReader, ClassVisitor visitor) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			classReader.accept(new RecordingClassVisitor(visitor, out), ClassReader.SKIP_DEBUG);
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+		out.writeByte(END);
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Replay the given recorded events into the given visitor.
+	 * @param recording the events, as returned from {@link #record}
+	 * @param visitor the visitor to replay the events into
+	 * @throws IOException if the recording is corrupt
+	 */
+	static void replay(byte[] recording, ClassVisitor visitor) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(recording));
+		byte event;
+		while ((event = in.readByte()) != END) {
+			switch (event) {
+				case CLASS:
+					visitor.visit(in.readInt(), in.readInt(), in.readUTF(),
+							readNullableString(in), readNullableString(in), readNullableStrings(in));
+					break;
+				case OUTER_CLASS:
+					visitor.visitOuterClass(in.readUTF(), readNullableString(in), readNullableString(in));
+					break;
+				case INNER_CLASS:
+					visitor.visitInnerClass(in.readUTF(), readNullableString(in), readNullableString(in), in.readInt());
+					break;
+				case ANNOTATION:
+					replayAnnotation(in, visitor.visitAnnotation(in.readUTF(), in.readBoolean()));
+					break;
+				case METHOD:
+					MethodVisitor methodVisitor = visitor.visitMethod(in.readInt(), in.readUTF(), in.readUTF(),
+							readNullableString(in), readNullableStrings(in));
+					while ((event = in.readByte()) != END) {
+						replayAnnotation(in, methodVisitor != null ?
+								methodVisitor.visitAnnotation(in.readUTF(), in.readBoolean()) :
+								skipAnnotationHeader(in));
+					}
+					if (methodVisitor != null) {
+						methodVisitor.visitEnd();
+					}
+					break;
+				default:
+					throw new IOException("Unexpected event " + event + " in metadata recording");
+			}
+		}
+		visitor.visitEnd();
+	}
+
+	private static void replayAnnotation(DataInputStream in, @Nullable AnnotationVisitor visitor) throws IOException {
+		byte event;
+		while ((event = in.readByte()) != END) {
+			String name = readNullableString(in);
+			switch (event) {
+				case VALUE:
+					Object value = readValue(in);
+					if (visitor != null) {
+						visitor.visit(name, value);
+					}
+					break;
+				case ENUM:
+					String desc = in.readUTF();
+					String enumValue = in.readUTF();
+					if (visitor != null) {
+						visitor.visitEnum(name, desc, enumValue);
+					}
+					break;
+				case ANNOTATION:
+					String annotationDesc = in.readUTF();
+					replayAnnotation(in, visitor != null ? visitor.visitAnnotation(name, annotationDesc) : null);
+					break;
+				case ARRAY:
+					replayAnnotation(in, visitor != null ? visitor.visitArray(name) : null);
+					break;
+				default:
+					throw new IOException("Unexpected event " + event + " in metadata recording");
+			}
+		}
+		if (visitor != null) {
+			visitor.visitEnd();
+		}
+	}
+
+	@Nullable
+	private static AnnotationVisitor skipAnnotationHeader(DataInputStream in) throws IOException {
+		in.readUTF();
+		in.readBoolean();
+		return null;
+	}
+
+	private static void writeNullableString(DataOutputStream out, @Nullable String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	@Nullable
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return (in.readBoolean() ? in.readUTF() : null);
+	}
+
+	private static void writeNullableStrings(DataOutputStream out, @Nullable String[] values) throws IOException {
+		out.writeInt(values != null ? values.length : -1);
+		if (values != null) {
+			for (String value : values) {
+				out.writeUTF(value);
+			}
+		}
+	}
+
+	@Nullable
+	private static String[] readNullableStrings(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		String[] values = new String[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = in.readUTF();
+		}
+		return values;
+	}
+
+	/**
+	 * Write an annotation attribute value as passed to {@link AnnotationVisitor#visit}:
+	 * a boxed primitive, a String, a {@link Type} or an array of primitives.
+	 */
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value instanceof String) {
+			out.writeByte('s');
+			out.writeUTF((String) value);
+		}
+		else if (value instanceof Type) {
+			out.writeByte('c');
+			out.writeUTF(((Type) value).getDescriptor());
+		}
+		else if (value instanceof Integer) {
+			out.writeByte('I');
+			out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			out.writeByte('J');
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte('Z');
+			out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Byte) {
+			out.writeByte('B');
+			out.writeByte((Byte) value);
+		}
+		else if (value instanceof Character) {
+			out.writeByte('C');
+			out.writeChar((Character) value);
+		}
+		else if (value instanceof Short) {
+			out.writeByte('S');
+			out.writeShort((Short) value);
+		}
+		else if (value instanceof Float) {
+			out.writeByte('F');
+			out.writeFloat((Float) value);
+		}
+		else if (value instanceof Double) {
+			out.writeByte('D');
+			out.writeDouble((Double) value);
+		}
+		else if (value instanceof int[]) {
+			int[] array = (int[]) value;
+			out.writeByte('i');
+			out.writeInt(array.length);
+			for (int element : array) {
+				out.writeInt(element);
+			}
+		}
+		else if (value instanceof long[]) {
+			long[] array = (long[]) value;
+			out.writeByte('j');
+			out.writeInt(array.length);
+			for (long element : array) {
+				out.writeLong(element);
+			}
+		}
+		else if (value instanceof boolean[]) {
+			boolean[] array = (boolean[]) value;
+			out.writeByte('z');
+			out.writeInt(array.length);
+			for (boolean element : array) {
+				out.writeBoolean(element);
+			}
+		}
+		else if (value instanceof byte[]) {
+			byte[] array = (byte[]) value;
+			out.writeByte('b');
+			out.writeInt(array.length);
+			out.write(array);
+		}
+		else if (value instanceof char[]) {
+			char[] array = (char[]) value;
+			out.writeByte('h');
+			out.writeInt(array.length);
+			for (char element : array) {
+				out.writeChar(element);
+			}
+		}
+		else if (value instanceof short[]) {
+			short[] array = (short[]) value;
+			out.writeByte('t');
+			out.writeInt(array.length);
+			for (short element : array) {
+				out.writeShort(element);
+			}
+		}
+		else if (value instanceof float[]) {
+			float[] array = (float[]) value;
+			out.writeByte('f');
+			out.writeInt(array.length);
+			for (float element : array) {
+				out.writeFloat(element);
+			}
+		}
+		else if (value instanceof double[]) {
+			double[] array = (double[]) value;
+			out.writeByte('d');
+			out.writeInt(array.length);
+			for (double element : array) {
+				out.writeDouble(element);
+			}
+		}
+		else {
+			throw new IOException("Unsupported annotation attribute value: " + value);
+		}
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+			case 's':
+				return in.readUTF();
+			case 'c':
+				return Type.getType(in.readUTF());
+			case 'I':
+				return in.readInt();
+			case 'J':
+				return in.readLong();
+			case 'Z':
+				return in.readBoolean();
+			case 'B':
+				return in.readByte();
+			case 'C':
+				return in.readChar();
+			case 'S':
+				return in.readShort();
+			case 'F':
+				return in.readFloat();
+			case 'D':
+				return in.readDouble();
+			case 'i': {
+				int[] array = new int[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readInt();
+				}
+				return array;
+			}
+			case 'j': {
+				long[] array = new long[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readLong();
+				}
+				return array;
+			}
+			case 'z': {
+				boolean[] array = new boolean[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readBoolean();
+				}
+				return array;
+			}
+			case 'b': {
+				byte[] array = new byte[in.readInt()];
+				in.readFully(array);
+				return array;
+			}
+			case 'h': {
+				char[] array = new char[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readChar();
+				}
+				return array;
+			}
+			case 't': {
+				short[] array = new short[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readShort();
+				}
+				return array;
+			}
+			case 'f': {
+				float[] array = new float[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readFloat();
+				}
+				return array;
+			}
+			case 'd': {
+				double[] array = new double[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readDouble();
+				}
+				return array;
+			}
+			default:
+				throw new IOException("Unexpected value tag " + tag + " in metadata recording");
+		}
+	}
+
+
+	/**
+	 * {@link ClassVisitor} that records the relevant events before delegating.
+	 * I/O failures get rethrown as {@link UncheckedIOException}, since ASM
+	 * visitor methods cannot throw checked exceptions.
+	 */
+	private static class RecordingClassVisitor extends ClassVisitor {
+
+		private final DataOutputStream out;
+
+		RecordingClassVisitor(ClassVisitor visitor, DataOutputStream out) {
+			super(SpringAsmInfo.ASM_VERSION, visitor);
+			this.out = out;
+		}
+
+		@Override
+		public void visit(int version, int access, String name, @Nullable String signature,
+				@Nullable String superName, @Nullable String[] interfaces) {
+
+			try {
+				this.out.writeByte(CLASS);
+				this.out.writeInt(version);
+				this.out.writeInt(access);
+				this.out.writeUTF(name);
+				writeNullableString(this.out, signature);
+				writeNullableString(this.out, superName);
+				writeNullableStrings(this.out, interfaces);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			super.visit(version, access, name, signature, superName, interfaces);
+		}
+
+		@Override
+		public void visitOuterClass(String owner, @Nullable String name, @Nullable String desc) {
+			try {
+				this.out.writeByte(OUTER_CLASS);
+				this.out.writeUTF(owner);
+				writeNullableString(this.out, name);
+				writeNullableString(this.out, desc);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			super.visitOuterClass(owner, name, desc);
+		}
+
+		@Override
+		public void visitInnerClass(String name, @Nullable String outerName, @Nullable String innerName, int access) {
+			try {
+				this.out.writeByte(INNER_CLASS);
+				this.out.writeUTF(name);
+				writeNullableString(this.out, outerName);
+				writeNullableString(this.out, innerName);
+				this.out.writeInt(access);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			super.visitInnerClass(name, outerName, innerName, access);
+		}
+
+		@Override
+		@Nullable
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			try {
+				this.out.writeByte(ANNOTATION);
+				this.out.writeUTF(desc);
+				this.out.writeBoolean(visible);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return new RecordingAnnotationVisitor(super.visitAnnotation(desc, visible), this.out);
+		}
+
+		@Override
+		@Nullable
+		public MethodVisitor visitMethod(int access, String name, String desc,
+				@Nullable String signature, @Nullable String[] exceptions) {
+
+			try {
+				this.out.writeByte(METHOD);
+				this.out.writeInt(access);
+				this.out.writeUTF(name);
+				this.out.writeUTF(desc);
+				writeNullableString(this.out, signature);
+				writeNullableStrings(this.out, exceptions);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return new RecordingMethodVisitor(super.visitMethod(access, name, desc, signature, exceptions), this.out);
+		}
+	}
+
+
+	/**
+	 * {@link MethodVisitor} that records method annotations before delegating.
+	 */
+	private static class RecordingMethodVisitor extends MethodVisitor {
+
+		private final DataOutputStream out;
+
+		RecordingMethodVisitor(@Nullable MethodVisitor visitor, DataOutputStream out) {
+			super(SpringAsmInfo.ASM_VERSION, visitor);
+			this.out = out;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			try {
+				this.out.writeByte(ANNOTATION);
+				this.out.writeUTF(desc);
+				this.out.writeBoolean(visible);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return new RecordingAnnotationVisitor(super.visitAnnotation(desc, visible), this.out);
+		}
+
+		@Override
+		public void visitEnd() {
+			try {
+				this.out.writeByte(END);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			super.visitEnd();
+		}
+	}
+
+
+	/**
+	 * {@link AnnotationVisitor} that records attribute values before delegating.
+	 */
+	private static class RecordingAnnotationVisitor extends AnnotationVisitor {
+
+		private final DataOutputStream out;
+
+		RecordingAnnotationVisitor(@Nullable AnnotationVisitor visitor, DataOutputStream out) {
+			super(SpringAsmInfo.ASM_VERSION, visitor);
+			this.out = out;
+		}
+
+		@Override
+		public void visit(@Nullable String name, Object value) {
+			try {
+				this.out.writeByte(VALUE);
+				writeNullableString(this.out, name);
+				writeValue(this.out, value);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			super.visit(name, value);
+		}
+
+		@Override
+		public void visitEnum(@Nullable String name, String desc, String value) {
+			try {
+				this.out.writeByte(ENUM);
+				writeNullableString(this.out, name);
+				this.out.writeUTF(desc);
+				this.out.writeUTF(value);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			super.visitEnum(name, desc, value);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(@Nullable String name, String desc) {
+			try {
+				this.out.writeByte(ANNOTATION);
+				writeNullableString(this.out, name);
+				this.out.writeUTF(desc);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return new RecordingAnnotationVisitor(super.visitAnnotation(name, desc), this.out);
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(@Nullable String name) {
+			try {
+				this.out.writeByte(ARRAY);
+				writeNullableString(this.out, name);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return new RecordingAnnotationVisitor(super.visitArray(name), this.out);
+		}
+
+		@Override
+		public void visitEnd() {
+			try {
+				this.out.writeByte(END);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			super.visitEnd();
+		}
+	}
+
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Cache for {@link MetadataReader MetadataReaders} that persists the metadata
+ * of class files to a file on disk, allowing subsequent runs to skip reading
+ * and parsing unchanged class files with ASM.
+ *
+ * <p>Entries are keyed by the URL of each class file resource and validated
+ * against its checksum: the CRC-32 recorded for jar entries, or the last-modified
+ * timestamp and length of class files in the file system. Class files that do
+ * not provide such information are always read from scratch.
+ *
+ * <p>The cache file only gets rewritten by {@link #store()} if class files had
+ * to be read from scratch, keeping just the entries that have been used since
+ * the cache was loaded. A corrupt or incompatible cache file is ignored.
+ *
+ * <p>A cache instance is typically {@linkplain CachingMetadataReaderFactory#setPersistentCache
+ * used through a CachingMetadataReaderFactory}, with its lifecycle managed by the
+ * component that owns it: e.g. an application context stores and releases its
+ * cache instances once per refresh.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ */
+public class PersistentMetadataReaderCache {
+
+	private static final int MAGIC = 0x53504d43;
+
+	private static final int VERSION = 1;
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataReaderCache.class);
+
+
+	private final File file;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>(256);
+
+	private final Object lifecycleMonitor = new Object();
+
+	private volatile boolean loaded;
+
+	private volatile boolean modified;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+
+	/**
+	 * Create a new PersistentMetadataReaderCache for the given file.
+	 * @param file the cache file, not necessarily existing yet
+	 */
+	public PersistentMetadataReaderCache(File file) {
+		Assert.notNull(file, "File must not be null");
+		this.file = file.getAbsoluteFile();
+	}
+
+
+	/**
+	 * Return the cache file.
+	 */
+	public final File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Return the number of metadata readers served from the cache.
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Return the number of metadata readers that required reading the class file.
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Obtain a MetadataReader for the given class file resource, from the cache
+	 * if its entry is still valid, or else reading the class file and caching
+	 * its metadata for the next {@link #store()}.
+	 * @param resource the resource (pointing to a ".class" file)
+	 * @param classLoader the ClassLoader to load annotation types with
+	 * @return a holder for the ClassReader instance (never {@code null})
+	 * @throws IOException in case of I/O failure
+	 */
+	public MetadataReader getMetadataReader(Resource resource, @Nullable ClassLoader classLoader) throws IOException {
+		loadIfNecessary();
+		Fingerprint fingerprint = Fingerprint.of(resource);
+		if (fingerprint == null) {
+			return new SimpleMetadataReader(resource, classLoader);
+		}
+
+		String key = resource.getURL().toString();
+		Entry entry = this.entries.get(key);
+		if (entry != null && entry.fingerprint.equals(fingerprint)) {
+			AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+			try {
+				MetadataRecording.replay(entry.recording, visitor);
+				entry.used = true;
+				this.hitCount.incrementAndGet();
+				return new SimpleMetadataReader(resource, visitor);
+			}
+			catch (IOException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring corrupt cache entry for " + resource, ex);
+				}
+			}
+		}
+
+		this.missCount.incrementAndGet();
+		ClassReader classReader = SimpleMetadataReader.getClassReader(resource);
+		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+		try {
+			Entry newEntry = new Entry(fingerprint, MetadataRecording.record(classReader, visitor));
+			newEntry.used = true;
+			this.entries.put(key, newEntry);
+			this.modified = true;
+		}
+		catch (IOException ex) {
+			// Metadata not recordable (e.g. excessively long attribute values) -> read without caching
+			visitor = new AnnotationMetadataReadingVisitor(classLoader);
+			classReader.accept(visitor, ClassReader.SKIP_DEBUG);
+		}
+		return new SimpleMetadataReader(resource, visitor);
+	}
+
+	/**
+	 * Write the cache file if any class files had to be read from scratch,
+	 * replacing the previous cache file atomically where supported.
+	 * @throws IOException in case of I/O failure
+	 */
+	public void store() throws IOException {
+		if (!this.modified) {
+			return;
+		}
+		synchronized (this.lifecycleMonitor) {
+			if (!this.modified) {
+				return;
+			}
+			this.modified = false;
+			List<Map.Entry<String, Entry>> usedEntries = new ArrayList<>(this.entries.size());
+			for (Map.Entry<String, Entry> entry : this.entries.entrySet()) {
+				if (entry.getValue().used) {
+					usedEntries.add(entry);
+				}
+			}
+			File directory = this.file.getParentFile();
+			if (directory != null) {
+				Files.createDirectories(directory.toPath());
+			}
+			File tempFile = File.createTempFile(this.file.getName(), ".tmp", directory);
+			try {
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					out.writeInt(usedEntries.size());
+					for (Map.Entry<String, Entry> entry : usedEntries) {
+						Fingerprint fingerprint = entry.getValue().fingerprint;
+						out.writeUTF(entry.getKey());
+						out.writeLong(fingerprint.lastModified);
+						out.writeLong(fingerprint.length);
+						out.writeLong(fingerprint.checksum);
+						out.writeInt(entry.getValue().recording.length);
+						out.write(entry.getValue().recording);
+					}
+				}
+				try {
+					Files.move(tempFile.toPath(), this.file.toPath(),
+							StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				}
+				catch (AtomicMoveNotSupportedException ex) {
+					Files.move(tempFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			catch (IOException ex) {
+				this.modified = true;
+				throw ex;
+			}
+			finally {
+				Files.deleteIfExists(tempFile.toPath());
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Stored metadata of " + usedEntries.size() + " classes in " + this.file);
+			}
+		}
+	}
+
+	private void loadIfNecessary() {
+		if (!this.loaded) {
+			synchronized (this.lifecycleMonitor) {
+				if (!this.loaded) {
+					load();
+					this.loaded = true;
+				}
+			}
+		}
+	}
+
+	private void load() {
+		if (!this.file.isFile()) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring incompatible metadata cache file " + this.file);
+				}
+				return;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				Fingerprint fingerprint = new Fingerprint(in.readLong(), in.readLong(), in.readLong());
+				byte[] recording = new byte[in.readInt()];
+				in.readFully(recording);
+				this.entries.put(key, new Entry(fingerprint, recording));
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded metadata of " + count + " classes from " + this.file);
+			}
+		}
+		catch (IOException | RuntimeException ex) {
+			this.entries.clear();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring unreadable metadata cache file " + this.file, ex);
+			}
+		}
+	}
+
+
+	/**
+	 * Identifies the content of a class file resource.
+	 */
+	private static final class Fingerprint {
+
+		private final long lastModified;
+
+		private final long length;
+
+		private final long checksum;
+
+		Fingerprint(long lastModified, long length, long checksum) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.checksum = checksum;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Fingerprint)) {
+				return false;
+			}
+			Fingerprint otherFingerprint = (Fingerprint) other;
+			return (this.lastModified == otherFingerprint.lastModified &&
+					this.length == otherFingerprint.length && this.checksum == otherFingerprint.checksum);
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(this.lastModified) * 31 + Long.hashCode(this.checksum);
+		}
+
+		/**
+		 * Determine the fingerprint of the given resource: the CRC-32 and size of
+		 * a jar entry, independent from the jar file's own timestamp, or else the
+		 * last-modified timestamp and length of the resource.
+		 * @return the fingerprint, or {@code null} if not determinable
+		 */
+		@Nullable
+		static Fingerprint of(Resource resource) {
+			try {
+				URL url = resource.getURL();
+				if (ResourceUtils.isJarURL(url)) {
+					URLConnection con = url.openConnection();
+					if (con instanceof JarURLConnection) {
+						ResourceUtils.useCachesIfNecessary(con);
+						JarEntry jarEntry = ((JarURLConnection) con).getJarEntry();
+						if (jarEntry != null && jarEntry.getCrc() != -1 && jarEntry.getSize() != -1) {
+							return new Fingerprint(0, jarEntry.getSize(), jarEntry.getCrc());
+						}
+					}
+					return null;
+				}
+				long lastModified = resource.lastModified();
+				return (lastModified > 0 ? new Fingerprint(lastModified, resource.contentLength(), -1) : null);
+			}
+			catch (IOException ex) {
+				return null;
+			}
+		}
+	}
+
+
+	/**
+	 * Cached metadata of a class file.
+	 */
+	private static final class Entry {
+
+		final Fingerprint fingerprint;
+
+		final byte[] recording;
+
+		volatile boolean used;
+
+		Entry(Fingerprint fingerprint, byte[] recording) {
+			this.fingerprint = fingerprint;
+			this.recording = recording;
+		}
+	}
+
+}
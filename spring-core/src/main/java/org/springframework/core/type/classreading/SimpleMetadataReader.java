@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -48,10 +48,34 @@ final class SimpleMetadataReader implements MetadataReader {
 
 
 	SimpleMetadataReader(Resource resource, @Nullable ClassLoader classLoader) throws IOException {
+		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+		getClassReader(resource).accept(visitor, ClassReader.SKIP_DEBUG);
+
+		this.annotationMetadata = visitor;
+		// (since AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisitor)
+		this.classMetadata = visitor;
+		this.resource = resource;
+	}
+
+	/**
+	 * Create a reader for metadata that has already been read into the given visitor.
+	 * @since 5.1.14
+	 */
+	SimpleMetadataReader(Resource resource, AnnotationMetadataReadingVisitor visitor) {
+		this.annotationMetadata = visitor;
+		this.classMetadata = visitor;
+		this.resource = resource;
+	}
+
+
+	/**
+	 * Create an ASM {@link ClassReader} for the given class file resource.
+	 * @since 5.1.14
+	 */
+	static ClassReader getClassReader(Resource resource) throws IOException {
 		InputStream is = new BufferedInputStream(resource.getInputStream());
-		ClassReader classReader;
 		try {
-			classReader = new ClassReader(is);
+			return new ClassReader(is);
 		}
 		catch (IllegalArgumentException ex) {
 			throw new NestedIOException("ASM ClassReader failed to parse class file - " +
@@ -60,14 +84,6 @@ final class SimpleMetadataReader implements MetadataReader {
 		finally {
 			is.close();
 		}
-
-		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
-		classReader.accept(visitor, ClassReader.SKIP_DEBUG);
-
-		this.annotationMetadata = visitor;
-		// (since AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisitor)
-		this.classMetadata = visitor;
-		this.resource = resource;
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -97,6 +97,12 @@ public class AntPathMatcher implements PathMatcher {
 
 	final Map<String, AntPathStringMatcher> stringMatcherCache = new ConcurrentHashMap<>(256);
 
+	@Nullable
+	private volatile ConcurrentLruCache<String, String[]> boundedTokenizedPatternCache;
+
+	@Nullable
+	private volatile ConcurrentLruCache<String, AntPathStringMatcher> boundedStringMatcherCache;
+
 
 	/**
 	 * Create a new instance with the {@link #DEFAULT_PATH_SEPARATOR}.
@@ -155,11 +161,60 @@ public class AntPathMatcher implements PathMatcher {
 	 * are coming in, with little chance for encountering a recurring pattern.
 	 * @since 4.0.1
 	 * @see #getStringMatcher(String)
+	 * @see #setPatternCacheLimit
 	 */
 	public void setCachePatterns(boolean cachePatterns) {
 		this.cachePatterns = cachePatterns;
 	}
 
+	/**
+	 * Specify a size limit for bounded caches of parsed pattern metadata,
+	 * replacing the default cache that is turned off completely once it
+	 * exceeds its threshold. With a bounded cache, the least recently used
+	 * patterns are evicted when the limit is reached, so that matching
+	 * degrades gracefully when a large number of distinct patterns is
+	 * encountered at runtime.
+	 * <p>Default is none, i.e. the cache behavior of {@link #setCachePatterns}.
+	 * An explicit {@code setCachePatterns(false)} turns off caching regardless
+	 * of this setting.
+	 * @param patternCacheLimit the maximum number of cached patterns,
+	 * for each of the tokenized pattern and pattern matcher caches
+	 * @since 5.1.14
+	 * @see #getPatternCacheHitCount()
+	 * @see #getPatternCacheMissCount()
+	 */
+	public void setPatternCacheLimit(int patternCacheLimit) {
+		this.boundedTokenizedPatternCache = new ConcurrentLruCache<>(patternCacheLimit, this::tokenizePath);
+		this.boundedStringMatcherCache = new ConcurrentLruCache<>(patternCacheLimit,
+				pattern -> new AntPathStringMatcher(pattern, this.caseSensitive));
+		this.tokenizedPatternCache.clear();
+		this.stringMatcherCache.clear();
+	}
+
+	/**
+	 * Return the number of pattern lookups served from the bounded caches
+	 * configured through {@link #setPatternCacheLimit}, or 0 if none.
+	 * @since 5.1.14
+	 */
+	public long getPatternCacheHitCount() {
+		ConcurrentLruCache<String, String[]> tokenizedCache = this.boundedTokenizedPatternCache;
+		ConcurrentLruCache<String, AntPathStringMatcher> matcherCache = this.boundedStringMatcherCache;
+		return (tokenizedCache != null && matcherCache != null ?
+				tokenizedCache.getHitCount() + matcherCache.getHitCount() : 0);
+	}
+
+	/**
+	 * Return the number of pattern lookups that missed the bounded caches
+	 * configured through {@link #setPatternCacheLimit}, or 0 if none.
+	 * @since 5.1.14
+	 */
+	public long getPatternCacheMissCount() {
+		ConcurrentLruCache<String, String[]> tokenizedCache = this.boundedTokenizedPatternCache;
+		ConcurrentLruCache<String, AntPathStringMatcher> matcherCache = this.boundedStringMatcherCache;
+		return (tokenizedCache != null && matcherCache != null ?
+				tokenizedCache.getMissCount() + matcherCache.getMissCount() : 0);
+	}
+
 	private void deactivatePatternCache() {
 		this.cachePatterns = false;
 		this.tokenizedPatternCache.clear();
@@ -395,6 +450,10 @@ public class AntPathMatcher implements PathMatcher {
 	protected String[] tokenizePattern(String pattern) {
 		String[] tokenized = null;
 		Boolean cachePatterns = this.cachePatterns;
+		ConcurrentLruCache<String, String[]> boundedCache = this.boundedTokenizedPatternCache;
+		if (boundedCache != null && (cachePatterns == null || cachePatterns.booleanValue())) {
+			return boundedCache.get(pattern);
+		}
 		if (cachePatterns == null || cachePatterns.booleanValue()) {
 			tokenized = this.tokenizedPatternCache.get(pattern);
 		}
@@ -447,10 +506,15 @@ public class AntPathMatcher implements PathMatcher {
 	 * @param pattern the pattern to match against (never {@code null})
 	 * @return a corresponding AntPathStringMatcher (never {@code null})
 	 * @see #setCachePatterns
+	 * @see #setPatternCacheLimit
 	 */
 	protected AntPathStringMatcher getStringMatcher(String pattern) {
 		AntPathStringMatcher matcher = null;
 		Boolean cachePatterns = this.cachePatterns;
+		ConcurrentLruCache<String, AntPathStringMatcher> boundedCache = this.boundedStringMatcherCache;
+		if (boundedCache != null && (cachePatterns == null || cachePatterns.booleanValue())) {
+			return boundedCache.get(pattern);
+		}
 		if (cachePatterns == null || cachePatterns.booleanValue()) {
 			matcher = this.stringMatcherCache.get(pattern);
 		}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Simple bounded cache that evicts approximately least recently used entries
+ * once its size limit has been reached, backed by a {@link ConcurrentHashMap}.
+ *
+ * <p>Eviction follows the CLOCK algorithm: each cache hit merely marks the
+ * entry as referenced, without any locking or reordering, and a cache miss
+ * on a full cache sweeps over the entries in insertion order, evicting the
+ * first entry that has not been referenced since the previous sweep. Reads
+ * are therefore as cheap as a {@code ConcurrentHashMap} lookup, while writes
+ * are serialized on an internal lock.
+ *
+ * <p>Hit, miss and eviction counts are maintained for monitoring purposes.
+ * Values are created through the generator function given at construction
+ * time; a generator may be invoked concurrently for the same key, in which
+ * case the first value to be added to the cache wins.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ * @param <K> the type of the key used for cache retrieval
+ * @param <V> the type of the cached values
+ */
+public class ConcurrentLruCache<K, V> {
+
+	private final int sizeLimit;
+
+	private final Function<K, V> generator;
+
+	private final ConcurrentHashMap<K, CacheEntry<K, V>> cache;
+
+	private final CacheEntry<?, ?>[] clock;
+
+	private final Object clockMonitor = new Object();
+
+	private int clockSize;
+
+	private int clockHand;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+
+	/**
+	 * Create a new cache instance with the given limit and generator function.
+	 * @param sizeLimit the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value)
+	 * @param generator a function to generate a new value for a given key
+	 */
+	public ConcurrentLruCache(int sizeLimit, Function<K, V> generator) {
+		Assert.isTrue(sizeLimit >= 0, "Cache size limit must not be negative");
+		Assert.notNull(generator, "Generator function must not be null");
+		this.sizeLimit = sizeLimit;
+		this.generator = generator;
+		this.cache = new ConcurrentHashMap<>(Math.min(sizeLimit, 256));
+		this.clock = new CacheEntry<?, ?>[sizeLimit];
+	}
+
+
+	/**
+	 * Retrieve an entry from the cache, potentially triggering generation
+	 * of the value.
+	 * @param key the key to retrieve the entry for
+	 * @return the cached or newly generated value
+	 */
+	public V get(K key) {
+		CacheEntry<K, V> entry = this.cache.get(key);
+		if (entry != null) {
+			this.hitCount.increment();
+			if (!entry.referenced) {
+				entry.referenced = true;
+			}
+			return entry.value;
+		}
+		this.missCount.increment();
+		V value = this.generator.apply(key);
+		Assert.state(value != null, "Generator function must not return null");
+		if (this.sizeLimit == 0) {
+			return value;
+		}
+		synchronized (this.clockMonitor) {
+			entry = this.cache.get(key);
+			if (entry != null) {
+				return entry.value;
+			}
+			entry = new CacheEntry<>(key, value);
+			if (this.clockSize < this.sizeLimit) {
+				this.clock[this.clockSize++] = entry;
+			}
+			else {
+				evictAndReplace(entry);
+			}
+			this.cache.put(key, entry);
+		}
+		return value;
+	}
+
+	private void evictAndReplace(CacheEntry<K, V> entry) {
+		CacheEntry<?, ?> candidate = this.clock[this.clockHand];
+		while (candidate.referenced) {
+			candidate.referenced = false;
+			this.clockHand = (this.clockHand + 1) % this.sizeLimit;
+			candidate = this.clock[this.clockHand];
+		}
+		this.cache.remove(candidate.key);
+		this.evictionCount.increment();
+		this.clock[this.clockHand] = entry;
+		this.clockHand = (this.clockHand + 1) % this.sizeLimit;
+	}
+
+	/**
+	 * Determine whether the given key is present in this cache.
+	 * @param key the key to check for
+	 * @return {@code true} if the key is present, {@code false} if there was no
+	 * matching key
+	 */
+	public boolean contains(K key) {
+		return this.cache.containsKey(key);
+	}
+
+	/**
+	 * Immediately remove the given key and any associated value.
+	 * @param key the key to evict the entry for
+	 * @return {@code true} if the key was present before,
+	 * {@code false} if there was no matching key
+	 */
+	public boolean remove(K key) {
+		synchronized (this.clockMonitor) {
+			CacheEntry<K, V> entry = this.cache.remove(key);
+			if (entry == null) {
+				return false;
+			}
+			for (int i = 0; i < this.clockSize; i++) {
+				if (this.clock[i] == entry) {
+					// Fill the gap with the last entry, keeping the clock compact
+					this.clockSize--;
+					this.clock[i] = this.clock[this.clockSize];
+					this.clock[this.clockSize] = null;
+					if (this.clockHand >= this.clockSize) {
+						this.clockHand = 0;
+					}
+					break;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Immediately remove all entries from this cache. Statistics are retained.
+	 */
+	public void clear() {
+		synchronized (this.clockMonitor) {
+			this.cache.clear();
+			for (int i = 0; i < this.clockSize; i++) {
+				this.clock[i] = null;
+			}
+			this.clockSize = 0;
+			this.clockHand = 0;
+		}
+	}
+
+	/**
+	 * Return the current size of the cache.
+	 * @see #sizeLimit()
+	 */
+	public int size() {
+		return this.cache.size();
+	}
+
+	/**
+	 * Return the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value).
+	 * @see #size()
+	 */
+	public int sizeLimit() {
+		return this.sizeLimit;
+	}
+
+	/**
+	 * Return the number of lookups that were served from the cache.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of lookups that required the generation of a value.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the number of entries evicted because of the size limit.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+	/**
+	 * Return the ratio of lookups that were served from the cache,
+	 * or {@code 0.0} if there were no lookups yet.
+	 */
+	public double getHitRatio() {
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return (total > 0 ? (double) hits / total : 0.0);
+	}
+
+	@Override
+	public String toString() {
+		return "ConcurrentLruCache: size=" + size() + ", sizeLimit=" + this.sizeLimit +
+				", hits=" + getHitCount() + ", misses=" + getMissCount() +
+				", evictions=" + getEvictionCount();
+	}
+
+
+	private static final class CacheEntry<K, V> {
+
+		final K key;
+
+		final V value;
+
+		volatile boolean referenced;
+
+		CacheEntry(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+}
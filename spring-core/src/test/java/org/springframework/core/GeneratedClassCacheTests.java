@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link GeneratedClassCache}.
+ *
+ * @author Spring Framework Team
+ */
+public class GeneratedClassCacheTests {
+
+	private final GeneratedClassCache<String, String> cache = new GeneratedClassCache<>();
+
+	private final AtomicInteger generationCount = new AtomicInteger();
+
+
+	@Test
+	public void generateOnce() {
+		assertNull(this.cache.get(GeneratedClassCacheTests.class, "foo"));
+		assertEquals("foo:GeneratedClassCacheTests", obtain(GeneratedClassCacheTests.class, "foo"));
+		assertEquals("foo:GeneratedClassCacheTests", obtain(GeneratedClassCacheTests.class, "foo"));
+		assertEquals("foo:GeneratedClassCacheTests", this.cache.get(GeneratedClassCacheTests.class, "foo"));
+		assertEquals(1, this.generationCount.get());
+	}
+
+	@Test
+	public void generateOnceConcurrently() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			CountDownLatch latch = new CountDownLatch(4);
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(executor.submit(() -> {
+					latch.countDown();
+					latch.await(10, TimeUnit.SECONDS);
+					return obtain(GeneratedClassCacheTests.class, "foo");
+				}));
+			}
+			for (Future<String> result : results) {
+				assertEquals("foo:GeneratedClassCacheTests", result.get(10, TimeUnit.SECONDS));
+			}
+			assertEquals(1, this.generationCount.get());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void notGeneratable() {
+		assertNull(this.cache.obtain(GeneratedClassCacheTests.class, "foo", ownerClass -> null, this::generate));
+		assertNull(this.cache.obtain(GeneratedClassCacheTests.class, "foo", ownerClass -> ownerClass, this::generate));
+		assertNull(this.cache.get(GeneratedClassCacheTests.class, "foo"));
+		assertEquals(0, this.generationCount.get());
+
+		assertNull(this.cache.obtain(GeneratedClassCacheTests.class, "bar", ownerClass -> ownerClass, (key, definingClass) -> {
+			this.generationCount.incrementAndGet();
+			return null;
+		}));
+		assertNull(this.cache.obtain(GeneratedClassCacheTests.class, "bar", ownerClass -> ownerClass, this::generate));
+		assertEquals(1, this.generationCount.get());
+	}
+
+	@Test
+	public void generateAlongsideOtherClass() {
+		assertEquals("foo:GeneratedClassCache", this.cache.obtain(
+				String.class, "foo", ownerClass -> GeneratedClassCache.class, this::generate));
+		assertEquals("foo:GeneratedClassCache", this.cache.obtain(
+				String.class, "foo", ownerClass -> GeneratedClassCache.class, this::generate));
+		assertEquals("foo:GeneratedClassCache", this.cache.get(String.class, "foo"));
+		assertNull(this.cache.get(GeneratedClassCache.class, "bar"));
+		assertEquals(1, this.generationCount.get());
+	}
+
+
+	private String obtain(Class<?> ownerClass, String key) {
+		return this.cache.obtain(ownerClass, key, definingClass -> definingClass, this::generate);
+	}
+
+	private String generate(String key, Class<?> definingClass) {
+		this.generationCount.incrementAndGet();
+		return key + ":" + definingClass.getSimpleName();
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -87,6 +87,22 @@ public class ResourceRegionEncoderTests  {
 				.verify();
 	}
 
+	@Test
+	public void shouldEncodeResourceRegionMappedFileResource() throws Exception {
+		this.encoder.setMappedRegionSize(1024);
+		ResourceRegion region = new ResourceRegion(
+				new ClassPathResource("ResourceRegionEncoderTests.txt", getClass()), 7, 9);
+		Flux<DataBuffer> result = this.encoder.encode(Mono.just(region), this.bufferFactory,
+				ResolvableType.forClass(ResourceRegion.class),
+				MimeTypeUtils.APPLICATION_OCTET_STREAM,
+				Collections.emptyMap());
+
+		StepVerifier.create(result)
+				.consumeNextWith(stringConsumer("Framework"))
+				.expectComplete()
+				.verify();
+	}
+
 	@Test
 	public void shouldEncodeMultipleResourceRegionsFileResource() {
 		Resource resource = new ClassPathResource("ResourceRegionEncoderTests.txt", getClass());
@@ -127,6 +127,37 @@ public class StringDecoderTests extends AbstractDecoderTestCase<StringDecoder> {
 				.verify());
 	}
 
+	@Test
+	public void decodeNewLineAcrossWords() {
+		StringBuilder builder = new StringBuilder();
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			String line = String.join("", Collections.nCopies(i, "x"));
+			builder.append(line).append(i % 2 == 0 ? "\n" : "\r\n");
+			expected.add(line);
+		}
+		Flux<DataBuffer> input = Flux.just(stringBuffer(builder.toString()));
+
+		testDecode(input, String.class, step -> step
+				.expectNextSequence(expected)
+				.expectComplete()
+				.verify());
+	}
+
+	@Test
+	public void decodeManyDelimiters() {
+		this.decoder = StringDecoder.allMimeTypes(Arrays.asList("--", "a", "b", "c", "d", "e"), false);
+		Flux<DataBuffer> input = Flux.just(stringBuffer("xyz--xyzxyzxyzbxyzexyz-xyz"));
+
+		testDecode(input, String.class, step -> step
+				.expectNext("xyz--")
+				.expectNext("xyzxyzxyzb")
+				.expectNext("xyze")
+				.expectNext("xyz-xyz")
+				.expectComplete()
+				.verify());
+	}
+
 	@Test
 	public void maxInMemoryLimit() {
 		Flux<DataBuffer> input = Flux.just(
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -640,6 +641,92 @@ public class GenericConversionServiceTests {
 				conversionService.convert("test", TypeDescriptor.valueOf(String.class), new TypeDescriptor(getClass().getField("integerCollection"))));
 	}
 
+	@Test
+	public void directDispatchForPlainClasses() {
+		MyConditionalConverter converter = new MyConditionalConverter();
+		conversionService.addConverter(new ColorConverter());
+		conversionService.addConverter(converter);
+		assertEquals(Color.BLACK, conversionService.convert("#000000", Color.class));
+		assertEquals(Color.BLACK, conversionService.convert("#000000", Color.class));
+		assertEquals(Color.BLACK, conversionService.convert("#000000",
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Color.class)));
+		assertTrue(conversionService.canConvert(String.class, Color.class));
+		assertEquals(1, converter.getMatchAttempts());
+
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", int.class));
+		assertEquals(Long.valueOf(3), conversionService.convert("3", long.class));
+		assertEquals(Integer.valueOf(3), conversionService.convert(3, Integer.class));
+		assertEquals(Color.BLACK, conversionService.convert("#000000", Color.class));
+		assertEquals(2, converter.getMatchAttempts());
+	}
+
+	@Test
+	public void directDispatchInvalidatedOnRegistration() {
+		assertFalse(conversionService.canConvert(String.class, Integer.class));
+		try {
+			conversionService.convert("3", Integer.class);
+			fail("Should have thrown ConverterNotFoundException");
+		}
+		catch (ConverterNotFoundException ex) {
+			// expected
+		}
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		assertTrue(conversionService.canConvert(String.class, Integer.class));
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+		conversionService.removeConvertible(String.class, Number.class);
+		assertFalse(conversionService.canConvert(String.class, Integer.class));
+	}
+
+	@Test
+	public void directDispatchBypassedForAnnotatedTargetType() throws Exception {
+		conversionService.addConverter(new ColorConverter());
+		conversionService.addConverter(new MyConditionalColorConverter());
+		assertEquals(Color.BLACK, conversionService.convert("#000000", Color.class));
+		assertEquals(Color.BLACK, conversionService.convert("000000xxxx",
+				new TypeDescriptor(getClass().getField("activeColor"))));
+	}
+
+	@Test
+	public void directDispatchBypassedForOverriddenTypeDescriptorVariants() {
+		List<TypeDescriptor> targetTypes = new ArrayList<>();
+		GenericConversionService conversionService = new GenericConversionService() {
+			@Override
+			public boolean canConvert(@Nullable TypeDescriptor sourceType, TypeDescriptor targetType) {
+				targetTypes.add(targetType);
+				return super.canConvert(sourceType, targetType);
+			}
+			@Override
+			public Object convert(@Nullable Object source, @Nullable TypeDescriptor sourceType, TypeDescriptor targetType) {
+				targetTypes.add(targetType);
+				return super.convert(source, sourceType, targetType);
+			}
+		};
+		conversionService.addConverter(new ColorConverter());
+		assertTrue(conversionService.canConvert(String.class, Color.class));
+		assertEquals(Color.BLACK, conversionService.convert("#000000", Color.class));
+		assertEquals(Arrays.asList(TypeDescriptor.valueOf(Color.class), TypeDescriptor.valueOf(Color.class)), targetTypes);
+	}
+
+	@Test
+	public void directDispatchBypassedForOverriddenGetConverter() {
+		AtomicInteger lookups = new AtomicInteger();
+		GenericConversionService conversionService = new GenericConversionService() {
+			@Override
+			protected GenericConverter getConverter(TypeDescriptor sourceType, TypeDescriptor targetType) {
+				lookups.incrementAndGet();
+				return super.getConverter(sourceType, targetType);
+			}
+		};
+		conversionService.addConverter(new ColorConverter());
+		assertTrue(conversionService.canConvert(String.class, Color.class));
+		assertEquals(Color.BLACK, conversionService.convert("#000000", Color.class));
+		assertEquals(Color.BLACK, conversionService.convert("#000000",
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Color.class)));
+		assertEquals(3, lookups.get());
+	}
+
 
 	@ExampleAnnotation(active = true)
 	public String annotatedString;
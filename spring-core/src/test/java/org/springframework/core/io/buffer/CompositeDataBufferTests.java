@@ -0,0 +1,232 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.io.buffer.support.DataBufferTestUtils;
+import org.springframework.util.StreamUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CompositeDataBuffer}.
+ *
+ * @author Spring Framework Team
+ */
+public class CompositeDataBufferTests {
+
+	private final PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory(false);
+
+
+	@Test
+	public void read() {
+		CompositeDataBuffer composite = composite("foo", "", "bar", "baz");
+		assertEquals(9, composite.readableByteCount());
+		assertEquals(9, composite.capacity());
+		assertEquals(0, composite.writableByteCount());
+		assertEquals('b', composite.getByte(3));
+		assertEquals('f', composite.read());
+
+		byte[] result = new byte[6];
+		composite.read(result);
+		assertArrayEquals("oobarb".getBytes(StandardCharsets.UTF_8), result);
+		assertEquals(4, composite.getComponentCount());
+		assertEquals("az", DataBufferTestUtils.dumpString(composite, StandardCharsets.UTF_8));
+		assertTrue(composite.release());
+	}
+
+	@Test
+	public void indexOf() {
+		CompositeDataBuffer composite = composite("foo", "bar", "baz");
+		assertEquals(3, composite.indexOf(b -> b == 'b', 0));
+		assertEquals(6, composite.indexOf(b -> b == 'b', 4));
+		assertEquals(-1, composite.indexOf(b -> b == 'x', 0));
+		assertEquals(7, composite.lastIndexOf(b -> b == 'a', 8));
+		assertEquals(4, composite.lastIndexOf(b -> b == 'a', 6));
+		assertEquals(-1, composite.lastIndexOf(b -> b == 'f', -1));
+		assertEquals(3, composite.getComponentCount());
+		composite.release();
+	}
+
+	@Test
+	public void asByteBufferWithinComponent() {
+		CompositeDataBuffer composite = composite("foo", "bar");
+		ByteBuffer byteBuffer = composite.asByteBuffer(4, 2);
+		assertEquals("ar", StandardCharsets.UTF_8.decode(byteBuffer).toString());
+		assertEquals(2, composite.getComponentCount());
+		composite.release();
+	}
+
+	@Test
+	public void asByteBufferWithZeroLength() {
+		CompositeDataBuffer composite = composite("foo", "bar");
+		composite.read(new byte[6]);
+		assertEquals(0, composite.asByteBuffer().remaining());
+		assertEquals(0, composite.asByteBuffer(2, 0).remaining());
+		assertEquals(2, composite.getComponentCount());
+		composite.release();
+	}
+
+	@Test
+	public void asByteBufferAcrossComponentsConsolidates() {
+		DataBuffer foo = stringBuffer("foo");
+		DataBuffer bar = stringBuffer("bar");
+		CompositeDataBuffer composite = new CompositeDataBuffer(this.bufferFactory, Arrays.asList(foo, bar));
+		composite.read();
+
+		ByteBuffer byteBuffer = composite.asByteBuffer();
+		assertEquals("oobar", StandardCharsets.UTF_8.decode(byteBuffer).toString());
+		assertEquals(1, composite.getComponentCount());
+		assertFalse(((PooledDataBuffer) foo).isAllocated());
+		assertFalse(((PooledDataBuffer) bar).isAllocated());
+		assertEquals(1, composite.readPosition());
+		assertTrue(composite.release());
+	}
+
+	@Test
+	public void decode() {
+		CompositeDataBuffer composite = composite("foo", "", "bar", "baz");
+		composite.read();
+		assertEquals("oobarbaz", composite.decode(StandardCharsets.UTF_8).toString());
+		assertEquals(1, composite.readPosition());
+		assertEquals(4, composite.getComponentCount());
+		composite.release();
+	}
+
+	@Test
+	public void decodeCharactersSpanningComponents() {
+		String value = "a\u00e9b\u20acc\ud83d\ude00d";
+		for (Charset charset : Arrays.asList(StandardCharsets.UTF_8, StandardCharsets.UTF_16)) {
+			byte[] bytes = value.getBytes(charset);
+			List<DataBuffer> buffers = new ArrayList<>();
+			for (byte b : bytes) {
+				buffers.add(bytesBuffer(new byte[] {b}));
+			}
+			CompositeDataBuffer composite = new CompositeDataBuffer(this.bufferFactory, buffers);
+			assertEquals(value, composite.decode(charset).toString());
+			assertEquals(bytes.length, composite.getComponentCount());
+			composite.release();
+		}
+	}
+
+	@Test
+	public void decodeMalformedInput() {
+		byte[] euro = "\u20ac".getBytes(StandardCharsets.UTF_8);
+		DataBuffer first = bytesBuffer(new byte[] {'a', euro[0]});
+		DataBuffer second = bytesBuffer(new byte[] {euro[1], 'b'});
+		CompositeDataBuffer composite = new CompositeDataBuffer(this.bufferFactory, Arrays.asList(first, second));
+		byte[] all = {'a', euro[0], euro[1], 'b'};
+		assertEquals(StandardCharsets.UTF_8.decode(ByteBuffer.wrap(all)).toString(),
+				composite.decode(StandardCharsets.UTF_8).toString());
+		composite.release();
+	}
+
+	@Test
+	public void writeConsolidates() {
+		CompositeDataBuffer composite = composite("foo", "bar");
+		composite.write((byte) 'b');
+		composite.write("az".getBytes(StandardCharsets.UTF_8));
+		assertEquals(1, composite.getComponentCount());
+		assertEquals("foobarbaz", DataBufferTestUtils.dumpString(composite, StandardCharsets.UTF_8));
+		assertTrue(composite.release());
+	}
+
+	@Test
+	public void inputStream() throws IOException {
+		DataBuffer foo = stringBuffer("foo");
+		DataBuffer bar = stringBuffer("bar");
+		CompositeDataBuffer composite = new CompositeDataBuffer(this.bufferFactory, Arrays.asList(foo, bar));
+
+		InputStream inputStream = composite.asInputStream(true);
+		assertEquals(6, inputStream.available());
+		assertEquals("foobar", StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8));
+		assertEquals(-1, inputStream.read());
+		assertEquals(2, composite.getComponentCount());
+		inputStream.close();
+		assertFalse(composite.isAllocated());
+		assertFalse(((PooledDataBuffer) foo).isAllocated());
+		assertFalse(((PooledDataBuffer) bar).isAllocated());
+	}
+
+	@Test
+	public void releaseComponents() {
+		DataBuffer foo = stringBuffer("foo");
+		DataBuffer bar = stringBuffer("bar");
+		CompositeDataBuffer composite = new CompositeDataBuffer(this.bufferFactory, Arrays.asList(foo, bar));
+
+		composite.retain();
+		assertFalse(composite.release());
+		assertTrue(((PooledDataBuffer) foo).isAllocated());
+		assertTrue(composite.release());
+		assertFalse(((PooledDataBuffer) foo).isAllocated());
+		assertFalse(((PooledDataBuffer) bar).isAllocated());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void readPositionOutOfBounds() {
+		CompositeDataBuffer composite = composite("foo", "bar");
+		try {
+			composite.readPosition(7);
+		}
+		finally {
+			composite.release();
+		}
+	}
+
+	@Test
+	public void join() {
+		Flux<DataBuffer> flux = Flux.just(stringBuffer("foo"), stringBuffer("bar"), stringBuffer("baz"));
+		DataBuffer result = DataBufferUtils.join(flux).block();
+		assertTrue(result instanceof CompositeDataBuffer);
+		assertEquals("foobarbaz", DataBufferTestUtils.dumpString(result, StandardCharsets.UTF_8));
+		assertTrue(DataBufferUtils.release(result));
+	}
+
+
+	private CompositeDataBuffer composite(String... values) {
+		DataBuffer[] buffers = new DataBuffer[values.length];
+		for (int i = 0; i < values.length; i++) {
+			buffers[i] = stringBuffer(values[i]);
+		}
+		return new CompositeDataBuffer(this.bufferFactory, Arrays.asList(buffers));
+	}
+
+	private DataBuffer stringBuffer(String value) {
+		return bytesBuffer(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private DataBuffer bytesBuffer(byte[] bytes) {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(bytes.length + 2);
+		// Leading byte to verify that component read positions are honored
+		buffer.write((byte) '-');
+		buffer.write(bytes);
+		buffer.read();
+		return buffer;
+	}
+
+}
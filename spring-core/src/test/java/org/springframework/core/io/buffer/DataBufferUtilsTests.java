@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -49,6 +49,8 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.buffer.support.DataBufferTestUtils;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.anyLong;
@@ -203,6 +205,92 @@ public class DataBufferUtilsTests extends AbstractDataBufferAllocatingTestCase {
 		subscriber.cancel();
 	}
 
+	@Test
+	public void readMappedFileChannel() throws Exception {
+		URI uri = this.resource.getURI();
+		Flux<DataBuffer> flux = DataBufferUtils.readMappedFileChannel(
+				() -> FileChannel.open(Paths.get(uri), StandardOpenOption.READ),
+				0, this.bufferFactory, 3);
+
+		verifyReadData(flux);
+	}
+
+	@Test
+	public void readMappedFileChannelPosition() throws Exception {
+		URI uri = this.resource.getURI();
+		Flux<DataBuffer> flux = DataBufferUtils.readMappedFileChannel(
+				() -> FileChannel.open(Paths.get(uri), StandardOpenOption.READ),
+				7, this.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("azq"))
+				.consumeNextWith(stringConsumer("ux"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void readMappedFileChannelUnmapsOnRelease() throws Exception {
+		URI uri = this.resource.getURI();
+		Flux<DataBuffer> flux = DataBufferUtils.readMappedFileChannel(
+				() -> FileChannel.open(Paths.get(uri), StandardOpenOption.READ),
+				0, this.bufferFactory, 6);
+
+		DataBuffer buffer = flux.blockFirst(Duration.ofSeconds(5));
+		assertTrue(buffer instanceof PooledDataBuffer);
+		DataBuffer slice = buffer.slice(3, 3);
+		assertEquals("bar", DataBufferTestUtils.dumpString(slice, StandardCharsets.UTF_8));
+
+		DataBufferUtils.retain(slice);
+		assertFalse(DataBufferUtils.release(buffer));
+		assertTrue(((PooledDataBuffer) buffer).isAllocated());
+		assertTrue(DataBufferUtils.release(slice));
+		assertFalse(((PooledDataBuffer) buffer).isAllocated());
+		assertEquals(0, buffer.readableByteCount());
+	}
+
+	@Test
+	public void readMappedFileChannelNestedSliceRetainsRegion() throws Exception {
+		URI uri = this.resource.getURI();
+		Flux<DataBuffer> flux = DataBufferUtils.readMappedFileChannel(
+				() -> FileChannel.open(Paths.get(uri), StandardOpenOption.READ),
+				0, this.bufferFactory, 6);
+
+		DataBuffer buffer = flux.blockFirst(Duration.ofSeconds(5));
+		DataBuffer slice = buffer.slice(1, 5).slice(2, 3);
+		assertTrue(slice instanceof PooledDataBuffer);
+
+		DataBufferUtils.retain(slice);
+		assertFalse(DataBufferUtils.release(buffer));
+		assertTrue(((PooledDataBuffer) slice).isAllocated());
+		assertEquals("bar", DataBufferTestUtils.dumpString(slice, StandardCharsets.UTF_8));
+		assertTrue(DataBufferUtils.release(slice));
+		assertFalse(((PooledDataBuffer) buffer).isAllocated());
+	}
+
+	@Test
+	public void readMappedResourcePositionAndTakeUntil() throws Exception {
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(this.resource, 3, this.bufferFactory, 3, 1024);
+
+		flux = DataBufferUtils.takeUntilByteCount(flux, 5);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("barba"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void readMappedByteArrayResource() throws Exception {
+		Resource resource = new ByteArrayResource("foobarbazqux".getBytes());
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(resource, 9, this.bufferFactory, 3, 1024);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("qux"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
 	@Test
 	public void readResource() throws Exception {
 		Flux<DataBuffer> flux = DataBufferUtils.read(this.resource, this.bufferFactory, 3);
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.springframework.core.io.buffer.support.DataBufferTestUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PooledDataBufferFactory}.
+ *
+ * @author Spring Framework Team
+ */
+public class PooledDataBufferFactoryTests {
+
+	private final PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory(false, 256, 4096);
+
+
+	@Test
+	public void exactCapacity() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(300);
+		assertEquals(300, buffer.capacity());
+		assertEquals(0, buffer.readableByteCount());
+		assertEquals(300, buffer.writableByteCount());
+		DataBufferUtils.release(buffer);
+	}
+
+	@Test
+	public void memoryRecycledAfterRelease() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(300);
+		byte[] memory = buffer.getNativeBuffer().array();
+		assertEquals(512, memory.length);
+		DataBufferUtils.release(buffer);
+		assertEquals(0, buffer.capacity());
+
+		DefaultDataBuffer recycled = this.bufferFactory.allocateBuffer(400);
+		assertSame(memory, recycled.getNativeBuffer().array());
+		assertEquals(400, recycled.capacity());
+		DataBufferUtils.release(recycled);
+	}
+
+	@Test
+	public void largeBufferNotPooled() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(5000);
+		byte[] memory = buffer.getNativeBuffer().array();
+		assertEquals(5000, memory.length);
+		DataBufferUtils.release(buffer);
+
+		DefaultDataBuffer other = this.bufferFactory.allocateBuffer(5000);
+		assertNotSame(memory, other.getNativeBuffer().array());
+		DataBufferUtils.release(other);
+	}
+
+	@Test
+	public void capacityIncreaseRecyclesMemory() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		byte[] memory = buffer.getNativeBuffer().array();
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		buffer.capacity(1000);
+		assertEquals(1000, buffer.capacity());
+		assertEquals("foo", DataBufferTestUtils.dumpString(buffer, StandardCharsets.UTF_8));
+		assertNotSame(memory, buffer.getNativeBuffer().array());
+
+		DefaultDataBuffer other = this.bufferFactory.allocateBuffer(10);
+		assertSame(memory, other.getNativeBuffer().array());
+		DataBufferUtils.release(other);
+		DataBufferUtils.release(buffer);
+	}
+
+	@Test
+	public void sliceSharesReferenceCount() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foobar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(3, 3);
+		assertTrue(slice instanceof PooledDataBuffer);
+		assertEquals("bar", DataBufferTestUtils.dumpString(slice, StandardCharsets.UTF_8));
+
+		DataBufferUtils.retain(slice);
+		assertFalse(DataBufferUtils.release(buffer));
+		assertTrue(((PooledDataBuffer) buffer).isAllocated());
+		assertTrue(DataBufferUtils.release(slice));
+		assertFalse(((PooledDataBuffer) slice).isAllocated());
+		assertFalse(((PooledDataBuffer) buffer).isAllocated());
+	}
+
+	@Test
+	public void nestedSliceSharesReferenceCount() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(20);
+		buffer.write("hello world".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(0, 11).slice(6, 5);
+		assertTrue(slice instanceof PooledDataBuffer);
+
+		DataBufferUtils.retain(slice);
+		assertFalse(DataBufferUtils.release(buffer));
+		DefaultDataBuffer other = this.bufferFactory.allocateBuffer(20);
+		other.write("00000000000".getBytes(StandardCharsets.UTF_8));
+		assertEquals("world", DataBufferTestUtils.dumpString(slice, StandardCharsets.UTF_8));
+		assertTrue(DataBufferUtils.release(slice));
+		assertFalse(((PooledDataBuffer) buffer).isAllocated());
+		DataBufferUtils.release(other);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void writeAfterRelease() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(1);
+		DataBufferUtils.release(buffer);
+		buffer.write((byte) 'a');
+	}
+
+	@Test
+	public void joinReleasesPooledBuffers() {
+		DefaultDataBuffer foo = this.bufferFactory.allocateBuffer(3);
+		foo.write("foo".getBytes(StandardCharsets.UTF_8));
+		DefaultDataBuffer bar = this.bufferFactory.allocateBuffer(3);
+		bar.write("bar".getBytes(StandardCharsets.UTF_8));
+
+		DataBuffer result = this.bufferFactory.join(Arrays.asList(foo, bar));
+		assertEquals("foobar", DataBufferTestUtils.dumpString(result, StandardCharsets.UTF_8));
+		assertFalse(((PooledDataBuffer) foo).isAllocated());
+		assertFalse(((PooledDataBuffer) bar).isAllocated());
+		assertTrue(DataBufferUtils.release(result));
+	}
+
+	@Test
+	public void wrapNotPooled() {
+		DataBuffer buffer = this.bufferFactory.wrap(ByteBuffer.wrap(new byte[] {'a'}));
+		assertFalse(buffer instanceof PooledDataBuffer);
+	}
+
+	@Test
+	public void disposeReleasesPooledMemory() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(300);
+		byte[] memory = buffer.getNativeBuffer().array();
+		DataBufferUtils.release(buffer);
+		assertFalse(this.bufferFactory.isDisposed());
+		this.bufferFactory.dispose();
+		assertTrue(this.bufferFactory.isDisposed());
+
+		DefaultDataBuffer other = this.bufferFactory.allocateBuffer(300);
+		byte[] otherMemory = other.getNativeBuffer().array();
+		assertNotSame(memory, otherMemory);
+		DataBufferUtils.release(other);
+
+		DefaultDataBuffer unpooled = this.bufferFactory.allocateBuffer(300);
+		assertNotSame(otherMemory, unpooled.getNativeBuffer().array());
+		DataBufferUtils.release(unpooled);
+	}
+
+	@Test
+	public void leakDetectionIntervalDefault() {
+		assertEquals(PooledDataBufferFactory.DEFAULT_LEAK_DETECTION_INTERVAL,
+				this.bufferFactory.getLeakDetectionInterval());
+		assertEquals(4096, this.bufferFactory.getMaxPooledCapacity());
+	}
+
+}
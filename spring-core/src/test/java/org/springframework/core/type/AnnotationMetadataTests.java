@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.core.type;
 
+import java.io.File;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Documented;
@@ -29,12 +30,16 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import org.springframework.core.annotation.AliasFor;
 import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.io.Resource;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentMetadataReaderCache;
 import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.stereotype.Component;
 
@@ -52,6 +57,10 @@ import static org.junit.Assert.*;
  */
 public class AnnotationMetadataTests {
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
 	@Test
 	public void standardAnnotationMetadata() {
 		AnnotationMetadata metadata = new StandardAnnotationMetadata(AnnotatedComponent.class, true);
@@ -68,6 +77,22 @@ public class AnnotationMetadataTests {
 		doTestMethodAnnotationInfo(metadata);
 	}
 
+	@Test
+	public void persistentCacheAnnotationMetadata() throws Exception {
+		File cacheFile = this.temporaryFolder.newFile();
+		MetadataReaderFactory metadataReaderFactory = new SimpleMetadataReaderFactory();
+		Resource resource = metadataReaderFactory.getMetadataReader(AnnotatedComponent.class.getName()).getResource();
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(cacheFile);
+		cache.getMetadataReader(resource, getClass().getClassLoader());
+		cache.store();
+
+		cache = new PersistentMetadataReaderCache(cacheFile);
+		AnnotationMetadata metadata = cache.getMetadataReader(resource, getClass().getClassLoader()).getAnnotationMetadata();
+		assertThat(cache.getHitCount(), is(1L));
+		doTestAnnotationInfo(metadata);
+		doTestMethodAnnotationInfo(metadata);
+	}
+
 	@Test
 	public void standardAnnotationMetadataForSubclass() {
 		AnnotationMetadata metadata = new StandardAnnotationMetadata(AnnotatedComponentSubClass.class, true);
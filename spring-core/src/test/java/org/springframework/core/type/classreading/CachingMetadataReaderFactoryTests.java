@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.FileNotFoundException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ConcurrentLruCache;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CachingMetadataReaderFactory}, in particular its
+ * cache shared per ClassLoader.
+ *
+ * @author Spring Framework Team
+ */
+public class CachingMetadataReaderFactoryTests {
+
+	private final ClassLoader classLoader = getClass().getClassLoader();
+
+
+	@Before
+	public void clearSharedCache() {
+		CachingMetadataReaderFactory.clearSharedCache();
+	}
+
+
+	@Test
+	public void sharedBetweenFactories() throws Exception {
+		CachingMetadataReaderFactory factory1 = new CachingMetadataReaderFactory(this.classLoader);
+		CachingMetadataReaderFactory factory2 = new CachingMetadataReaderFactory(this.classLoader);
+		ConcurrentLruCache<Resource, MetadataReader> sharedCache = factory1.getSharedCache();
+		assertSame(sharedCache, factory2.getSharedCache());
+		long misses = sharedCache.getMissCount();
+		long hits = sharedCache.getHitCount();
+		MetadataReader reader1 = factory1.getMetadataReader(getClass().getName());
+		MetadataReader reader2 = factory2.getMetadataReader(getClass().getName());
+		assertSame(reader1, reader2);
+		assertEquals(misses + 1, sharedCache.getMissCount());
+		assertEquals(hits + 1, sharedCache.getHitCount());
+	}
+
+	@Test
+	public void sharedBetweenFactoriesWithResourceLoaderCache() throws Exception {
+		DefaultResourceLoader resourceLoader = new DefaultResourceLoader(this.classLoader);
+		CachingMetadataReaderFactory factory1 = new CachingMetadataReaderFactory(resourceLoader);
+		CachingMetadataReaderFactory factory2 = new CachingMetadataReaderFactory(this.classLoader);
+		MetadataReader reader1 = factory1.getMetadataReader(getClass().getName());
+		MetadataReader reader2 = factory2.getMetadataReader(getClass().getName());
+		assertSame(reader1, reader2);
+	}
+
+	@Test
+	public void separateForDifferentClassLoaders() throws Exception {
+		try (URLClassLoader otherClassLoader = new URLClassLoader(new URL[0], this.classLoader)) {
+			CachingMetadataReaderFactory factory1 = new CachingMetadataReaderFactory(this.classLoader);
+			CachingMetadataReaderFactory factory2 = new CachingMetadataReaderFactory(otherClassLoader);
+			assertNotSame(factory1.getSharedCache(), factory2.getSharedCache());
+			MetadataReader reader1 = factory1.getMetadataReader(getClass().getName());
+			MetadataReader reader2 = factory2.getMetadataReader(getClass().getName());
+			assertNotSame(reader1, reader2);
+			assertEquals(getClass().getName(), reader2.getClassMetadata().getClassName());
+		}
+	}
+
+	@Test
+	public void classLoaderNotPinned() throws Exception {
+		URLClassLoader otherClassLoader = new URLClassLoader(new URL[0], this.classLoader);
+		new CachingMetadataReaderFactory(otherClassLoader).getMetadataReader(getClass().getName());
+		WeakReference<ClassLoader> ref = new WeakReference<>(otherClassLoader);
+		otherClassLoader.close();
+		otherClassLoader = null;
+		for (int i = 0; i < 50 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(ref.get());
+	}
+
+	@Test
+	public void releasedOnClear() throws Exception {
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory(this.classLoader);
+		MetadataReader reader1 = factory.getMetadataReader(getClass().getName());
+		assertTrue(factory.getSharedCache().size() > 0);
+		CachingMetadataReaderFactory.clearSharedCache(this.classLoader);
+		assertEquals(0, factory.getSharedCache().size());
+		MetadataReader reader2 = new CachingMetadataReaderFactory(this.classLoader).getMetadataReader(getClass().getName());
+		assertNotSame(reader1, reader2);
+	}
+
+	@Test
+	public void evictedOnClearCache() throws Exception {
+		CachingMetadataReaderFactory factory1 = new CachingMetadataReaderFactory(this.classLoader);
+		CachingMetadataReaderFactory factory2 = new CachingMetadataReaderFactory(this.classLoader);
+		MetadataReader reader1 = factory1.getMetadataReader(getClass().getName());
+		factory2.getMetadataReader(Inner.class.getName());
+		assertEquals(2, factory1.getSharedCache().size());
+		factory1.clearCache();
+		assertEquals(1, factory1.getSharedCache().size());
+		assertNotSame(reader1, factory1.getMetadataReader(getClass().getName()));
+	}
+
+	@Test
+	public void bypassedWithoutLocalCache() throws Exception {
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory(this.classLoader);
+		factory.setCacheLimit(0);
+		MetadataReader reader1 = factory.getMetadataReader(getClass().getName());
+		MetadataReader reader2 = factory.getMetadataReader(getClass().getName());
+		assertNotSame(reader1, reader2);
+		assertEquals(0, factory.getSharedCache().size());
+	}
+
+	@Test
+	public void innerClassWithDotName() throws Exception {
+		MetadataReader reader = new CachingMetadataReaderFactory(this.classLoader).getMetadataReader(
+				getClass().getName() + ".Inner");
+		assertEquals(Inner.class.getName(), reader.getClassMetadata().getClassName());
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void missingClassFile() throws Exception {
+		new CachingMetadataReaderFactory(this.classLoader).getMetadataReader("org.example.DoesNotExist");
+	}
+
+
+	static class Inner {
+	}
+
+}
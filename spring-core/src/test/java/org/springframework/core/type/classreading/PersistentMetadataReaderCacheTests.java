@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link PersistentMetadataReaderCache}.
+ *
+ * @author Spring Framework Team
+ */
+public class PersistentMetadataReaderCacheTests {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final ClassLoader classLoader = getClass().getClassLoader();
+
+	private File cacheFile;
+
+	private File classFile;
+
+
+	@Before
+	public void setup() throws Exception {
+		this.cacheFile = new File(this.temporaryFolder.getRoot(), "cache/metadata.cache");
+		this.classFile = this.temporaryFolder.newFile("SampleClass.class");
+		copyClassFile(SampleClass.class, this.classFile);
+	}
+
+
+	@Test
+	public void missThenHitAfterStore() throws Exception {
+		Resource resource = new FileSystemResource(this.classFile);
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(this.cacheFile);
+		assertSampleClass(cache.getMetadataReader(resource, this.classLoader));
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		cache.store();
+		assertTrue(this.cacheFile.isFile());
+
+		cache = new PersistentMetadataReaderCache(this.cacheFile);
+		MetadataReader metadataReader = cache.getMetadataReader(resource, this.classLoader);
+		assertSampleClass(metadataReader);
+		assertSame(resource, metadataReader.getResource());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	@Test
+	public void storeWithoutMissesLeavesFileUntouched() throws Exception {
+		Resource resource = new FileSystemResource(this.classFile);
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(this.cacheFile);
+		cache.getMetadataReader(resource, this.classLoader);
+		cache.store();
+		assertTrue(this.cacheFile.setLastModified(1000));
+
+		cache = new PersistentMetadataReaderCache(this.cacheFile);
+		cache.getMetadataReader(resource, this.classLoader);
+		cache.store();
+		assertEquals(1000, this.cacheFile.lastModified());
+	}
+
+	@Test
+	public void modifiedClassFileInvalidatesEntry() throws Exception {
+		Resource resource = new FileSystemResource(this.classFile);
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(this.cacheFile);
+		cache.getMetadataReader(resource, this.classLoader);
+		cache.store();
+
+		copyClassFile(OtherClass.class, this.classFile);
+		assertTrue(this.classFile.setLastModified(this.classFile.lastModified() + 2000));
+		cache = new PersistentMetadataReaderCache(this.cacheFile);
+		MetadataReader metadataReader = cache.getMetadataReader(resource, this.classLoader);
+		assertEquals(OtherClass.class.getName(), metadataReader.getClassMetadata().getClassName());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void jarEntry() throws Exception {
+		File jarFile = this.temporaryFolder.newFile("sample.jar");
+		String entryName = ClassUtils.convertClassNameToResourcePath(SampleClass.class.getName()) + ".class";
+		try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile));
+				InputStream in = new ClassPathResource(entryName).getInputStream()) {
+			out.putNextEntry(new JarEntry(entryName));
+			StreamUtils.copy(in, out);
+			out.closeEntry();
+		}
+		Resource resource = new UrlResource("jar:" + jarFile.toURI() + "!/" + entryName);
+
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(this.cacheFile);
+		assertSampleClass(cache.getMetadataReader(resource, this.classLoader));
+		cache.store();
+
+		// A rebuilt jar with a new timestamp but identical content keeps its entries valid
+		assertTrue(jarFile.setLastModified(jarFile.lastModified() + 2000));
+		cache = new PersistentMetadataReaderCache(this.cacheFile);
+		assertSampleClass(cache.getMetadataReader(resource, this.classLoader));
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	public void corruptCacheFileIsIgnored() throws Exception {
+		Files.createDirectories(this.cacheFile.getParentFile().toPath());
+		FileCopyUtils.copy(new byte[] {0x53, 0x50, 0x4d, 0x43, 0, 0, 0, 1, 0, 0, 0, 5, 0}, this.cacheFile);
+		Resource resource = new FileSystemResource(this.classFile);
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(this.cacheFile);
+		assertSampleClass(cache.getMetadataReader(resource, this.classLoader));
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void usedThroughCachingMetadataReaderFactory() throws Exception {
+		Resource resource = new FileSystemResource(this.classFile);
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(this.cacheFile);
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory(this.classLoader);
+		factory.setPersistentCache(cache);
+		assertSame(cache, factory.getPersistentCache());
+		MetadataReader metadataReader = factory.getMetadataReader(resource);
+		assertSampleClass(metadataReader);
+		assertSame(metadataReader, factory.getMetadataReader(resource));
+		assertEquals(1, cache.getMissCount());
+		cache.store();
+
+		cache = new PersistentMetadataReaderCache(this.cacheFile);
+		factory = new CachingMetadataReaderFactory(this.classLoader);
+		factory.setPersistentCache(cache);
+		assertSampleClass(factory.getMetadataReader(resource));
+		assertEquals(1, cache.getHitCount());
+	}
+
+
+	private static void copyClassFile(Class<?> clazz, File target) throws Exception {
+		String path = ClassUtils.convertClassNameToResourcePath(clazz.getName()) + ".class";
+		FileCopyUtils.copy(new ClassPathResource(path).getInputStream(), new FileOutputStream(target));
+	}
+
+	private static void assertSampleClass(MetadataReader metadataReader) {
+		AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
+		assertEquals(SampleClass.class.getName(), metadata.getClassName());
+		assertTrue(metadata.hasAnnotation(SampleAnnotation.class.getName()));
+		assertEquals(Integer.class.getName(),
+				metadata.getAnnotationAttributes(SampleAnnotation.class.getName(), true).get("value"));
+		assertEquals(Integer.class, metadata.getAnnotationAttributes(SampleAnnotation.class.getName()).get("value"));
+		assertEquals(1, metadata.getAnnotatedMethods(SampleAnnotation.class.getName()).size());
+		assertArrayEquals(new String[] {SampleClass.Inner.class.getName()}, metadata.getMemberClassNames());
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface SampleAnnotation {
+
+		Class<?> value();
+	}
+
+
+	@SampleAnnotation(Integer.class)
+	public static class SampleClass {
+
+		@SampleAnnotation(String.class)
+		public void annotated() {
+		}
+
+		public static class Inner {
+		}
+	}
+
+
+	public static class OtherClass {
+	}
+
+}
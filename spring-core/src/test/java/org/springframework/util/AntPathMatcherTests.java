@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -674,6 +674,32 @@ public class AntPathMatcherTests {
 		assertTrue(pathMatcher.stringMatcherCache.isEmpty());
 	}
 
+	@Test
+	public void boundedPatternCache() {
+		pathMatcher.setPatternCacheLimit(64);
+		match();
+		assertTrue(pathMatcher.stringMatcherCache.isEmpty());
+		assertTrue(pathMatcher.getPatternCacheMissCount() > 0);
+
+		for (int i = 0; i < 65536; i++) {
+			pathMatcher.match("test" + i, "test");
+		}
+		// Cache stays active, evicting least recently used patterns
+		long hits = pathMatcher.getPatternCacheHitCount();
+		assertTrue(pathMatcher.match("/test/{id}", "/test/1"));
+		assertTrue(pathMatcher.match("/test/{id}", "/test/2"));
+		assertTrue(pathMatcher.getPatternCacheHitCount() > hits);
+	}
+
+	@Test
+	public void boundedPatternCacheWithCachePatternsSetToFalse() {
+		pathMatcher.setPatternCacheLimit(64);
+		pathMatcher.setCachePatterns(false);
+		match();
+		assertEquals(0, pathMatcher.getPatternCacheHitCount());
+		assertEquals(0, pathMatcher.getPatternCacheMissCount());
+	}
+
 	@Test
 	public void extensionMappingWithDotPathSeparator() {
 		pathMatcher.setPathSeparator(".");
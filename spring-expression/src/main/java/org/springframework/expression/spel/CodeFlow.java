@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -83,11 +83,19 @@ public class CodeFlow implements Opcodes {
 	 */
 	private int nextFieldId = 1;
 
+	/**
+	 * Local variables holding the active context object for nested evaluation,
+	 * e.g. the current element while compiling a collection selection or projection.
+	 * If empty, the active context object is the target passed to the method.
+	 */
+	private final Deque<Integer> contextVariables = new ArrayDeque<>();
+
 	/**
 	 * When code generation requires an intermediate variable within a method,
-	 * this method records the next available variable (variable 0 is 'this').
+	 * this method records the next available variable (variable 0 is 'this',
+	 * variables 1 and 2 are the target and the EvaluationContext).
 	 */
-	private int nextFreeVariableId = 1;
+	private int nextFreeVariableId = 3;
 
 
 	/**
@@ -105,11 +113,35 @@ public class CodeFlow implements Opcodes {
 
 	/**
 	 * Push the byte code to load the target (i.e. what was passed as the first argument
-	 * to CompiledExpression.getValue(target, context))
+	 * to CompiledExpression.getValue(target, context)), or the active context object
+	 * if one has been registered through {@link #pushActiveContextVariable(int)}.
 	 * @param mv the visitor into which the load instruction should be inserted
 	 */
 	public void loadTarget(MethodVisitor mv) {
-		mv.visitVarInsn(ALOAD, 1);
+		Integer contextVariable = this.contextVariables.peek();
+		mv.visitVarInsn(ALOAD, (contextVariable != null ? contextVariable : 1));
+	}
+
+	/**
+	 * Register the local variable holding the active context object for the code
+	 * generated next, so that {@link #loadTarget} refers to it rather than to the target.
+	 * For example, when compiling a selection each element is stored in a local variable
+	 * while the selection criteria are being evaluated against it.
+	 * @param variableId the index of the local variable
+	 * @since 5.1.14
+	 * @see #popActiveContextVariable()
+	 */
+	public void pushActiveContextVariable(int variableId) {
+		this.contextVariables.push(variableId);
+	}
+
+	/**
+	 * Remove the most recently registered active context variable.
+	 * @since 5.1.14
+	 * @see #pushActiveContextVariable(int)
+	 */
+	public void popActiveContextVariable() {
+		this.contextVariables.pop();
 	}
 
 	/**
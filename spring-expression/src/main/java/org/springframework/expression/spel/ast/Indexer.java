@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -196,8 +196,8 @@ public class Indexer extends SpelNodeImpl {
 		if (this.indexedType == IndexedType.ARRAY) {
 			return (this.exitTypeDescriptor != null);
 		}
-		else if (this.indexedType == IndexedType.LIST) {
-			return this.children[0].isCompilable();
+		else if (this.indexedType == IndexedType.LIST || this.indexedType == IndexedType.STRING) {
+			return (this.children[0].isCompilable() && isIntegerIndex(this.children[0].exitTypeDescriptor));
 		}
 		else if (this.indexedType == IndexedType.MAP) {
 			return (this.children[0] instanceof PropertyOrFieldReference || this.children[0].isCompilable());
@@ -211,6 +211,10 @@ public class Indexer extends SpelNodeImpl {
 		return false;
 	}
 
+	private static boolean isIntegerIndex(@Nullable String descriptor) {
+		return ("I".equals(descriptor) || "Ljava/lang/Integer".equals(descriptor));
+	}
+
 	@Override
 	public void generateCode(MethodVisitor mv, CodeFlow cf) {
 		String descriptor = cf.lastDescriptor();
@@ -221,7 +225,11 @@ public class Indexer extends SpelNodeImpl {
 
 		if (this.indexedType == IndexedType.ARRAY) {
 			int insn;
-			if ("D".equals(this.exitTypeDescriptor)) {
+			if ("Z".equals(this.exitTypeDescriptor)) {
+				mv.visitTypeInsn(CHECKCAST, "[Z");
+				insn = BALOAD;
+			}
+			else if ("D".equals(this.exitTypeDescriptor)) {
 				mv.visitTypeInsn(CHECKCAST, "[D");
 				insn = DALOAD;
 			}
@@ -255,21 +263,23 @@ public class Indexer extends SpelNodeImpl {
 						//depthPlusOne(exitTypeDescriptor)+"Ljava/lang/Object;");
 				insn = AALOAD;
 			}
-			SpelNodeImpl index = this.children[0];
-			cf.enterCompilationScope();
-			index.generateCode(mv, cf);
-			cf.exitCompilationScope();
+			generateIndexCode(mv, cf, true);
 			mv.visitInsn(insn);
 		}
 
 		else if (this.indexedType == IndexedType.LIST) {
 			mv.visitTypeInsn(CHECKCAST, "java/util/List");
-			cf.enterCompilationScope();
-			this.children[0].generateCode(mv, cf);
-			cf.exitCompilationScope();
+			generateIndexCode(mv, cf, true);
 			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "get", "(I)Ljava/lang/Object;", true);
 		}
 
+		else if (this.indexedType == IndexedType.STRING) {
+			mv.visitTypeInsn(CHECKCAST, "java/lang/String");
+			generateIndexCode(mv, cf, true);
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "charAt", "(I)C", false);
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf", "(C)Ljava/lang/String;", false);
+		}
+
 		else if (this.indexedType == IndexedType.MAP) {
 			mv.visitTypeInsn(CHECKCAST, "java/util/Map");
 			// Special case when the key is an unquoted string literal that will be parsed as
@@ -280,9 +290,7 @@ public class Indexer extends SpelNodeImpl {
 				mv.visitLdcInsn(mapKeyName);
 			}
 			else {
-				cf.enterCompilationScope();
-				this.children[0].generateCode(mv, cf);
-				cf.exitCompilationScope();
+				generateIndexCode(mv, cf, false);
 			}
 			mv.visitMethodInsn(
 					INVOKEINTERFACE, "java/util/Map", "get", "(Ljava/lang/Object;)Ljava/lang/Object;", true);
@@ -306,8 +314,10 @@ public class Indexer extends SpelNodeImpl {
 			}
 
 			if (member instanceof Method) {
-				mv.visitMethodInsn((isStatic? INVOKESTATIC : INVOKEVIRTUAL), classDesc, member.getName(),
-						CodeFlow.createSignatureDescriptor((Method) member), false);
+				boolean isInterface = member.getDeclaringClass().isInterface();
+				int opcode = (isStatic ? INVOKESTATIC : isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL);
+				mv.visitMethodInsn(opcode, classDesc, member.getName(),
+						CodeFlow.createSignatureDescriptor((Method) member), isInterface);
 			}
 			else {
 				mv.visitFieldInsn((isStatic ? GETSTATIC : GETFIELD), classDesc, member.getName(),
@@ -318,6 +328,21 @@ public class Indexer extends SpelNodeImpl {
 		cf.pushDescriptor(this.exitTypeDescriptor);
 	}
 
+	/**
+	 * Generate the code for the index expression, evaluated against the root object
+	 * as in {@link #getValueRef}, unboxing it if an {@code int} is required.
+	 */
+	private void generateIndexCode(MethodVisitor mv, CodeFlow cf, boolean intRequired) {
+		cf.enterCompilationScope();
+		cf.pushActiveContextVariable(1);
+		this.children[0].generateCode(mv, cf);
+		cf.popActiveContextVariable();
+		if (intRequired && "Ljava/lang/Integer".equals(cf.lastDescriptor())) {
+			CodeFlow.insertUnboxInsns(mv, 'I', "Ljava/lang/Integer");
+		}
+		cf.exitCompilationScope();
+	}
+
 	@Override
 	public String toStringAST() {
 		StringBuilder sb = new StringBuilder("[");
@@ -755,6 +780,7 @@ public class Indexer extends SpelNodeImpl {
 				throw new SpelEvaluationException(getStartPosition(), SpelMessage.STRING_INDEX_OUT_OF_BOUNDS,
 						this.target.length(), this.index);
 			}
+			exitTypeDescriptor = "Ljava/lang/String";
 			return new TypedValue(String.valueOf(this.target.charAt(this.index)));
 		}
 
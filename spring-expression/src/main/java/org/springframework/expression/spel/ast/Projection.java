@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,8 +22,11 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -71,6 +74,7 @@ public class Projection extends SpelNodeImpl {
 		// and value, and they can be referenced in the operation
 		// eg. {'a':'y','b':'n'}.![value=='y'?key:null]" == ['a', null]
 		if (operand instanceof Map) {
+			this.exitTypeDescriptor = null;
 			Map<?, ?> mapData = (Map<?, ?>) operand;
 			List<Object> result = new ArrayList<>();
 			for (Map.Entry<?, ?> entry : mapData.entrySet()) {
@@ -90,6 +94,7 @@ public class Projection extends SpelNodeImpl {
 		if (operand instanceof Iterable || operandIsArray) {
 			Iterable<?> data = (operand instanceof Iterable ?
 					(Iterable<?>) operand : Arrays.asList(ObjectUtils.toObjectArray(operand)));
+			this.exitTypeDescriptor = (operandIsArray ? null : "Ljava/util/List");
 
 			List<Object> result = new ArrayList<>();
 			int idx = 0;
@@ -139,6 +144,71 @@ public class Projection extends SpelNodeImpl {
 		return "![" + getChild(0).toStringAST() + "]";
 	}
 
+	/**
+	 * A projection is compilable if it has been evaluated against an {@link Iterable}
+	 * and the projection expression is compilable.
+	 */
+	@Override
+	public boolean isCompilable() {
+		return (this.exitTypeDescriptor != null && this.children[0].isCompilable());
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		if (cf.lastDescriptor() == null) {
+			cf.loadTarget(mv);
+		}
+		Label endOfProjection = new Label();
+		if (this.nullSafe) {
+			Label continueLabel = new Label();
+			mv.visitInsn(DUP);
+			mv.visitJumpInsn(IFNONNULL, continueLabel);
+			mv.visitJumpInsn(GOTO, endOfProjection);
+			mv.visitLabel(continueLabel);
+		}
+
+		int iteratorVariable = cf.nextFreeVariableId();
+		int elementVariable = cf.nextFreeVariableId();
+		int resultVariable = cf.nextFreeVariableId();
+		mv.visitTypeInsn(CHECKCAST, "java/lang/Iterable");
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/lang/Iterable", "iterator", "()Ljava/util/Iterator;", true);
+		mv.visitVarInsn(ASTORE, iteratorVariable);
+		mv.visitTypeInsn(NEW, "java/util/ArrayList");
+		mv.visitInsn(DUP);
+		mv.visitMethodInsn(INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
+		mv.visitVarInsn(ASTORE, resultVariable);
+
+		Label nextElement = new Label();
+		Label endOfElements = new Label();
+		mv.visitLabel(nextElement);
+		mv.visitVarInsn(ALOAD, iteratorVariable);
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z", true);
+		mv.visitJumpInsn(IFEQ, endOfElements);
+		mv.visitVarInsn(ALOAD, iteratorVariable);
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "next", "()Ljava/lang/Object;", true);
+		mv.visitVarInsn(ASTORE, elementVariable);
+
+		// Evaluate the projection expression against the current element
+		mv.visitVarInsn(ALOAD, resultVariable);
+		cf.enterCompilationScope();
+		cf.pushActiveContextVariable(elementVariable);
+		this.children[0].generateCode(mv, cf);
+		String lastDesc = cf.lastDescriptor();
+		if (CodeFlow.isPrimitive(lastDesc)) {
+			CodeFlow.insertBoxIfNecessary(mv, lastDesc.charAt(0));
+		}
+		cf.popActiveContextVariable();
+		cf.exitCompilationScope();
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "add", "(Ljava/lang/Object;)Z", true);
+		mv.visitInsn(POP);
+		mv.visitJumpInsn(GOTO, nextElement);
+
+		mv.visitLabel(endOfElements);
+		mv.visitVarInsn(ALOAD, resultVariable);
+		mv.visitLabel(endOfProjection);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 	private Class<?> determineCommonType(@Nullable Class<?> oldType, Class<?> newType) {
 		if (oldType == null) {
 			return newType;
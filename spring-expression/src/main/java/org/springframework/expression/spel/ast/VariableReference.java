@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -66,27 +66,37 @@ public class VariableReference extends SpelNodeImpl {
 	@Override
 	public TypedValue getValueInternal(ExpressionState state) throws SpelEvaluationException {
 		if (this.name.equals(THIS)) {
-			return state.getActiveContextObject();
+			TypedValue result = state.getActiveContextObject();
+			String descriptor = toPublicDescriptor(result.getValue());
+			// For '#this' within a selection or projection, the elements may differ in type
+			if (this.exitTypeDescriptor != null && !this.exitTypeDescriptor.equals(descriptor)) {
+				descriptor = "Ljava/lang/Object";
+			}
+			this.exitTypeDescriptor = descriptor;
+			return result;
 		}
 		if (this.name.equals(ROOT)) {
 			TypedValue result = state.getRootContextObject();
-			this.exitTypeDescriptor = CodeFlow.toDescriptorFromObject(result.getValue());
+			this.exitTypeDescriptor = toPublicDescriptor(result.getValue());
 			return result;
 		}
 		TypedValue result = state.lookupVariable(this.name);
-		Object value = result.getValue();
+		this.exitTypeDescriptor = toPublicDescriptor(result.getValue());
+		// a null value will mean either the value was null or the variable was not found
+		return result;
+	}
+
+	private String toPublicDescriptor(@Nullable Object value) {
 		if (value == null || !Modifier.isPublic(value.getClass().getModifiers())) {
 			// If the type is not public then when generateCode produces a checkcast to it
 			// then an IllegalAccessError will occur.
 			// If resorting to Object isn't sufficient, the hierarchy could be traversed for
 			// the first public type.
-			this.exitTypeDescriptor = "Ljava/lang/Object";
+			return "Ljava/lang/Object";
 		}
 		else {
-			this.exitTypeDescriptor = CodeFlow.toDescriptorFromObject(value);
+			return CodeFlow.toDescriptorFromObject(value);
 		}
-		// a null value will mean either the value was null or the variable was not found
-		return result;
 	}
 
 	@Override
@@ -111,7 +121,10 @@ public class VariableReference extends SpelNodeImpl {
 
 	@Override
 	public void generateCode(MethodVisitor mv, CodeFlow cf) {
-		if (this.name.equals(ROOT)) {
+		if (this.name.equals(THIS)) {
+			cf.loadTarget(mv);
+		}
+		else if (this.name.equals(ROOT)) {
 			mv.visitVarInsn(ALOAD,1);
 		}
 		else {
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.standard;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.ParserContext;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * {@link ExpressionParser} decorator that caches parsed expressions in a bounded,
+ * concurrent cache, keyed by expression string and {@link ParserContext}.
+ * Instances are reusable and thread-safe.
+ *
+ * <p>Since parsed expressions are reused for every subsequent request of the same
+ * expression string, their state carries over as well: in particular, a
+ * {@link SpelExpression} compiled by the {@link SpelCompiler} (according to the
+ * {@link org.springframework.expression.spel.SpelCompilerMode} of the underlying
+ * parser) remains compiled for all callers. Expressions obtained from this parser
+ * are shared and should therefore not be reconfigured, e.g. through
+ * {@link SpelExpression#setEvaluationContext}.
+ *
+ * <p>Hit, miss and eviction counts are exposed for monitoring purposes.
+ * A process-wide instance backed by a default {@link SpelExpressionParser}
+ * is available through {@link #getSharedInstance()}.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ * @see ConcurrentLruCache
+ */
+public class CachingExpressionParser implements ExpressionParser {
+
+	/**
+	 * Default maximum number of cached expressions: 1024.
+	 */
+	public static final int DEFAULT_CACHE_LIMIT = 1024;
+
+	private static final CachingExpressionParser sharedInstance =
+			new CachingExpressionParser(new SpelExpressionParser());
+
+
+	private final ExpressionParser parser;
+
+	private final ConcurrentLruCache<ExpressionKey, Expression> expressionCache;
+
+
+	/**
+	 * Create a new {@code CachingExpressionParser} for the given parser,
+	 * using a default cache limit of 1024 expressions.
+	 * @param parser the parser to delegate to on a cache miss
+	 */
+	public CachingExpressionParser(ExpressionParser parser) {
+		this(parser, DEFAULT_CACHE_LIMIT);
+	}
+
+	/**
+	 * Create a new {@code CachingExpressionParser} for the given parser.
+	 * @param parser the parser to delegate to on a cache miss
+	 * @param cacheLimit the maximum number of cached expressions
+	 * (0 indicates no caching, always parsing the expression string)
+	 */
+	public CachingExpressionParser(ExpressionParser parser, int cacheLimit) {
+		Assert.notNull(parser, "ExpressionParser must not be null");
+		this.parser = parser;
+		this.expressionCache = new ConcurrentLruCache<>(cacheLimit, this::doParseExpression);
+	}
+
+
+	/**
+	 * Return the process-wide {@code CachingExpressionParser},
+	 * backed by a {@link SpelExpressionParser} with default settings.
+	 */
+	public static CachingExpressionParser getSharedInstance() {
+		return sharedInstance;
+	}
+
+
+	/**
+	 * Return the underlying parser that this parser delegates to on a cache miss.
+	 */
+	public final ExpressionParser getParser() {
+		return this.parser;
+	}
+
+	@Override
+	public Expression parseExpression(String expressionString) throws ParseException {
+		return this.expressionCache.get(new ExpressionKey(expressionString, null));
+	}
+
+	@Override
+	public Expression parseExpression(String expressionString, ParserContext context) throws ParseException {
+		return this.expressionCache.get(new ExpressionKey(expressionString, context));
+	}
+
+	private Expression doParseExpression(ExpressionKey key) {
+		return (key.context != null ? this.parser.parseExpression(key.expressionString, key.context) :
+				this.parser.parseExpression(key.expressionString));
+	}
+
+	/**
+	 * Remove all cached expressions. Statistics are retained.
+	 */
+	public void clearCache() {
+		this.expressionCache.clear();
+	}
+
+	/**
+	 * Return the number of currently cached expressions.
+	 */
+	public int getCacheSize() {
+		return this.expressionCache.size();
+	}
+
+	/**
+	 * Return the maximum number of cached expressions.
+	 */
+	public int getCacheLimit() {
+		return this.expressionCache.sizeLimit();
+	}
+
+	/**
+	 * Return the number of parse requests that were served from the cache.
+	 */
+	public long getHitCount() {
+		return this.expressionCache.getHitCount();
+	}
+
+	/**
+	 * Return the number of parse requests that required parsing the expression string.
+	 */
+	public long getMissCount() {
+		return this.expressionCache.getMissCount();
+	}
+
+	/**
+	 * Return the number of expressions evicted because of the cache limit.
+	 */
+	public long getEvictionCount() {
+		return this.expressionCache.getEvictionCount();
+	}
+
+	/**
+	 * Return the ratio of parse requests that were served from the cache,
+	 * or {@code 0.0} if there were no requests yet.
+	 */
+	public double getHitRatio() {
+		return this.expressionCache.getHitRatio();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " for [" + this.parser + "]: size=" + getCacheSize() +
+				", limit=" + getCacheLimit() + ", hits=" + getHitCount() + ", misses=" + getMissCount() +
+				", evictions=" + getEvictionCount();
+	}
+
+
+	/**
+	 * Cache key for an expression string and the template settings of its
+	 * {@link ParserContext}, if any.
+	 */
+	private static final class ExpressionKey {
+
+		private final String expressionString;
+
+		@Nullable
+		private final ParserContext context;
+
+		private final boolean template;
+
+		@Nullable
+		private final String prefix;
+
+		@Nullable
+		private final String suffix;
+
+		ExpressionKey(String expressionString, @Nullable ParserContext context) {
+			Assert.notNull(expressionString, "Expression string must not be null");
+			this.expressionString = expressionString;
+			this.context = context;
+			this.template = (context != null && context.isTemplate());
+			this.prefix = (this.template ? context.getExpressionPrefix() : null);
+			this.suffix = (this.template ? context.getExpressionSuffix() : null);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ExpressionKey)) {
+				return false;
+			}
+			ExpressionKey otherKey = (ExpressionKey) other;
+			return (this.expressionString.equals(otherKey.expressionString) &&
+					this.template == otherKey.template &&
+					ObjectUtils.nullSafeEquals(this.prefix, otherKey.prefix) &&
+					ObjectUtils.nullSafeEquals(this.suffix, otherKey.suffix));
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.expressionString.hashCode() * 29 + ObjectUtils.nullSafeHashCode(this.prefix));
+		}
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.support;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Reads or writes a property through a direct call to its getter or setter
+ * method or a direct access to its field, avoiding reflection.
+ *
+ * <p>Implementations are generated at runtime for a specific method or field
+ * when {@link ReflectivePropertyAccessor#setUseGeneratedInvokers generated invokers}
+ * are enabled. This interface is not meant to be implemented by application code.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ */
+public interface PropertyInvoker {
+
+	/**
+	 * Read the property value from the given target.
+	 * @param target the target instance ({@code null} or a {@code Class}
+	 * for a static getter or field)
+	 * @return the current property value
+	 * @throws UnsupportedOperationException if this invoker is for a setter method
+	 */
+	@Nullable
+	Object read(@Nullable Object target);
+
+	/**
+	 * Write the given value to the property of the given target.
+	 * @param target the target instance ({@code null} or a {@code Class}
+	 * for a static setter or field)
+	 * @param value the new property value
+	 * @throws UnsupportedOperationException if this invoker is for a getter method
+	 */
+	void write(@Nullable Object target, @Nullable Object value);
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.support;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.cglib.core.ReflectUtils;
+import org.springframework.core.GeneratedClassCache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Generates a {@link PropertyInvoker} class per getter method, setter method
+ * or field, calling the member directly instead of through reflection.
+ *
+ * <p>Generated classes are defined in the ClassLoader of the member's declaring
+ * class. Members that cannot be accessed from generated code in that ClassLoader,
+ * e.g. non-public members or members of non-public types, are left to reflection.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ * @see ReflectivePropertyAccessor#setUseGeneratedInvokers
+ */
+final class PropertyInvokerGenerator {
+
+	private static final String INVOKER_SUFFIX = "$$SpelPropertyInvoker$$";
+
+	private static final String INVOKER_INTERFACE = Type.getInternalName(PropertyInvoker.class);
+
+	private static final String READ_DESCRIPTOR = "(Ljava/lang/Object;)Ljava/lang/Object;";
+
+	private static final String WRITE_DESCRIPTOR = "(Ljava/lang/Object;Ljava/lang/Object;)V";
+
+	private static final Log logger = LogFactory.getLog(PropertyInvokerGenerator.class);
+
+	private static final GeneratedClassCache<Member, PropertyInvoker> invokerCache = new GeneratedClassCache<>();
+
+	private static final AtomicInteger classCounter = new AtomicInteger();
+
+
+	private PropertyInvokerGenerator() {
+	}
+
+
+	/**
+	 * Obtain a generated invoker for reading through the given getter method or field.
+	 * @return the invoker, or {@code null} if the member cannot be accessed
+	 * from generated code
+	 */
+	@Nullable
+	static PropertyInvoker getReadInvoker(Member member) {
+		return getInvoker(member);
+	}
+
+	/**
+	 * Obtain a generated invoker for writing through the given setter method or field.
+	 * @return the invoker, or {@code null} if the member cannot be accessed
+	 * from generated code (which includes final fields)
+	 */
+	@Nullable
+	static PropertyInvoker getWriteInvoker(Member member) {
+		if (member instanceof Field && Modifier.isFinal(member.getModifiers())) {
+			return null;
+		}
+		return getInvoker(member);
+	}
+
+	@Nullable
+	private static PropertyInvoker getInvoker(Member member) {
+		return invokerCache.obtain(member.getDeclaringClass(), member,
+				PropertyInvokerGenerator::resolveContextClass, PropertyInvokerGenerator::generateInvoker);
+	}
+
+	/**
+	 * Determine the class to define generated classes alongside for members
+	 * of the given declaring class.
+	 */
+	@Nullable
+	private static Class<?> resolveContextClass(Class<?> declaringClass) {
+		ClassLoader classLoader = declaringClass.getClassLoader();
+		if (classLoader == null || declaringClass.getName().startsWith("java.") ||
+				!ClassUtils.isVisible(PropertyInvoker.class, classLoader)) {
+			return (ClassUtils.isVisible(declaringClass, PropertyInvoker.class.getClassLoader()) ?
+					PropertyInvoker.class : null);
+		}
+		return declaringClass;
+	}
+
+	@Nullable
+	private static PropertyInvoker generateInvoker(Member member, Class<?> contextClass) {
+		if (!isAccessible(member)) {
+			return null;
+		}
+		ClassLoader classLoader = contextClass.getClassLoader();
+		String className = contextClass.getName() + INVOKER_SUFFIX + classCounter.incrementAndGet();
+		try {
+			Class<?> invokerClass = ReflectUtils.defineClass(className, generateInvokerClass(className, member),
+					classLoader, contextClass.getProtectionDomain(), contextClass);
+			return (PropertyInvoker) ReflectionUtils.accessibleConstructor(invokerClass).newInstance();
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to generate property invoker for " + member +
+						" - falling back to reflective access", ex);
+			}
+			return null;
+		}
+	}
+
+	private static boolean isAccessible(Member member) {
+		if (!Modifier.isPublic(member.getModifiers()) || !isPublic(member.getDeclaringClass())) {
+			return false;
+		}
+		if (member instanceof Method) {
+			Method method = (Method) member;
+			return (method.getParameterCount() == 0 ||
+					(method.getParameterCount() == 1 && isPublic(method.getParameterTypes()[0])));
+		}
+		return isPublic(((Field) member).getType());
+	}
+
+	private static boolean isPublic(Class<?> type) {
+		Class<?> typeToCheck = type;
+		while (typeToCheck.isArray()) {
+			typeToCheck = typeToCheck.getComponentType();
+		}
+		return (typeToCheck.isPrimitive() || Modifier.isPublic(typeToCheck.getModifiers()));
+	}
+
+
+	private static byte[] generateInvokerClass(String className, Member member) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+				className.replace('.', '/'), null, "java/lang/Object", new String[] {INVOKER_INTERFACE});
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		boolean readable = (member instanceof Field || ((Method) member).getParameterCount() == 0);
+		boolean writable = (member instanceof Field ? !Modifier.isFinal(member.getModifiers()) :
+				((Method) member).getParameterCount() == 1);
+
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "read", READ_DESCRIPTOR, null, null);
+		mv.visitCode();
+		if (readable) {
+			loadTarget(mv, member);
+			if (member instanceof Method) {
+				invokeMethod(mv, (Method) member);
+				box(mv, ((Method) member).getReturnType());
+			}
+			else {
+				accessField(mv, (Field) member, false);
+				box(mv, ((Field) member).getType());
+			}
+			mv.visitInsn(Opcodes.ARETURN);
+		}
+		else {
+			throwUnsupportedOperation(mv);
+		}
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "write", WRITE_DESCRIPTOR, null, null);
+		mv.visitCode();
+		if (writable) {
+			loadTarget(mv, member);
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			if (member instanceof Method) {
+				Method method = (Method) member;
+				unbox(mv, method.getParameterTypes()[0]);
+				invokeMethod(mv, method);
+				// Ignore the return value of a fluent setter
+				Class<?> returnType = method.getReturnType();
+				if (returnType != void.class) {
+					mv.visitInsn(returnType == long.class || returnType == double.class ? Opcodes.POP2 : Opcodes.POP);
+				}
+			}
+			else {
+				unbox(mv, ((Field) member).getType());
+				accessField(mv, (Field) member, true);
+			}
+			mv.visitInsn(Opcodes.RETURN);
+		}
+		else {
+			throwUnsupportedOperation(mv);
+		}
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void loadTarget(MethodVisitor mv, Member member) {
+		if (!Modifier.isStatic(member.getModifiers())) {
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(member.getDeclaringClass()));
+		}
+	}
+
+	private static void invokeMethod(MethodVisitor mv, Method method) {
+		Class<?> declaringClass = method.getDeclaringClass();
+		boolean isInterface = declaringClass.isInterface();
+		int opcode = (Modifier.isStatic(method.getModifiers()) ? Opcodes.INVOKESTATIC :
+				isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL);
+		mv.visitMethodInsn(opcode, Type.getInternalName(declaringClass), method.getName(),
+				Type.getMethodDescriptor(method), isInterface);
+	}
+
+	private static void accessField(MethodVisitor mv, Field field, boolean write) {
+		boolean isStatic = Modifier.isStatic(field.getModifiers());
+		int opcode = (write ? (isStatic ? Opcodes.PUTSTATIC : Opcodes.PUTFIELD) :
+				(isStatic ? Opcodes.GETSTATIC : Opcodes.GETFIELD));
+		mv.visitFieldInsn(opcode, Type.getInternalName(field.getDeclaringClass()), field.getName(),
+				Type.getDescriptor(field.getType()));
+	}
+
+	private static void throwUnsupportedOperation(MethodVisitor mv) {
+		mv.visitTypeInsn(Opcodes.NEW, "java/lang/UnsupportedOperationException");
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/UnsupportedOperationException", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.ATHROW);
+	}
+
+	private static void unbox(MethodVisitor mv, Class<?> type) {
+		if (type.isPrimitive()) {
+			Type wrapperType = Type.getType(ClassUtils.resolvePrimitiveIfNecessary(type));
+			mv.visitTypeInsn(Opcodes.CHECKCAST, wrapperType.getInternalName());
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapperType.getInternalName(),
+					type.getName() + "Value", "()" + Type.getDescriptor(type), false);
+		}
+		else if (type != Object.class) {
+			mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+		}
+	}
+
+	private static void box(MethodVisitor mv, Class<?> type) {
+		if (type == void.class) {
+			mv.visitInsn(Opcodes.ACONST_NULL);
+		}
+		else if (type.isPrimitive()) {
+			Type wrapperType = Type.getType(ClassUtils.resolvePrimitiveIfNecessary(type));
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, wrapperType.getInternalName(), "valueOf",
+					"(" + Type.getDescriptor(type) + ")" + wrapperType.getDescriptor(), false);
+		}
+	}
+
+}
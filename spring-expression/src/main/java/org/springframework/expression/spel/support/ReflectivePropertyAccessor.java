@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -87,6 +87,8 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 	@Nullable
 	private volatile InvokerPair lastReadInvokerPair;
 
+	private boolean useGeneratedInvokers = false;
+
 
 	/**
 	 * Create a new property accessor for reading as well writing.
@@ -107,6 +109,30 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 	}
 
 
+	/**
+	 * Set whether to read and write properties through generated {@link PropertyInvoker}
+	 * classes rather than through reflection. Default is "false".
+	 * <p>If enabled, a small class calling the getter, setter or field directly is
+	 * generated for each public member of a public type on first access, and shared
+	 * across accessor instances. This speeds up interpreted expressions, e.g. when
+	 * they cannot be compiled since the types they operate on vary. Members that
+	 * cannot be accessed from generated code are still accessed through reflection.
+	 * @since 5.1.14
+	 * @see PropertyInvoker
+	 */
+	public void setUseGeneratedInvokers(boolean useGeneratedInvokers) {
+		this.useGeneratedInvokers = useGeneratedInvokers;
+	}
+
+	/**
+	 * Return whether to read and write properties through generated invokers.
+	 * @since 5.1.14
+	 */
+	public boolean isUseGeneratedInvokers() {
+		return this.useGeneratedInvokers;
+	}
+
+
 	/**
 	 * Returns {@code null} which means this is a general purpose accessor.
 	 */
@@ -189,8 +215,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 			}
 			if (method != null) {
 				try {
-					ReflectionUtils.makeAccessible(method);
-					Object value = method.invoke(target);
+					Object value = readValue(method, target, getReadInvoker(method));
 					return new TypedValue(value, invoker.typeDescriptor.narrow(value));
 				}
 				catch (Exception ex) {
@@ -211,8 +236,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 			}
 			if (field != null) {
 				try {
-					ReflectionUtils.makeAccessible(field);
-					Object value = field.get(target);
+					Object value = readValue(field, target, getReadInvoker(field));
 					return new TypedValue(value, invoker.typeDescriptor.narrow(value));
 				}
 				catch (Exception ex) {
@@ -297,8 +321,14 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 			}
 			if (method != null) {
 				try {
-					ReflectionUtils.makeAccessible(method);
-					method.invoke(target, possiblyConvertedNewValue);
+					PropertyInvoker propertyInvoker = getWriteInvoker(method);
+					if (propertyInvoker != null) {
+						propertyInvoker.write(target, possiblyConvertedNewValue);
+					}
+					else {
+						ReflectionUtils.makeAccessible(method);
+						method.invoke(target, possiblyConvertedNewValue);
+					}
 					return;
 				}
 				catch (Exception ex) {
@@ -318,8 +348,14 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 			}
 			if (field != null) {
 				try {
-					ReflectionUtils.makeAccessible(field);
-					field.set(target, possiblyConvertedNewValue);
+					PropertyInvoker propertyInvoker = getWriteInvoker(field);
+					if (propertyInvoker != null) {
+						propertyInvoker.write(target, possiblyConvertedNewValue);
+					}
+					else {
+						ReflectionUtils.makeAccessible(field);
+						field.set(target, possiblyConvertedNewValue);
+					}
 					return;
 				}
 				catch (Exception ex) {
@@ -548,7 +584,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				}
 			}
 			if (method != null) {
-				return new OptimalPropertyAccessor(invocationTarget);
+				return new OptimalPropertyAccessor(invocationTarget, getReadInvoker(method));
 			}
 		}
 
@@ -563,7 +599,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				}
 			}
 			if (field != null) {
-				return new OptimalPropertyAccessor(invocationTarget);
+				return new OptimalPropertyAccessor(invocationTarget, getReadInvoker(field));
 			}
 		}
 
@@ -571,6 +607,40 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 	}
 
 
+	@Nullable
+	private PropertyInvoker getReadInvoker(Member member) {
+		return (this.useGeneratedInvokers ? PropertyInvokerGenerator.getReadInvoker(member) : null);
+	}
+
+	@Nullable
+	private PropertyInvoker getWriteInvoker(Member member) {
+		return (this.useGeneratedInvokers ? PropertyInvokerGenerator.getWriteInvoker(member) : null);
+	}
+
+	/**
+	 * Read the value of the given getter method or field, through the given
+	 * generated invoker if available or through reflection otherwise.
+	 */
+	@Nullable
+	private static Object readValue(Member member, @Nullable Object target,
+			@Nullable PropertyInvoker propertyInvoker) throws Exception {
+
+		if (propertyInvoker != null) {
+			return propertyInvoker.read(target);
+		}
+		if (member instanceof Method) {
+			Method method = (Method) member;
+			ReflectionUtils.makeAccessible(method);
+			return method.invoke(target);
+		}
+		else {
+			Field field = (Field) member;
+			ReflectionUtils.makeAccessible(field);
+			return field.get(target);
+		}
+	}
+
+
 	/**
 	 * Captures the member (method/field) to call reflectively to access a property value
 	 * and the type descriptor for the value returned by the reflective call.
@@ -654,9 +724,13 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 
 		private final TypeDescriptor typeDescriptor;
 
-		OptimalPropertyAccessor(InvokerPair target) {
+		@Nullable
+		private final PropertyInvoker propertyInvoker;
+
+		OptimalPropertyAccessor(InvokerPair target, @Nullable PropertyInvoker propertyInvoker) {
 			this.member = target.member;
 			this.typeDescriptor = target.typeDescriptor;
+			this.propertyInvoker = propertyInvoker;
 		}
 
 		@Override
@@ -693,10 +767,8 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 		@Override
 		public TypedValue read(EvaluationContext context, @Nullable Object target, String name) throws AccessException {
 			if (this.member instanceof Method) {
-				Method method = (Method) this.member;
 				try {
-					ReflectionUtils.makeAccessible(method);
-					Object value = method.invoke(target);
+					Object value = readValue(this.member, target, this.propertyInvoker);
 					return new TypedValue(value, this.typeDescriptor.narrow(value));
 				}
 				catch (Exception ex) {
@@ -704,10 +776,8 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				}
 			}
 			else {
-				Field field = (Field) this.member;
 				try {
-					ReflectionUtils.makeAccessible(field);
-					Object value = field.get(target);
+					Object value = readValue(this.member, target, this.propertyInvoker);
 					return new TypedValue(value, this.typeDescriptor.narrow(value));
 				}
 				catch (Exception ex) {
@@ -765,8 +835,11 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 			}
 
 			if (this.member instanceof Method) {
-				mv.visitMethodInsn((isStatic ? INVOKESTATIC : INVOKEVIRTUAL), classDesc, this.member.getName(),
-						CodeFlow.createSignatureDescriptor((Method) this.member), false);
+				// The getter may have been resolved on a public interface, e.g. Map.Entry
+				boolean isInterface = this.member.getDeclaringClass().isInterface();
+				int opcode = (isStatic ? INVOKESTATIC : isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL);
+				mv.visitMethodInsn(opcode, classDesc, this.member.getName(),
+						CodeFlow.createSignatureDescriptor((Method) this.member), isInterface);
 			}
 			else {
 				mv.visitFieldInsn((isStatic ? GETSTATIC : GETFIELD), classDesc, this.member.getName(),
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,9 +20,11 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -441,6 +443,134 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 		assertEquals("op", o);
 	}
 
+	@Test
+	public void inlineMap() throws Exception {
+		expression = parser.parseExpression("{'a':1,b:{'c':'d'},'e':{1,2}}");
+		Map<?, ?> m = (Map) expression.getValue();
+		assertEquals("{a=1, b={c=d}, e=[1, 2]}", m.toString());
+		assertCanCompile(expression);
+		m = (Map) expression.getValue();
+		assertEquals("{a=1, b={c=d}, e=[1, 2]}", m.toString());
+		try {
+			m.clear();
+			fail("Should have thrown UnsupportedOperationException");
+		}
+		catch (UnsupportedOperationException ex) {
+			// expected
+		}
+
+		expression = parser.parseExpression("{'a':1,'b':2}['b']");
+		assertEquals(2, expression.getValue());
+		assertCanCompile(expression);
+		assertEquals(2, expression.getValue());
+
+		expression = parser.parseExpression("{'length':length(),'upper':toUpperCase()}");
+		assertEquals("{length=3, upper=ABC}", expression.getValue("abc").toString());
+		assertCanCompile(expression);
+		assertEquals("{length=5, upper=ABCDE}", expression.getValue("abcde").toString());
+	}
+
+	@Test
+	public void selection() throws Exception {
+		List<Integer> numbers = Arrays.asList(1, 2, 3, 4, 5, 6);
+
+		expression = parser.parseExpression("?[#this>3]");
+		assertEquals("[4, 5, 6]", expression.getValue(numbers).toString());
+		assertCanCompile(expression);
+		assertEquals("[4, 5, 6]", expression.getValue(numbers).toString());
+
+		expression = parser.parseExpression("^[#this>3]");
+		assertEquals(4, expression.getValue(numbers));
+		assertCanCompile(expression);
+		assertEquals(4, expression.getValue(numbers));
+		assertNull(expression.getValue(Arrays.asList(1, 2)));
+
+		expression = parser.parseExpression("$[#this>3]");
+		assertEquals(6, expression.getValue(numbers));
+		assertCanCompile(expression);
+		assertEquals(6, expression.getValue(numbers));
+		assertNull(expression.getValue(Arrays.asList(1, 2)));
+
+		expression = parser.parseExpression("?[length()>3].size()");
+		List<String> strings = Arrays.asList("a", "abcd", "abcde");
+		assertEquals(2, expression.getValue(strings));
+		assertCanCompile(expression);
+		assertEquals(2, expression.getValue(strings));
+
+		expression = parser.parseExpression("#root?.?[#this>3]");
+		assertEquals("[4, 5, 6]", expression.getValue(numbers).toString());
+		assertCanCompile(expression);
+		assertEquals("[4, 5, 6]", expression.getValue(numbers).toString());
+		assertNull(expression.getValue((Object) null));
+
+		// Selection on a map is not compiled
+		expression = parser.parseExpression("?[value>1]");
+		Map<String, Integer> map = new HashMap<>();
+		map.put("a", 1);
+		map.put("b", 2);
+		assertEquals("{b=2}", expression.getValue(map).toString());
+		assertCantCompile(expression);
+	}
+
+	@Test
+	public void projection() throws Exception {
+		List<Integer> numbers = Arrays.asList(1, 2, 3);
+
+		expression = parser.parseExpression("![#this*2]");
+		assertEquals("[2, 4, 6]", expression.getValue(numbers).toString());
+		assertCanCompile(expression);
+		assertEquals("[2, 4, 6]", expression.getValue(numbers).toString());
+
+		expression = parser.parseExpression("?[#this>1].![#this*2]");
+		assertEquals("[4, 6]", expression.getValue(numbers).toString());
+		assertCanCompile(expression);
+		assertEquals("[4, 6]", expression.getValue(numbers).toString());
+
+		Map<String, Integer> map = new LinkedHashMap<>();
+		map.put("a", 1);
+		map.put("b", 2);
+		expression = parser.parseExpression("entrySet().![key]");
+		assertEquals("[a, b]", expression.getValue(map).toString());
+		assertCanCompile(expression);
+		assertEquals("[a, b]", expression.getValue(map).toString());
+
+		expression = parser.parseExpression("![#this]");
+		List<Object> mixed = Arrays.asList(1, "a");
+		assertEquals("[1, a]", expression.getValue(mixed).toString());
+		assertCanCompile(expression);
+		assertEquals("[1, a]", expression.getValue(mixed).toString());
+	}
+
+	@Test
+	public void methodReferenceThroughInterface() throws Exception {
+		List<String> strings = Collections.unmodifiableList(Arrays.asList("a", "b"));
+		expression = parser.parseExpression("size()");
+		assertEquals(2, expression.getValue(strings));
+		assertCanCompile(expression);
+		assertEquals(2, expression.getValue(strings));
+
+		expression = parser.parseExpression("iterator().next()");
+		assertEquals("a", expression.getValue(strings));
+		assertCanCompile(expression);
+		assertEquals("a", expression.getValue(strings));
+	}
+
+	@Test
+	public void indexIntoStringAndListWithBoxedIndex() throws Exception {
+		expression = parser.parseExpression("'abc'[1]");
+		assertEquals("b", expression.getValue());
+		assertCanCompile(expression);
+		assertEquals("b", expression.getValue());
+
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.setVariable("list", Arrays.asList("a", "b", "c"));
+		context.setVariable("i", 2);
+		expression = parser.parseExpression("#list[#i]");
+		assertEquals("c", expression.getValue(context));
+		assertCanCompile(expression);
+		assertEquals("c", expression.getValue(context));
+	}
+
 	@Test
 	public void intLiteral() throws Exception {
 		expression = parser.parseExpression("42");
@@ -1023,7 +1153,7 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 
 		expression = parser.parseExpression("#negate(#ints.?[#this<2][0])");
 		assertEquals("-1", expression.getValue(context, Integer.class).toString());
-		// Selection isn't compilable.
+		// Selection on an array isn't compilable.
 		assertFalse(((SpelNodeImpl)((SpelExpression) expression).getAST()).isCompilable());
 	}
 
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.standard;
+
+import org.junit.Test;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CachingExpressionParser}.
+ *
+ * @author Spring Framework Team
+ */
+public class CachingExpressionParserTests {
+
+	@Test
+	public void cachesParsedExpressions() {
+		CachingExpressionParser parser = new CachingExpressionParser(new SpelExpressionParser());
+		Expression expression = parser.parseExpression("1 + 2");
+		assertSame(expression, parser.parseExpression("1 + 2"));
+		assertNotSame(expression, parser.parseExpression("1 + 3"));
+		assertEquals(3, expression.getValue());
+		assertEquals(1, parser.getHitCount());
+		assertEquals(2, parser.getMissCount());
+		assertEquals(2, parser.getCacheSize());
+		assertEquals(1.0 / 3, parser.getHitRatio(), 0.001);
+	}
+
+	@Test
+	public void distinguishesParserContexts() {
+		CachingExpressionParser parser = new CachingExpressionParser(new SpelExpressionParser());
+		Expression plain = parser.parseExpression("#{1 + 2}", ParserContext.TEMPLATE_EXPRESSION);
+		Expression custom = parser.parseExpression("#{1 + 2}", new TemplateParserContext("#{", "}"));
+		Expression otherPrefix = parser.parseExpression("#{1 + 2}", new TemplateParserContext("${", "}"));
+		assertSame(plain, custom);
+		assertNotSame(plain, otherPrefix);
+		assertEquals(3, plain.getValue());
+		assertEquals("#{1 + 2}", otherPrefix.getValue());
+
+		Expression raw = parser.parseExpression("'a'");
+		assertSame(raw, parser.parseExpression("'a'", new ParserContext() {
+			@Override
+			public boolean isTemplate() {
+				return false;
+			}
+			@Override
+			public String getExpressionPrefix() {
+				return "#{";
+			}
+			@Override
+			public String getExpressionSuffix() {
+				return "}";
+			}
+		}));
+	}
+
+	@Test
+	public void evictsExpressionsBeyondLimit() {
+		CachingExpressionParser parser = new CachingExpressionParser(new SpelExpressionParser(), 2);
+		parser.parseExpression("1");
+		parser.parseExpression("2");
+		parser.parseExpression("3");
+		assertEquals(2, parser.getCacheSize());
+		assertEquals(1, parser.getEvictionCount());
+
+		parser.clearCache();
+		assertEquals(0, parser.getCacheSize());
+		assertEquals(3, parser.getMissCount());
+	}
+
+	@Test
+	public void noCachingWithZeroLimit() {
+		CachingExpressionParser parser = new CachingExpressionParser(new SpelExpressionParser(), 0);
+		assertNotSame(parser.parseExpression("1"), parser.parseExpression("1"));
+		assertEquals(0, parser.getCacheSize());
+	}
+
+	@Test
+	public void parseExceptionIsNotCached() {
+		CachingExpressionParser parser = new CachingExpressionParser(new SpelExpressionParser());
+		for (int i = 0; i < 2; i++) {
+			try {
+				parser.parseExpression("1 +");
+				fail("Should have thrown ParseException");
+			}
+			catch (ParseException ex) {
+				// expected
+			}
+		}
+		assertEquals(0, parser.getCacheSize());
+		assertEquals(2, parser.getMissCount());
+	}
+
+	@Test
+	public void cachedExpressionRetainsCompiledState() {
+		SpelParserConfiguration configuration = new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, null);
+		CachingExpressionParser parser = new CachingExpressionParser(new SpelExpressionParser(configuration));
+		SpelExpression expression = (SpelExpression) parser.parseExpression("'abc'.length()");
+		assertEquals(3, expression.getValue());
+		assertTrue(expression.compileExpression());
+		SpelExpression cached = (SpelExpression) parser.parseExpression("'abc'.length()");
+		assertSame(expression, cached);
+		assertEquals(3, cached.getValue());
+	}
+
+	@Test
+	public void sharedInstance() {
+		CachingExpressionParser parser = CachingExpressionParser.getSharedInstance();
+		assertSame(parser, CachingExpressionParser.getSharedInstance());
+		assertTrue(parser.getParser() instanceof SpelExpressionParser);
+		assertSame(parser.parseExpression("'shared'"), parser.parseExpression("'shared'"));
+	}
+
+}
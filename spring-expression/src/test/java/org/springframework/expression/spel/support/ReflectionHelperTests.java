@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -402,6 +402,69 @@ public class ReflectionHelperTests extends AbstractExpressionTests {
 		}
 	}
 
+	@Test
+	public void testReflectivePropertyAccessorWithGeneratedInvokers() throws Exception {
+		ReflectivePropertyAccessor rpa = new ReflectivePropertyAccessor();
+		rpa.setUseGeneratedInvokers(true);
+		assertTrue(rpa.isUseGeneratedInvokers());
+		PublicTester t = new PublicTester();
+		EvaluationContext ctx = new StandardEvaluationContext(t);
+
+		assertEquals("hello", rpa.read(ctx, t, "property").getValue());
+		rpa.write(ctx, t, "property", "goodbye");
+		assertEquals("goodbye", rpa.read(ctx, t, "property").getValue());
+
+		assertEquals(1, rpa.read(ctx, t, "count").getValue());
+		rpa.write(ctx, t, "count", 5);
+		assertEquals(5, rpa.read(ctx, t, "count").getValue());
+		rpa.write(ctx, t, "total", 7L);
+		assertEquals(7L, rpa.read(ctx, t, "total").getValue());
+		assertEquals(true, rpa.read(ctx, t, "active").getValue());
+
+		assertEquals(3, rpa.read(ctx, t, "field").getValue());
+		rpa.write(ctx, t, "field", 12);
+		assertEquals(12, rpa.read(ctx, t, "field").getValue());
+		assertEquals("final", rpa.read(ctx, t, "finalField").getValue());
+
+		PublicTester.staticField = "static";
+		assertEquals("static", rpa.read(ctx, PublicTester.class, "staticField").getValue());
+		rpa.write(ctx, PublicTester.class, "staticField", "changed");
+		assertEquals("changed", PublicTester.staticField);
+
+		PropertyAccessor optA = rpa.createOptimalAccessor(ctx, t, "property");
+		assertEquals("goodbye", optA.read(ctx, t, "property").getValue());
+		optA = rpa.createOptimalAccessor(ctx, t, "field");
+		assertEquals(12, optA.read(ctx, t, "field").getValue());
+
+		// Non-public types are still accessed through reflection
+		Tester tester = new Tester();
+		tester.setProperty("hello");
+		assertEquals("hello", rpa.read(ctx, tester, "property").getValue());
+		rpa.write(ctx, tester, "field", 4);
+		assertEquals(4, rpa.read(ctx, tester, "field").getValue());
+	}
+
+	@Test
+	public void testPropertyInvokerGenerator() throws Exception {
+		Method getter = PublicTester.class.getMethod("getProperty");
+		PropertyInvoker reader = PropertyInvokerGenerator.getReadInvoker(getter);
+		assertNotNull(reader);
+		assertSame(reader, PropertyInvokerGenerator.getReadInvoker(getter));
+		assertNotNull(PropertyInvokerGenerator.getWriteInvoker(PublicTester.class.getMethod("setProperty", String.class)));
+		assertNull(PropertyInvokerGenerator.getWriteInvoker(PublicTester.class.getField("finalField")));
+		assertNull(PropertyInvokerGenerator.getReadInvoker(Tester.class.getMethod("getProperty")));
+
+		PublicTester t = new PublicTester();
+		assertEquals("hello", reader.read(t));
+		try {
+			reader.write(t, "goodbye");
+			fail();
+		}
+		catch (UnsupportedOperationException uoe) {
+			// success
+		}
+	}
+
 
 	/**
 	 * Used to validate the match returned from a compareArguments call.
@@ -489,6 +552,36 @@ public class ReflectionHelperTests extends AbstractExpressionTests {
 	}
 
 
+	public static class PublicTester {
+
+		public static String staticField;
+
+		public int field = 3;
+
+		public final String finalField = "final";
+
+		private String property = "hello";
+
+		private int count = 1;
+
+		private long total;
+
+		public String getProperty() { return property; }
+
+		public void setProperty(String property) { this.property = property; }
+
+		public int getCount() { return count; }
+
+		public void setCount(int count) { this.count = count; }
+
+		public long getTotal() { return total; }
+
+		public PublicTester setTotal(long total) { this.total = total; return this; }
+
+		public boolean isActive() { return true; }
+	}
+
+
 	static class Tester {
 
 		String property;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,9 +18,18 @@ package org.springframework.http;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.List;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
 /**
  * Sub-interface of {@code ReactiveOutputMessage} that has support for "zero-copy"
  * file transfers.
@@ -55,4 +64,32 @@ public interface ZeroCopyHttpOutputMessage extends ReactiveHttpOutputMessage {
 	 */
 	Mono<Void> writeWith(Path file, long position, long count);
 
+	/**
+	 * Use the given regions of file-based resources, each preceded by the data
+	 * buffer at the same index of the given prefixes, and followed by the given
+	 * suffix, to write the body of the message to the underlying HTTP layer,
+	 * e.g. for a {@code multipart/byteranges} response.
+	 * <p>The default implementation reads the regions into data buffers and
+	 * writes them via {@link #writeWith(org.reactivestreams.Publisher)}.
+	 * Implementations are encouraged to transfer the regions zero-copy instead.
+	 * @param regions the file regions to transfer
+	 * @param prefixes the data buffers to write before each region
+	 * @param suffix the data buffer to write after the last region, if any
+	 * @return a publisher that indicates completion or error.
+	 * @since 5.1.14
+	 */
+	default Mono<Void> writeWith(List<ResourceRegion> regions, List<? extends DataBuffer> prefixes,
+			@Nullable DataBuffer suffix) {
+
+		Assert.isTrue(regions.size() == prefixes.size(), "Expected one prefix per region");
+		Flux<DataBuffer> body = Flux.range(0, regions.size()).concatMap(index -> {
+			ResourceRegion region = regions.get(index);
+			Flux<DataBuffer> content = DataBufferUtils.read(
+					region.getResource(), region.getPosition(), bufferFactory(), StreamUtils.BUFFER_SIZE);
+			return Flux.concat(Mono.just(prefixes.get(index)),
+					DataBufferUtils.takeUntilByteCount(content, region.getCount()));
+		});
+		return writeWith(suffix != null ? body.concatWithValues(suffix) : body);
+	}
+
 }
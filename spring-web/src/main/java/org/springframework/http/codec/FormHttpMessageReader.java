@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,6 +30,7 @@ import reactor.core.publisher.Mono;
 
 import org.springframework.core.ResolvableType;
 import org.springframework.core.codec.Hints;
+import org.springframework.core.io.buffer.CompositeDataBuffer;
 import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.log.LogFormatUtils;
@@ -130,7 +131,8 @@ public class FormHttpMessageReader extends LoggingCodecSupport
 
 		return DataBufferUtils.join(message.getBody(), getMaxInMemorySize())
 				.map(buffer -> {
-					CharBuffer charBuffer = charset.decode(buffer.asByteBuffer());
+					CharBuffer charBuffer = (buffer instanceof CompositeDataBuffer ?
+							((CompositeDataBuffer) buffer).decode(charset) : charset.decode(buffer.asByteBuffer()));
 					String body = charBuffer.toString();
 					DataBufferUtils.release(buffer);
 					MultiValueMap<String, String> formData = parseFormData(charset, body);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,8 @@ package org.springframework.http.codec;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -92,6 +94,22 @@ public class ResourceHttpMessageWriter implements HttpMessageWriter<Resource> {
 	}
 
 
+	/**
+	 * Set the maximum size of memory-mapped file regions, for writing the content
+	 * of file-based resources and resource regions without copying it into
+	 * buffers. This applies where zero-copy transfer is not available, e.g. on
+	 * Servlet containers and Undertow.
+	 * <p>By default, this is 0, i.e. file content is not mapped.
+	 * @since 5.1.14
+	 * @see ResourceEncoder#setMappedRegionSize
+	 * @see ResourceRegionEncoder#setMappedRegionSize
+	 */
+	public void setMappedRegionSize(int mappedRegionSize) {
+		this.encoder.setMappedRegionSize(mappedRegionSize);
+		this.regionEncoder.setMappedRegionSize(mappedRegionSize);
+	}
+
+
 	@Override
 	public boolean canWrite(ResolvableType elementType, @Nullable MediaType mediaType) {
 		return this.encoder.canEncode(elementType, mediaType);
@@ -226,8 +244,12 @@ public class ResourceHttpMessageWriter implements HttpMessageWriter<Resource> {
 				String boundary = MimeTypeUtils.generateMultipartBoundaryString();
 				MediaType multipartType = MediaType.parseMediaType("multipart/byteranges;boundary=" + boundary);
 				headers.setContentType(multipartType);
-				Map<String, Object> allHints = Hints.merge(hints, ResourceRegionEncoder.BOUNDARY_STRING_HINT, boundary);
-				return encodeAndWriteRegions(Flux.fromIterable(regions), resourceMediaType, response, allHints);
+				return zeroCopyRegions(regions, resourceMediaType, boundary, response, hints)
+						.orElseGet(() -> {
+							Map<String, Object> allHints =
+									Hints.merge(hints, ResourceRegionEncoder.BOUNDARY_STRING_HINT, boundary);
+							return encodeAndWriteRegions(Flux.fromIterable(regions), resourceMediaType, response, allHints);
+						});
 			}
 		});
 	}
@@ -243,6 +265,39 @@ public class ResourceHttpMessageWriter implements HttpMessageWriter<Resource> {
 				});
 	}
 
+	private static Optional<Mono<Void>> zeroCopyRegions(List<ResourceRegion> regions, MediaType mediaType,
+			String boundary, ReactiveHttpOutputMessage message, Map<String, Object> hints) {
+
+		if (!(message instanceof ZeroCopyHttpOutputMessage)) {
+			return Optional.empty();
+		}
+		for (ResourceRegion region : regions) {
+			if (!region.getResource().isFile()) {
+				return Optional.empty();
+			}
+		}
+		DataBufferFactory factory = message.bufferFactory();
+		List<DataBuffer> prefixes = new ArrayList<>(regions.size());
+		long contentLength = 0;
+		for (ResourceRegion region : regions) {
+			long start = region.getPosition();
+			long end = start + region.getCount() - 1;
+			long resourceLength = lengthOf(region.getResource());
+			byte[] prefix = ("\r\n--" + boundary + "\r\n" + "Content-Type: " + mediaType + "\r\n" +
+					"Content-Range: bytes " + start + '-' + end + (resourceLength != -1 ? "/" + resourceLength : "") +
+					"\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+			prefixes.add(factory.wrap(prefix));
+			contentLength += prefix.length + region.getCount();
+		}
+		byte[] suffix = ("\r\n--" + boundary + "--").getBytes(StandardCharsets.US_ASCII);
+		message.getHeaders().setContentLength(contentLength + suffix.length);
+		if (logger.isDebugEnabled()) {
+			logger.debug(Hints.getLogPrefix(hints) + "Zero-copy " + regions.size() + " regions of [" +
+					regions.get(0).getResource() + "]");
+		}
+		return Optional.of(((ZeroCopyHttpOutputMessage) message).writeWith(regions, prefixes, factory.wrap(suffix)));
+	}
+
 	private Mono<Void> encodeAndWriteRegions(Publisher<? extends ResourceRegion> publisher,
 			@Nullable MediaType mediaType, ReactiveHttpOutputMessage message, Map<String, Object> hints) {
 
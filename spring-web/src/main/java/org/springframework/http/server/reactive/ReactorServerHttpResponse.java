@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,9 @@
 
 package org.springframework.http.server.reactive;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import io.netty.buffer.ByteBuf;
@@ -27,11 +29,14 @@ import reactor.netty.http.server.HttpServerResponse;
 
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
 /**
@@ -104,6 +109,38 @@ class ReactorServerHttpResponse extends AbstractServerHttpResponse implements Ze
 		return doCommit(() -> this.response.sendFile(file, position, count).then());
 	}
 
+	@Override
+	public Mono<Void> writeWith(List<ResourceRegion> regions, List<? extends DataBuffer> prefixes,
+			@Nullable DataBuffer suffix) {
+
+		Assert.isTrue(regions.size() == prefixes.size(), "Expected one prefix per region");
+		List<Path> files = new ArrayList<>(regions.size());
+		try {
+			for (ResourceRegion region : regions) {
+				files.add(region.getResource().getFile().toPath());
+			}
+		}
+		catch (IOException ex) {
+			prefixes.forEach(DataBufferUtils::release);
+			DataBufferUtils.release(suffix);
+			return Mono.error(ex);
+		}
+		return doCommit(() -> {
+			// Concatenate separate sends, rather than chaining them on NettyOutbound,
+			// and send Flux rather than Mono for the first prefix to not be sent as a full response
+			List<Mono<Void>> sends = new ArrayList<>(regions.size() * 2 + 1);
+			for (int i = 0; i < regions.size(); i++) {
+				ResourceRegion region = regions.get(i);
+				sends.add(this.response.send(Flux.just(NettyDataBufferFactory.toByteBuf(prefixes.get(i)))).then());
+				sends.add(this.response.sendFile(files.get(i), region.getPosition(), region.getCount()).then());
+			}
+			if (suffix != null) {
+				sends.add(this.response.send(Flux.just(NettyDataBufferFactory.toByteBuf(suffix))).then());
+			}
+			return Flux.concat(sends).then();
+		});
+	}
+
 	private Publisher<ByteBuf> toByteBufs(Publisher<? extends DataBuffer> dataBuffers) {
 		return dataBuffers instanceof Mono ?
 				Mono.from(dataBuffers).map(NettyDataBufferFactory::toByteBuf) :
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -109,6 +109,13 @@ public class ServletHttpHandlerAdapter implements Servlet {
 		return this.servletPath;
 	}
 
+	/**
+	 * Set the {@link DataBufferFactory} to use for reading the request body
+	 * and writing the response body.
+	 * <p>By default, an unpooled {@link DefaultDataBufferFactory} is used.
+	 * Consider a {@link org.springframework.core.io.buffer.PooledDataBufferFactory}
+	 * for recycling buffer memory across requests.
+	 */
 	public void setDataBufferFactory(DataBufferFactory dataBufferFactory) {
 		Assert.notNull(dataBufferFactory, "DataBufferFactory must not be null");
 		this.dataBufferFactory = dataBufferFactory;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -54,6 +54,13 @@ public class UndertowHttpHandlerAdapter implements io.undertow.server.HttpHandle
 	}
 
 
+	/**
+	 * Set the {@link DataBufferFactory} to use for writing the response body.
+	 * The request body is read from Undertow's own pooled buffers.
+	 * <p>By default, an unpooled {@link DefaultDataBufferFactory} is used.
+	 * Consider a {@link org.springframework.core.io.buffer.PooledDataBufferFactory}
+	 * for recycling buffer memory across requests.
+	 */
 	public void setDataBufferFactory(DataBufferFactory bufferFactory) {
 		Assert.notNull(bufferFactory, "DataBufferFactory must not be null");
 		this.bufferFactory = bufferFactory;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,9 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.Cookie;
@@ -34,6 +37,7 @@ import reactor.core.publisher.MonoSink;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
@@ -123,24 +127,44 @@ class UndertowServerHttpResponse extends AbstractListenerServerHttpResponse impl
 
 	@Override
 	public Mono<Void> writeWith(Path file, long position, long count) {
-		return doCommit(() ->
-				Mono.create(sink -> {
-					try {
-						FileChannel source = FileChannel.open(file, StandardOpenOption.READ);
+		return doCommit(() -> transfer(Collections.singletonList(new FileSegment(file, position, count))));
+	}
 
-						TransferBodyListener listener = new TransferBodyListener(source, position,
-								count, sink);
-						sink.onDispose(listener::closeSource);
+	@Override
+	public Mono<Void> writeWith(List<ResourceRegion> regions, List<? extends DataBuffer> prefixes,
+			@Nullable DataBuffer suffix) {
+
+		Assert.isTrue(regions.size() == prefixes.size(), "Expected one prefix per region");
+		List<TransferSegment> segments = new ArrayList<>(regions.size() * 2 + 1);
+		try {
+			for (int i = 0; i < regions.size(); i++) {
+				ResourceRegion region = regions.get(i);
+				segments.add(new BufferSegment(prefixes.get(i)));
+				segments.add(new FileSegment(
+						region.getResource().getFile().toPath(), region.getPosition(), region.getCount()));
+			}
+		}
+		catch (IOException ex) {
+			prefixes.forEach(DataBufferUtils::release);
+			DataBufferUtils.release(suffix);
+			return Mono.error(ex);
+		}
+		if (suffix != null) {
+			segments.add(new BufferSegment(suffix));
+		}
+		return doCommit(() -> transfer(segments));
+	}
 
-						StreamSinkChannel destination = this.exchange.getResponseChannel();
-						destination.getWriteSetter().set(listener::transfer);
+	private Mono<Void> transfer(List<TransferSegment> segments) {
+		return Mono.create(sink -> {
+			TransferBodyListener listener = new TransferBodyListener(segments, sink);
+			sink.onDispose(listener::close);
 
-						listener.transfer(destination);
-					}
-					catch (IOException ex) {
-						sink.error(ex);
-					}
-				}));
+			StreamSinkChannel destination = this.exchange.getResponseChannel();
+			destination.getWriteSetter().set(listener::transfer);
+
+			listener.transfer(destination);
+		});
 	}
 
 	@Override
@@ -305,52 +329,136 @@ class UndertowServerHttpResponse extends AbstractListenerServerHttpResponse impl
 
 	private static class TransferBodyListener {
 
-		private final FileChannel source;
+		private final List<TransferSegment> segments;
 
 		private final MonoSink<Void> sink;
 
-		private long position;
-
-		private long count;
+		private int index;
 
 
-		public TransferBodyListener(FileChannel source, long position, long count, MonoSink<Void> sink) {
-			this.source = source;
+		public TransferBodyListener(List<TransferSegment> segments, MonoSink<Void> sink) {
+			this.segments = segments;
 			this.sink = sink;
-			this.position = position;
-			this.count = count;
 		}
 
 		public void transfer(StreamSinkChannel destination) {
 			try {
-				while (this.count > 0) {
-					long len = destination.transferFrom(this.source, this.position, this.count);
-					if (len != 0) {
-						this.position += len;
-						this.count -= len;
-					}
-					else {
+				while (this.index < this.segments.size()) {
+					TransferSegment segment = this.segments.get(this.index);
+					if (!segment.transferTo(destination)) {
 						destination.resumeWrites();
 						return;
 					}
+					segment.close();
+					this.index++;
 				}
 				this.sink.success();
 			}
 			catch (IOException ex) {
 				this.sink.error(ex);
 			}
-
 		}
 
-		public void closeSource() {
-			try {
-				this.source.close();
+		public void close() {
+			for (int i = this.index; i < this.segments.size(); i++) {
+				this.segments.get(i).close();
 			}
-			catch (IOException ignore) {
+		}
+	}
+
+
+	/**
+	 * Part of a response body written through a {@link TransferBodyListener}.
+	 */
+	private interface TransferSegment {
+
+		/**
+		 * Write as much as possible to the given channel.
+		 * @return {@code true} if completely written, {@code false} if the
+		 * channel cannot accept more data at present
+		 */
+		boolean transferTo(StreamSinkChannel destination) throws IOException;
+
+		/**
+		 * Release the resources held by this segment.
+		 */
+		void close();
+	}
+
+
+	private static class BufferSegment implements TransferSegment {
+
+		private final DataBuffer dataBuffer;
+
+		private final ByteBuffer byteBuffer;
+
+		public BufferSegment(DataBuffer dataBuffer) {
+			this.dataBuffer = dataBuffer;
+			this.byteBuffer = dataBuffer.asByteBuffer();
+		}
+
+		@Override
+		public boolean transferTo(StreamSinkChannel destination) throws IOException {
+			while (this.byteBuffer.hasRemaining()) {
+				if (destination.write(this.byteBuffer) == 0) {
+					return false;
+				}
 			}
+			return true;
+		}
+
+		@Override
+		public void close() {
+			DataBufferUtils.release(this.dataBuffer);
+		}
+	}
+
+
+	private static class FileSegment implements TransferSegment {
+
+		private final Path file;
+
+		private long position;
+
+		private long count;
+
+		@Nullable
+		private FileChannel source;
+
+		public FileSegment(Path file, long position, long count) {
+			this.file = file;
+			this.position = position;
+			this.count = count;
 		}
 
+		@Override
+		public boolean transferTo(StreamSinkChannel destination) throws IOException {
+			FileChannel source = this.source;
+			if (source == null) {
+				source = FileChannel.open(this.file, StandardOpenOption.READ);
+				this.source = source;
+			}
+			while (this.count > 0) {
+				long len = destination.transferFrom(source, this.position, this.count);
+				if (len == 0) {
+					return false;
+				}
+				this.position += len;
+				this.count -= len;
+			}
+			return true;
+		}
 
+		@Override
+		public void close() {
+			if (this.source != null) {
+				try {
+					this.source.close();
+				}
+				catch (IOException ignore) {
+				}
+			}
+		}
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,16 +18,21 @@ package org.springframework.http.server.reactive;
 
 import java.io.File;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 
 import org.junit.Test;
 import reactor.core.publisher.Mono;
 
+import org.springframework.core.ResolvableType;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.codec.ResourceHttpMessageWriter;
 import org.springframework.http.server.reactive.bootstrap.ReactorHttpServer;
 import org.springframework.http.server.reactive.bootstrap.UndertowHttpServer;
 import org.springframework.web.client.RestTemplate;
@@ -66,11 +71,40 @@ public class ZeroCopyIntegrationTests extends AbstractHttpHandlerIntegrationTest
 		assertEquals(MediaType.IMAGE_PNG, response.getHeaders().getContentType());
 	}
 
+	@Test
+	public void zeroCopyByteRanges() throws Exception {
+		URI url = new URI("http://localhost:" + port + "/ranges");
+		RequestEntity<?> request = RequestEntity.get(url).header("Range", "bytes=0-5,7-15").build();
+		ResponseEntity<byte[]> response = new RestTemplate().exchange(request, byte[].class);
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+		assertEquals("multipart", response.getHeaders().getContentType().getType());
+		String body = new String(response.getBody(), StandardCharsets.US_ASCII);
+		String boundary = response.getHeaders().getContentType().getParameter("boundary");
+		assertEquals("\r\n--" + boundary + "\r\n" +
+				"Content-Type: text/plain\r\n" +
+				"Content-Range: bytes 0-5/39\r\n\r\n" +
+				"Spring" +
+				"\r\n--" + boundary + "\r\n" +
+				"Content-Type: text/plain\r\n" +
+				"Content-Range: bytes 7-15/39\r\n\r\n" +
+				"Framework" +
+				"\r\n--" + boundary + "--", body);
+		if (response.getHeaders().getContentLength() != -1) {
+			assertEquals(response.getBody().length, response.getHeaders().getContentLength());
+		}
+	}
+
 
 	private static class ZeroCopyHandler implements HttpHandler {
 
 		@Override
 		public Mono<Void> handle(ServerHttpRequest request, ServerHttpResponse response) {
+			if (request.getURI().getPath().equals("/ranges")) {
+				Resource resource = new ClassPathResource("byteranges.txt", ZeroCopyIntegrationTests.class);
+				return new ResourceHttpMessageWriter().write(Mono.just(resource), null,
+						ResolvableType.forClass(Resource.class), null, request, response, Collections.emptyMap());
+			}
 			try {
 				ZeroCopyHttpOutputMessage zeroCopyResponse = (ZeroCopyHttpOutputMessage) response;
 				Resource logo = new ClassPathResource("spring.png", ZeroCopyIntegrationTests.class);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -51,6 +51,9 @@ public class PathMatchConfigurer {
 	@Nullable
 	private Boolean registeredSuffixPatternMatch;
 
+	@Nullable
+	private Boolean pathSegmentIndex;
+
 	@Nullable
 	private UrlPathHelper urlPathHelper;
 
@@ -96,6 +99,20 @@ public class PathMatchConfigurer {
 		return this;
 	}
 
+	/**
+	 * Whether to index pattern mappings by the leading literal segments of
+	 * their URL patterns, so that a lookup only evaluates the mappings whose
+	 * literal prefix matches the request path. Recommended for applications
+	 * with a large number of pattern mappings.
+	 * <p>By default this is set to "false".
+	 * @since 5.1.14
+	 * @see org.springframework.web.servlet.handler.AbstractHandlerMethodMapping#setUsePathSegmentIndex
+	 */
+	public PathMatchConfigurer setUsePathSegmentIndex(Boolean pathSegmentIndex) {
+		this.pathSegmentIndex = pathSegmentIndex;
+		return this;
+	}
+
 	/**
 	 * Set the UrlPathHelper to use for resolution of lookup paths.
 	 * <p>Use this to override the default UrlPathHelper with a custom subclass,
@@ -152,6 +169,11 @@ public class PathMatchConfigurer {
 		return this.registeredSuffixPatternMatch;
 	}
 
+	@Nullable
+	public Boolean isUsePathSegmentIndex() {
+		return this.pathSegmentIndex;
+	}
+
 	@Nullable
 	public UrlPathHelper getUrlPathHelper() {
 		return this.urlPathHelper;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -293,6 +293,10 @@ public class WebMvcConfigurationSupport implements ApplicationContextAware, Serv
 		if (useTrailingSlashMatch != null) {
 			mapping.setUseTrailingSlashMatch(useTrailingSlashMatch);
 		}
+		Boolean usePathSegmentIndex = configurer.isUsePathSegmentIndex();
+		if (usePathSegmentIndex != null) {
+			mapping.setUsePathSegmentIndex(usePathSegmentIndex);
+		}
 
 		UrlPathHelper pathHelper = configurer.getUrlPathHelper();
 		if (pathHelper != null) {
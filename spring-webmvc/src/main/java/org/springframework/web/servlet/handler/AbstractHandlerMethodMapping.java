@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,7 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -92,6 +92,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 	private boolean detectHandlerMethodsInAncestorContexts = false;
 
+	private boolean usePathSegmentIndex = false;
+
 	@Nullable
 	private HandlerMethodMappingNamingStrategy<T> namingStrategy;
 
@@ -111,6 +113,34 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		this.detectHandlerMethodsInAncestorContexts = detectHandlerMethodsInAncestorContexts;
 	}
 
+	/**
+	 * Whether to index pattern mappings by the leading literal segments of their
+	 * URL path patterns, so that a lookup which is not a direct URL match only
+	 * evaluates the mappings whose literal prefix matches the lookup path,
+	 * rather than every registered mapping.
+	 * <p>Default is "false". Switch this flag on for applications with a large
+	 * number of pattern mappings. The index assumes that the patterns returned
+	 * from {@link #getMappingPathPatterns} are matched with the configured
+	 * {@link #getPathMatcher() PathMatcher} using "/" as path separator, and
+	 * that mappings without any pattern match every path.
+	 * <p>This flag may also be changed once handler methods are registered,
+	 * in which case the index gets built or dropped on the next lookup.
+	 * @since 5.1.14
+	 * @see PathSegmentIndex
+	 */
+	public void setUsePathSegmentIndex(boolean usePathSegmentIndex) {
+		this.usePathSegmentIndex = usePathSegmentIndex;
+		this.mappingRegistry.discardSnapshot();
+	}
+
+	/**
+	 * Whether pattern mappings are indexed by their leading path segments.
+	 * @since 5.1.14
+	 */
+	public boolean usePathSegmentIndex() {
+		return this.usePathSegmentIndex;
+	}
+
 	/**
 	 * Configure the naming strategy to use for assigning a default name to every
 	 * mapped handler method.
@@ -132,15 +162,11 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 	/**
 	 * Return a (read-only) map with all mappings and HandlerMethod's.
+	 * <p>As of 5.1.14, the returned map is a snapshot of the registrations
+	 * at the time of the call and does not reflect subsequent changes.
 	 */
 	public Map<T, HandlerMethod> getHandlerMethods() {
-		this.mappingRegistry.acquireReadLock();
-		try {
-			return Collections.unmodifiableMap(this.mappingRegistry.getMappings());
-		}
-		finally {
-			this.mappingRegistry.releaseReadLock();
-		}
+		return this.mappingRegistry.getMappings();
 	}
 
 	/**
@@ -361,14 +387,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	@Override
 	protected HandlerMethod getHandlerInternal(HttpServletRequest request) throws Exception {
 		String lookupPath = getUrlPathHelper().getLookupPathForRequest(request);
-		this.mappingRegistry.acquireReadLock();
-		try {
-			HandlerMethod handlerMethod = lookupHandlerMethod(lookupPath, request);
-			return (handlerMethod != null ? handlerMethod.createWithResolvedBean() : null);
-		}
-		finally {
-			this.mappingRegistry.releaseReadLock();
-		}
+		HandlerMethod handlerMethod = lookupHandlerMethod(lookupPath, request);
+		return (handlerMethod != null ? handlerMethod.createWithResolvedBean() : null);
 	}
 
 	/**
@@ -382,14 +402,17 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	 */
 	@Nullable
 	protected HandlerMethod lookupHandlerMethod(String lookupPath, HttpServletRequest request) throws Exception {
+		MappingSnapshot<T> snapshot = this.mappingRegistry.getSnapshot();
 		List<Match> matches = new ArrayList<>();
-		List<T> directPathMatches = this.mappingRegistry.getMappingsByUrl(lookupPath);
+		List<T> directPathMatches = snapshot.getMappingsByUrl(lookupPath);
 		if (directPathMatches != null) {
-			addMatchingMappings(directPathMatches, matches, request);
+			addMatchingMappings(directPathMatches, matches, snapshot, request);
 		}
+		Set<T> candidateMappings = snapshot.getMappings().keySet();
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...
-			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			// No choice but to go through all (candidate) mappings...
+			candidateMappings = snapshot.getCandidateMappings(lookupPath);
+			addMatchingMappings(candidateMappings, matches, snapshot, request);
 		}
 
 		if (!matches.isEmpty()) {
@@ -417,15 +440,17 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return bestMatch.handlerMethod;
 		}
 		else {
-			return handleNoMatch(this.mappingRegistry.getMappings().keySet(), lookupPath, request);
+			return handleNoMatch(candidateMappings, lookupPath, request);
 		}
 	}
 
-	private void addMatchingMappings(Collection<T> mappings, List<Match> matches, HttpServletRequest request) {
+	private void addMatchingMappings(Collection<T> mappings, List<Match> matches,
+			MappingSnapshot<T> snapshot, HttpServletRequest request) {
+
 		for (T mapping : mappings) {
 			T match = getMatchingMapping(mapping, request);
 			if (match != null) {
-				matches.add(new Match(match, this.mappingRegistry.getMappings().get(mapping)));
+				matches.add(new Match(match, snapshot.getMappings().get(mapping)));
 			}
 		}
 	}
@@ -442,7 +467,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 	/**
 	 * Invoked when no matching mapping is not found.
-	 * @param mappings all registered mappings
+	 * @param mappings all registered mappings, or only the candidates for the
+	 * lookup path if {@link #setUsePathSegmentIndex path segment indexing} is on
 	 * @param lookupPath mapping lookup path within the current servlet mapping
 	 * @param request the current request
 	 * @throws ServletException in case of errors
@@ -518,6 +544,10 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	/**
 	 * A registry that maintains all mappings to handler methods, exposing methods
 	 * to perform lookups and providing concurrent access.
+	 * <p>Registrations are serialized through a lock, while lookups are served
+	 * without locking from an immutable {@link MappingSnapshot}. The snapshot is
+	 * discarded on every change and rebuilt lazily on the next lookup, so that
+	 * the many registrations at startup do not each pay for a copy.
 	 * <p>Package-private for testing purposes.
 	 */
 	class MappingRegistry {
@@ -526,29 +556,91 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final Map<T, HandlerMethod> mappingLookup = new LinkedHashMap<>();
 
-		private final MultiValueMap<String, T> urlLookup = new LinkedMultiValueMap<>();
+		private final LinkedMultiValueMap<String, T> urlLookup = new LinkedMultiValueMap<>();
 
 		private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
 
-		private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+		private final ReentrantLock lock = new ReentrantLock();
+
+		@Nullable
+		private volatile MappingSnapshot<T> snapshot;
+
+		/**
+		 * Return the current snapshot of all registrations, building it first
+		 * if it was discarded by a change since the last lookup.
+		 * Thread-safe for concurrent use.
+		 */
+		public MappingSnapshot<T> getSnapshot() {
+			MappingSnapshot<T> snapshot = this.snapshot;
+			if (snapshot == null) {
+				this.lock.lock();
+				try {
+					snapshot = this.snapshot;
+					if (snapshot == null) {
+						snapshot = createSnapshot();
+						this.snapshot = snapshot;
+					}
+				}
+				finally {
+					this.lock.unlock();
+				}
+			}
+			return snapshot;
+		}
+
+		/**
+		 * Discard the current snapshot, if any, so that the next lookup
+		 * rebuilds it with the current settings.
+		 */
+		public void discardSnapshot() {
+			this.lock.lock();
+			try {
+				this.snapshot = null;
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		private MappingSnapshot<T> createSnapshot() {
+			PathSegmentIndex<T> pathSegmentIndex = null;
+			if (usePathSegmentIndex()) {
+				pathSegmentIndex = new PathSegmentIndex<>(getPathMatcher());
+				for (T mapping : this.mappingLookup.keySet()) {
+					pathSegmentIndex.add(mapping, getMappingPathPatterns(mapping));
+				}
+			}
+			return new MappingSnapshot<>(new LinkedHashMap<>(this.mappingLookup),
+					this.urlLookup.deepCopy(), pathSegmentIndex);
+		}
 
 		/**
-		 * Return all mappings and handler methods. Not thread-safe.
-		 * @see #acquireReadLock()
+		 * Return all mappings and handler methods. Thread-safe for concurrent use.
+		 * @see #getSnapshot()
 		 */
 		public Map<T, HandlerMethod> getMappings() {
-			return this.mappingLookup;
+			return getSnapshot().getMappings();
 		}
 
 		/**
-		 * Return matches for the given URL path. Not thread-safe.
-		 * @see #acquireReadLock()
+		 * Return matches for the given URL path. Thread-safe for concurrent use.
+		 * @see #getSnapshot()
 		 */
 		@Nullable
 		public List<T> getMappingsByUrl(String urlPath) {
-			return this.urlLookup.get(urlPath);
+			return getSnapshot().getMappingsByUrl(urlPath);
+		}
+
+		/**
+		 * Return the mappings that could possibly match the given URL path.
+		 * Thread-safe for concurrent use.
+		 * @see #getSnapshot()
+		 * @see #setUsePathSegmentIndex
+		 */
+		public Set<T> getCandidateMappings(String urlPath) {
+			return getSnapshot().getCandidateMappings(urlPath);
 		}
 
 		/**
@@ -566,22 +658,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.corsLookup.get(original != null ? original : handlerMethod);
 		}
 
-		/**
-		 * Acquire the read lock when using getMappings and getMappingsByUrl.
-		 */
-		public void acquireReadLock() {
-			this.readWriteLock.readLock().lock();
-		}
-
-		/**
-		 * Release the read lock after using getMappings and getMappingsByUrl.
-		 */
-		public void releaseReadLock() {
-			this.readWriteLock.readLock().unlock();
-		}
-
 		public void register(T mapping, Object handler, Method method) {
-			this.readWriteLock.writeLock().lock();
+			this.lock.lock();
 			try {
 				HandlerMethod handlerMethod = createHandlerMethod(handler, method);
 				assertUniqueMethodMapping(handlerMethod, mapping);
@@ -604,9 +682,10 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				}
 
 				this.registry.put(mapping, new MappingRegistration<>(mapping, handlerMethod, directUrls, name));
+				this.snapshot = null;
 			}
 			finally {
-				this.readWriteLock.writeLock().unlock();
+				this.lock.unlock();
 			}
 		}
 
@@ -649,7 +728,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		}
 
 		public void unregister(T mapping) {
-			this.readWriteLock.writeLock().lock();
+			this.lock.lock();
 			try {
 				MappingRegistration<T> definition = this.registry.remove(mapping);
 				if (definition == null) {
@@ -671,9 +750,10 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				removeMappingName(definition);
 
 				this.corsLookup.remove(definition.getHandlerMethod());
+				this.snapshot = null;
 			}
 			finally {
-				this.readWriteLock.writeLock().unlock();
+				this.lock.unlock();
 			}
 		}
 
@@ -702,6 +782,55 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	}
 
 
+	/**
+	 * An immutable copy of the mappings held by a {@link MappingRegistry},
+	 * safe for lock-free reads by any number of concurrent lookups.
+	 * @param <T> the mapping type
+	 */
+	static class MappingSnapshot<T> {
+
+		private final Map<T, HandlerMethod> mappings;
+
+		private final MultiValueMap<String, T> urlLookup;
+
+		@Nullable
+		private final PathSegmentIndex<T> pathSegmentIndex;
+
+		MappingSnapshot(Map<T, HandlerMethod> mappings, MultiValueMap<String, T> urlLookup,
+				@Nullable PathSegmentIndex<T> pathSegmentIndex) {
+
+			this.mappings = Collections.unmodifiableMap(mappings);
+			this.urlLookup = urlLookup;
+			this.pathSegmentIndex = pathSegmentIndex;
+		}
+
+		/**
+		 * Return all mappings and handler methods, in registration order.
+		 */
+		public Map<T, HandlerMethod> getMappings() {
+			return this.mappings;
+		}
+
+		/**
+		 * Return matches for the given URL path.
+		 */
+		@Nullable
+		public List<T> getMappingsByUrl(String urlPath) {
+			return this.urlLookup.get(urlPath);
+		}
+
+		/**
+		 * Return the mappings that could possibly match the given URL path:
+		 * either the candidates from the path segment index, if enabled,
+		 * or all mappings otherwise.
+		 */
+		public Set<T> getCandidateMappings(String urlPath) {
+			return (this.pathSegmentIndex != null ?
+					this.pathSegmentIndex.getCandidates(urlPath) : this.mappings.keySet());
+		}
+	}
+
+
 	private static class MappingRegistration<T> {
 
 		private final T mapping;
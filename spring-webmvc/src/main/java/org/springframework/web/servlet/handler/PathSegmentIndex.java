@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.web.servlet.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * A trie of mappings keyed by the leading literal segments of their URL path
+ * patterns, used to narrow down the candidate mappings for a lookup path
+ * without having to evaluate every registered pattern.
+ *
+ * <p>A pattern such as {@code "/orders/{id}/items"} is indexed under
+ * {@code "orders"}, and {@code "/api/v1/orders"} under {@code "api/v1"}: the
+ * last segment is never indexed since suffix pattern matching may extend it
+ * (e.g. {@code "/api/v1/orders.json"}). Mappings without any pattern, or with
+ * a pattern starting with a wildcard, are kept at the root and are candidates
+ * for every lookup path.
+ *
+ * <p>Segments are compared case-insensitively and with surrounding whitespace
+ * trimmed, so that the candidates are a superset of the actual matches for any
+ * {@link org.springframework.util.AntPathMatcher} configuration using "/" as
+ * path separator. Not thread-safe for modification: an index is populated
+ * once and then only read from.
+ *
+ * @author Spring Framework Team
+ * @since 5.1.14
+ * @param <T> the mapping type
+ * @see AbstractHandlerMethodMapping#setUsePathSegmentIndex
+ */
+class PathSegmentIndex<T> {
+
+	private static final String PATH_SEPARATOR = "/";
+
+
+	private final PathMatcher pathMatcher;
+
+	private final Node<T> root = new Node<>();
+
+
+	/**
+	 * Create a new index.
+	 * @param pathMatcher the matcher used to determine which pattern segments
+	 * are literal
+	 */
+	public PathSegmentIndex(PathMatcher pathMatcher) {
+		this.pathMatcher = pathMatcher;
+	}
+
+
+	/**
+	 * Add the given mapping under each of its path patterns.
+	 */
+	public void add(T mapping, Collection<String> patterns) {
+		if (patterns.isEmpty()) {
+			this.root.mappings.add(mapping);
+			return;
+		}
+		for (String pattern : patterns) {
+			Node<T> node = this.root;
+			for (String segment : getLiteralPrefix(pattern)) {
+				node = node.children.computeIfAbsent(segment, key -> new Node<>());
+			}
+			node.mappings.add(mapping);
+		}
+	}
+
+	/**
+	 * Return the mappings that could possibly match the given lookup path,
+	 * in no particular order.
+	 */
+	public Set<T> getCandidates(String lookupPath) {
+		Set<T> candidates = new LinkedHashSet<>();
+		Node<T> node = this.root;
+		int start = 0;
+		int length = lookupPath.length();
+		while (node != null) {
+			candidates.addAll(node.mappings);
+			String segment = null;
+			while (segment == null && start < length && !node.children.isEmpty()) {
+				int end = lookupPath.indexOf(PATH_SEPARATOR, start);
+				if (end == -1) {
+					end = length;
+				}
+				segment = normalize(lookupPath.substring(start, end));
+				start = end + 1;
+				if (segment.isEmpty()) {
+					segment = null;
+				}
+			}
+			node = (segment != null ? node.children.get(segment) : null);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Return the literal segments of the given pattern that precede the first
+	 * segment containing a wildcard or URI variable, excluding the last segment.
+	 */
+	private List<String> getLiteralPrefix(String pattern) {
+		List<String> prefix = new ArrayList<>();
+		String[] segments = StringUtils.tokenizeToStringArray(pattern, PATH_SEPARATOR, false, true);
+		for (int i = 0; i < segments.length - 1; i++) {
+			if (this.pathMatcher.isPattern(segments[i])) {
+				break;
+			}
+			String segment = normalize(segments[i]);
+			if (!segment.isEmpty()) {
+				prefix.add(segment);
+			}
+		}
+		return prefix;
+	}
+
+	private static String normalize(String segment) {
+		return segment.trim().toLowerCase(Locale.ROOT);
+	}
+
+
+	private static class Node<T> {
+
+		final Map<String, Node<T>> children = new HashMap<>(4);
+
+		final Set<T> mappings = new LinkedHashSet<>(2);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,9 +17,12 @@
 package org.springframework.web.servlet.handler;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
@@ -42,6 +45,8 @@ import org.springframework.web.util.UrlPathHelper;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 
 /**
@@ -99,6 +104,48 @@ public class HandlerMethodMappingTests {
 		assertEquals(result, request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
 	}
 
+	@Test
+	public void patternMatchWithPathSegmentIndex() throws Exception {
+		AbstractHandlerMethodMapping<String> mapping = new PatternAwareHandlerMethodMapping();
+		mapping.setUsePathSegmentIndex(true);
+		mapping.registerMapping("/foo/{id}", this.handler, this.method1);
+		mapping.registerMapping("/bar/{id}", this.handler, this.method2);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bar/1");
+		HandlerMethod result = mapping.getHandlerInternal(request);
+		assertEquals(method2, result.getMethod());
+		assertEquals(Collections.singleton("/bar/{id}"), mapping.getMappingRegistry().getCandidateMappings("/bar/1"));
+
+		mapping.unregisterMapping("/bar/{id}");
+		assertNull(mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/bar/1")));
+		assertTrue(mapping.getMappingRegistry().getCandidateMappings("/bar/1").isEmpty());
+	}
+
+	@Test
+	public void pathSegmentIndexIncludesPreviousMappings() throws Exception {
+		AbstractHandlerMethodMapping<String> mapping = new PatternAwareHandlerMethodMapping();
+		mapping.registerMapping("/foo/{id}", this.handler, this.method1);
+		mapping.setUsePathSegmentIndex(true);
+		mapping.registerMapping("/bar/{id}", this.handler, this.method2);
+
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/foo/1"));
+		assertEquals(method1, result.getMethod());
+	}
+
+	@Test
+	public void pathSegmentIndexToggledAfterLookup() throws Exception {
+		AbstractHandlerMethodMapping<String> mapping = new PatternAwareHandlerMethodMapping();
+		mapping.registerMapping("/foo/{id}", this.handler, this.method1);
+		mapping.registerMapping("/bar/{id}", this.handler, this.method2);
+		assertEquals(2, mapping.getMappingRegistry().getCandidateMappings("/bar/1").size());
+
+		mapping.setUsePathSegmentIndex(true);
+		assertEquals(Collections.singleton("/bar/{id}"), mapping.getMappingRegistry().getCandidateMappings("/bar/1"));
+
+		mapping.setUsePathSegmentIndex(false);
+		assertEquals(2, mapping.getMappingRegistry().getCandidateMappings("/bar/1").size());
+	}
+
 	@Test(expected = IllegalStateException.class)
 	public void ambiguousMatch() throws Exception {
 		this.mapping.registerMapping("/f?o", this.handler, this.method1);
@@ -227,6 +274,22 @@ public class HandlerMethodMappingTests {
 		assertNull(this.mapping.getMappingRegistry().getCorsConfiguration(handlerMethod));
 	}
 
+	@Test
+	public void registrationReplacesSnapshot() throws Exception {
+		this.mapping.registerMapping("foo", this.handler, this.method1);
+		Map<String, HandlerMethod> handlerMethods = this.mapping.getHandlerMethods();
+		assertSame(this.mapping.getMappingRegistry().getSnapshot(), this.mapping.getMappingRegistry().getSnapshot());
+
+		this.mapping.registerMapping("bar", this.handler, this.method2);
+		assertEquals(Collections.singleton("foo"), handlerMethods.keySet());
+		assertEquals(Arrays.asList("foo", "bar"), new ArrayList<>(this.mapping.getHandlerMethods().keySet()));
+		assertNotNull(this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "bar")));
+
+		this.mapping.unregisterMapping("foo");
+		assertNull(this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "foo")));
+		assertEquals(Collections.singleton("bar"), this.mapping.getHandlerMethods().keySet());
+	}
+
 	@Test
 	public void getCorsConfigWithBeanNameHandler() throws Exception {
 
@@ -295,6 +358,14 @@ public class HandlerMethodMappingTests {
 
 	}
 
+	private static class PatternAwareHandlerMethodMapping extends MyHandlerMethodMapping {
+
+		@Override
+		protected Set<String> getMappingPathPatterns(String key) {
+			return Collections.singleton(key);
+		}
+	}
+
 	private static class SimpleMappingNamingStrategy implements HandlerMethodMappingNamingStrategy<String> {
 
 		@Override
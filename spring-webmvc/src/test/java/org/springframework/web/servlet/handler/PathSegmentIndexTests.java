@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.web.servlet.handler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import org.springframework.util.AntPathMatcher;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PathSegmentIndex}.
+ *
+ * @author Spring Framework Team
+ */
+public class PathSegmentIndexTests {
+
+	private final PathSegmentIndex<String> index = new PathSegmentIndex<>(new AntPathMatcher());
+
+
+	@Test
+	public void literalPrefix() {
+		this.index.add("orderItems", Collections.singleton("/orders/{id}/items"));
+		this.index.add("customers", Collections.singleton("/customers/{id}"));
+
+		assertEquals(Collections.singleton("orderItems"), this.index.getCandidates("/orders/42/items"));
+		assertEquals(Collections.singleton("customers"), this.index.getCandidates("/customers/7"));
+		assertTrue(this.index.getCandidates("/products/1").isEmpty());
+	}
+
+	@Test
+	public void lastSegmentNotIndexed() {
+		this.index.add("orders", Collections.singleton("/api/v1/orders"));
+
+		assertEquals(Collections.singleton("orders"), this.index.getCandidates("/api/v1/orders.json"));
+		assertEquals(Collections.singleton("orders"), this.index.getCandidates("/api/v1/orders/"));
+		assertTrue(this.index.getCandidates("/api/v2/orders").isEmpty());
+	}
+
+	@Test
+	public void wildcardAndEmptyPatternsAtRoot() {
+		this.index.add("all", Collections.singleton("/**"));
+		this.index.add("none", Collections.emptySet());
+		this.index.add("prefixed", Collections.singleton("/api/*/orders"));
+
+		assertEquals(new HashSet<>(Arrays.asList("all", "none")), this.index.getCandidates("/other"));
+		assertEquals(new HashSet<>(Arrays.asList("all", "none", "prefixed")),
+				this.index.getCandidates("/api/v1/orders"));
+	}
+
+	@Test
+	public void multiplePatterns() {
+		this.index.add("multi", Arrays.asList("/a/b/{x}", "/c/{y}"));
+
+		assertEquals(Collections.singleton("multi"), this.index.getCandidates("/a/b/1"));
+		assertEquals(Collections.singleton("multi"), this.index.getCandidates("/c/2"));
+		assertTrue(this.index.getCandidates("/a/c/1").isEmpty());
+	}
+
+	@Test
+	public void caseInsensitiveAndEmptySegments() {
+		this.index.add("orders", Collections.singleton("/Orders/{id}"));
+
+		assertEquals(Collections.singleton("orders"), this.index.getCandidates("/orders/1"));
+		assertEquals(Collections.singleton("orders"), this.index.getCandidates("//ORDERS//1"));
+	}
+
+}